@@ -0,0 +1,91 @@
+package pjs.lifegame.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import pjs.lifegame.Grid;
+import pjs.lifegame.GridFactory;
+import pjs.lifegame.ParseUtil;
+import pjs.lifegame.SetupProperties;
+
+/**
+ * <h1>BenchmarkGrids</h1>
+ * Creates the properties and grids used by the benchmarks, without any files.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class BenchmarkGrids {
+
+	/**
+	 * Sets the game properties from a rule set.
+	 * Values are separated by "-" instead of ",", as JMH splits parameters on commas.
+	 * @param rules		Rules as "stay.live/dead.live", i.e. "2-3/3" for Conway's Game of Life.
+	 */
+	public static void setRules(String rules) {
+		String[] parts = rules.split("/");
+		Properties properties = new Properties();
+		properties.setProperty("stay.live", parts[0].replace('-', ','));
+		properties.setProperty("dead.live", parts[1].replace('-', ','));
+		SetupProperties.setProperties(properties);
+	}
+
+	/**
+	 * Parses a grid size parameter.
+	 * @param gridSize			Size of each dimension, i.e. "100x100".
+	 * @return List<Integer>	Dimension sizes.
+	 */
+	public static List<Integer> parseGridSize(String gridSize) {
+		return ParseUtil.convertStrListToIntList(Arrays.asList(gridSize.split("x")));
+	}
+
+	/**
+	 * Gets the total number of cells in a grid.
+	 * @param dimSizes		Dimension sizes.
+	 * @return long			Number of cells.
+	 */
+	public static long getCellCount(List<Integer> dimSizes) {
+		long cellCount = 1;
+		for (Integer dimSize : dimSizes) {
+			cellCount *= dimSize;
+		}
+		return cellCount;
+	}
+
+	/**
+	 * Creates a grid where each cell is live with the given probability.
+	 * The same seed always gives the same grid.
+	 * @param engine		Grid engine name.
+	 * @param dimSizes		Dimension sizes.
+	 * @param density		Probability of each cell being live.
+	 * @param seed			Seed for the random cells.
+	 * @return Grid			Created grid.
+	 */
+	public static Grid createRandomGrid(String engine, List<Integer> dimSizes, double density, long seed) {
+		Grid grid = new GridFactory().getGrid(engine, dimSizes);
+		Random random = new Random(seed);
+		long cellCount = getCellCount(dimSizes);
+
+		List<Integer> coordinate = new ArrayList<>();
+		for (int d = 0; d < dimSizes.size(); d++) {
+			coordinate.add(0);
+		}
+
+		for (long index = 0; index < cellCount; index++) {
+			if (random.nextDouble() < density) {
+				long remainder = index;
+				for (int d = 0; d < dimSizes.size(); d++) {
+					coordinate.set(d, (int) (remainder % dimSizes.get(d)));
+					remainder /= dimSizes.get(d);
+				}
+				grid.setCellValue(coordinate, true);
+			}
+		}
+		return grid;
+	}
+
+}
@@ -0,0 +1,98 @@
+package pjs.lifegame.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pjs.lifegame.Grid;
+import pjs.lifegame.GridFactory;
+
+/**
+ * <h1>GridBenchmark</h1>
+ * Measures advanceGeneration for every grid engine, for 1 to 10 dimensions, with different
+ * live cell densities and rules.
+ *
+ * The score is generations per second, and the "cells" counter is cells per second.
+ * Run with -prof gc to also get the allocation rate.
+ * The grid is created again for each iteration, so every iteration starts from the same cells.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridBenchmark {
+
+	@Param({"tree", "packed", "sparse", "incremental", "offheap", "tiled"})
+	public String engine;
+
+	// One grid for each number of dimensions from 1 to 10
+	@Param({"4096", "128x128", "32x32x32", "12x12x12x12", "7x7x7x7x7", "5x5x5x5x5x5",
+			"4x4x4x4x4x4x4", "3x3x3x3x3x3x3x3", "3x3x3x3x3x3x3x3x3", "3x3x3x3x3x3x3x3x3x3"})
+	public String gridSize;
+
+	@Param({"0.1", "0.35"})
+	public double density;
+
+	// stay.live/dead.live: Conway's Game of Life, then the rules in samples/1d, 3d and 4d.properties
+	@Param({"2-3/3", "1-2/2", "3-4/2-3"})
+	public String rules;
+
+	private Grid grid;
+	private long cellCount;
+
+	/**
+	 * Counts the cells advanced, reported by JMH as cells per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class CellCounter {
+		public long cells;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.cells = 0;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		BenchmarkGrids.setRules(this.rules);
+		List<Integer> dimSizes = BenchmarkGrids.parseGridSize(this.gridSize);
+		this.cellCount = BenchmarkGrids.getCellCount(dimSizes);
+		this.grid = BenchmarkGrids.createRandomGrid(this.engine, dimSizes, this.density, 2018);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		// Off-heap memory and tile files are not freed by the garbage collector between iterations
+		GridFactory.release(this.grid);
+	}
+
+	@Benchmark
+	public Grid advanceGeneration(CellCounter counter) {
+		this.grid.advanceGeneration();
+		counter.cells += this.cellCount;
+		return this.grid;
+	}
+
+}
@@ -0,0 +1,66 @@
+package pjs.lifegame.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pjs.lifegame.HashLifeGrid;
+
+/**
+ * <h1>HashLifeBenchmark</h1>
+ * Measures the HashLife engine, which is 2D only, advancing 2^k generations in one step.
+ * The grid is created again for each step, so the node cache starts empty every time.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashLifeBenchmark {
+
+	@Param({"128x128", "1024x1024"})
+	public String gridSize;
+
+	@Param({"0.1", "0.35"})
+	public double density;
+
+	@Param({"2-3/3"})
+	public String rules;
+
+	// Log base 2 of the number of generations
+	@Param({"0", "10", "20"})
+	public int log2Generations;
+
+	private HashLifeGrid grid;
+
+	@Setup(Level.Invocation)
+	public void setUp() {
+		BenchmarkGrids.setRules(this.rules);
+		List<Integer> dimSizes = BenchmarkGrids.parseGridSize(this.gridSize);
+		this.grid = (HashLifeGrid) BenchmarkGrids.createRandomGrid("hashlife", dimSizes, this.density, 2018);
+	}
+
+	@Benchmark
+	public HashLifeGrid advancePowerOfTwo() {
+		this.grid.advancePowerOfTwo(this.log2Generations);
+		return this.grid;
+	}
+
+}
@@ -0,0 +1,73 @@
+package pjs.lifegame.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pjs.lifegame.Grid;
+import pjs.lifegame.GridFactory;
+import pjs.lifegame.SetupProperties;
+
+/**
+ * <h1>KernelBenchmark</h1>
+ * Measures advanceGeneration of the packed engine with the scalar loop and with the Vector API
+ * kernel (the grid.kernel property), for 2D and 3D grids.
+ *
+ * The vector kernel is only used when the benchmarks are built on Java 17 or later and the forks
+ * have the module added, i.e.
+ * java -jar target/benchmarks.jar KernelBenchmark -jvmArgsAppend "--add-modules=jdk.incubator.vector"
+ * Otherwise both kernels run the scalar loop.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KernelBenchmark {
+
+	@Param({"scalar", "vector"})
+	public String kernel;
+
+	@Param({"128x128", "1024x1024", "32x32x32", "100x100x100"})
+	public String gridSize;
+
+	@Param({"0.35"})
+	public double density;
+
+	@Param({"2-3/3", "3-4/2-3"})
+	public String rules;
+
+	private Grid grid;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		BenchmarkGrids.setRules(this.rules);
+		SetupProperties.setProperty("grid.kernel", this.kernel);
+		List<Integer> dimSizes = BenchmarkGrids.parseGridSize(this.gridSize);
+		this.grid = BenchmarkGrids.createRandomGrid(GridFactory.PACKED_ENGINE, dimSizes, this.density, 2018);
+	}
+
+	@Benchmark
+	public Grid advanceGeneration() {
+		this.grid.advanceGeneration();
+		return this.grid;
+	}
+
+}
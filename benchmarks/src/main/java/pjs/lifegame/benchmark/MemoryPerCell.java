@@ -0,0 +1,70 @@
+package pjs.lifegame.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import pjs.lifegame.Grid;
+import pjs.lifegame.GridFactory;
+import pjs.lifegame.OffHeapGrid;
+import pjs.lifegame.TiledGrid;
+
+/**
+ * <h1>MemoryPerCell</h1>
+ * Prints the heap memory used by each grid engine, in bytes per cell, for 1 to 10 dimensions.
+ * Measures everything the grid references (cells, sub-grids, lists, hash tables) with JOL.
+ * The memory of the off-heap grid and the tile file of the tiled grid are shown in their own column, as JOL cannot see them.
+ * Run with: java -Djdk.attach.allowAttachSelf -cp target/benchmarks.jar pjs.lifegame.benchmark.MemoryPerCell
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class MemoryPerCell {
+
+	public static void main(String[] args) {
+		String[] engines = {"tree", "packed", "sparse", "incremental", "offheap", "tiled"};
+		String[] gridSizes = {"4096", "128x128", "32x32x32", "12x12x12x12", "7x7x7x7x7", "5x5x5x5x5x5",
+				"4x4x4x4x4x4x4", "3x3x3x3x3x3x3x3", "3x3x3x3x3x3x3x3x3", "3x3x3x3x3x3x3x3x3x3"};
+		double density = 0.1;
+		BenchmarkGrids.setRules("2-3/3");
+
+		System.out.printf("%-22s %-12s %12s %14s %18s%n", "grid.size", "engine", "cells", "bytes/cell", "outside heap/cell");
+		for (String gridSize : gridSizes) {
+			List<Integer> dimSizes = BenchmarkGrids.parseGridSize(gridSize);
+			long cellCount = BenchmarkGrids.getCellCount(dimSizes);
+			for (String engine : engines) {
+				Grid grid = BenchmarkGrids.createRandomGrid(engine, dimSizes, density, 2018);
+				// Advance once so lazily created buffers are included
+				grid.advanceGeneration();
+				long bytes = GraphLayout.parseInstance(grid).totalSize();
+				long outsideBytes = getOutsideHeapBytes(grid);
+				System.out.printf("%-22s %-12s %12d %14.3f %18.3f%n", gridSize, engine, cellCount, (double) bytes / cellCount,
+						(double) outsideBytes / cellCount);
+				GridFactory.release(grid);
+			}
+		}
+	}
+
+	/**
+	 * Gets the memory a grid uses outside of the heap, and the size of the file of a tiled grid.
+	 * @param grid		Grid to measure.
+	 * @return long		Number of bytes, 0 for the engines that only use the heap.
+	 */
+	private static long getOutsideHeapBytes(Grid grid) {
+		if (grid instanceof OffHeapGrid) {
+			return ((OffHeapGrid) grid).getOffHeapBytes();
+		}
+		if (grid instanceof TiledGrid) {
+			try {
+				return Files.size(((TiledGrid) grid).getFile());
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read the size of the tile file: " + e.getMessage(), e);
+			}
+		}
+		return 0;
+	}
+
+}
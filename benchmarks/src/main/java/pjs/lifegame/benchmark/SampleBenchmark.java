@@ -0,0 +1,96 @@
+package pjs.lifegame.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pjs.lifegame.Grid;
+import pjs.lifegame.GridFactory;
+import pjs.lifegame.ParseUtil;
+import pjs.lifegame.SetupProperties;
+
+/**
+ * <h1>SampleBenchmark</h1>
+ * Measures advanceGeneration for every grid engine using the sample properties and grid files,
+ * exactly as GameApp would run them. The samples folder defaults to ../samples (running from
+ * the benchmarks folder), set the system property samples.dir to change it.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleBenchmark {
+
+	@Param({"tree", "packed", "sparse", "incremental", "offheap", "tiled"})
+	public String engine;
+
+	@Param({"1d", "3d", "4d"})
+	public String sample;
+
+	private Grid grid;
+
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException {
+		String samplesDir = System.getProperty("samples.dir", "../samples");
+		SetupProperties.setPropertiesLocation(samplesDir + "/" + this.sample + ".properties");
+		SetupProperties.initProperties();
+
+		this.grid = new GridFactory().getGrid(this.engine, SetupProperties.getIntListProperty("grid.size"));
+		this.grid.setCellValues(readGridFile(samplesDir + "/" + this.sample + ".grid"), true);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		// Off-heap memory and tile files are not freed by the garbage collector between iterations
+		GridFactory.release(this.grid);
+	}
+
+	/**
+	 * Reads the coordinates of the live cells from a grid file.
+	 * @param gridFileLocation				Location of the grid file.
+	 * @return List<List<Integer>>			Coordinates of the live cells.
+	 */
+	private static List<List<Integer>> readGridFile(String gridFileLocation) throws IOException {
+		List<List<Integer>> coordinates = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(gridFileLocation))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String noWhiteSpace = line.replaceAll("\\s+", "");
+				if (noWhiteSpace.length() > 0 && noWhiteSpace.charAt(0) != '#') {
+					coordinates.add(ParseUtil.convertStrListToIntList(Arrays.asList(noWhiteSpace.split(","))));
+				}
+			}
+		}
+		return coordinates;
+	}
+
+	@Benchmark
+	public Grid advanceGeneration() {
+		this.grid.advanceGeneration();
+		return this.grid;
+	}
+
+}
@@ -0,0 +1,179 @@
+package pjs.lifegame;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+/**
+ * <h1>BatchRun</h1>
+ * One simulation in a batch: a properties file and an initial grid file, run the same way as GameApp
+ * but without showing the grids. After run, holds the summary of the run: the final population, the
+ * number of generations, the wall time and the cycle found, or the error if the run failed.
+ *
+ * The properties are loaded for this run only (see SetupProperties.runWith), so runs with different
+ * properties can be run at the same time. The checkpoint properties are not used in a batch.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class BatchRun {
+
+	private final String propertiesLocation;
+	private final String gridLocation;
+
+	private boolean finished = false;
+	private long population = -1;
+	private int generations = -1;
+	private int generationsRun = -1;
+	private long wallTimeNanos = 0;
+	private Cycle cycle = null;
+	private String error = null;
+
+	/**
+	 * @param propertiesLocation	Location of the properties file.
+	 * @param gridLocation			Location of the initial grid file, in any PatternFile format (from its extension).
+	 */
+	public BatchRun(String propertiesLocation, String gridLocation) {
+		this.propertiesLocation = propertiesLocation;
+		this.gridLocation = gridLocation;
+	}
+
+	/**
+	 * Runs the simulation, and keeps the summary. Any error is kept instead of thrown, so one run
+	 * failing does not stop the rest of the batch.
+	 */
+	public void run() {
+		long start = System.nanoTime();
+		try {
+			Properties props = SetupProperties.loadProperties(this.propertiesLocation);
+			SetupProperties.runWith(props, this.propertiesLocation, new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					simulate();
+					return null;
+				}
+			});
+		} catch (Exception e) {
+			// The messages of the exceptions thrown by the game describe the problem, others need their type
+			this.error = (e instanceof RuntimeException && e.getMessage() != null) ? e.getMessage() : e.toString();
+		}
+		this.wallTimeNanos = System.nanoTime() - start;
+		this.finished = true;
+	}
+
+	/**
+	 * Creates the grid from the properties and the initial grid file, and advances it.
+	 * @throws Exception	If the files cannot be read or the properties are not valid.
+	 */
+	private void simulate() throws Exception {
+		String engine = SetupProperties.getProperty("grid.engine", GridFactory.TREE_ENGINE);
+		GridFactory gridFactory = new GridFactory();
+		List<Integer> dimensions = SetupProperties.getIntListProperty("grid.size");
+		gridFactory.checkDimensions(engine, dimensions);
+
+		Grid grid = gridFactory.getGrid(engine, dimensions);
+		try {
+			grid.setLiveCells(PatternFile.read(Paths.get(this.gridLocation), PatternFile.getFormat(this.gridLocation), dimensions));
+			grid.setThreads(SetupProperties.getIntProperty("threads", 1));
+
+			int generations = SetupProperties.getIntProperty("generations");
+			int maxGenerations = gridFactory.getMaxGenerations(engine);
+			if (generations < 1 || generations > maxGenerations) {
+				throw new RuntimeException("Generations property is outside the range of 1 to " + maxGenerations);
+			}
+
+			Cycle cycle = grid.advanceGenerations(generations, false, SetupProperties.getIntProperty("cycle.max.period", 0));
+			this.generations = generations;
+			this.cycle = cycle;
+			if (cycle == null) {
+				this.generationsRun = generations;
+			} else {
+				// Generations advanced before the cycle was found, and to end on the same state as all of them
+				this.generationsRun = cycle.getFoundGeneration() + (generations - cycle.getFoundGeneration()) % cycle.getPeriod();
+			}
+			this.population = grid.getLiveCellCount();
+		} finally {
+			// Off-heap memory and tile files are not freed by the garbage collector, and the JVM keeps running the batch
+			GridFactory.release(grid);
+		}
+	}
+
+	/**
+	 * @return String		Location of the properties file.
+	 */
+	public String getPropertiesLocation() {
+		return this.propertiesLocation;
+	}
+
+	/**
+	 * @return String		Location of the initial grid file.
+	 */
+	public String getGridLocation() {
+		return this.gridLocation;
+	}
+
+	/**
+	 * @return boolean		True once run has finished, with or without an error.
+	 */
+	public boolean isFinished() {
+		return this.finished;
+	}
+
+	/**
+	 * @return boolean		True if the run finished without an error.
+	 */
+	public boolean isSuccessful() {
+		return this.finished && this.error == null;
+	}
+
+	/**
+	 * Getter for the number of live cells after the last generation.
+	 * @return long			Final population, or -1 if the run failed.
+	 */
+	public long getPopulation() {
+		return this.population;
+	}
+
+	/**
+	 * Getter for the generations property of the run.
+	 * @return int			Number of generations, or -1 if the run failed.
+	 */
+	public int getGenerations() {
+		return this.generations;
+	}
+
+	/**
+	 * Getter for the number of generations that were actually advanced, less than the generations
+	 * property if a cycle was found.
+	 * @return int			Number of generations advanced, or -1 if the run failed.
+	 */
+	public int getGenerationsRun() {
+		return this.generationsRun;
+	}
+
+	/**
+	 * Getter for the time the run took, including reading the files.
+	 * @return long			Wall time in nanoseconds.
+	 */
+	public long getWallTimeNanos() {
+		return this.wallTimeNanos;
+	}
+
+	/**
+	 * Getter for the cycle found with the cycle.max.period property.
+	 * @return Cycle		Cycle the grid was found in, or null if none was found.
+	 */
+	public Cycle getCycle() {
+		return this.cycle;
+	}
+
+	/**
+	 * @return String		Message of the error that stopped the run, or null if there was none.
+	 */
+	public String getError() {
+		return this.error;
+	}
+
+}
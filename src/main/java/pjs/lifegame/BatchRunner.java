@@ -0,0 +1,257 @@
+package pjs.lifegame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <h1>BatchRunner</h1>
+ * Runs many simulations in one JVM, from a manifest of properties and initial grid file pairs.
+ * Each line of the manifest is one run: the properties file location, a comma, then the initial grid
+ * file location, i.e. "glider.properties, glider.rle". Lines starting with # and blank lines are skipped,
+ * and relative locations are from the directory of the manifest.
+ *
+ * The runs are split between the threads of a fork-join pool, so an idle thread takes work from a busy
+ * one, and the JVM is only started (and the code only compiled) once for the whole batch. The summary
+ * of every run is written as CSV or JSON, in the order of the manifest.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class BatchRunner {
+
+	/** Summary format with one line of comma separated values for each run. */
+	public static final String CSV_FORMAT = "csv";
+
+	/** Summary format with a JSON array of one object for each run. */
+	public static final String JSON_FORMAT = "json";
+
+	private static final String[] COLUMNS = {"properties", "grid", "status", "population", "generations",
+			"generations_run", "wall_time_ms", "cycle_period", "cycle_start", "error"};
+
+	private int parallelism;
+
+	/**
+	 * @param parallelism	Number of runs at the same time, i.e. the number of processors.
+	 */
+	public BatchRunner(int parallelism) {
+		if (parallelism < 1) {
+			throw new RuntimeException("Number of batch threads must be at least 1, it was: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Reads the runs from a manifest file.
+	 * @param manifest			Manifest file, with a properties and initial grid file location on each line.
+	 * @return List<BatchRun>	Runs in the order of the file, not run yet.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	public static List<BatchRun> readManifest(Path manifest) throws IOException {
+		Path directory = manifest.toAbsolutePath().getParent();
+		List<BatchRun> runs = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+			int lineNumber = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] locations = line.split(",");
+				if (locations.length != 2 || locations[0].trim().isEmpty() || locations[1].trim().isEmpty()) {
+					throw new RuntimeException("Line " + lineNumber + " of the manifest must be a properties file"
+							+ " and an initial grid file, separated by a comma. It was: " + line);
+				}
+				runs.add(new BatchRun(directory.resolve(locations[0].trim()).toString(),
+						directory.resolve(locations[1].trim()).toString()));
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * Runs every run, with up to parallelism runs at the same time. Returns when all have finished.
+	 * @param runs		Runs to run, each keeps its own summary.
+	 */
+	public void run(List<BatchRun> runs) {
+		if (runs.isEmpty()) {
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			pool.invoke(new RunTask(runs, 0, runs.size()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Gets the format of a summary file from its extension, JSON for .json and CSV for anything else.
+	 * @param location		Location of the summary file.
+	 * @return String		CSV_FORMAT or JSON_FORMAT.
+	 */
+	public static String getFormat(String location) {
+		return location.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON_FORMAT : CSV_FORMAT;
+	}
+
+	/**
+	 * Writes the summary of every run.
+	 * @param runs			Runs, after run.
+	 * @param writer		Writer for the summary.
+	 * @param format		CSV_FORMAT or JSON_FORMAT.
+	 * @throws IOException	If the summary cannot be written.
+	 */
+	public static void writeSummary(List<BatchRun> runs, Writer writer, String format) throws IOException {
+		if (CSV_FORMAT.equals(format)) {
+			writeCsv(runs, writer);
+		} else if (JSON_FORMAT.equals(format)) {
+			writeJson(runs, writer);
+		} else {
+			throw new RuntimeException("Summary format " + format + " is not valid. Must be one of: " + CSV_FORMAT
+					+ ", " + JSON_FORMAT);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Gets the summary values of a run, in the order of COLUMNS. Values that do not apply are null.
+	 * @param run			Run to summarize.
+	 * @return Object[]		Strings for the text values and Longs for the numbers.
+	 */
+	private static Object[] getValues(BatchRun run) {
+		Cycle cycle = run.getCycle();
+		boolean successful = run.isSuccessful();
+		return new Object[] {
+				run.getPropertiesLocation(),
+				run.getGridLocation(),
+				successful ? "ok" : (run.isFinished() ? "failed" : "not run"),
+				successful ? Long.valueOf(run.getPopulation()) : null,
+				successful ? Long.valueOf(run.getGenerations()) : null,
+				successful ? Long.valueOf(run.getGenerationsRun()) : null,
+				run.isFinished() ? Long.valueOf(run.getWallTimeNanos() / 1000000) : null,
+				(cycle != null) ? Long.valueOf(cycle.getPeriod()) : null,
+				(cycle != null) ? Long.valueOf(cycle.getStartGeneration()) : null,
+				run.getError()
+		};
+	}
+
+	/**
+	 * Writes a header line, then one line for each run. Values with a comma, quote or line break are quoted.
+	 * @param runs			Runs to summarize.
+	 * @param writer		Writer for the summary.
+	 * @throws IOException	If the summary cannot be written.
+	 */
+	private static void writeCsv(List<BatchRun> runs, Writer writer) throws IOException {
+		for (int c = 0; c < COLUMNS.length; c++) {
+			writer.write((c > 0 ? "," : "") + COLUMNS[c]);
+		}
+		writer.write(System.lineSeparator());
+
+		for (BatchRun run : runs) {
+			Object[] values = getValues(run);
+			for (int c = 0; c < values.length; c++) {
+				if (c > 0) {
+					writer.write(',');
+				}
+				if (values[c] instanceof String) {
+					String value = (String) values[c];
+					if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+						value = "\"" + value.replace("\"", "\"\"") + "\"";
+					}
+					writer.write(value);
+				} else if (values[c] != null) {
+					writer.write(values[c].toString());
+				}
+			}
+			writer.write(System.lineSeparator());
+		}
+	}
+
+	/**
+	 * Writes an array with one object for each run. Values that do not apply are null.
+	 * @param runs			Runs to summarize.
+	 * @param writer		Writer for the summary.
+	 * @throws IOException	If the summary cannot be written.
+	 */
+	private static void writeJson(List<BatchRun> runs, Writer writer) throws IOException {
+		writer.write("[");
+		for (int r = 0; r < runs.size(); r++) {
+			writer.write((r > 0 ? "," : "") + System.lineSeparator() + "  {");
+			Object[] values = getValues(runs.get(r));
+			for (int c = 0; c < values.length; c++) {
+				writer.write((c > 0 ? ", " : "") + "\"" + COLUMNS[c] + "\": ");
+				if (values[c] instanceof String) {
+					writeJsonString((String) values[c], writer);
+				} else {
+					writer.write(String.valueOf(values[c]));
+				}
+			}
+			writer.write("}");
+		}
+		writer.write(System.lineSeparator() + "]" + System.lineSeparator());
+	}
+
+	/**
+	 * Writes a JSON string, escaping quotes, backslashes and control characters.
+	 * @param value			String to write.
+	 * @param writer		Writer for the summary.
+	 * @throws IOException	If the summary cannot be written.
+	 */
+	private static void writeJsonString(String value, Writer writer) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			if (ch == '"' || ch == '\\') {
+				writer.write('\\');
+				writer.write(ch);
+			} else if (ch < 0x20) {
+				writer.write(String.format("\\u%04x", (int) ch));
+			} else {
+				writer.write(ch);
+			}
+		}
+		writer.write('"');
+	}
+
+	/**
+	 * Runs a range of the runs, split in half until there is one run in each task.
+	 * Idle threads in the pool take the halves that have not started yet.
+	 */
+	private static class RunTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<BatchRun> runs;
+		private final int start;
+		private final int end;
+
+		RunTask(List<BatchRun> runs, int start, int end) {
+			this.runs = runs;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start == 1) {
+				this.runs.get(this.start).run();
+				return;
+			}
+			int middle = (this.start + this.end) >>> 1;
+			invokeAll(new RunTask(this.runs, this.start, middle), new RunTask(this.runs, middle, this.end));
+		}
+
+	}
+
+}
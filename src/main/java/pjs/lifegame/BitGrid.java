@@ -0,0 +1,310 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>BitGrid</h1>
+ * Dense grid that stores the cell values as packed bits in index order, 64 cells in each long, so
+ * bit i of long w is the cell with index w*64 + i. The engines only store the longs, see getWord and
+ * putWord, and every way of reading, setting, displaying and advancing the cells is here.
+ *
+ * Neighbors are found by adding precomputed index offsets to the index of a cell, so
+ * stepping walks the bits in memory order. Only cells on the edge of the grid need to
+ * check which neighbors are on the grid.
+ *
+ * Advancing a generation is a single pass that reads the current cells, counts the neighbors
+ * and applies the rules, writing the next generation into a second set of longs. They are then
+ * swapped. The state hash and live cell count are updated from the bits that changed in each long.
+ *
+ * With grid.kernel=vector, grids of up to 4 dimensions are advanced by the Vector API kernel instead
+ * of the scalar loop, when it is available and the engine has each generation in one buffer (see StepKernel).
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public abstract class BitGrid extends DenseGrid {
+
+	protected long wordCount;
+
+	// Every neighbor position relative to a cell, as a coordinate offset and as an index offset.
+	protected int[][] neighborOffsets;
+	protected long[] neighborIndexOffsets;
+
+	// Kernel for the grid.kernel property, and the name it was created for.
+	private StepKernel kernel;
+	private String kernelName = StepKernel.SCALAR_KERNEL;
+
+	/**
+	 * Initializes the size of the grid and the neighbor offsets.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 * @param maxCells		Most cells the engine can store.
+	 * @param gridName		Name of the engine for errors, i.e. "a packed grid".
+	 */
+	protected BitGrid(List<Integer> dimSizes, long maxCells, String gridName) {
+		super(dimSizes, maxCells, gridName);
+		this.wordCount = (this.cellCount + 63) >>> 6;
+		this.createNeighborOffsets();
+	}
+
+	/**
+	 * Creates the offsets of all 3^N-1 neighbors of a cell, both as coordinates
+	 * (i.e. {-1,0,1}) and as the difference in linear index.
+	 */
+	private void createNeighborOffsets() {
+		int count = 1;
+		for (int i = 0; i < this.dimensions; i++) {
+			count *= 3;
+		}
+
+		this.neighborOffsets = new int[count-1][];
+		this.neighborIndexOffsets = new long[count-1];
+
+		int[] offset = new int[this.dimensions];
+		Arrays.fill(offset, -1);
+		int n = 0;
+		do {
+			long indexOffset = 0;
+			boolean isSelf = true;
+			for (int d = 0; d < this.dimensions; d++) {
+				indexOffset += offset[d] * this.strides[d];
+				isSelf &= (offset[d] == 0);
+			}
+
+			if (!isSelf) {
+				this.neighborOffsets[n] = offset.clone();
+				this.neighborIndexOffsets[n] = indexOffset;
+				n++;
+			}
+		} while (nextOffset(offset));
+	}
+
+	/**
+	 * Gets a long of cells of the current generation.
+	 * @param word		Position of the long.
+	 * @return long		64 cell values.
+	 */
+	protected abstract long getWord(long word);
+
+	/**
+	 * Sets a long of cells of the current generation, without changing the state hash.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	protected abstract void putWord(long word, long value);
+
+	/**
+	 * Sets a long of cells of the next generation.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	protected abstract void putNextWord(long word, long value);
+
+	/**
+	 * Makes the next generation the current one.
+	 */
+	protected abstract void swapCells();
+
+	/**
+	 * Gets the longs of a generation as one buffer, for a step kernel.
+	 * @param next			True for the next generation, false for the current one.
+	 * @return LongBuffer	Every long of the generation from index 0, or null if they are not in one buffer.
+	 */
+	protected abstract LongBuffer getCellBuffer(boolean next);
+
+	/**
+	 * Copies cell values into a buffer as bits, see Grid.getCellBits.
+	 * The cells are already stored in the same order, so the longs are copied directly.
+	 * @param firstWord 	Position of the first long to copy, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer for the bits.
+	 */
+	@Override
+	public void getCellBits(long firstWord, LongBuffer bits) {
+		for (long word = firstWord; bits.hasRemaining() && word < this.wordCount; word++) {
+			bits.put(this.getWord(word));
+		}
+	}
+
+	/**
+	 * Sets cell values from a buffer of bits, see Grid.setCellBits.
+	 * The longs are copied directly, updating the state hash from the bits that changed.
+	 * @param firstWord 	Position of the first long to set, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer of bits.
+	 */
+	@Override
+	public void setCellBits(long firstWord, LongBuffer bits) {
+		for (long word = firstWord; bits.hasRemaining() && word < this.wordCount; word++) {
+			long value = bits.get();
+			if (word == this.wordCount-1 && (this.cellCount & 63) != 0) {
+				// Ignore any bits past the last cell
+				value &= (1L << this.cellCount) - 1;
+			}
+			this.updateStateHash(word, this.getWord(word), value);
+			this.putWord(word, value);
+		}
+	}
+
+	/**
+	 * Gets the value of the cell at the index.
+	 * @param index			Index of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	protected boolean isLive(long index) {
+		return ((this.getWord(index >>> 6) >>> index) & 1L) != 0;
+	}
+
+	/**
+	 * Sets the value of the cell at the index.
+	 * @param index			Index of the cell.
+	 * @param value			New value of the cell.
+	 */
+	protected void setLive(long index, boolean value) {
+		long word = this.getWord(index >>> 6);
+		if ((((word >>> index) & 1L) != 0) == value) {
+			return;
+		}
+		this.updateStateHash(index, value);
+		this.putWord(index >>> 6, word ^ (1L << index));
+	}
+
+	/**
+	 * Gets the value of the cell with the index, see Grid.getCellValue.
+	 * @param index			Index of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		return this.isLive(this.getIndexOnGrid(index));
+	}
+
+	/**
+	 * Sets the value of the cell with the index, see Grid.setCellValue.
+	 * @param index			Index of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		this.setCellAtIndex(this.getIndexOnGrid(index), value);
+	}
+
+	/**
+	 * Sets the value of a cell that is known to be on the grid. Every way of setting a single cell
+	 * ends here, so an incremental grid can update the neighbor values around it.
+	 * @param index			Index of the cell.
+	 * @param value			New value for the cell.
+	 */
+	protected void setCellAtIndex(long index, boolean value) {
+		this.setLive(index, value);
+	}
+
+	/**
+	 * Counts the live neighbors of a cell, skipping any neighbors that are not on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param index			Index of the cell.
+	 * @return count		Number of live neighbors.
+	 */
+	private int countEdgeNeighbors(int[] coordinate, long index) {
+		int count = 0;
+		for (int n = 0; n < this.neighborOffsets.length; n++) {
+			int[] offset = this.neighborOffsets[n];
+			boolean onGrid = true;
+			for (int d = 0; d < this.dimensions && onGrid; d++) {
+				int coord = coordinate[d] + offset[d];
+				onGrid = (coord >= 0) && (coord < this.sizes[d]);
+			}
+			if (onGrid && this.isLive(index + this.neighborIndexOffsets[n])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Advances the grid one generation in a single pass. For every cell, counts the live neighbors
+	 * and applies the game rules, building the next generation 64 cells (one long) at a time with
+	 * putNextWord. Cells away from the edge of the grid use the index offsets directly, cells on the
+	 * edge check each neighbor is on the grid first. Then the generations are swapped.
+	 * If a step kernel is set with the grid.kernel property, it builds the next generation instead.
+	 * @param rules		Game rules compiled for this grid.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		StepKernel kernel = this.getKernel();
+		LongBuffer cells = (kernel != null) ? this.getCellBuffer(false) : null;
+		LongBuffer nextCells = (kernel != null) ? this.getCellBuffer(true) : null;
+		if (cells != null && nextCells != null) {
+			kernel.step(cells, nextCells, this.sizes, rules);
+			for (int word = 0; word < this.wordCount; word++) {
+				this.updateStateHash(word, cells.get(word), nextCells.get(word));
+			}
+			this.swapCells();
+			return;
+		}
+
+		int[] coordinate = new int[this.dimensions];
+		for (long word = 0; word < this.wordCount; word++) {
+			long nextWord = 0L;
+			int end = (int) Math.min(64, this.cellCount - (word << 6));
+			long index = word << 6;
+			for (int bit = 0; bit < end; bit++, index++) {
+				int count = 0;
+				if (this.isInterior(coordinate)) {
+					for (long offset : this.neighborIndexOffsets) {
+						if (this.isLive(index + offset)) count++;
+					}
+				} else {
+					count = this.countEdgeNeighbors(coordinate, index);
+				}
+
+				if (rules.isCellLive(this.isLive(index), count)) {
+					nextWord |= (1L << bit);
+				}
+
+				// Move to the coordinate of the next index
+				for (int d = 0; d < this.dimensions && ++coordinate[d] == this.sizes[d]; d++) {
+					coordinate[d] = 0;
+				}
+			}
+			this.putNextWord(word, nextWord);
+			this.updateStateHash(word, this.getWord(word), nextWord);
+		}
+
+		this.swapCells();
+	}
+
+	/**
+	 * Gets the kernel for the grid.kernel property, creating it again if the property has changed.
+	 * @return StepKernel	Kernel to advance the cells, or null to use the scalar loop.
+	 */
+	private StepKernel getKernel() {
+		String name = SetupProperties.getProperty("grid.kernel", StepKernel.SCALAR_KERNEL);
+		if (!name.equals(this.kernelName)) {
+			this.kernel = StepKernel.createKernel(name);
+			this.kernelName = name;
+		}
+		if (this.kernel != null && this.dimensions > this.kernel.getMaxDimensions()) {
+			return null;
+		}
+		return this.kernel;
+	}
+
+	/**
+	 * Gets the values of up to 8 cells in a row, which may be split over two longs.
+	 * @param index		Index of the first cell.
+	 * @param count		Number of cells, from 1 to 8.
+	 * @return int		Cell values, bit 0 is the first cell.
+	 */
+	@Override
+	protected int getBits(long index, int count) {
+		long word = index >>> 6;
+		int shift = (int) (index & 63);
+		long bits = this.getWord(word) >>> shift;
+		if (shift + count > 64) {
+			bits |= this.getWord(word+1) << (64 - shift);
+		}
+		return (int) bits & ((1 << count) - 1);
+	}
+
+}
@@ -0,0 +1,118 @@
+package pjs.lifegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <h1>Checkpointer</h1>
+ * Saves a snapshot of a grid every few generations while it advances, so a long run can be resumed.
+ * Add it to a grid with Grid.addGenerationListener.
+ *
+ * The cells are copied into the mapped snapshot file on the thread advancing the grid (a copy of the
+ * longs for a packed grid), so the grid stops advancing for the time of the copy, which grows with the
+ * number of cells. Only forcing the file to disk and moving it into place are on a background thread
+ * while the grid keeps advancing. If the last snapshot is still being written when the next one is due,
+ * the grid waits for it, as both use the same temporary file.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class Checkpointer implements GenerationListener, Closeable {
+
+	private Path file;
+	private int interval;
+	private long firstGeneration;
+
+	private ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "grid-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	private Future<?> pending = null;
+
+	/**
+	 * @param file				File to save the snapshots to, replaced by each snapshot.
+	 * @param interval			Number of generations between snapshots.
+	 * @param firstGeneration	Generation of the grid before it starts advancing, i.e. from a restored snapshot.
+	 */
+	public Checkpointer(Path file, int interval, long firstGeneration) {
+		if (interval < 1) {
+			throw new RuntimeException("Checkpoint interval must be at least 1, it was: " + interval);
+		}
+		this.file = file;
+		this.interval = interval;
+		this.firstGeneration = firstGeneration;
+	}
+
+	/**
+	 * Saves a snapshot if the generation is a multiple of the interval.
+	 * @param grid			Grid that advanced.
+	 * @param generation	Number of generations advanced so far.
+	 */
+	@Override
+	public void generationAdvanced(Grid grid, int generation) {
+		final long absoluteGeneration = this.firstGeneration + generation;
+		if (absoluteGeneration % this.interval != 0) {
+			return;
+		}
+
+		this.waitForPending();
+		final GridSnapshot snapshot;
+		try {
+			snapshot = GridSnapshot.capture(grid, absoluteGeneration, this.file);
+		} catch (IOException e) {
+			throw new RuntimeException("Checkpoint " + this.file + " could not be written: " + e.getMessage(), e);
+		}
+		this.pending = this.executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				snapshot.commit();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Waits for the last snapshot to be written.
+	 */
+	public void waitForPending() {
+		if (this.pending == null) {
+			return;
+		}
+
+		try {
+			this.pending.get();
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Checkpoint " + this.file + " could not be written: " + e.getCause().getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while writing checkpoint " + this.file);
+		} finally {
+			this.pending = null;
+		}
+	}
+
+	/**
+	 * Waits for the last snapshot to be written, then stops the background thread.
+	 */
+	@Override
+	public void close() {
+		try {
+			this.waitForPending();
+		} finally {
+			this.executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package pjs.lifegame;
+
+/**
+ * <h1>Cycle</h1>
+ * A repeating state found while advancing a grid. The grid is in the same state every
+ * period generations, starting at the start generation. A period of 1 is a still life,
+ * or an empty grid if no cells are live.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class Cycle {
+
+	private int startGeneration;
+	private int period;
+	private boolean extinct;
+
+	/**
+	 * @param startGeneration		First generation of the cycle.
+	 * @param period				Number of generations before the state repeats.
+	 * @param extinct				True if no cells are live.
+	 */
+	public Cycle(int startGeneration, int period, boolean extinct) {
+		this.startGeneration = startGeneration;
+		this.period = period;
+		this.extinct = extinct;
+	}
+
+	/**
+	 * Getter for the first generation of the cycle.
+	 * @return int		Generation where the cycle started.
+	 */
+	public int getStartGeneration() {
+		return this.startGeneration;
+	}
+
+	/**
+	 * Getter for the number of generations before the state repeats.
+	 * @return int		Period of the cycle.
+	 */
+	public int getPeriod() {
+		return this.period;
+	}
+
+	/**
+	 * Getter for the generation where the cycle was found, one period after the start.
+	 * An empty grid is found as soon as it is empty.
+	 * @return int		Generation where the cycle was found.
+	 */
+	public int getFoundGeneration() {
+		return this.extinct ? this.startGeneration : this.startGeneration + this.period;
+	}
+
+	/**
+	 * @return boolean		True if no cells are live.
+	 */
+	public boolean isExtinct() {
+		return this.extinct;
+	}
+
+	/**
+	 * @return boolean		True if the live cells never change.
+	 */
+	public boolean isStillLife() {
+		return !this.extinct && this.period == 1;
+	}
+
+	/**
+	 * Describes the cycle, i.e. "Oscillator with period 2 from generation 5".
+	 * @return String		Description of the cycle.
+	 */
+	@Override
+	public String toString() {
+		if (this.extinct) {
+			return "All cells dead from generation " + this.startGeneration;
+		} else if (this.period == 1) {
+			return "Still life from generation " + this.startGeneration;
+		}
+		return "Oscillator with period " + this.period + " from generation " + this.startGeneration;
+	}
+
+}
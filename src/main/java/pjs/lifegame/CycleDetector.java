@@ -0,0 +1,73 @@
+package pjs.lifegame;
+
+/**
+ * <h1>CycleDetector</h1>
+ * Finds when a grid dies out, becomes a still life or starts oscillating. Keeps the state hash
+ * of the last maxPeriod generations, and checks each new generation against them. If the state
+ * hash of generation g was also the hash of generation g-p, the grid repeats every p generations
+ * from generation g-p on. Since every generation is checked, the first repeat found is always the
+ * start of the cycle and the smallest period.
+ *
+ * Two different states having the same 64-bit hash is very unlikely (about 1 in 2^64 for each
+ * comparison), so the cells are not compared.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class CycleDetector {
+
+	// Last state hashes, as a ring. The hash of generation g is at g % hashes.length.
+	private long[] hashes;
+	private int generation = 0;
+
+	/**
+	 * @param maxPeriod		Longest period of oscillator to find.
+	 */
+	public CycleDetector(int maxPeriod) {
+		if (maxPeriod < 1) {
+			throw new RuntimeException("Maximum cycle period must be at least 1, it was: " + maxPeriod);
+		}
+		this.hashes = new long[maxPeriod];
+	}
+
+	/**
+	 * Adds the current state of the grid as the next generation, starting with generation 0.
+	 * @param grid		Grid to check.
+	 * @return Cycle	Cycle the grid is in, or null if the state has not repeated yet.
+	 */
+	public Cycle addGeneration(Grid grid) {
+		// A grid with no live cells stays empty, unless dead cells with no neighbors become live
+		if (grid.getLiveCellCount() == 0 && !GameRules.getRules(grid.getDimensions()).isCellLive(false, 0)) {
+			return new Cycle(this.generation, 1, true);
+		}
+		return this.addGeneration(grid.getStateHash());
+	}
+
+	/**
+	 * Adds the state hash of the next generation, starting with generation 0.
+	 * @param hash		State hash of the generation.
+	 * @return Cycle	Cycle that the generation is in, or null if the state has not repeated yet.
+	 */
+	public Cycle addGeneration(long hash) {
+		int history = Math.min(this.generation, this.hashes.length);
+		for (int period = 1; period <= history; period++) {
+			if (this.hashes[(this.generation - period) % this.hashes.length] == hash) {
+				return new Cycle(this.generation - period, period, false);
+			}
+		}
+
+		this.hashes[this.generation % this.hashes.length] = hash;
+		this.generation++;
+		return null;
+	}
+
+	/**
+	 * Getter for the number of generations added.
+	 * @return int		Number of generations.
+	 */
+	public int getGenerations() {
+		return this.generation;
+	}
+
+}
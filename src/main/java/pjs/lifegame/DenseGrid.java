@@ -0,0 +1,391 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>DenseGrid</h1>
+ * Base of the grids that store every cell of a fixed size grid, with a linear index for each cell.
+ * A cell coordinate is converted to its index with a stride per dimension, where the first dimension
+ * (columns) has a stride of 1. For a 4x3x2 grid the strides are {1,4,12}, so the coordinate {1,2,1}
+ * is the cell at index 1 + 2*4 + 1*12 = 21.
+ *
+ * Keeps the size of the grid, the state hash and the live cell count, and writes the display a row at
+ * a time, so the engines only store the cells and advance them. Neighbor values are never stored, they
+ * are counted while advancing a generation.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public abstract class DenseGrid extends Grid {
+
+	protected int dimensions;
+	protected int[] sizes;
+	protected long[] strides;
+	protected long cellCount;
+
+	private long stateHash = 0;
+	private long liveCells = 0;
+
+	/**
+	 * Initializes the size of the grid.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 * @param maxCells		Most cells the engine can store.
+	 * @param gridName		Name of the engine for errors, i.e. "a packed grid".
+	 */
+	protected DenseGrid(List<Integer> dimSizes, long maxCells, String gridName) {
+		super(dimSizes.get(dimSizes.size()-1));
+		this.dimensions = dimSizes.size();
+		this.createStrides(dimSizes, maxCells, gridName);
+	}
+
+	/**
+	 * Calculates the stride of each dimension and the total number of cells.
+	 * @param dimSizes		Size of each dimension.
+	 * @param maxCells		Most cells the engine can store.
+	 * @param gridName		Name of the engine for errors.
+	 */
+	private void createStrides(List<Integer> dimSizes, long maxCells, String gridName) {
+		this.sizes = new int[this.dimensions];
+		this.strides = new long[this.dimensions];
+
+		long stride = 1;
+		for (int i = 0; i < this.dimensions; i++) {
+			this.sizes[i] = dimSizes.get(i);
+			this.strides[i] = stride;
+			if (stride > maxCells / this.sizes[i]) {
+				throw new RuntimeException("Grid size " + dimSizes + " has too many cells for " + gridName + ".");
+			}
+			stride *= this.sizes[i];
+		}
+		this.cellCount = stride;
+	}
+
+	/**
+	 * Getter for the number of dimensions of this grid.
+	 * @return int 	The number of dimensions.
+	 */
+	@Override
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * Getter for the size of each dimension.
+	 * @return List<Integer>	Size of each dimension.
+	 */
+	@Override
+	public List<Integer> getDimensionSizes() {
+		List<Integer> dimSizes = new ArrayList<>();
+		for (int size : this.sizes) {
+			dimSizes.add(size);
+		}
+		return dimSizes;
+	}
+
+	/**
+	 * Gets the total number of cells in the grid.
+	 * @return long 	The number of cells.
+	 */
+	@Override
+	public long getCellCount() {
+		return this.cellCount;
+	}
+
+	/**
+	 * Getter for the number of live cells, changed as cells are set or updated.
+	 * @return long 	The number of live cells.
+	 */
+	@Override
+	public long getLiveCellCount() {
+		return this.liveCells;
+	}
+
+	/**
+	 * Getter for the state hash, changed as cells are set or updated.
+	 * The key of each cell is from its index, so a tree grid of the same size has the same hash.
+	 * @return long 	The state hash.
+	 */
+	@Override
+	public long getStateHash() {
+		return this.stateHash;
+	}
+
+	/**
+	 * Updates the state hash and live cell count for one cell that changed.
+	 * @param index			Index of the cell.
+	 * @param value			New value of the cell.
+	 */
+	protected void updateStateHash(long index, boolean value) {
+		this.stateHash ^= StateHash.getKey(index);
+		this.liveCells += value ? 1 : -1;
+	}
+
+	/**
+	 * Updates the state hash and live cell count for the cells that changed in one long of cells,
+	 * where bit i of the long is the cell with index word*64 + i.
+	 * @param word			Position of the long.
+	 * @param oldWord		Cell values before the change.
+	 * @param newWord		Cell values after the change.
+	 */
+	protected void updateStateHash(long word, long oldWord, long newWord) {
+		this.liveCells += Long.bitCount(newWord) - Long.bitCount(oldWord);
+		for (long changed = oldWord ^ newWord; changed != 0; changed &= changed - 1) {
+			this.stateHash ^= StateHash.getKey((word << 6) + Long.numberOfTrailingZeros(changed));
+		}
+	}
+
+	/**
+	 * Converts a coordinate to the linear index of the cell.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @return index			Index of the cell, or -1 if the coordinate is not on the grid.
+	 */
+	protected long getIndex(List<Integer> inputCoordinate) {
+		long index = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			int coord = inputCoordinate.get(d);
+			if (coord < 0 || coord >= this.sizes[d]) {
+				return -1;
+			}
+			index += coord * this.strides[d];
+		}
+		return index;
+	}
+
+	/**
+	 * Converts a coordinate to the index of the cell, see Grid.getIndex.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return long			Index of the cell, or -1 if the coordinate is not on the grid.
+	 */
+	@Override
+	public long getIndex(int[] coordinate) {
+		if (coordinate.length != this.dimensions) {
+			return -1;
+		}
+		long index = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			int coord = coordinate[d];
+			if (coord < 0 || coord >= this.sizes[d]) {
+				return -1;
+			}
+			index += coord * this.strides[d];
+		}
+		return index;
+	}
+
+	/**
+	 * Converts a coordinate to the index of the cell, after checking it is on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return long			Index of the cell.
+	 */
+	protected long getIndexOnGrid(int[] coordinate) {
+		long index = this.getIndex(coordinate);
+		if (index < 0) {
+			throw new RuntimeException("Coordinate " + Arrays.toString(coordinate) + " is not on the grid.");
+		}
+		return index;
+	}
+
+	/**
+	 * Checks the index of a cell is on the grid.
+	 * @param index		Index of the cell.
+	 * @return long		Same index.
+	 */
+	protected long getIndexOnGrid(long index) {
+		if (index < 0 || index >= this.cellCount) {
+			throw new RuntimeException("Cell index " + index + " is not on the grid.");
+		}
+		return index;
+	}
+
+	/**
+	 * Checks if all neighbors of the coordinate are on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is not on the edge of the grid.
+	 */
+	protected boolean isInterior(int[] coordinate) {
+		for (int d = 0; d < this.dimensions; d++) {
+			if (coordinate[d] == 0 || coordinate[d] == this.sizes[d]-1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Advances a generation in one pass, see updateAllCellValues.
+	 */
+	@Override
+	public void advanceGeneration() {
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		if (!this.isCountedByGrid(neighborhood)) {
+			this.advanceGeneration(neighborhood);
+			return;
+		}
+		long start = this.getMetricsTime();
+		GamePhaseEvent event = GameEvents.start();
+		this.updateAllCellValues();
+		GameEvents.commit(event, GameEvents.RULES, this, this.getGeneration() + 1);
+		this.recordGenerations(1, 0, this.getMetricsTime() - start, 0);
+	}
+
+	/**
+	 * Neighbor values are not stored, so there is nothing to reset.
+	 */
+	@Override
+	protected void resetAllNeighborValues() {
+	}
+
+	/**
+	 * Cells are not stored as objects in a dense grid, so this returns a new Cell holding
+	 * a copy of the value at the coordinate. Changing the returned Cell does not change the grid.
+	 * Neighbor values are not stored, so the neighbor value of the copy is zero.
+	 * @return cell		Copy of the cell, or null if the coordinate is not on the grid.
+	 */
+	@Override
+	public Cell getCellFromCoordinate(List<Integer> inputCoordinate) {
+		long index = this.getIndex(inputCoordinate);
+		if (index < 0) {
+			return null;
+		}
+		return new Cell(this.getCellValue(index));
+	}
+
+	/**
+	 * Sets a cell value where cell is at the coordinate.
+	 * @param inputCoordinate	Coordinate of cell.
+	 * @param value				New value for cell.
+	 */
+	@Override
+	public void setCellValue(List<Integer> inputCoordinate, boolean value) {
+		long index = this.getIndex(inputCoordinate);
+		if (index < 0) {
+			throw new RuntimeException("Coordinate " + inputCoordinate + " is not on the grid.");
+		}
+		this.setCellValue(index, value);
+	}
+
+	/**
+	 * Gets the value of the cell at the coordinate, see Grid.getCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		return this.getCellValue(this.getIndexOnGrid(coordinate));
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate, see Grid.setCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.setCellValue(this.getIndexOnGrid(coordinate), value);
+	}
+
+	/**
+	 * Neighbor values are not stored, they are counted while updating the cell values.
+	 */
+	@Override
+	public void updateAllNeighborValues() {
+	}
+
+	/**
+	 * Dense grids are never sub-grids, so there is no higher grid to count from.
+	 * Neighbor values are not stored, they are counted while updating the cell values.
+	 */
+	@Override
+	void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
+	}
+
+	/**
+	 * Checks each neighbor of the coordinate and adds one to the neighbor value of the cell
+	 * for each live neighbor.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @param cell				Cell whose neighbor value is to be updated.
+	 */
+	@Override
+	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
+		int[] neighbor = new int[this.dimensions];
+		int[] offset = new int[this.dimensions];
+		Arrays.fill(offset, -1);
+		do {
+			boolean isSelf = true;
+			for (int d = 0; d < this.dimensions; d++) {
+				neighbor[d] = inputCoordinate.get(d) + offset[d];
+				isSelf &= (offset[d] == 0);
+			}
+			long index = this.getIndex(neighbor);
+			if (!isSelf && index >= 0 && this.getCellValue(index)) {
+				cell.increaseNeighborValue();
+			}
+		} while (nextOffset(offset));
+	}
+
+	/**
+	 * Moves to the next neighbor offset, like an odometer with digits -1, 0, 1.
+	 * @param offset		Offset of the neighbor.
+	 * @return boolean		False once every offset has been visited.
+	 */
+	protected static boolean nextOffset(int[] offset) {
+		for (int d = 0; d < offset.length; d++) {
+			if (++offset[d] <= 1) {
+				return true;
+			}
+			offset[d] = -1;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the same display as the Grid1D/GridND tree would for this grid.
+	 * Each 2D slice is shown as rows of O (live) and - (dead). For 3+ dimensions each
+	 * slice starts with its higher dimension coordinates, i.e. "( , , 1, 0 )".
+	 * The cells are written 8 at a time, see getBits.
+	 * @param writer		Writer for the display.
+	 * @param indices		Not used, dense grids are never sub-grids.
+	 */
+	@Override
+	void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException {
+		int rowSize = this.sizes[0];
+		long rowCount = this.cellCount / rowSize;
+		int rowsPerSlice = (this.dimensions > 1) ? this.sizes[1] : 1;
+		int[] sliceCoordinate = new int[Math.max(0, this.dimensions-2)];
+
+		for (long row = 0; row < rowCount; row++) {
+			if (this.dimensions > 2 && row % rowsPerSlice == 0) {
+				long slice = row / rowsPerSlice;
+				for (int d = 2; d < this.dimensions; d++) {
+					sliceCoordinate[d-2] = (int) (slice % this.sizes[d]);
+					slice /= this.sizes[d];
+				}
+				writer.writeSliceHeader(sliceCoordinate);
+			}
+
+			long end = (row+1) * rowSize;
+			for (long index = row * rowSize; index < end; index += 8) {
+				int count = (int) Math.min(8, end - index);
+				writer.writeCells(this.getBits(index, count), count);
+			}
+			writer.writeSeparator();
+
+			if (this.dimensions > 2 && row % rowsPerSlice == rowsPerSlice-1) {
+				writer.writeSeparator();
+			}
+		}
+	}
+
+	/**
+	 * Gets the values of up to 8 cells in a row, for the display.
+	 * @param index		Index of the first cell.
+	 * @param count		Number of cells, from 1 to 8, all in the same row.
+	 * @return int		Cell values, bit 0 is the first cell.
+	 */
+	protected abstract int getBits(long index, int count);
+
+}
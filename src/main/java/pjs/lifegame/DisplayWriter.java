@@ -0,0 +1,162 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <h1>DisplayWriter</h1>
+ * Writes the display of a grid straight to an output stream, without building it as a String.
+ * Cells are written as the bytes " O" (live) and " -" (dead) into one buffer, which is written
+ * to the stream each time it is full. Memory used does not depend on the size of the grid.
+ *
+ * The bytes for every combination of 8 cells are made once, so grids that store cells as bits
+ * can copy 8 cells at a time.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class DisplayWriter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final byte[] SEPARATOR = System.lineSeparator().getBytes();
+
+	// Bytes for 8 cells, for each of the 256 values of 8 bits. Bit 0 is the first cell.
+	private static final byte[] CELL_BYTES = new byte[256 * 16];
+	static {
+		for (int bits = 0; bits < 256; bits++) {
+			for (int i = 0; i < 8; i++) {
+				CELL_BYTES[bits * 16 + i * 2] = ' ';
+				CELL_BYTES[bits * 16 + i * 2 + 1] = (byte) (((bits >>> i) & 1) != 0 ? 'O' : '-');
+			}
+		}
+	}
+
+	private OutputStream out;
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+
+	/**
+	 * @param out		Stream to write the display to.
+	 */
+	public DisplayWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Makes sure there is room in the buffer, writing it to the stream if not.
+	 * @param length		Number of bytes needed, at most the buffer size.
+	 */
+	private void ensureRoom(int length) throws IOException {
+		if (this.position + length > this.buffer.length) {
+			this.flushBuffer();
+		}
+	}
+
+	/**
+	 * Writes one cell, " O" if it is live or " -" if it is dead.
+	 * @param live		True if the cell is live.
+	 */
+	public void writeCell(boolean live) throws IOException {
+		this.ensureRoom(2);
+		this.buffer[this.position++] = ' ';
+		this.buffer[this.position++] = (byte) (live ? 'O' : '-');
+	}
+
+	/**
+	 * Writes up to 8 cells from the bits of a value.
+	 * @param bits		Cell values, bit 0 is the first cell.
+	 * @param count		Number of cells to write, from 1 to 8.
+	 */
+	public void writeCells(int bits, int count) throws IOException {
+		this.ensureRoom(16);
+		System.arraycopy(CELL_BYTES, (bits & 0xFF) * 16, this.buffer, this.position, count * 2);
+		this.position += count * 2;
+	}
+
+	/**
+	 * Writes the line separator.
+	 */
+	public void writeSeparator() throws IOException {
+		this.ensureRoom(SEPARATOR.length);
+		System.arraycopy(SEPARATOR, 0, this.buffer, this.position, SEPARATOR.length);
+		this.position += SEPARATOR.length;
+	}
+
+	/**
+	 * Writes the header before a 2D slice of a grid with 3+ dimensions, i.e. "( , , 1, 0 )".
+	 * @param coordinate		Coordinates of the slice in dimension 3 and above.
+	 */
+	public void writeSliceHeader(int[] coordinate) throws IOException {
+		this.writeText("( , ");
+		for (int c : coordinate) {
+			this.writeText(", ");
+			this.writeNumber(c);
+		}
+		this.writeText(" )");
+		this.writeSeparator();
+	}
+
+	/**
+	 * Writes a coordinate, with values separated by commas, i.e. "1,0,4".
+	 * @param coordinate		Coordinate to write.
+	 */
+	public void writeCoordinate(long[] coordinate) throws IOException {
+		for (int d = 0; d < coordinate.length; d++) {
+			if (d > 0) this.writeText(",");
+			this.writeNumber(coordinate[d]);
+		}
+	}
+
+	/**
+	 * Writes a number as text.
+	 * @param number		Number to write.
+	 */
+	public void writeNumber(long number) throws IOException {
+		this.ensureRoom(20);
+		if (number < 0) {
+			this.buffer[this.position++] = '-';
+		}
+
+		// Digits are found from the last, so write them from the end of their space
+		int digits = 1;
+		for (long rest = number / 10; rest != 0; rest /= 10) {
+			digits++;
+		}
+		long rest = number;
+		for (int i = this.position + digits - 1; i >= this.position; i--) {
+			this.buffer[i] = (byte) ('0' + Math.abs(rest % 10));
+			rest /= 10;
+		}
+		this.position += digits;
+	}
+
+	/**
+	 * Writes text, which should only have ASCII characters.
+	 * @param text		Text to write.
+	 */
+	public void writeText(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			this.ensureRoom(1);
+			this.buffer[this.position++] = (byte) text.charAt(i);
+		}
+	}
+
+	/**
+	 * Writes the buffer to the stream.
+	 */
+	private void flushBuffer() throws IOException {
+		this.out.write(this.buffer, 0, this.position);
+		this.position = 0;
+	}
+
+	/**
+	 * Writes everything in the buffer to the stream, and flushes the stream.
+	 */
+	public void flush() throws IOException {
+		this.flushBuffer();
+		this.out.flush();
+	}
+
+}
@@ -0,0 +1,389 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <h1>EnsembleGrid</h1>
+ * 64 independent grids (universes) of the same size, advanced together. The cells are stored
+ * bit-sliced: there is one long for each cell, and bit k of the long is the value of the cell in
+ * universe k. Every step of advancing a generation is done with bitwise operations on these longs,
+ * so all 64 universes advance for about the cost of one. Used to run the same rules over many
+ * random initial grids.
+ *
+ * The neighbors are counted as the box of cells around each cell (including the cell), one dimension
+ * at a time: the box along the first dimension, then the sum of those boxes along the second dimension,
+ * and so on. Each count is kept as bit planes, where bit k of plane p is bit p of the count for universe
+ * k, and the counts are added with full adders on the planes. The stay.live and dead.live rules are then
+ * applied by comparing the planes to each count that makes a cell live.
+ *
+ * Moore neighborhoods of any radius and every boundary can be used, but not the von Neumann neighborhood.
+ * Copy a universe to and from a normal Grid with getUniverse and setUniverse.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class EnsembleGrid {
+
+	/** Number of universes, one for each bit of a long. */
+	public static final int UNIVERSES = 64;
+
+	private int[] sizes;
+	private int[] strides;
+	private int cellCount;
+
+	// Bit k of cells[i] is the value of cell i in universe k.
+	private long[] cells;
+
+	// Bit planes of the counts, swapped between the dimensions. Grown when a larger neighborhood needs more bits.
+	private long[][] counts = new long[0][];
+	private long[][] nextCounts = new long[0][];
+
+	/**
+	 * Initializes the grid with all cells dead in every universe.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 */
+	public EnsembleGrid(List<Integer> dimSizes) {
+		this.sizes = new int[dimSizes.size()];
+		this.strides = new int[dimSizes.size()];
+		long cells = 1;
+		for (int d = 0; d < this.sizes.length; d++) {
+			this.sizes[d] = dimSizes.get(d);
+			this.strides[d] = (int) cells;
+			cells *= this.sizes[d];
+			if (cells > Integer.MAX_VALUE) {
+				throw new RuntimeException("Grid size " + dimSizes + " has too many cells for an ensemble grid.");
+			}
+		}
+		this.cellCount = (int) cells;
+		this.cells = new long[this.cellCount];
+	}
+
+	/**
+	 * Getter for the number of dimensions.
+	 * @return int 	The number of dimensions.
+	 */
+	public int getDimensions() {
+		return this.sizes.length;
+	}
+
+	/**
+	 * Getter for the size of each dimension.
+	 * @return List<Integer>	Size of each dimension.
+	 */
+	public List<Integer> getDimensionSizes() {
+		List<Integer> dimSizes = new ArrayList<>();
+		for (int size : this.sizes) {
+			dimSizes.add(size);
+		}
+		return dimSizes;
+	}
+
+	/**
+	 * Gets the number of cells in each universe.
+	 * @return long 	The number of cells.
+	 */
+	public long getCellCount() {
+		return this.cellCount;
+	}
+
+	/**
+	 * Gets the value of a cell in a universe.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param index			Index of the cell, with the first dimension changing fastest (see Grid.getIndex).
+	 * @return boolean		True if the cell is live.
+	 */
+	public boolean getCellValue(int universe, long index) {
+		return ((this.cells[this.checkIndex(index)] >>> this.checkUniverse(universe)) & 1L) != 0;
+	}
+
+	/**
+	 * Sets the value of a cell in a universe.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param index			Index of the cell, with the first dimension changing fastest (see Grid.getIndex).
+	 * @param value			New value for the cell.
+	 */
+	public void setCellValue(int universe, long index, boolean value) {
+		int i = this.checkIndex(index);
+		long bit = 1L << this.checkUniverse(universe);
+		this.cells[i] = value ? (this.cells[i] | bit) : (this.cells[i] & ~bit);
+	}
+
+	/**
+	 * Gets the values of a cell in every universe.
+	 * @param index			Index of the cell.
+	 * @return long			Bit k is the value of the cell in universe k.
+	 */
+	public long getCellValues(long index) {
+		return this.cells[this.checkIndex(index)];
+	}
+
+	/**
+	 * Sets the values of a cell in every universe.
+	 * @param index			Index of the cell.
+	 * @param values		Bit k is the new value of the cell in universe k.
+	 */
+	public void setCellValues(long index, long values) {
+		this.cells[this.checkIndex(index)] = values;
+	}
+
+	/**
+	 * Sets every cell of a universe to live at random.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param random		Random numbers for the universe, i.e. new Random(seed).
+	 * @param density		Chance of each cell being live, from 0 to 1.
+	 */
+	public void setRandomCells(int universe, Random random, double density) {
+		long bit = 1L << this.checkUniverse(universe);
+		for (int i = 0; i < this.cellCount; i++) {
+			this.cells[i] = (random.nextDouble() < density) ? (this.cells[i] | bit) : (this.cells[i] & ~bit);
+		}
+	}
+
+	/**
+	 * Sets the cells of a universe to the cells of a grid.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param grid			Grid with the same size as this grid.
+	 */
+	public void setUniverse(int universe, Grid grid) {
+		this.checkSize(grid);
+		int shift = this.checkUniverse(universe);
+		long bit = 1L << shift;
+		long[] bits = new long[(this.cellCount + 63) >>> 6];
+		grid.getCellBits(0, LongBuffer.wrap(bits));
+		for (int i = 0; i < this.cellCount; i++) {
+			this.cells[i] = (this.cells[i] & ~bit) | (((bits[i >>> 6] >>> i) & 1L) << shift);
+		}
+	}
+
+	/**
+	 * Sets the cells of a grid to the cells of a universe.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param grid			Grid with the same size as this grid.
+	 */
+	public void getUniverse(int universe, Grid grid) {
+		this.checkSize(grid);
+		int shift = this.checkUniverse(universe);
+		long[] bits = new long[(this.cellCount + 63) >>> 6];
+		for (int i = 0; i < this.cellCount; i++) {
+			bits[i >>> 6] |= ((this.cells[i] >>> shift) & 1L) << i;
+		}
+		grid.setCellBits(0, LongBuffer.wrap(bits));
+	}
+
+	/**
+	 * Creates a grid with the cells of a universe.
+	 * @param universe		Universe, from 0 to 63.
+	 * @param engine		Grid engine name, see GridFactory.
+	 * @return Grid			New grid with the cells of the universe.
+	 */
+	public Grid getUniverse(int universe, String engine) {
+		Grid grid = new GridFactory().getGrid(engine, this.getDimensionSizes());
+		this.getUniverse(universe, grid);
+		return grid;
+	}
+
+	/**
+	 * Gets the number of live cells in a universe.
+	 * @param universe		Universe, from 0 to 63.
+	 * @return long			Number of live cells.
+	 */
+	public long getLiveCellCount(int universe) {
+		int shift = this.checkUniverse(universe);
+		long liveCells = 0;
+		for (int i = 0; i < this.cellCount; i++) {
+			liveCells += (this.cells[i] >>> shift) & 1L;
+		}
+		return liveCells;
+	}
+
+	/**
+	 * Gets the number of live cells in every universe.
+	 * @return long[]		Number of live cells in each universe.
+	 */
+	public long[] getLiveCellCounts() {
+		long[] liveCells = new long[UNIVERSES];
+		for (int i = 0; i < this.cellCount; i++) {
+			for (long value = this.cells[i]; value != 0; value &= value - 1) {
+				liveCells[Long.numberOfTrailingZeros(value)]++;
+			}
+		}
+		return liveCells;
+	}
+
+	/**
+	 * Advances a number of generations in every universe.
+	 * @param n		Number of generations.
+	 */
+	public void advanceGenerations(int n) {
+		for (int i = 0; i < n; i++) {
+			this.advanceGeneration();
+		}
+	}
+
+	/**
+	 * Advances a generation in every universe, with the neighborhood and rules from the properties.
+	 */
+	public void advanceGeneration() {
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		if (!Neighborhood.MOORE.equals(neighborhood.getType())) {
+			throw new RuntimeException("Ensemble grids can only use the " + Neighborhood.MOORE + " neighborhood, it was: "
+					+ neighborhood);
+		}
+		RuleTable rules = GameRules.getRules(this.getDimensions());
+		int width = 2 * neighborhood.getRadius() + 1;
+
+		// Count the box around every cell, one dimension at a time
+		long maxCount = 1;
+		int bits = 1;
+		this.growCounts(bits);
+		System.arraycopy(this.cells, 0, this.counts[0], 0, this.cellCount);
+		for (int d = 0; d < this.sizes.length; d++) {
+			maxCount *= width;
+			int nextBits = 64 - Long.numberOfLeadingZeros(maxCount);
+			this.growCounts(nextBits);
+			this.sumAlongDimension(d, neighborhood, bits, nextBits);
+			long[][] swap = this.counts;
+			this.counts = this.nextCounts;
+			this.nextCounts = swap;
+			bits = nextBits;
+		}
+
+		// Box counts (including the cell) that make a live cell stay live and a dead cell become live
+		int[] stayCounts = new int[(int) maxCount + 1];
+		int[] birthCounts = new int[(int) maxCount + 1];
+		int stayCount = 0;
+		int birthCount = 0;
+		for (int count = 0; count <= maxCount; count++) {
+			if (count >= 1 && rules.isCellLive(true, count - 1)) {
+				stayCounts[stayCount++] = count;
+			}
+			if (count < maxCount && rules.isCellLive(false, count)) {
+				birthCounts[birthCount++] = count;
+			}
+		}
+
+		for (int i = 0; i < this.cellCount; i++) {
+			long stay = 0;
+			for (int s = 0; s < stayCount; s++) {
+				stay |= this.getCountMask(i, bits, stayCounts[s]);
+			}
+			long birth = 0;
+			for (int b = 0; b < birthCount; b++) {
+				birth |= this.getCountMask(i, bits, birthCounts[b]);
+			}
+			long value = this.cells[i];
+			this.cells[i] = (value & stay) | (~value & birth);
+		}
+	}
+
+	/**
+	 * Sums the counts along one dimension, adding the counts of the cells within the radius on each side
+	 * of every cell. Positions past the edges are found from the boundary, and skipped if dead.
+	 * @param d				Dimension to sum along.
+	 * @param neighborhood	Neighborhood, for the radius and boundary.
+	 * @param bits			Number of bit planes of the counts.
+	 * @param nextBits		Number of bit planes of the sums.
+	 */
+	private void sumAlongDimension(int d, Neighborhood neighborhood, int bits, int nextBits) {
+		int size = this.sizes[d];
+		int stride = this.strides[d];
+		int radius = neighborhood.getRadius();
+		long[] sum = new long[nextBits];
+		for (int i = 0; i < this.cellCount; i++) {
+			int coord = (i / stride) % size;
+			int lineStart = i - coord * stride;
+			Arrays.fill(sum, 0);
+			for (int offset = -radius; offset <= radius; offset++) {
+				int position = neighborhood.getBoundaryPosition(coord + offset, size);
+				if (position < 0) {
+					continue;
+				}
+				int j = lineStart + position * stride;
+
+				// Ripple carry full adder, for all 64 universes at once
+				long carry = 0;
+				for (int p = 0; p < nextBits; p++) {
+					long a = sum[p];
+					long b = (p < bits) ? this.counts[p][j] : 0;
+					sum[p] = a ^ b ^ carry;
+					carry = (a & b) | (carry & (a ^ b));
+				}
+			}
+			for (int p = 0; p < nextBits; p++) {
+				this.nextCounts[p][i] = sum[p];
+			}
+		}
+	}
+
+	/**
+	 * Gets the universes where the count of a cell is a value.
+	 * @param i				Index of the cell.
+	 * @param bits			Number of bit planes of the counts.
+	 * @param count			Count to compare to.
+	 * @return long			Bit k is set if the count in universe k is the value.
+	 */
+	private long getCountMask(int i, int bits, int count) {
+		long mask = -1L;
+		for (int p = 0; p < bits; p++) {
+			mask &= (((count >>> p) & 1) != 0) ? this.counts[p][i] : ~this.counts[p][i];
+		}
+		return mask;
+	}
+
+	/**
+	 * Makes sure both sets of count planes have at least a number of planes.
+	 * @param bits		Number of bit planes needed.
+	 */
+	private void growCounts(int bits) {
+		if (this.counts.length < bits) {
+			int oldBits = this.counts.length;
+			this.counts = Arrays.copyOf(this.counts, bits);
+			this.nextCounts = Arrays.copyOf(this.nextCounts, bits);
+			for (int p = oldBits; p < bits; p++) {
+				this.counts[p] = new long[this.cellCount];
+				this.nextCounts[p] = new long[this.cellCount];
+			}
+		}
+	}
+
+	/**
+	 * Checks a universe number.
+	 * @param universe		Universe number.
+	 * @return int			Same universe number.
+	 */
+	private int checkUniverse(int universe) {
+		if (universe < 0 || universe >= UNIVERSES) {
+			throw new RuntimeException("Universe " + universe + " must be between 0 and " + (UNIVERSES - 1) + ".");
+		}
+		return universe;
+	}
+
+	/**
+	 * Checks the index of a cell is on the grid.
+	 * @param index		Index of the cell.
+	 * @return int		Same index.
+	 */
+	private int checkIndex(long index) {
+		if (index < 0 || index >= this.cellCount) {
+			throw new RuntimeException("Cell index " + index + " is not on the grid.");
+		}
+		return (int) index;
+	}
+
+	/**
+	 * Checks a grid is the same size as this grid.
+	 * @param grid		Grid to check.
+	 */
+	private void checkSize(Grid grid) {
+		if (!grid.getDimensionSizes().equals(this.getDimensionSizes())) {
+			throw new RuntimeException("Grid size " + grid.getDimensionSizes() + " does not match the ensemble grid size "
+					+ this.getDimensionSizes());
+		}
+	}
+
+}
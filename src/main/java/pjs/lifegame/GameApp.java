@@ -1,11 +1,15 @@
 package pjs.lifegame;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
+import javax.management.ObjectName;
+
 /**
  * <h1>GameApp</h1>
  * Main controller for the Conway's Game of Life.
@@ -16,6 +20,12 @@ import java.util.List;
  * 3) Variable number of dimensions (1D, 2D, 3D, etc. up to 10D).
  * 4) Properties file to adjust parameters.
  * 5) Grid file to create initial grid scenarios.
+ * 6) Binary snapshots to save a run every few generations and resume it.
+ * 7) RLE and Life 1.06 pattern files for the initial and final grids.
+ * 8) Batch mode, to run many properties and grid files at the same time with a CSV or JSON summary.
+ * 9) JMX metrics of the running simulation (pjs.lifegame:type=GameMetrics), i.e. generations per second.
+ * 10) Java Flight Recorder events for each phase of a generation, rendering and loading (pjs.lifegame.GamePhase).
+ * 11) History of the recent generations, to show earlier generations after the run.
  * 
  * @author Paul Seebald
  * @version 1.0
@@ -26,6 +36,11 @@ public class GameApp {
 	
 	public static String propertyLocation;
 	public static String initGridLocation;
+	public static String restoreLocation;
+	public static String outputLocation;
+	public static String patternFormat;
+	public static String batchLocation;
+	public static String summaryLocation;
 	
 	public static String defaultPropertyLocation = "default.properties";
 	public static String defaultInitGridLocation = "default.grid";
@@ -50,15 +65,26 @@ public class GameApp {
 			if (help) {
 				System.out.println();
 				System.out.println("To use this program, run with JDK 1.7+ " + System.lineSeparator());
-				System.out.println("** There are three possible properties: ");
+				System.out.println("** There are eight possible properties: ");
 				System.out.println("** [-props | -p] <property file location> : file location of setup properties. Use './" + defaultPropertyLocation + "' for default values and reference.");
 				System.out.println("** [-initGrid | -i] <initial grid file location> : file location of initial grid values. Use './" + defaultInitGridLocation + "' for default values and reference.");
+				System.out.println("** [-output | -o] <pattern file location> : file location to save the final grid to.");
+				System.out.println("** [-format | -f] <grid | rle | life106> : format of the initial grid and output files. By default it is from the file extension: .rle for RLE, .lif or .life for Life 1.06, and the grid format for any other file.");
+				System.out.println("** [-restore | -r] <snapshot file location> : resume from a snapshot saved with checkpoint.interval. The snapshot replaces grid.size, stay.live, dead.live and the initial grid.");
+				System.out.println("** [-batch | -b] <manifest file location> : run every properties and initial grid file pair in the manifest (one pair on each line, separated by a comma) at the same time, instead of a single run. The grids are not shown.");
+				System.out.println("** [-summary | -s] <summary file location> : file location to save the batch summary to, as JSON for a .json file and CSV otherwise. By default the CSV summary is shown.");
 				System.out.println("** [-help | -h] : Show help, does not run the rest of the program." + System.lineSeparator());
 				System.out.println("Note: running the jar without any properties will use default properties and initial grid locations" + System.lineSeparator());
 				System.out.println("Example to run default properties and grid:");
 				System.out.println("java -jar seebald_game_of_life.jar" + System.lineSeparator());
 				System.out.println("Example to run custom properties and grid:");
 				System.out.println("java -jar seebald_game_of_life.jar -p .\\my.properties -i .\\my.grid" + System.lineSeparator());
+				System.out.println("Example to run an RLE pattern and save the final grid as RLE:");
+				System.out.println("java -jar seebald_game_of_life.jar -p .\\my.properties -i .\\glider.rle -o .\\final.rle" + System.lineSeparator());
+				System.out.println("Example to resume from a snapshot:");
+				System.out.println("java -jar seebald_game_of_life.jar -p .\\my.properties -r .\\checkpoint.snapshot" + System.lineSeparator());
+				System.out.println("Example to run a batch and save the summary as JSON:");
+				System.out.println("java -jar seebald_game_of_life.jar -b .\\nightly.manifest -s .\\summary.json" + System.lineSeparator());
 				System.out.println("Example to run help: ");
 				System.out.println("java -jar seebald_game_of_life.jar -h" + System.lineSeparator());
 				return;
@@ -67,34 +93,112 @@ public class GameApp {
 			System.out.println("Note: To read the help, run the command:");
 			System.out.println("java -jar seebald_game_of_life.jar -h" + System.lineSeparator());
 
-			// Check number of dimensions
-			List<Integer> dimensions = SetupProperties.getIntListProperty("grid.size");
-			if (!checkValidDimensions(dimensions)) return;
-			
-			// Get initial grid from file
-			List<List<Integer>> initGrid = initializeGrid(initGridLocation);
-			if (!checkValidInitGrid(dimensions, initGrid)) return;
+			if (batchLocation != null) {
+				runBatch(batchLocation, summaryLocation);
+				return;
+			}
 
-			// Create master (top-level) grid
+			String engine = SetupProperties.getProperty("grid.engine", GridFactory.TREE_ENGINE);
 			GridFactory gridFactory = new GridFactory();
-			Grid masterGrid = gridFactory.getGrid(dimensions);
-
-			// Set the values for the initial grid
-			masterGrid.setCellValues(initGrid, true);
+			Grid masterGrid;
+			long startGeneration = 0;
+			
+			GamePhaseEvent loadEvent = GameEvents.start();
+			if (restoreLocation != null) {
+				// Resume from a snapshot, which has the grid size, cells, rules and generation
+				GridSnapshot snapshot = readSnapshot(restoreLocation);
+				if (snapshot == null) return;
+				snapshot.applyRules();
+				masterGrid = snapshot.createGrid(engine);
+				startGeneration = snapshot.getGeneration();
+				masterGrid.setGeneration(startGeneration);
+				System.out.println("Resuming from generation " + startGeneration + System.lineSeparator());
+			} else {
+				// Check number of dimensions
+				List<Integer> dimensions = SetupProperties.getIntListProperty("grid.size");
+				try {
+					gridFactory.checkDimensions(engine, dimensions);
+				} catch (RuntimeException e) {
+					System.out.println(e.getMessage());
+					System.out.println("Check properties file.");
+					return;
+				}
+				
+				// Create master (top-level) grid with the engine from the properties
+				masterGrid = gridFactory.getGrid(engine, dimensions);
+	
+				// Get initial grid from file and set the values for the initial grid
+				long[] initGrid = initializeGrid(initGridLocation, dimensions, getPatternFormat(initGridLocation));
+				if (initGrid == null) return;
+				masterGrid.setLiveCells(initGrid);
+			}
+			GameEvents.commit(loadEvent, GameEvents.LOAD, masterGrid, startGeneration);
+			masterGrid.setThreads(SetupProperties.getIntProperty("threads", 1));
 
 			// Show the initial grid
 			printGrid(masterGrid, "Initial Grid: ");
 
 			// Advance the generations
 			int generations = SetupProperties.getIntProperty("generations");
-			if (generations < 1 || generations > 1000) {
-				System.out.println("Error: generations property is outside the range of 1 to 1000");
+			int maxGenerations = gridFactory.getMaxGenerations(engine);
+			if (generations < 1 || generations > maxGenerations) {
+				System.out.println("Error: generations property is outside the range of 1 to " + maxGenerations);
+			}
+			
+			// Save a snapshot every checkpoint.interval generations, if set. HashLife grids cannot be saved as a
+			// snapshot, and would have to advance one generation at a time for the listener.
+			Checkpointer checkpointer = null;
+			int checkpointInterval = SetupProperties.getIntProperty("checkpoint.interval", 0);
+			if (checkpointInterval > 0 && !GridFactory.HASHLIFE_ENGINE.equals(engine)) {
+				checkpointer = new Checkpointer(Paths.get(SetupProperties.getProperty("checkpoint.file", "checkpoint.snapshot")),
+						checkpointInterval, startGeneration);
+				masterGrid.addGenerationListener(checkpointer);
+			}
+			
+			// Keep the recent generations in memory, if set, to show earlier generations after the run. Not for
+			// HashLife grids, which would have to advance one generation at a time and copy the whole grid for it.
+			GridHistory history = null;
+			int historyGenerations = SetupProperties.getIntProperty("history.generations", 0);
+			if (historyGenerations > 0 && !GridFactory.HASHLIFE_ENGINE.equals(engine)) {
+				int keyframeInterval = SetupProperties.getIntProperty("history.keyframe.interval", 100);
+				history = new GridHistory(masterGrid, Math.min(keyframeInterval, historyGenerations), historyGenerations);
+				masterGrid.addGenerationListener(history);
+			}
+			
+			// Show the progress over JMX while the generations advance
+			GameMetrics metrics = new GameMetrics(masterGrid, startGeneration);
+			masterGrid.setMetrics(metrics);
+			ObjectName metricsName = metrics.register();
+			
+			Cycle cycle;
+			try {
+				cycle = masterGrid.advanceGenerations((int) Math.max(0, generations - startGeneration), 
+						SetupProperties.getBooleanProperty("show.all.generations"),
+						SetupProperties.getIntProperty("cycle.max.period", 0));
+			} finally {
+				if (checkpointer != null) checkpointer.close();
+				GameMetrics.unregister(metricsName);
+			}
+			if (cycle != null) {
+				System.out.println(cycle + ", stopped early at generation " + cycle.getFoundGeneration() 
+						+ System.lineSeparator());
 			}
-			masterGrid.advanceGenerations(generations, 
-					SetupProperties.getBooleanProperty("show.all.generations"));
 
 			// Show the final grid
 			printGrid(masterGrid, "Final grid after " + generations + " generations: ");
+			
+			// Save the final grid, if an output file was set
+			if (outputLocation != null) {
+				saveGrid(masterGrid, outputLocation, getPatternFormat(outputLocation));
+			}
+			
+			// Show earlier generations from the history, if set
+			if (history != null) {
+				printHistory(history, masterGrid);
+			}
+			
+			// Release the memory of an off-heap grid or the file of a tiled grid, the garbage collector does not free them
+			GridFactory.release(masterGrid);
 
 		} catch (RuntimeException e) {
 			System.out.println(e.getMessage());
@@ -126,6 +230,21 @@ public class GameApp {
 				case "-props": case "-p":
 					propertyLocation = args[++index];
 					break;
+				case "-output": case "-o":
+					outputLocation = args[++index];
+					break;
+				case "-format": case "-f":
+					patternFormat = args[++index];
+					break;
+				case "-restore": case "-r":
+					restoreLocation = args[++index];
+					break;
+				case "-batch": case "-b":
+					batchLocation = args[++index];
+					break;
+				case "-summary": case "-s":
+					summaryLocation = args[++index];
+					break;
 			}
 			index++;
 		}
@@ -142,29 +261,18 @@ public class GameApp {
 	}
 	
 	/**
-	 * Initializes the grid. This means it takes the list of coordinates in the initial grid
-	 * file and sets all of the cells at those coordinates to true (live). 
+	 * Initializes the grid. This means it reads the list of coordinates in the initial grid
+	 * file, checking each one is on the grid, and returns the cells at those coordinates
+	 * to set to true (live). An RLE file also sets the rules from its header.
 	 * @param gridFileLocation		Location of the initial grid file.
-	 * @return initGrid				List of coordinates for live cells in the initial grid.
+	 * @param dimensions			Sizes of the dimensions.
+	 * @param format				Format of the initial grid file, i.e. PatternFile.RLE_FORMAT.
+	 * @return initGrid				Indices of the live cells in the initial grid, or null if the file is not valid.
 	 */
-	private static List<List<Integer>> initializeGrid(String gridFileLocation) {
+	private static long[] initializeGrid(String gridFileLocation, List<Integer> dimensions, String format) {
 		System.out.println("Reading initial grid file" + System.lineSeparator());
-		try (BufferedReader gridStream = new BufferedReader(new FileReader(gridFileLocation)) ) {
-			List<List<Integer>> initGrid = new ArrayList<>();
-			String curLine = gridStream.readLine();
-			
-			while (curLine != null) {
-				String curLineNoWhiteSpace = curLine.replaceAll("\\s+",""); 
-				if (curLineNoWhiteSpace.length() > 0 && !(curLine.charAt(0) == '#')) {
-					// Remove any spaces and split into a list of numbers
-					List<String> curLineList = Arrays.asList(curLineNoWhiteSpace.split(","));
-					initGrid.add(ParseUtil.convertStrListToIntList(curLineList));
-				}
-
-				curLine = gridStream.readLine();
-			}
-
-			return initGrid;
+		try {
+			return PatternFile.read(Paths.get(gridFileLocation), format, dimensions);
 		} catch(Exception e) {
 			System.out.println(e.getMessage());
 			System.out.println("File at location " + gridFileLocation + " could not be read");
@@ -174,70 +282,121 @@ public class GameApp {
 	}
 	
 	/**
-	 * Prints the input message, then the grid to the screen.
-	 * @param grid		Grid to print to screen.
-	 * @param message	Message to print to screen.
+	 * Saves the live cells of the grid to a pattern file.
+	 * @param grid					Grid to save.
+	 * @param outputFileLocation	Location of the pattern file.
+	 * @param format				Format of the pattern file, i.e. PatternFile.RLE_FORMAT.
 	 */
-	private static void printGrid(Grid grid, String message) {
-		System.out.println(message);
-		System.out.println(grid.getDisplay());
+	private static void saveGrid(Grid grid, String outputFileLocation, String format) {
+		try {
+			PatternFile.write(grid, Paths.get(outputFileLocation), format);
+			System.out.println("Saved final grid to " + outputFileLocation);
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.out.println("File at location " + outputFileLocation + " could not be written");
+			e.printStackTrace();
+		}
 	}
 	
 	/**
-	 * Checks if the dimension sizes are valid numbers.
-	 * Example is negative number, as dimension size cannot be negative.
-	 * Current maximum is 10 dimensions, but program is set up to go higher if needed.
-	 * @param dimensions	List of dimension sizes.
-	 * @return boolean		Are the dimension sizes valid or not? Returns true or false.
+	 * Gets the format of a pattern file, from the -format argument or else the file extension.
+	 * @param location		Location of the pattern file.
+	 * @return String		Format name, i.e. PatternFile.RLE_FORMAT.
 	 */
-	private static boolean checkValidDimensions(List<Integer> dimensions){
-		if ((dimensions.size() < 1) || (dimensions.size() > 10)) {
-			System.out.println("Grid size property does not have the right number of dimensions.");
-			System.out.println("Dimensions are currently " + dimensions.size() + " but must be in the range of 1-10.");
-			return false;
+	private static String getPatternFormat(String location) {
+		return (patternFormat != null) ? patternFormat : PatternFile.getFormat(location);
+	}
+	
+	/**
+	 * Runs every run in a batch manifest on all processors, then saves or shows the summary.
+	 * @param manifestLocation		Location of the manifest file.
+	 * @param summaryFileLocation	Location to save the summary, or null to show it as CSV.
+	 */
+	private static void runBatch(String manifestLocation, String summaryFileLocation) {
+		List<BatchRun> runs;
+		try {
+			runs = BatchRunner.readManifest(Paths.get(manifestLocation));
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+			System.out.println("File at location " + manifestLocation + " could not be read");
+			e.printStackTrace();
+			return;
 		}
-		
-		for (Integer dim : dimensions) {
-			if (dim < 1 || dim > 100) {
-				System.out.println("Dimension size is out of bounds with value of: " + dim);
-				System.out.println("Size must be between 1 and 100 (inclusive). Check properties file.");
-				return false;
+
+		int processors = Runtime.getRuntime().availableProcessors();
+		System.out.println("Running " + runs.size() + " runs on " + processors + " threads" + System.lineSeparator());
+		long start = System.nanoTime();
+		new BatchRunner(processors).run(runs);
+		long failed = 0;
+		for (BatchRun run : runs) {
+			if (!run.isSuccessful()) failed++;
+		}
+		System.out.println("Finished " + runs.size() + " runs in " + (System.nanoTime() - start) / 1000000 + " ms, "
+				+ failed + " failed" + System.lineSeparator());
+
+		try {
+			if (summaryFileLocation == null) {
+				Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+				BatchRunner.writeSummary(runs, writer, BatchRunner.CSV_FORMAT);
+			} else {
+				try (Writer writer = Files.newBufferedWriter(Paths.get(summaryFileLocation), StandardCharsets.UTF_8)) {
+					BatchRunner.writeSummary(runs, writer, BatchRunner.getFormat(summaryFileLocation));
+				}
+				System.out.println("Saved batch summary to " + summaryFileLocation);
 			}
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+			System.out.println("File at location " + summaryFileLocation + " could not be written");
+			e.printStackTrace();
 		}
-		
-		return true;
 	}
 	
 	/**
-	 * Checks if the initial grid coordinates are valid or not.
-	 * @param dimensions	Sizes of the dimensions.
-	 * @param initGrid		Initial grid coordinates for live cells.
-	 * @return boolean		Are initial grid coordinates valid? Returns true or false.
+	 * Reads a snapshot saved by a checkpoint, to resume a run.
+	 * @param snapshotLocation		Location of the snapshot file.
+	 * @return GridSnapshot			Snapshot read from the file, or null if it could not be read.
 	 */
-	private static boolean checkValidInitGrid(List<Integer> dimensions, List<List<Integer>> initGrid) {
-
-		for (List<Integer> coordinate : initGrid) {
-			if (coordinate.size() != dimensions.size()) {
-				// Coordinate is not same size as dimensions, invalid.
-				// Example: coordinate = {1,1,2}, dimension sizes = {10,10}
-				System.out.println("Initial grid has a coordinate with a different number of dimensions than defined in the properties file.");
-				System.out.println("Grid size: " + coordinate.size());
-				System.out.println("Grid coordinate: " + coordinate);
-				System.out.println("Properties grid size: " + dimensions.size());
-				return false;
-			}
-			for (int i = 0; i < coordinate.size(); i++) {
-				if ( (coordinate.get(i) < 0) || (coordinate.get(i) >= dimensions.get(i)) ) {
-					// Coordinate defined in initial grid is out of bounds for defined dimensions in properties file
-					System.out.println("Initial grid has a coordinate with a value smaller than 0 or larger than defined in properties file.");
-					System.out.println("Grid coordinate: " + coordinate);
-					System.out.println("Properties grid size: " + dimensions.get(i) + " at (zero-based) index: " + i);
-					return false;
-				}
+	private static GridSnapshot readSnapshot(String snapshotLocation) {
+		System.out.println("Reading snapshot file" + System.lineSeparator());
+		try {
+			return GridSnapshot.read(Paths.get(snapshotLocation));
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.out.println("File at location " + snapshotLocation + " could not be read");
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Prints the input message, then the grid to the screen.
+	 * @param grid		Grid to print to screen.
+	 * @param message	Message to print to screen.
+	 */
+	private static void printGrid(Grid grid, String message) {
+		System.out.println(message);
+		grid.printDisplay(System.out);
+	}
+	
+	/**
+	 * Prints the generations of the history.show property. The grid is set to each generation in turn.
+	 * @param history	History of the run.
+	 * @param grid		Master grid, after the final grid has been shown and saved.
+	 */
+	private static void printHistory(GridHistory history, Grid grid) {
+		String generations = SetupProperties.getProperty("history.show", "");
+		if (generations.isEmpty()) {
+			return;
+		}
+		for (Integer generation : SetupProperties.getIntListProperty("history.show")) {
+			if (generation < history.getFirstGeneration() || generation > history.getLastGeneration()) {
+				System.out.println("Error: generation " + generation + " is not in the history, which has generations "
+						+ history.getFirstGeneration() + " to " + history.getLastGeneration() + System.lineSeparator());
+				continue;
 			}
+			history.seek(generation, grid);
+			printGrid(grid, "Generation " + generation + " from the history: ");
 		}
-		
-		return true;
 	}
 
 }
@@ -0,0 +1,77 @@
+package pjs.lifegame;
+
+/**
+ * <h1>GameEvents</h1>
+ * Starts and commits the Java Flight Recorder events for the phases of the simulation (GamePhaseEvent).
+ * The event class needs the jdk.jfr module, so it is only used if the module was found, and on other
+ * JVMs every method does nothing.
+ *
+ * The events are disabled by default. A disabled event is never filled in or committed, and the JIT
+ * removes the unused event object, so the events can be left in the stepping path. Usage:
+ * <pre>
+ * GamePhaseEvent event = GameEvents.start();
+ * ... run the phase ...
+ * GameEvents.commit(event, GameEvents.NEIGHBORS, grid, generation);
+ * </pre>
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+final class GameEvents {
+
+	/** Phase that counts the neighbors of every cell. */
+	static final String NEIGHBORS = "neighbors";
+
+	/** Phase that applies the rules to every cell (and counts the neighbors, for one pass engines). */
+	static final String RULES = "rules";
+
+	/** Phase that resets the neighbor values. */
+	static final String RESET = "reset";
+
+	/** Phase that writes the display of a grid. */
+	static final String RENDER = "render";
+
+	/** Phase that reads the initial grid or a snapshot and creates the grid. */
+	static final String LOAD = "load";
+
+	private static final boolean AVAILABLE = isAvailable();
+
+	private GameEvents() {
+	}
+
+	/**
+	 * Checks if the jdk.jfr module is available.
+	 * @return boolean		True if the event classes can be loaded.
+	 */
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event", false, GameEvents.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Starts timing a phase.
+	 * @return GamePhaseEvent	Started event, or null if events are not available or not enabled.
+	 */
+	static GamePhaseEvent start() {
+		return AVAILABLE ? GamePhaseEvent.start() : null;
+	}
+
+	/**
+	 * Ends a phase and commits its event.
+	 * @param event			Event from start, does nothing if null.
+	 * @param phase			Phase name, i.e. NEIGHBORS.
+	 * @param grid			Grid of the phase.
+	 * @param generation	Generation being advanced, or the generation of the grid shown or loaded.
+	 */
+	static void commit(GamePhaseEvent event, String phase, Grid grid, long generation) {
+		if (event != null) {
+			event.commit(phase, grid, generation);
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+package pjs.lifegame;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <h1>GameMetrics</h1>
+ * Metrics of a running simulation, registered as a JMX MBean by GameApp so a long run can be watched
+ * while it is going: the current generation, generations per second, the live cell count, the heap
+ * memory per cell and the time spent in each phase of advancing a generation.
+ *
+ * Add it to a grid with Grid.setMetrics. The grid records each generation it advances, with the time
+ * of each phase: updating the neighbor values, updating the cell values and resetting the neighbor
+ * values. Engines that advance in one pass (packed, incremental and hashlife) record all of it as
+ * updating the cell values, as does every engine for a neighborhood it does not count itself. The counters are LongAdders and the live cell count is a volatile field,
+ * so recording never takes a lock. Rates and averages are worked out when they are read, from the values
+ * kept by recordGenerations, so reading the metrics never changes them.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+	/** Name the metrics are registered with. */
+	public static final String OBJECT_NAME = "pjs.lifegame:type=GameMetrics";
+
+	private final long startGeneration;
+	private final long cellCount;
+
+	private final LongAdder generations = new LongAdder();
+	private final LongAdder neighborUpdateNanos = new LongAdder();
+	private final LongAdder cellUpdateNanos = new LongAdder();
+	private final LongAdder resetNanos = new LongAdder();
+	private volatile long liveCells;
+
+	// Time the metrics were created and time of the last generations recorded, only changed by the grid thread
+	private final long startNanos;
+	private volatile long sampleNanos;
+
+	/**
+	 * @param grid				Grid the metrics are for.
+	 * @param startGeneration	Generation the grid starts at, above 0 when resumed from a snapshot.
+	 */
+	public GameMetrics(Grid grid, long startGeneration) {
+		this.startGeneration = startGeneration;
+		this.cellCount = grid.getCellCount();
+		this.liveCells = grid.getLiveCellCount();
+		this.startNanos = System.nanoTime();
+		this.sampleNanos = this.startNanos;
+	}
+
+	/**
+	 * Records generations advanced by a grid. Called on the thread advancing the grid.
+	 * @param count			Number of generations advanced.
+	 * @param liveCells		Number of live cells after the generations.
+	 * @param neighborNanos	Time spent updating the neighbor values, in nanoseconds.
+	 * @param cellNanos		Time spent updating the cell values, in nanoseconds.
+	 * @param resetNanos	Time spent resetting the neighbor values, in nanoseconds.
+	 */
+	public void recordGenerations(long count, long liveCells, long neighborNanos, long cellNanos, long resetNanos) {
+		this.generations.add(count);
+		this.neighborUpdateNanos.add(neighborNanos);
+		this.cellUpdateNanos.add(cellNanos);
+		this.resetNanos.add(resetNanos);
+		this.liveCells = liveCells;
+		this.sampleNanos = System.nanoTime();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, replacing any metrics registered before.
+	 * @return ObjectName	Name the metrics were registered with.
+	 */
+	public ObjectName register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+			return name;
+		} catch (JMException e) {
+			throw new RuntimeException("Game metrics could not be registered: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Unregisters metrics registered with register.
+	 * @param name		Name the metrics were registered with.
+	 */
+	public static void unregister(ObjectName name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			throw new RuntimeException("Game metrics could not be unregistered: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public long getGeneration() {
+		return this.startGeneration + this.generations.sum();
+	}
+
+	@Override
+	public double getGenerationsPerSecond() {
+		long nanos = this.sampleNanos - this.startNanos;
+		return (nanos == 0) ? 0 : this.generations.sum() * 1e9 / nanos;
+	}
+
+	@Override
+	public long getLiveCellCount() {
+		return this.liveCells;
+	}
+
+	@Override
+	public long getCellCount() {
+		return this.cellCount;
+	}
+
+	@Override
+	public double getHeapBytesPerCell() {
+		long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		return (this.cellCount == 0) ? 0 : (double) used / this.cellCount;
+	}
+
+	@Override
+	public long getNeighborUpdateNanos() {
+		return this.neighborUpdateNanos.sum();
+	}
+
+	@Override
+	public long getCellUpdateNanos() {
+		return this.cellUpdateNanos.sum();
+	}
+
+	@Override
+	public long getResetNanos() {
+		return this.resetNanos.sum();
+	}
+
+	@Override
+	public double getNeighborUpdateNanosPerGeneration() {
+		return this.perGeneration(this.neighborUpdateNanos.sum());
+	}
+
+	@Override
+	public double getCellUpdateNanosPerGeneration() {
+		return this.perGeneration(this.cellUpdateNanos.sum());
+	}
+
+	@Override
+	public double getResetNanosPerGeneration() {
+		return this.perGeneration(this.resetNanos.sum());
+	}
+
+	/**
+	 * Divides a total by the number of generations recorded.
+	 * @param total		Total of all generations.
+	 * @return double	Average for each generation, 0 before the first generation.
+	 */
+	private double perGeneration(long total) {
+		long generations = this.generations.sum();
+		return (generations == 0) ? 0 : (double) total / generations;
+	}
+
+}
@@ -0,0 +1,69 @@
+package pjs.lifegame;
+
+/**
+ * <h1>GameMetricsMBean</h1>
+ * Attributes of a running simulation shown over JMX, i.e. in JConsole or VisualVM under pjs.lifegame.
+ * See GameMetrics.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public interface GameMetricsMBean {
+
+	/**
+	 * @return long		Current generation of the grid.
+	 */
+	long getGeneration();
+
+	/**
+	 * @return double	Generations advanced per second, from the start to the last generations recorded.
+	 */
+	double getGenerationsPerSecond();
+
+	/**
+	 * @return long		Number of live cells after the last generation.
+	 */
+	long getLiveCellCount();
+
+	/**
+	 * @return long		Number of cells in the grid.
+	 */
+	long getCellCount();
+
+	/**
+	 * @return double	Heap memory used by the JVM divided by the number of cells, an upper bound of the memory per cell.
+	 */
+	double getHeapBytesPerCell();
+
+	/**
+	 * @return long		Total time spent updating the neighbor values, in nanoseconds.
+	 */
+	long getNeighborUpdateNanos();
+
+	/**
+	 * @return long		Total time spent updating the cell values, in nanoseconds.
+	 */
+	long getCellUpdateNanos();
+
+	/**
+	 * @return long		Total time spent resetting the neighbor values, in nanoseconds.
+	 */
+	long getResetNanos();
+
+	/**
+	 * @return double	Average time spent updating the neighbor values in each generation, in nanoseconds.
+	 */
+	double getNeighborUpdateNanosPerGeneration();
+
+	/**
+	 * @return double	Average time spent updating the cell values in each generation, in nanoseconds.
+	 */
+	double getCellUpdateNanosPerGeneration();
+
+	/**
+	 * @return double	Average time spent resetting the neighbor values in each generation, in nanoseconds.
+	 */
+	double getResetNanosPerGeneration();
+
+}
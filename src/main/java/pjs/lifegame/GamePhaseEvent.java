@@ -0,0 +1,77 @@
+package pjs.lifegame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <h1>GamePhaseEvent</h1>
+ * Java Flight Recorder event for one phase of the simulation, so a recording shows the phases next to
+ * the GC pauses and CPU samples. Only created through GameEvents, which checks the jdk.jfr module is
+ * available first.
+ *
+ * Disabled by default. Enable it in a recording with, i.e.
+ * java -XX:StartFlightRecording:+pjs.lifegame.GamePhase#enabled=true,filename=run.jfr -jar ...
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+@Name("pjs.lifegame.GamePhase")
+@Label("Game Phase")
+@Category("Game of Life")
+@Description("One phase of advancing, showing or loading a grid")
+@Enabled(false)
+@StackTrace(false)
+final class GamePhaseEvent extends Event {
+
+	@Label("Phase")
+	@Description("neighbors, rules, reset, render or load")
+	String phase;
+
+	@Label("Generation")
+	@Description("Generation being advanced, or the generation of the grid shown or loaded")
+	long generation;
+
+	@Label("Live Cells")
+	@Description("Number of live cells at the end of the phase")
+	long liveCells;
+
+	@Label("Engine")
+	String engine;
+
+	/**
+	 * Starts an event, if it is enabled in a recording.
+	 * @return GamePhaseEvent	Started event, or null if it is not enabled.
+	 */
+	static GamePhaseEvent start() {
+		GamePhaseEvent event = new GamePhaseEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends the event and commits it, if it lasted longer than the threshold of the recording.
+	 * @param phase			Phase name.
+	 * @param grid			Grid of the phase.
+	 * @param generation	Generation of the phase.
+	 */
+	void commit(String phase, Grid grid, long generation) {
+		this.end();
+		if (this.shouldCommit()) {
+			this.phase = phase;
+			this.generation = generation;
+			this.liveCells = grid.getLiveCellCount();
+			this.engine = GridFactory.getEngine(grid);
+			this.commit();
+		}
+	}
+
+}
@@ -5,24 +5,105 @@ import java.util.List;
 /**
  * <h1>GameRules</h1>
  * Uses the rules of the game to determine whether the cell is live or dead.
- * 
+ * The stay.live and dead.live properties are compiled into a RuleTable once per number of
+ * dimensions, and compiled again only if the properties change. Each thread keeps its own
+ * compiled rules, as runs with different properties can be on different threads (see SetupProperties.runWith).
+ *
  * @author Paul Seebald
  * @version 1.0
  * @since 2018-01-12
  */
 public class GameRules {
-	
+
+	/** Maximum number of dimensions of a grid. */
+	public static final int MAX_DIMENSIONS = 10;
+
+	private static ThreadLocal<RuleTable[]> rules = new ThreadLocal<>();
+	private static ThreadLocal<RuleTable> countRules = new ThreadLocal<>();
+	private static ThreadLocal<Integer> rulesPropertiesVersion = new ThreadLocal<>();
+
+	/**
+	 * Gets the compiled rules for a grid with the number of dimensions.
+	 * @param dimensions		Number of dimensions of the grid.
+	 * @return RuleTable		Rules compiled from the current stay.live and dead.live properties.
+	 */
+	public static RuleTable getRules(int dimensions) {
+		RuleTable[] threadRules = getThreadRules();
+		if (dimensions > MAX_DIMENSIONS) {
+			return compileRules(dimensions);
+		}
+		if (threadRules[dimensions] == null) {
+			threadRules[dimensions] = compileRules(dimensions);
+		}
+		return threadRules[dimensions];
+	}
+
+	/**
+	 * Gets the compiled rules of this thread, discarding them first if the properties have changed.
+	 * @return RuleTable[]		Rules compiled so far, by number of dimensions.
+	 */
+	private static RuleTable[] getThreadRules() {
+		RuleTable[] threadRules = rules.get();
+		Integer version = rulesPropertiesVersion.get();
+		if (threadRules == null || version == null || version != SetupProperties.getVersion()) {
+			threadRules = new RuleTable[MAX_DIMENSIONS+1];
+			rules.set(threadRules);
+			countRules.remove();
+			rulesPropertiesVersion.set(SetupProperties.getVersion());
+		}
+		return threadRules;
+	}
+
+	/**
+	 * Compiles the stay.live and dead.live properties into a RuleTable, for the neighborhood in the properties.
+	 * @param dimensions		Number of dimensions of the grid.
+	 * @return RuleTable		Compiled rules.
+	 */
+	private static RuleTable compileRules(int dimensions) {
+		return new RuleTable(SetupProperties.getIntListProperty("stay.live"),
+				SetupProperties.getIntListProperty("dead.live"), dimensions,
+				Neighborhood.getNeighborhood().getNeighborValues(dimensions));
+	}
+
 	/**
 	 * Checks if the cell should be live or dead based on its value and the total neighbor value.
 	 * @param cell			Cell to check (if live or dead), according to game rules.
 	 * @return boolean		New cell value, true if cell is live, false if not.
 	 */
 	public static boolean isCellLive(Cell cell) {
-		// If the cell is live, use the list that checks if it will stay live.
-		// If the cell is dead, use the list that checks if it should become live.
-		List<Integer> liveList = cell.getValue() ? 
-				SetupProperties.getIntListProperty("stay.live") : SetupProperties.getIntListProperty("dead.live");
-		return liveList.contains(cell.getNeighborValue());
+		return isCellLive(cell.getValue(), cell.getNeighborValue());
+	}
+
+	/**
+	 * Checks if a cell should be live or dead based on its value and the total neighbor value.
+	 * Grids should get the RuleTable once with getRules instead of calling this for every cell.
+	 * The number of dimensions is not known here, so the rules are compiled into a table only as large
+	 * as the largest number in stay.live and dead.live. Any larger neighbor value makes the cell dead.
+	 * @param value			Current value of the cell, true if live.
+	 * @param neighbors		Number of live neighbors of the cell.
+	 * @return boolean		New cell value, true if cell is live, false if not.
+	 */
+	public static boolean isCellLive(boolean value, int neighbors) {
+		getThreadRules();
+		RuleTable table = countRules.get();
+		if (table == null) {
+			List<Integer> stayLive = SetupProperties.getIntListProperty("stay.live");
+			List<Integer> deadLive = SetupProperties.getIntListProperty("dead.live");
+			int maxCount = 0;
+			for (Integer count : stayLive) {
+				maxCount = Math.max(maxCount, count);
+			}
+			for (Integer count : deadLive) {
+				maxCount = Math.max(maxCount, count);
+			}
+			table = new RuleTable(stayLive, deadLive, MAX_DIMENSIONS, maxCount + 1);
+			countRules.set(table);
+		}
+
+		if (neighbors < 0 || neighbors > table.getMaxNeighborValue()) {
+			return false;
+		}
+		return table.isCellLive(value, neighbors);
 	}
 
 }
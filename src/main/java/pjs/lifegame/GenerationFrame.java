@@ -0,0 +1,174 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <h1>GenerationFrame</h1>
+ * Immutable copy of the cells of a grid at one generation, published by a GenerationPublisher.
+ * The cells are packed bits in index order (see Grid.getCellBits), held in blocks of 4096 cells. A block
+ * that did not change since the frame before is shared with it instead of copied, so a grid where only a
+ * few areas change costs little more than the changed blocks for each frame.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public final class GenerationFrame {
+
+	/** Longs in each block of cells. */
+	static final int BLOCK_WORDS = 64;
+
+	private final long generation;
+	private final List<Integer> dimSizes;
+	private final long cellCount;
+	private final long liveCells;
+	private final long stateHash;
+	// Blocks of cells, never changed once the frame is created
+	private final long[][] blocks;
+
+	/**
+	 * Copies the cells of a grid, sharing the blocks that have not changed since the previous frame.
+	 * @param grid			Grid to copy.
+	 * @param previous		Previous frame of the same grid, or null.
+	 */
+	GenerationFrame(Grid grid, GenerationFrame previous) {
+		this.generation = grid.getGeneration();
+		this.dimSizes = Collections.unmodifiableList(grid.getDimensionSizes());
+		this.cellCount = grid.getCellCount();
+		this.liveCells = grid.getLiveCellCount();
+		this.stateHash = grid.getStateHash();
+
+		long words = (this.cellCount + 63) >>> 6;
+		if (words > (long) Integer.MAX_VALUE * BLOCK_WORDS) {
+			throw new RuntimeException("Grid with " + this.cellCount + " cells is too large for a generation frame.");
+		}
+		this.blocks = new long[(int) ((words + BLOCK_WORDS - 1) / BLOCK_WORDS)][];
+		boolean share = (previous != null) && previous.cellCount == this.cellCount;
+
+		long[] bits = new long[BLOCK_WORDS];
+		for (int b = 0; b < this.blocks.length; b++) {
+			int length = (int) Math.min(BLOCK_WORDS, words - (long) b * BLOCK_WORDS);
+			LongBuffer buffer = LongBuffer.wrap(bits, 0, length);
+			grid.getCellBits((long) b * BLOCK_WORDS, buffer);
+
+			if (share && equals(previous.blocks[b], bits, length)) {
+				this.blocks[b] = previous.blocks[b];
+			} else {
+				this.blocks[b] = new long[length];
+				System.arraycopy(bits, 0, this.blocks[b], 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a block has the same cells as the start of an array.
+	 * @param block		Block of a frame.
+	 * @param bits		Array of cells.
+	 * @param length	Number of longs to compare, the length of the block.
+	 * @return boolean	True if the cells are the same.
+	 */
+	private static boolean equals(long[] block, long[] bits, int length) {
+		if (block.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (block[i] != bits[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Getter for the generation of the grid when the frame was copied.
+	 * @return long		Generation of the frame.
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Getter for the size of each dimension.
+	 * @return List<Integer>	Size of each dimension, cannot be changed.
+	 */
+	public List<Integer> getDimensionSizes() {
+		return this.dimSizes;
+	}
+
+	/**
+	 * Gets the total number of cells in the frame.
+	 * @return long 	The number of cells.
+	 */
+	public long getCellCount() {
+		return this.cellCount;
+	}
+
+	/**
+	 * Gets the number of live cells in the frame.
+	 * @return long 	The number of live cells.
+	 */
+	public long getLiveCellCount() {
+		return this.liveCells;
+	}
+
+	/**
+	 * Gets the state hash of the grid when the frame was copied (see StateHash).
+	 * @return long 	The state hash.
+	 */
+	public long getStateHash() {
+		return this.stateHash;
+	}
+
+	/**
+	 * Gets the value of the cell with the index (see Grid.getIndex).
+	 * @param index 		Index of the cell.
+	 * @return boolean 		True if the cell is live.
+	 */
+	public boolean getCellValue(long index) {
+		if (index < 0 || index >= this.cellCount) {
+			throw new RuntimeException("Cell index " + index + " is not in the frame.");
+		}
+		long word = index >>> 6;
+		return ((this.blocks[(int) (word / BLOCK_WORDS)][(int) (word % BLOCK_WORDS)] >>> index) & 1L) != 0;
+	}
+
+	/**
+	 * Copies cell values into a buffer as bits, in the same order as Grid.getCellBits.
+	 * @param firstWord 	Position of the first long to copy, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer for the bits.
+	 */
+	public void getCellBits(long firstWord, LongBuffer bits) {
+		long words = (this.cellCount + 63) >>> 6;
+		for (long word = firstWord; bits.hasRemaining() && word < words; word++) {
+			bits.put(this.blocks[(int) (word / BLOCK_WORDS)][(int) (word % BLOCK_WORDS)]);
+		}
+	}
+
+	/**
+	 * Sets the cells of a grid to the cells of the frame, i.e. to show it with Grid.printDisplay.
+	 * @param grid		Grid with the same size as the frame.
+	 */
+	public void copyTo(Grid grid) {
+		if (!grid.getDimensionSizes().equals(this.dimSizes)) {
+			throw new RuntimeException("Frame grid size " + this.dimSizes + " does not match grid size "
+					+ grid.getDimensionSizes());
+		}
+		for (int b = 0; b < this.blocks.length; b++) {
+			// Blocks are shared between frames, so the grid is given a read only view
+			grid.setCellBits((long) b * BLOCK_WORDS, LongBuffer.wrap(this.blocks[b]).asReadOnlyBuffer());
+		}
+		grid.setGeneration(this.generation);
+	}
+
+	/**
+	 * Gets a block of cells, to check which blocks are shared between frames.
+	 * @param block		Position of the block.
+	 * @return long[]	Block of cells, not to be changed.
+	 */
+	long[] getBlock(int block) {
+		return this.blocks[block];
+	}
+
+}
@@ -0,0 +1,21 @@
+package pjs.lifegame;
+
+/**
+ * <h1>GenerationListener</h1>
+ * Told about each generation as a grid advances through Grid.advanceGenerations,
+ * i.e. to save a checkpoint every few generations.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public interface GenerationListener {
+
+	/**
+	 * Called after each generation is advanced, on the thread advancing the grid.
+	 * @param grid			Grid that advanced.
+	 * @param generation	Number of generations advanced so far in this call to advanceGenerations.
+	 */
+	void generationAdvanced(Grid grid, int generation);
+
+}
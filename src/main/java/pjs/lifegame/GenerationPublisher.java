@@ -0,0 +1,126 @@
+package pjs.lifegame;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>GenerationPublisher</h1>
+ * Publishes a GenerationFrame of a grid for each generation it advances, to any number of subscribers
+ * such as renderers, analyzers and writers. Add it to a grid with Grid.addGenerationListener, and call
+ * publish for the generation before the grid starts advancing if it is wanted. Subscribers only get
+ * the frames published after they subscribe, and get onComplete after close.
+ *
+ * Each subscriber has its own buffer of at most bufferCapacity frames, and is sent frames on its own
+ * thread as it requests them (Flow.Subscription.request), so each consumes frames at its own pace. When
+ * the buffer of a subscriber is full, the grid either waits for the subscriber before advancing, or with
+ * dropFrames the frame is not sent to that subscriber. The buffers never grow, so a slow subscriber never
+ * makes the grid hold more than bufferCapacity frames for it.
+ *
+ * Frames share the blocks of cells that did not change (see GenerationFrame), so buffered frames of a
+ * mostly still grid cost little more than one copy of it.
+ *
+ * Uses java.util.concurrent.Flow, so needs Java 9 or later.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class GenerationPublisher implements Flow.Publisher<GenerationFrame>, GenerationListener, Closeable {
+
+	// Threads sending the frames to the subscribers, which end once idle so the pool is never shut down
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "grid-frames");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final SubmissionPublisher<GenerationFrame> publisher;
+	private final boolean dropFrames;
+	private final LongAdder droppedFrames = new LongAdder();
+	private GenerationFrame lastFrame = null;
+
+	/**
+	 * @param bufferCapacity	Most frames buffered for each subscriber, rounded up to a power of 2.
+	 * @param dropFrames		True to drop frames for subscribers with a full buffer, false to wait for them.
+	 */
+	public GenerationPublisher(int bufferCapacity, boolean dropFrames) {
+		if (bufferCapacity < 1) {
+			throw new RuntimeException("Frame buffer capacity must be at least 1, it was: " + bufferCapacity);
+		}
+		this.publisher = new SubmissionPublisher<>(EXECUTOR, bufferCapacity);
+		this.dropFrames = dropFrames;
+	}
+
+	/**
+	 * Adds a subscriber, which is sent the frames published from now on.
+	 * @param subscriber		Subscriber for the frames.
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super GenerationFrame> subscriber) {
+		this.publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Publishes a frame of each generation advanced.
+	 * @param grid			Grid that advanced.
+	 * @param generation	Number of generations advanced so far.
+	 */
+	@Override
+	public void generationAdvanced(Grid grid, int generation) {
+		this.publish(grid);
+	}
+
+	/**
+	 * Copies the current generation of a grid to a frame, and sends it to every subscriber. Waits for
+	 * room in the buffer of any subscriber that is full, unless frames are dropped.
+	 * @param grid				Grid to publish.
+	 * @return GenerationFrame	Frame that was published.
+	 */
+	public GenerationFrame publish(Grid grid) {
+		GenerationFrame frame = new GenerationFrame(grid, this.lastFrame);
+		this.lastFrame = frame;
+		if (this.dropFrames) {
+			int lag = this.publisher.offer(frame, null);
+			if (lag < 0) {
+				this.droppedFrames.add(-lag);
+			}
+		} else {
+			this.publisher.submit(frame);
+		}
+		return frame;
+	}
+
+	/**
+	 * Gets the number of frames not sent because the buffer of a subscriber was full, counted once for each
+	 * subscriber that missed it.
+	 * @return long		Number of dropped frames, always 0 unless dropFrames is set.
+	 */
+	public long getDroppedFrames() {
+		return this.droppedFrames.sum();
+	}
+
+	/**
+	 * Gets the number of subscribers that have not cancelled.
+	 * @return int		Number of subscribers.
+	 */
+	public int getSubscriberCount() {
+		return this.publisher.getNumberOfSubscribers();
+	}
+
+	/**
+	 * Stops publishing. Each subscriber gets onComplete after the frames already in its buffer.
+	 */
+	@Override
+	public void close() {
+		this.publisher.close();
+	}
+
+}
@@ -1,5 +1,12 @@
 package pjs.lifegame;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -26,8 +33,27 @@ import java.util.List;
 
 public abstract class Grid {
 	
+	/** Number of cells counted at once by advanceGeneration(neighborhood), including the layers on each side. */
+	static final long NEIGHBORHOOD_SLAB_CELLS = 1 << 24;
+	
+	/** Most cells advanceGeneration(neighborhood) can count at once, the size of an int[] of neighbor values. */
+	static final long MAX_NEIGHBORHOOD_SLAB_CELLS = Integer.MAX_VALUE - 64;
+	
 	public int dimSize;
 	
+	int threads = 1;
+	
+	private List<GenerationListener> listeners = new ArrayList<>();
+	
+	// Metrics to record each generation in, or null
+	private GameMetrics metrics;
+	
+	// Number of generations advanced, plus the generation the grid started at
+	private long generation = 0;
+	
+	// Size of each dimension, kept after the first call to getSizeArray as the sizes never change
+	private int[] sizes;
+	
 	/**
 	 * Grid represents a slice of a dimension.
 	 * @param dSize 	Size of the grid
@@ -45,20 +71,453 @@ public abstract class Grid {
 		return this.dimSize;
 	}
 	
+	/**
+	 * Sets the number of threads used to advance a generation. Only used by the master/top-level grid,
+	 * grids that cannot split the work between threads always advance on the calling thread.
+	 * @param threads 	Number of threads, 1 advances on the calling thread only.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new RuntimeException("Number of threads must be at least 1, it was: " + threads);
+		}
+		this.threads = threads;
+	}
+	
+	/**
+	 * Getter for the number of threads used to advance a generation.
+	 * @return int 	The number of threads.
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+	
+	/**
+	 * Getter for the number of dimensions of the grid.
+	 * @return int 	The number of dimensions.
+	 */
+	public abstract int getDimensions();
+	
+	/**
+	 * Getter for the size of each dimension, from the first dimension (columns) to the last.
+	 * @return List<Integer> 	The dimension sizes.
+	 */
+	public abstract List<Integer> getDimensionSizes();
+	
+	/**
+	 * Gets the total number of cells in the grid.
+	 * @return long 	The number of cells.
+	 */
+	public long getCellCount() {
+		long cellCount = 1;
+		for (Integer size : this.getDimensionSizes()) {
+			cellCount *= size;
+		}
+		return cellCount;
+	}
+	
+	/**
+	 * Getter for the size of each dimension as an array, for the coordinate methods that do not allocate.
+	 * @return int[] 	The dimension sizes, not to be changed.
+	 */
+	int[] getSizeArray() {
+		if (this.sizes == null) {
+			List<Integer> sizeList = this.getDimensionSizes();
+			int[] sizeArray = new int[sizeList.size()];
+			for (int d = 0; d < sizeArray.length; d++) {
+				sizeArray[d] = sizeList.get(d);
+			}
+			this.sizes = sizeArray;
+		}
+		return this.sizes;
+	}
+	
+	/**
+	 * Converts a coordinate to the index of the cell, with the first dimension changing fastest,
+	 * so for a 4x3 grid the cell {1,2} is index 1 + 2*4 = 9.
+	 * @param coordinate 	Coordinate of the cell, one value for each dimension.
+	 * @return long 		Index of the cell, or -1 if the coordinate is not on the grid.
+	 */
+	public long getIndex(int[] coordinate) {
+		int[] sizeArray = this.getSizeArray();
+		if (coordinate.length != sizeArray.length) {
+			return -1;
+		}
+		long index = 0;
+		long stride = 1;
+		for (int d = 0; d < sizeArray.length; d++) {
+			if (coordinate[d] < 0 || coordinate[d] >= sizeArray[d]) {
+				return -1;
+			}
+			index += coordinate[d] * stride;
+			stride *= sizeArray[d];
+		}
+		return index;
+	}
+	
+	/**
+	 * Converts the index of a cell to its coordinate, the opposite of getIndex.
+	 * @param index 		Index of the cell.
+	 * @param coordinate 	Array to put the coordinate in, with one value for each dimension.
+	 */
+	public void getCoordinate(long index, int[] coordinate) {
+		int[] sizeArray = this.getSizeArray();
+		for (int d = 0; d < sizeArray.length; d++) {
+			coordinate[d] = (int) (index % sizeArray[d]);
+			index /= sizeArray[d];
+		}
+	}
+	
+	/**
+	 * Copies cell values into a buffer as bits, 64 cells in each long. Cells are in index order with the
+	 * first dimension changing fastest, so for a 4x3 grid the cell {1,2} is index 1 + 2*4 = 9.
+	 * Bit i of long w is the cell with index w*64 + i. Fills the buffer, or stops at the last cell.
+	 * This checks every cell by its index, grids that store their cells as bits copy them directly.
+	 * @param firstWord 	Position of the first long to copy, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer for the bits.
+	 */
+	public void getCellBits(long firstWord, LongBuffer bits) {
+		long cellCount = this.getCellCount();
+		for (long word = firstWord; bits.hasRemaining() && (word << 6) < cellCount; word++) {
+			long value = 0;
+			for (int bit = 0; bit < 64 && (word << 6) + bit < cellCount; bit++) {
+				if (this.getCellValue((word << 6) + bit)) {
+					value |= (1L << bit);
+				}
+			}
+			bits.put(value);
+		}
+	}
+	
+	/**
+	 * Sets cell values from a buffer of bits, in the same order as getCellBits.
+	 * Reads the rest of the buffer, or stops at the last cell.
+	 * @param firstWord 	Position of the first long to set, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer of bits.
+	 */
+	public void setCellBits(long firstWord, LongBuffer bits) {
+		long cellCount = this.getCellCount();
+		for (long word = firstWord; bits.hasRemaining() && (word << 6) < cellCount; word++) {
+			long value = bits.get();
+			for (int bit = 0; bit < 64 && (word << 6) + bit < cellCount; bit++) {
+				this.setCellValue((word << 6) + bit, ((value >>> bit) & 1L) != 0);
+			}
+		}
+	}
+	
+	/**
+	 * Adds a listener that is told about each generation advanced by advanceGenerations.
+	 * @param listener 	Listener to add.
+	 */
+	public void addGenerationListener(GenerationListener listener) {
+		this.listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener added with addGenerationListener.
+	 * @param listener 	Listener to remove.
+	 */
+	public void removeGenerationListener(GenerationListener listener) {
+		this.listeners.remove(listener);
+	}
+	
+	/**
+	 * Sets the metrics each generation advanced is recorded in, with the time of each phase.
+	 * @param metrics 	Metrics to record in, or null to stop recording.
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Getter for the metrics set with setMetrics.
+	 * @return GameMetrics 	Metrics, or null if none are set.
+	 */
+	public GameMetrics getMetrics() {
+		return this.metrics;
+	}
+	
+	/**
+	 * Getter for the current generation, the number of generations advanced since the grid was created
+	 * plus the generation set with setGeneration.
+	 * @return long 	Current generation.
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+	
+	/**
+	 * Sets the current generation, i.e. to the generation of a snapshot the grid was restored from.
+	 * @param generation 	Current generation.
+	 */
+	public void setGeneration(long generation) {
+		this.generation = generation;
+	}
+	
+	/**
+	 * Counts generations advanced, and records them in the metrics if there are any.
+	 * @param count 			Number of generations advanced.
+	 * @param neighborNanos 	Time spent updating the neighbor values, in nanoseconds.
+	 * @param cellNanos 		Time spent updating the cell values, in nanoseconds.
+	 * @param resetNanos 		Time spent resetting the neighbor values, in nanoseconds.
+	 */
+	void recordGenerations(long count, long neighborNanos, long cellNanos, long resetNanos) {
+		this.generation += count;
+		GameMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.recordGenerations(count, this.getLiveCellCount(), neighborNanos, cellNanos, resetNanos);
+		}
+	}
+	
+	/**
+	 * Gets the time for the metrics, without reading the clock if there are no metrics.
+	 * @return long 	System.nanoTime(), or 0 if no metrics are set.
+	 */
+	long getMetricsTime() {
+		return (this.metrics != null) ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * Checks if any generation listeners have been added.
+	 * @return boolean 	True if there are listeners.
+	 */
+	boolean hasGenerationListeners() {
+		return !this.listeners.isEmpty();
+	}
+	
+	/**
+	 * Tells every listener that a generation was advanced.
+	 * @param generation 	Number of generations advanced so far.
+	 */
+	private void fireGenerationAdvanced(int generation) {
+		for (GenerationListener listener : this.listeners) {
+			listener.generationAdvanced(this, generation);
+		}
+	}
+	
+	/**
+	 * Gets the number of live cells in the grid.
+	 * @return long 	The number of live cells.
+	 */
+	public abstract long getLiveCellCount();
+	
+	/**
+	 * Gets a 64-bit hash of the cell values, kept up to date as cells change (see StateHash).
+	 * Grids with the same live cells have the same hash.
+	 * @return long 	The state hash, 0 if no cells are live.
+	 */
+	public abstract long getStateHash();
+	
 	/**
 	 * This method updates the neighbor values for each cell, then updates the values
 	 * for each cell based on the game rules (and properties). Then it resets the neighbor
 	 * values to 0 for each cell.
+	 * Neighborhoods the grid does not count itself are counted by advanceGeneration(neighborhood).
 	 */
 	public void advanceGeneration() {
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		if (!this.isCountedByGrid(neighborhood)) {
+			this.advanceGeneration(neighborhood);
+			return;
+		}
+		
 		// Update neighbors first
+		long generation = this.generation + 1;
+		long start = this.getMetricsTime();
+		GamePhaseEvent event = GameEvents.start();
 		this.updateAllNeighborValues();
+		GameEvents.commit(event, GameEvents.NEIGHBORS, this, generation);
 		
 		// Now update all cell values
+		long neighborsUpdated = this.getMetricsTime();
+		event = GameEvents.start();
 		this.updateAllCellValues();
+		GameEvents.commit(event, GameEvents.RULES, this, generation);
 		
 		// Need to reset all neighbor values
+		long cellsUpdated = this.getMetricsTime();
+		event = GameEvents.start();
 		this.resetAllNeighborValues();
+		GameEvents.commit(event, GameEvents.RESET, this, generation);
+		
+		this.recordGenerations(1, neighborsUpdated - start, cellsUpdated - neighborsUpdated,
+				this.getMetricsTime() - cellsUpdated);
+	}
+	
+	/**
+	 * Checks if the grid counts the neighborhood itself when advancing a generation. Every engine counts the
+	 * radius 1 Moore neighborhood with a dead boundary.
+	 * @param neighborhood	Neighborhood to count.
+	 * @return boolean		True if the grid counts the neighborhood, false to use advanceGeneration(neighborhood).
+	 */
+	protected boolean isCountedByGrid(Neighborhood neighborhood) {
+		return neighborhood.isDefault(this.getDimensions());
+	}
+	
+	/**
+	 * Advances a generation with a neighborhood that the grid does not count itself. The grid is advanced
+	 * in slabs of layers of the last dimension (rows of a 2D grid), so the memory used is the same for any
+	 * size of grid. The cells of a slab, with radius layers on each side, are copied out as bits, the
+	 * Neighborhood counts the neighbors of every cell, and the next cell values are copied back with
+	 * setCellBits, so this works the same for every engine that stores a fixed grid.
+	 * @param neighborhood	Neighborhood to count.
+	 */
+	protected void advanceGeneration(Neighborhood neighborhood) {
+		this.advanceGeneration(neighborhood, NEIGHBORHOOD_SLAB_CELLS);
+	}
+	
+	/**
+	 * Same as advanceGeneration(neighborhood), with the number of cells to count at once.
+	 * The next cell values of a slab are only copied back after the next slab has been copied out, as it
+	 * needs the last layers of the slab before. So each slab has at least radius layers. A wrap boundary
+	 * also needs the first layers for the last slab, so they are kept from before any slab is copied back.
+	 * @param neighborhood	Neighborhood to count.
+	 * @param slabCells		Number of cells to count at once, including the layers on each side.
+	 */
+	void advanceGeneration(Neighborhood neighborhood, long slabCells) {
+		int[] sizes = this.getSizeArray();
+		int last = sizes.length - 1;
+		int lastSize = sizes[last];
+		long layerCells = 1;
+		for (int d = 0; d < last; d++) {
+			layerCells *= sizes[d];
+		}
+		int radius = neighborhood.getRadius();
+		checkNeighborhoodLayers(neighborhood, layerCells);
+		int layers = (int) Math.min(lastSize, Math.max(radius, slabCells / layerCells - 2 * radius));
+
+		// Counting and applying the rules is one pass over each slab, so it is all recorded as updating the cells
+		long start = this.getMetricsTime();
+		GamePhaseEvent event = GameEvents.start();
+		RuleTable rules = GameRules.getRules(sizes.length);
+		int savedLayers = Math.min(radius, lastSize);
+		long[] saved = new long[(int) ((savedLayers * layerCells + 63) >>> 6)];
+		this.readLayers(saved, 0, 0, savedLayers, layerCells);
+
+		int[] slabSizes = sizes.clone();
+		long[] pending = null;
+		int pendingLayer = 0;
+		int pendingLayers = 0;
+		for (int first = 0; first < lastSize; first += layers) {
+			int count = Math.min(layers, lastSize - first);
+			slabSizes[last] = count + 2 * radius;
+			long[] bits = new long[(int) ((slabSizes[last] * layerCells + 63) >>> 6)];
+
+			// Copy out runs of layers that are next to each other on the grid, layers before pendingLayer are copied back already
+			for (int i = 0; i < slabSizes[last];) {
+				int position = neighborhood.getBoundaryPosition(first - radius + i, lastSize);
+				int run = 1;
+				while (i + run < slabSizes[last] && (position + run < pendingLayer) == (position < pendingLayer)
+						&& neighborhood.getBoundaryPosition(first - radius + i + run, lastSize) == position + run) {
+					run++;
+				}
+				if (position >= 0 && position < pendingLayer) {
+					copyBits(saved, position * layerCells, bits, i * layerCells, run * layerCells);
+				} else if (position >= 0) {
+					this.readLayers(bits, i, position, run, layerCells);
+				}
+				i += run;
+			}
+
+			int[] counts = neighborhood.countNeighbors(bits, slabSizes);
+			int offset = (int) (radius * layerCells);
+			int cells = (int) (count * layerCells);
+			long[] next = new long[(cells + 63) >>> 6];
+			for (int c = 0; c < cells; c++) {
+				int index = offset + c;
+				boolean value = ((bits[index >>> 6] >>> index) & 1L) != 0;
+				if (rules.isCellLive(value, counts[index])) {
+					next[c >>> 6] |= 1L << c;
+				}
+			}
+
+			if (pending != null) {
+				this.writeLayers(pending, pendingLayer, pendingLayers, layerCells);
+			}
+			pending = next;
+			pendingLayer = first;
+			pendingLayers = count;
+		}
+		this.writeLayers(pending, pendingLayer, pendingLayers, layerCells);
+
+		GameEvents.commit(event, GameEvents.RULES, this, this.generation + 1);
+		this.recordGenerations(1, 0, this.getMetricsTime() - start, 0);
+	}
+	
+	/**
+	 * Checks that advanceGeneration(neighborhood) can count the smallest slab of a grid, radius layers of the
+	 * last dimension with radius layers on each side.
+	 * @param neighborhood	Neighborhood to count.
+	 * @param layerCells	Number of cells in each layer of the last dimension, i.e. a row of a 2D grid.
+	 */
+	static void checkNeighborhoodLayers(Neighborhood neighborhood, long layerCells) {
+		long slabCells = 3L * neighborhood.getRadius() * layerCells;
+		if (layerCells > MAX_NEIGHBORHOOD_SLAB_CELLS || slabCells > MAX_NEIGHBORHOOD_SLAB_CELLS) {
+			throw new RuntimeException("Neighborhood " + neighborhood + " counts " + (3 * neighborhood.getRadius())
+					+ " layers of the last dimension at once, but each layer has " + layerCells + " cells and at most "
+					+ MAX_NEIGHBORHOOD_SLAB_CELLS + " cells can be counted at once. Make the last dimension the largest.");
+		}
+	}
+	
+	/**
+	 * Copies layers of the last dimension out as bits.
+	 * @param bits			Bits to copy the layers into.
+	 * @param bitsLayer		Layer of the bits to copy the first layer to.
+	 * @param firstLayer	First layer to copy.
+	 * @param count			Number of layers to copy.
+	 * @param layerCells	Number of cells in each layer.
+	 */
+	private void readLayers(long[] bits, int bitsLayer, int firstLayer, int count, long layerCells) {
+		long firstBit = firstLayer * layerCells;
+		long bitCount = count * layerCells;
+		long firstWord = firstBit >>> 6;
+		long[] words = new long[(int) (((firstBit + bitCount + 63) >>> 6) - firstWord)];
+		this.getCellBits(firstWord, LongBuffer.wrap(words));
+		copyBits(words, firstBit & 63, bits, bitsLayer * layerCells, bitCount);
+	}
+	
+	/**
+	 * Copies layers of the last dimension back from bits, keeping the cells of the layers on either side.
+	 * @param bits			Bits of the layers.
+	 * @param firstLayer	First layer to copy back.
+	 * @param count			Number of layers to copy back.
+	 * @param layerCells	Number of cells in each layer.
+	 */
+	private void writeLayers(long[] bits, int firstLayer, int count, long layerCells) {
+		long firstBit = firstLayer * layerCells;
+		long bitCount = count * layerCells;
+		long firstWord = firstBit >>> 6;
+		long[] words = new long[(int) (((firstBit + bitCount + 63) >>> 6) - firstWord)];
+		// The first and last longs can have cells of the layers on either side
+		this.getCellBits(firstWord, LongBuffer.wrap(words, 0, 1));
+		this.getCellBits(firstWord + words.length - 1, LongBuffer.wrap(words, words.length - 1, 1));
+		copyBits(bits, 0, words, firstBit & 63, bitCount);
+		this.setCellBits(firstWord, LongBuffer.wrap(words));
+	}
+	
+	/**
+	 * Copies a run of bits from one position to another, which do not have to be at the start of a long.
+	 * @param from			Bits to copy from.
+	 * @param fromBit		Position of the first bit to copy.
+	 * @param to			Bits to copy to.
+	 * @param toBit			Position to copy the first bit to.
+	 * @param count			Number of bits to copy.
+	 */
+	private static void copyBits(long[] from, long fromBit, long[] to, long toBit, long count) {
+		for (long i = 0; i < count;) {
+			// Up to the end of the long being copied to
+			int shift = (int) ((toBit + i) & 63);
+			int n = (int) Math.min(64 - shift, count - i);
+			int word = (int) ((fromBit + i) >>> 6);
+			int fromShift = (int) ((fromBit + i) & 63);
+			long value = from[word] >>> fromShift;
+			if (fromShift != 0 && fromShift + n > 64) {
+				value |= from[word + 1] << (64 - fromShift);
+			}
+			long mask = ((n == 64) ? -1L : (1L << n) - 1) << shift;
+			int toWord = (int) ((toBit + i) >>> 6);
+			to[toWord] = (to[toWord] & ~mask) | ((value << shift) & mask);
+			i += n;
+		}
 	}
 	
 	/**
@@ -69,14 +528,64 @@ public abstract class Grid {
 	 */
 	public void advanceGenerations(int n, boolean displayIntermediates) {
 		for (int i = 1; i <= n; i++) {
-			this.advanceGeneration();
+			this.advanceAndFire(i);
 			if (displayIntermediates && (i < n)) {
 				System.out.println("Generation: " + i);
-				System.out.println(this.getDisplay());
+				this.printDisplay(System.out);
 			}
 		}
 	}
 	
+	/**
+	 * Same as advanceGenerations(n, displayIntermediates), but stops early if the grid dies out, becomes
+	 * a still life or starts oscillating with a period up to maxPeriod. When it stops early, the grid is
+	 * advanced the few generations (less than the period) needed to end in the same state as after all
+	 * n generations, so the final grid is the same as without stopping early.
+	 * @param n 						Number of generations to advance
+	 * @param displayIntermediates 		Property set in a file to display intermediate generations or not.
+	 * @param maxPeriod 				Longest period of oscillator to find, 0 to never stop early.
+	 * @return Cycle 					Cycle the grid was found in, or null if it did not repeat in n generations.
+	 */
+	public Cycle advanceGenerations(int n, boolean displayIntermediates, int maxPeriod) {
+		if (maxPeriod < 1) {
+			this.advanceGenerations(n, displayIntermediates);
+			return null;
+		}
+		
+		long startGeneration = this.generation;
+		CycleDetector detector = new CycleDetector(maxPeriod);
+		Cycle cycle = detector.addGeneration(this);
+		for (int i = 1; i <= n && cycle == null; i++) {
+			this.advanceAndFire(i);
+			if (displayIntermediates && (i < n)) {
+				System.out.println("Generation: " + i);
+				this.printDisplay(System.out);
+			}
+			cycle = detector.addGeneration(this);
+		}
+		
+		if (cycle != null) {
+			// The state after n generations is the same as after the remainder of a whole number of periods
+			int found = cycle.getFoundGeneration();
+			int remaining = (n - found) % cycle.getPeriod();
+			for (int i = 1; i <= remaining; i++) {
+				this.advanceAndFire(found + i);
+			}
+			// The grid is in the state of generation n, so it is counted as being there
+			this.generation = startGeneration + n;
+		}
+		return cycle;
+	}
+	
+	/**
+	 * Advances one generation and tells the listeners, for advanceGenerations.
+	 * @param generation 	Number of generations advanced so far, including this one.
+	 */
+	private void advanceAndFire(int generation) {
+		this.advanceGeneration();
+		this.fireGenerationAdvanced(generation);
+	}
+	
 	/**
 	 * This method takes a list of coordinates and sets their value to be equal to the
 	 * value parameter passed in. Most useful when initializing the grid with starting values.
@@ -89,18 +598,179 @@ public abstract class Grid {
 		}
 	}
 	
+	/**
+	 * Same as setCellValues(coordinates, value), for coordinates as arrays.
+	 * @param coordinates 	Locations of the points on the grid, one value for each dimension.
+	 * @param value 		The value to set.
+	 */
+	public void setCellValues(int[][] coordinates, boolean value) {
+		for (int[] coordinate : coordinates) {
+			this.setCellValue(coordinate, value);
+		}
+	}
+	
+	/**
+	 * Same as setCellValues(coordinates, value), for the indices of the cells (see getIndex).
+	 * @param indices 		Indices of the cells.
+	 * @param value 		The value to set.
+	 */
+	public void setCellValues(long[] indices, boolean value) {
+		for (long index : indices) {
+			this.setCellValue(index, value);
+		}
+	}
+	
+	/**
+	 * Sets the cells with the indices to live, i.e. from a GridLoader. Indices are in the same order
+	 * as getCellBits, with the first dimension changing fastest.
+	 * Grids that store their cells as bits set them all at once.
+	 * @param indices 	Indices of the cells to set live.
+	 */
+	public void setLiveCells(long[] indices) {
+		this.setCellValues(indices, true);
+	}
+	
 	public abstract Cell getCellFromCoordinate(List<Integer> inputCoordinate);
 	
 	public abstract void setCellValue(List<Integer> inputCoordinate, boolean value);
 	
+	/**
+	 * Gets the value of the cell at the coordinate. Unlike getCellFromCoordinate, the grids do not
+	 * create a Cell or any boxed Integers, so this can be called for every cell of a large grid.
+	 * This converts the coordinate to a List, every engine checks the array directly.
+	 * @param coordinate 	Coordinate of the cell, one value for each dimension.
+	 * @return boolean 		True if the cell is live.
+	 */
+	public boolean getCellValue(int[] coordinate) {
+		Cell cell = this.getCellFromCoordinate(toList(coordinate));
+		if (cell == null) {
+			throw new RuntimeException("Coordinate " + Arrays.toString(coordinate) + " is not on the grid.");
+		}
+		return cell.getValue();
+	}
+	
+	/**
+	 * Sets the value of the cell at the coordinate, without creating any objects (see getCellValue).
+	 * This converts the coordinate to a List, every engine sets the cell directly.
+	 * @param coordinate 	Coordinate of the cell, one value for each dimension.
+	 * @param value 		New value for the cell.
+	 */
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.setCellValue(toList(coordinate), value);
+	}
+	
+	/**
+	 * Gets the value of the cell with the index (see getIndex).
+	 * This converts the index to a coordinate, every engine finds the cell from the index directly.
+	 * @param index 		Index of the cell.
+	 * @return boolean 		True if the cell is live.
+	 */
+	public boolean getCellValue(long index) {
+		return this.getCellValue(this.getCoordinateOnGrid(index));
+	}
+	
+	/**
+	 * Sets the value of the cell with the index (see getIndex).
+	 * This converts the index to a coordinate, every engine sets the cell from the index directly.
+	 * @param index 		Index of the cell.
+	 * @param value 		New value for the cell.
+	 */
+	public void setCellValue(long index, boolean value) {
+		this.setCellValue(this.getCoordinateOnGrid(index), value);
+	}
+	
+	/**
+	 * Converts the index of a cell to a new coordinate, after checking it is on the grid.
+	 * @param index 		Index of the cell.
+	 * @return int[] 		Coordinate of the cell.
+	 */
+	private int[] getCoordinateOnGrid(long index) {
+		if (index < 0 || index >= this.getCellCount()) {
+			throw new RuntimeException("Cell index " + index + " is not on the grid.");
+		}
+		int[] coordinate = new int[this.getDimensions()];
+		this.getCoordinate(index, coordinate);
+		return coordinate;
+	}
+	
+	/**
+	 * Converts a coordinate array to a List, for the methods that take a List.
+	 * @param coordinate 		Coordinate of the cell.
+	 * @return List<Integer> 	Same coordinate as a List.
+	 */
+	static List<Integer> toList(int[] coordinate) {
+		List<Integer> list = new ArrayList<>(coordinate.length);
+		for (int value : coordinate) {
+			list.add(value);
+		}
+		return list;
+	}
+	
 	public abstract void updateAllNeighborValues();
 	abstract void updateAllNeighborValues(List<Integer> coordinate, Grid grid);
 	public abstract void updateNeighborValues(List<Integer> inputCoordinate, Cell cell);
 	
-	public abstract void updateAllCellValues();
+	/**
+	 * Should be called only after updating all neighbor values.
+	 * Updates all the cell values using the game rules compiled for the number of dimensions of this grid.
+	 * The rules are compiled only once, not for every cell.
+	 */
+	public void updateAllCellValues() {
+		this.updateAllCellValues(GameRules.getRules(this.getDimensions()));
+	}
+	abstract void updateAllCellValues(RuleTable rules);
+	
+	/**
+	 * Display is the string representation of the grid.
+	 * Large grids should be written with writeDisplay instead, which does not build the whole String.
+	 * @return display	String representation of the grid.
+	 */
+	public String getDisplay() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			this.writeDisplay(bytes);
+		} catch (IOException e) {
+			// Not possible when writing to a byte array
+			throw new RuntimeException("Could not build the grid display: " + e.getMessage(), e);
+		}
+		return bytes.toString();
+	}
+	
+	/**
+	 * Writes the display of the grid to a stream, row by row, without building it as a String.
+	 * This method is the entry point for the master/top-level grid.
+	 * @param out				Stream to write the display to. Flushed after writing.
+	 * @throws IOException		If the stream cannot be written.
+	 */
+	public void writeDisplay(OutputStream out) throws IOException {
+		GamePhaseEvent event = GameEvents.start();
+		DisplayWriter writer = new DisplayWriter(out);
+		this.writeDisplay(writer, new ArrayList<Integer>());
+		writer.flush();
+		GameEvents.commit(event, GameEvents.RENDER, this, this.generation);
+	}
+	
+	/**
+	 * Writes the display of the grid to a print stream followed by an empty line,
+	 * the same as System.out.println(grid.getDisplay()).
+	 * @param out		Stream to print the display to, i.e. System.out.
+	 */
+	public void printDisplay(PrintStream out) {
+		try {
+			this.writeDisplay(out);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write the grid display: " + e.getMessage(), e);
+		}
+		out.println();
+	}
 	
-	public abstract String getDisplay();
-	abstract String getDisplay(List<Integer> indices);
+	/**
+	 * Writes the display of this grid.
+	 * @param writer			Writer for the display.
+	 * @param indices			Current indices of higher level dimensions, for sub-grids.
+	 * @throws IOException		If the stream cannot be written.
+	 */
+	abstract void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException;
 
 	abstract void resetAllNeighborValues();
 	
@@ -1,7 +1,7 @@
 package pjs.lifegame;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -9,27 +9,103 @@ import java.util.List;
  * This grid is separate because it is the foundation of all higher dimension grids.
  * Essentially a line of cells. This is where the cells are stored, and methods in higher 
  * dimensions like getting a cell, setting a cell value, etc. all call down to this level.
+ * The cells are in an array with a ghost cell at each end, see TreeGrid.
  * 
  * @author Paul Seebald
  * @version 1.0
  * @since 2018-01-12
  *
  */
-public class Grid1D extends Grid {
+public class Grid1D extends TreeGrid {
 
-	private List<Cell> cells = new ArrayList<>();
+	// Ghost cell for a dead boundary, never changed.
+	private static final Cell DEAD_CELL = new Cell(false);
+
+	// Cell at coordinate i is at position i+1, positions 0 and dimSize+1 are the ghost cells.
+	private Cell[] cells;
+	
+	// Index of the first cell in the master grid, for the state hash. Cell i has index firstIndex + i.
+	private long firstIndex;
+	private long stateHash = 0;
+	private int liveCells = 0;
 	
 	protected Grid1D(List<Integer> dimSizes) {
+		this(dimSizes, 0);
+	}
+	
+	/**
+	 * Initializes a line of cells in a larger grid.
+	 * @param dimSizes		Dimension sizes.
+	 * @param firstIndex	Index of the first cell in the master/top-level grid.
+	 */
+	Grid1D(List<Integer> dimSizes, long firstIndex) {
 		super(dimSizes.get(0));
+		this.firstIndex = firstIndex;
 		this.createCells();
 	}
 	
 	/**
 	 * Initiates the cells when grid is created. Gives them initial value of false (dead) to each Cell.
+	 * The ghost cells start dead.
 	 */
 	private void createCells() {
-		for (int i = 0; i < this.dimSize; i++) {
-			cells.add(new Cell(false));
+		this.cells = new Cell[this.dimSize + 2];
+		for (int i = 1; i <= this.dimSize; i++) {
+			this.cells[i] = new Cell(false);
+		}
+		this.cells[0] = DEAD_CELL;
+		this.cells[this.dimSize + 1] = DEAD_CELL;
+	}
+
+	/**
+	 * A 1D grid always has one dimension, even as a sub-grid.
+	 * @return int 	The number of dimensions.
+	 */
+	@Override
+	public int getDimensions() {
+		return 1;
+	}
+
+	/**
+	 * Getter for the size of the dimension.
+	 * @return List<Integer> 	The dimension size.
+	 */
+	@Override
+	public List<Integer> getDimensionSizes() {
+		List<Integer> dimSizes = new ArrayList<>();
+		dimSizes.add(this.dimSize);
+		return dimSizes;
+	}
+
+	/**
+	 * Getter for the number of live cells, changed as cells are set or updated.
+	 * @return long 	The number of live cells.
+	 */
+	@Override
+	public long getLiveCellCount() {
+		return this.liveCells;
+	}
+
+	/**
+	 * Getter for the state hash of this line of cells, changed as cells are set or updated.
+	 * @return long 	The state hash.
+	 */
+	@Override
+	public long getStateHash() {
+		return this.stateHash;
+	}
+
+	/**
+	 * Changes a cell value, and keeps the state hash and live cell count up to date.
+	 * @param i			Position of the cell in this grid.
+	 * @param cell		The cell.
+	 * @param value		New value for the cell.
+	 */
+	private void setCellValue(int i, Cell cell, boolean value) {
+		if (cell.getValue() != value) {
+			cell.setValue(value);
+			this.stateHash ^= StateHash.getKey(this.firstIndex + i);
+			this.liveCells += value ? 1 : -1;
 		}
 	}
 
@@ -38,8 +114,8 @@ public class Grid1D extends Grid {
 	 */
 	@Override
 	protected void resetAllNeighborValues() {
-		for (Cell cell : cells) {
-			cell.resetNeighborValue();
+		for (int i = 1; i <= this.dimSize; i++) {
+			this.cells[i].resetNeighborValue();
 		}
 	}
 
@@ -53,7 +129,7 @@ public class Grid1D extends Grid {
 			return null;
 		}
 		
-		return this.cells.get(inputCoordinate.get(this.getIndex()));
+		return this.cells[inputCoordinate.get(this.getIndex()) + 1];
 	}
 
 	/**
@@ -75,68 +151,115 @@ public class Grid1D extends Grid {
 	 */
 	@Override
 	public void setCellValue(List<Integer> inputCoordinate, boolean value) {
-		this.getCellFromCoordinate(inputCoordinate).setValue(value);
+		if (!this.isCoordinateOnGrid(inputCoordinate)) {
+			throw new RuntimeException("Coordinate " + inputCoordinate + " is not on the grid.");
+		}
+		int i = inputCoordinate.get(this.getIndex());
+		this.setCellValue(i, this.cells[i + 1], value);
 	}
-	
+
 	/**
-	 * Entry method for top-level grid to update all neighbor values.
-	 * Only accessed if this Grid1D is the master grid at the top level.
+	 * Gets the value of the cell at the coordinate, see Grid.getCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is live.
 	 */
-	public void updateAllNeighborValues() {
-		List<Integer> coordinate = new ArrayList<>();
-		coordinate.add(0);				// Starting coordinate
-		this.updateAllNeighborValues(coordinate, this);
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		return this.cells[this.getPosition(coordinate[this.getIndex()]) + 1].value;
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate, see Grid.setCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		int i = this.getPosition(coordinate[this.getIndex()]);
+		this.setCellValue(i, this.cells[i + 1], value);
+	}
+
+	/**
+	 * Gets the value of the cell with the index, which is its position in a line of cells.
+	 * @param index			Index of the cell in this grid.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		return this.cells[this.getPosition(index) + 1].value;
+	}
+
+	/**
+	 * Sets the value of the cell with the index, which is its position in a line of cells.
+	 * @param index			Index of the cell in this grid.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		int i = this.getPosition(index);
+		this.setCellValue(i, this.cells[i + 1], value);
+	}
+
+	/**
+	 * Checks a coordinate value or index is on the grid.
+	 * @param coord		Coordinate value or index of the cell.
+	 * @return int		Same value, as the position of the cell in this grid.
+	 */
+	private int getPosition(long coord) {
+		if (coord < 0 || coord >= this.dimSize) {
+			throw new RuntimeException("Cell is not on the grid, coordinate value " + coord
+					+ " is not in the size " + this.dimSize + " at (zero-based) index " + this.getIndex() + ".");
+		}
+		return (int) coord;
 	}
 	
 	/**
-	 * Start with coordinate, cycle through every cell in this grid and update its 
-	 * neighbor values. Need to update them from the top-level/master grid, though (which is the 
-	 * input parameter grid).
-	 * @param coordinate	Starting coordinate.
-	 * @param grid			Master/top-level grid to update values from.
+	 * Points the ghost cells at the cells for the boundary: the shared dead cell, the cell at the other
+	 * end (wrap) or the cell at the same end (reflect).
+	 * @param boundary	Neighborhood.DEAD, Neighborhood.WRAP or Neighborhood.REFLECT.
 	 */
 	@Override
-	protected void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
-		for (int i = 0; i < this.getSize(); i++) {
-			// Cycle through every coordinate within this dimension
-			coordinate.set(this.getIndex(), i);
-			grid.updateNeighborValues(coordinate, this.getCellFromCoordinate(coordinate));
+	void setHalo(String boundary) {
+		switch (boundary) {
+			case Neighborhood.WRAP:
+				this.cells[0] = this.cells[this.dimSize];
+				this.cells[this.dimSize + 1] = this.cells[1];
+				break;
+			case Neighborhood.REFLECT:
+				this.cells[0] = this.cells[1];
+				this.cells[this.dimSize + 1] = this.cells[this.dimSize];
+				break;
+			default:
+				this.cells[0] = DEAD_CELL;
+				this.cells[this.dimSize + 1] = DEAD_CELL;
 		}
-		// Reset this level of coordinate back to zero
-		coordinate.set(this.getIndex(), 0);
 	}
 
 	/**
-	 * Checks each neighbor of the input cell and updates the cell neighbor value if the neighbor is live.
-	 * @param inputCoordinate	Coordinate of the current cell OR a specific neighbor.
-	 * 							Only a neighbor coordinate if coming from higher grid/dimension.
-	 * @param cell				Cell whose neighbor value is to be updated.
-	 * 							May be a cell from a different grid.
+	 * Counts the live cells at the position and on either side of it. The ghost cells mean the cells on
+	 * either side are always there.
+	 * @param position	Position in the halo of each dimension.
+	 * @return int		Number of live cells.
 	 */
 	@Override
-	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
-		// Want neighbors on either side of cell in this dimension
-		
-		int index = this.getIndex();
-		
-		int curDimCoord = inputCoordinate.get(index);
-		for (Integer i : Arrays.asList(new Integer[] {-1, 1})) {
-			inputCoordinate.set(index, curDimCoord+i);
-			
-			try {
-				if(this.getCellFromCoordinate(inputCoordinate).getValue()) {
-					// If the neighbor has true value, add one to neighbor value of cell
-					cell.increaseNeighborValue();
-				}
-			} catch (NullPointerException e) {
-				// If null, just keep going to find neighbors in the grid.
-				continue;
-			}
+	int countBlock(int[] position) {
+		int p = position[0];
+		return (this.cells[p-1].value ? 1 : 0) + (this.cells[p].value ? 1 : 0) + (this.cells[p+1].value ? 1 : 0);
+	}
+
+	/**
+	 * Cycles through every cell in this grid and sets its neighbor value. Need to count them from the
+	 * top-level/master grid, though (which is the input parameter grid).
+	 * @param position	Position in the halo of each dimension, the positions above this grid are already set.
+	 * @param master	Master/top-level grid to count the neighbors in.
+	 */
+	@Override
+	void countAllNeighbors(int[] position, TreeGrid master) {
+		for (int p = 1; p <= this.dimSize; p++) {
+			position[0] = p;
+			Cell cell = this.cells[p];
+			cell.neighbors = master.countBlock(position) - (cell.value ? 1 : 0);
 		}
-		
-		// Setting inputCoordinate back to original value because this is referenced
-		// in any grids above this one.
-		inputCoordinate.set(index, curDimCoord);
 	}
 	
 	/**
@@ -151,46 +274,31 @@ public class Grid1D extends Grid {
 
 	/**
 	 * Should be called only after updating all neighbor values.
-	 * This method calls the game rules. The game rules will check if the neighbor values
+	 * This method uses the game rules to check if the neighbor values
 	 * (and cell value) match the conditions for the cell to be live or dead.  
+	 * @param rules		Game rules compiled for the master/top-level grid.
 	 */
 	@Override
-	public void updateAllCellValues() {
-		for (Cell cell : cells) {
-			cell.setValue(GameRules.isCellLive(cell));
+	protected void updateAllCellValues(RuleTable rules) {
+		for (int i = 0; i < this.dimSize; i++) {
+			Cell cell = this.cells[i + 1];
+			this.setCellValue(i, cell, rules.isCellLive(cell.getValue(), cell.getNeighborValue()));
 		}
 	}
 	
 	/**
-	 * Display is the string representation of the grid.
-	 * This method is the entry point for the master/top-level grid.
-	 * @return display	Representation of the grid.
-	 */
-	@Override
-	public String getDisplay() {
-		return this.getDisplay(null);
-	}
-	
-	/**
-	 * Builds the string for the grid. Checks each cell, puts an O if the cell is live
-	 * and puts a - if the cell is dead.
+	 * Writes the line for the grid. Checks each cell, writes an O if the cell is live
+	 * and writes a - if the cell is dead.
+	 * @param writer	Writer for the display.
 	 * @param indices	Represent the current indices of the grid.
 	 * 					Not used in 1D grid.
-	 * @return display	String (line) showing which cells are live and dead.
 	 */
 	@Override
-	public String getDisplay(List<Integer> indices) {
-		StringBuilder baseBuilder = new StringBuilder();
-		for (Cell cell : cells) {
-			if (cell.getValue()) {
-				baseBuilder.append(" O");
-			} else {
-				baseBuilder.append(" -");
-			}
+	void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException {
+		for (int i = 1; i <= this.dimSize; i++) {
+			writer.writeCell(this.cells[i].getValue());
 		}
-		baseBuilder.append(System.lineSeparator());
-
-		return baseBuilder.toString();
+		writer.writeSeparator();
 	}
 
 }
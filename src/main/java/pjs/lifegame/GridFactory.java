@@ -1,5 +1,6 @@
 package pjs.lifegame;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -12,6 +13,27 @@ import java.util.List;
  */
 public class GridFactory {
 	
+	/** Engine name for the tree of Grid1D/GridND sub-grids holding Cell objects. */
+	public static final String TREE_ENGINE = "tree";
+	
+	/** Engine name for the PackedGrid, with cell values stored as bits in a flat array. */
+	public static final String PACKED_ENGINE = "packed";
+	
+	/** Engine name for the SparseGrid, which only stores live cells. */
+	public static final String SPARSE_ENGINE = "sparse";
+	
+	/** Engine name for the IncrementalGrid, which only checks cells around the last changes. */
+	public static final String INCREMENTAL_ENGINE = "incremental";
+	
+	/** Engine name for the HashLifeGrid, for advancing 2D grids by huge numbers of generations. */
+	public static final String HASHLIFE_ENGINE = "hashlife";
+	
+	/** Engine name for the OffHeapGrid, with cell values stored as bits outside of the Java heap. */
+	public static final String OFFHEAP_ENGINE = "offheap";
+	
+	/** Engine name for the TiledGrid, with the cells stored in tiles in a memory-mapped file. */
+	public static final String TILED_ENGINE = "tiled";
+	
 	/**
 	 * Create a grid based on a list of dimension sizes.
 	 * Uses the list to determine number of dimensions
@@ -29,13 +51,162 @@ public class GridFactory {
 	 * @return Grid			Created grid
 	 */
 	public Grid getGrid(int n, List<Integer> dimSizes) {
+		return this.getGrid(n, dimSizes, 0);
+	}
+	
+	/**
+	 * Create a sub-grid based on number of dimensions and list of dimension sizes.
+	 * @param n				Number of dimensions
+	 * @param dimSizes		Size of dimensions
+	 * @param firstIndex	Index of the first cell of the sub-grid in the master/top-level grid
+	 * @return Grid			Created grid
+	 */
+	Grid getGrid(int n, List<Integer> dimSizes, long firstIndex) {
 		if (n == 1) {
-			return new Grid1D(dimSizes);
+			return new Grid1D(dimSizes, firstIndex);
 		} else if (n > 1) {
-			return new GridND(n, dimSizes);
+			return new GridND(n, dimSizes, firstIndex);
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Create a top-level grid with the given engine.
+	 * The engine determines how the cells are stored, all engines produce the same generations.
+	 * @param engine		Engine name, i.e. "tree" or "packed".
+	 * @param dimSizes		Size of dimensions
+	 * @return Grid			Created grid
+	 */
+	public Grid getGrid(String engine, List<Integer> dimSizes) {
+		switch (engine) {
+			case TREE_ENGINE:
+				return this.getGrid(dimSizes);
+			case PACKED_ENGINE:
+				return new PackedGrid(dimSizes);
+			case SPARSE_ENGINE:
+				return new SparseGrid(dimSizes);
+			case INCREMENTAL_ENGINE:
+				return new IncrementalGrid(dimSizes);
+			case HASHLIFE_ENGINE:
+				return new HashLifeGrid(dimSizes,
+						SetupProperties.getIntProperty("hashlife.max.nodes", HashLifeGrid.DEFAULT_MAX_NODES));
+			case OFFHEAP_ENGINE:
+				return new OffHeapGrid(dimSizes);
+			case TILED_ENGINE:
+				String tileFile = SetupProperties.getProperty("tile.file", "");
+				return new TiledGrid(dimSizes, SetupProperties.getIntProperty("tile.size", 0),
+						SetupProperties.getIntProperty("tile.cache", 0), tileFile.isEmpty() ? null : Paths.get(tileFile));
+			default:
+				throw new RuntimeException("Grid engine " + engine + " is not valid. Must be one of: "
+						+ TREE_ENGINE + ", " + PACKED_ENGINE + ", " + SPARSE_ENGINE + ", " + INCREMENTAL_ENGINE
+						+ ", " + HASHLIFE_ENGINE + ", " + OFFHEAP_ENGINE + ", " + TILED_ENGINE);
+		}
+	}
+	
+	/**
+	 * Gets the name of the engine that created a grid.
+	 * @param grid			Top-level grid.
+	 * @return String		Engine name, i.e. "tree" or "packed".
+	 */
+	public static String getEngine(Grid grid) {
+		if (grid instanceof HashLifeGrid) {
+			return HASHLIFE_ENGINE;
+		} else if (grid instanceof IncrementalGrid) {
+			return INCREMENTAL_ENGINE;
+		} else if (grid instanceof PackedGrid) {
+			return PACKED_ENGINE;
+		} else if (grid instanceof SparseGrid) {
+			return SPARSE_ENGINE;
+		} else if (grid instanceof OffHeapGrid) {
+			return OFFHEAP_ENGINE;
+		} else if (grid instanceof TiledGrid) {
+			return TILED_ENGINE;
+		}
+		return TREE_ENGINE;
+	}
+	
+	/**
+	 * Releases the memory or file a grid holds outside of the heap, which the garbage collector does not free.
+	 * Only the offheap and tiled engines hold any, the grid cannot be used after this.
+	 * @param grid			Top-level grid.
+	 */
+	public static void release(Grid grid) {
+		if (grid instanceof OffHeapGrid) {
+			((OffHeapGrid) grid).close();
+		} else if (grid instanceof TiledGrid) {
+			((TiledGrid) grid).close();
+		}
+	}
+	
+	/**
+	 * Gets the largest size of a dimension that the engine can use.
+	 * Engines that store every cell are limited to 100, the sparse and HashLife engines do not
+	 * store dead cells, the off-heap engine is only limited by memory and the tiled engine by disk space.
+	 * @param engine		Engine name.
+	 * @return int			Maximum dimension size.
+	 */
+	public int getMaxDimensionSize(String engine) {
+		if (SPARSE_ENGINE.equals(engine) || HASHLIFE_ENGINE.equals(engine) || OFFHEAP_ENGINE.equals(engine)
+				|| TILED_ENGINE.equals(engine)) {
+			return Integer.MAX_VALUE;
+		}
+		return 100;
+	}
+	
+	/**
+	 * Checks that the number of dimensions is in the range of 1 to GameRules.MAX_DIMENSIONS, that
+	 * each dimension size is between 1 and getMaxDimensionSize for the engine, that a coordinate of a
+	 * sparse grid fits in its 63-bit key (2^(63/dimensions) cells in each direction for equal sizes), and
+	 * that the engine can count the neighborhood from the properties for the grid, so a run does not stop
+	 * part way through.
+	 * @param engine		Engine name.
+	 * @param dimensions	List of dimension sizes.
+	 */
+	public void checkDimensions(String engine, List<Integer> dimensions) {
+		if ((dimensions.size() < 1) || (dimensions.size() > GameRules.MAX_DIMENSIONS)) {
+			throw new RuntimeException("Grid size property has " + dimensions.size()
+					+ " dimensions, but must be in the range of 1-" + GameRules.MAX_DIMENSIONS + ".");
+		}
+		int maxSize = this.getMaxDimensionSize(engine);
+		for (Integer dim : dimensions) {
+			if (dim < 1 || dim > maxSize) {
+				throw new RuntimeException("Dimension size is out of bounds with value of: " + dim
+						+ ", size must be between 1 and " + maxSize + " (inclusive).");
+			}
+		}
+
+		if (SPARSE_ENGINE.equals(engine)) {
+			SparseGrid.checkKeyBits(dimensions);
+		}
+
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		if (HASHLIFE_ENGINE.equals(engine) && !neighborhood.isDefault(dimensions.size())) {
+			throw new RuntimeException("HashLife grid can only use the moore neighborhood with radius 1 and the dead boundary.");
+		}
+		// Other than these, the neighborhood is counted a slab of layers of the last dimension at a time
+		boolean countedByEngine = neighborhood.isDefault(dimensions.size()) || SPARSE_ENGINE.equals(engine)
+				|| HASHLIFE_ENGINE.equals(engine) || (TREE_ENGINE.equals(engine) && neighborhood.isMooreRadiusOne(dimensions.size()));
+		if (!countedByEngine) {
+			long layerCells = 1;
+			for (int d = 0; d < dimensions.size() - 1; d++) {
+				layerCells *= dimensions.get(d);
+			}
+			Grid.checkNeighborhoodLayers(neighborhood, layerCells);
+		}
+	}
+	
+	/**
+	 * Gets the largest number of generations that the engine can advance in one run.
+	 * The HashLife engine can advance huge numbers of generations, the others are limited to 1000.
+	 * @param engine		Engine name.
+	 * @return int			Maximum number of generations.
+	 */
+	public int getMaxGenerations(String engine) {
+		if (HASHLIFE_ENGINE.equals(engine)) {
+			return Integer.MAX_VALUE;
+		}
+		return 1000;
+	}
+
 }
@@ -0,0 +1,282 @@
+package pjs.lifegame;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>GridHistory</h1>
+ * Keeps the recent generations of a grid in memory while it advances, so earlier generations can be
+ * looked at after a run without advancing the grid again. Add it to a grid with Grid.addGenerationListener.
+ *
+ * Each generation is stored as the cells that changed from the generation before (the births and deaths),
+ * as the gaps between their indices in a variable length encoding of 7 bits per byte. Every
+ * keyframeInterval generations there is also a keyframe, stored the same way as the live cells, which is
+ * the change from a grid with all cells dead. So the memory used grows with the number of cells that
+ * change, not the size of the grid, plus the grid being tracked once.
+ *
+ * The time does grow with the size of the grid: every generation recorded copies the whole grid with
+ * getCellBits and compares it word by word (XOR) with the generation before, a scan of all the cells
+ * even when few of them change.
+ *
+ * A change is the same forwards and backwards, so seek starts from the closest of the keyframe before the
+ * generation, the keyframe after it and the last generation seeked to, and applies the changes in between.
+ * When there are more than maxGenerations generations, the oldest are removed a keyframe interval at a time.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class GridHistory implements GenerationListener {
+
+	private int keyframeInterval;
+	private int maxGenerations;
+	private long startGeneration;
+
+	// Generations in the history, from the first (always a keyframe) to the last
+	private long firstGeneration;
+	private long lastGeneration;
+	// Changes from the generation before, for every generation after the first, and a keyframe every interval
+	private List<byte[]> changes = new ArrayList<>();
+	private List<byte[]> keyframes = new ArrayList<>();
+	private long bytes = 0;
+
+	// Cells of the last generation recorded, to find the cells that changed
+	private long[] lastCells;
+	private long[] nextCells;
+
+	// Cells of the generation last seeked to
+	private long[] seekCells;
+	private long seekGeneration = -1;
+
+	/**
+	 * Records the current generation of the grid as the first generation of the history.
+	 * @param grid				Grid to keep the history of.
+	 * @param keyframeInterval	Number of generations between keyframes.
+	 * @param maxGenerations	Most generations kept, at least the keyframe interval.
+	 */
+	public GridHistory(Grid grid, int keyframeInterval, int maxGenerations) {
+		if (keyframeInterval < 1) {
+			throw new RuntimeException("History keyframe interval must be at least 1, it was: " + keyframeInterval);
+		}
+		if (maxGenerations < keyframeInterval) {
+			throw new RuntimeException("History must keep at least the keyframe interval of " + keyframeInterval
+					+ " generations, it was: " + maxGenerations);
+		}
+		this.keyframeInterval = keyframeInterval;
+		this.maxGenerations = maxGenerations;
+
+		long cellCount = grid.getCellCount();
+		if (cellCount > (long) (Integer.MAX_VALUE - 8) * 64) {
+			throw new RuntimeException("Grid with " + cellCount + " cells is too large to keep the history of.");
+		}
+		int words = (int) ((cellCount + 63) >>> 6);
+		this.lastCells = new long[words];
+		this.nextCells = new long[words];
+		grid.getCellBits(0, LongBuffer.wrap(this.lastCells));
+
+		this.startGeneration = grid.getGeneration();
+		this.firstGeneration = this.startGeneration;
+		this.lastGeneration = this.startGeneration;
+		this.changes.add(null);
+		this.addKeyframe();
+	}
+
+	/**
+	 * Records the cells that changed in the generation, and a keyframe if one is due.
+	 * @param grid			Grid that advanced.
+	 * @param generation	Number of generations advanced so far.
+	 */
+	@Override
+	public void generationAdvanced(Grid grid, int generation) {
+		Arrays.fill(this.nextCells, 0L);
+		grid.getCellBits(0, LongBuffer.wrap(this.nextCells));
+
+		byte[] change = encode(this.lastCells, this.nextCells);
+		this.changes.add(change);
+		this.bytes += change.length;
+
+		long[] swap = this.lastCells;
+		this.lastCells = this.nextCells;
+		this.nextCells = swap;
+		this.lastGeneration++;
+
+		if ((this.lastGeneration - this.startGeneration) % this.keyframeInterval == 0) {
+			this.addKeyframe();
+		}
+		if (this.lastGeneration - this.firstGeneration >= this.maxGenerations) {
+			this.removeOldest();
+		}
+	}
+
+	/**
+	 * Adds a keyframe for the last generation.
+	 */
+	private void addKeyframe() {
+		byte[] keyframe = encode(new long[0], this.lastCells);
+		this.keyframes.add(keyframe);
+		this.bytes += keyframe.length;
+	}
+
+	/**
+	 * Removes the oldest keyframe interval of generations, so the next keyframe is the first generation.
+	 */
+	private void removeOldest() {
+		List<byte[]> removed = this.changes.subList(0, this.keyframeInterval);
+		for (byte[] change : removed) {
+			this.bytes -= (change != null) ? change.length : 0;
+		}
+		removed.clear();
+		this.bytes -= this.keyframes.remove(0).length;
+
+		// The first generation is never changed from, so its change is not needed
+		this.bytes -= this.changes.get(0).length;
+		this.changes.set(0, null);
+		this.firstGeneration += this.keyframeInterval;
+		if (this.seekGeneration < this.firstGeneration) {
+			this.seekGeneration = -1;
+		}
+	}
+
+	/**
+	 * Getter for the first generation in the history.
+	 * @return long		Oldest generation that can be seeked to.
+	 */
+	public long getFirstGeneration() {
+		return this.firstGeneration;
+	}
+
+	/**
+	 * Getter for the last generation in the history.
+	 * @return long		Newest generation that can be seeked to.
+	 */
+	public long getLastGeneration() {
+		return this.lastGeneration;
+	}
+
+	/**
+	 * Getter for the generation last seeked to.
+	 * @return long		Generation of the last seek, or -1 if there has not been one.
+	 */
+	public long getSeekGeneration() {
+		return this.seekGeneration;
+	}
+
+	/**
+	 * Getter for the memory used by the changes and keyframes, not counting the copies of the grid.
+	 * @return long		Number of bytes.
+	 */
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Sets the cells of a grid to a generation in the history, and the generation of the grid to it.
+	 * @param generation	Generation to seek to, from getFirstGeneration to getLastGeneration.
+	 * @param grid			Grid with the same size as the grid the history was kept of.
+	 */
+	public void seek(long generation, Grid grid) {
+		if (generation < this.firstGeneration || generation > this.lastGeneration) {
+			throw new RuntimeException("Generation " + generation + " is not in the history, which has generations "
+					+ this.firstGeneration + " to " + this.lastGeneration + ".");
+		}
+		this.seek(generation);
+		grid.setCellBits(0, LongBuffer.wrap(this.seekCells));
+		grid.setGeneration(generation);
+	}
+
+	/**
+	 * Sets the cells of a grid to the generation before the last seek, or before the last generation
+	 * if there has not been one.
+	 * @param grid			Grid with the same size as the grid the history was kept of.
+	 * @return boolean		False if already at the first generation, and the grid was not changed.
+	 */
+	public boolean stepBack(Grid grid) {
+		long generation = (this.seekGeneration < 0) ? this.lastGeneration : this.seekGeneration;
+		if (generation <= this.firstGeneration) {
+			return false;
+		}
+		this.seek(generation - 1, grid);
+		return true;
+	}
+
+	/**
+	 * Sets the seek cells to a generation, starting from the closest keyframe or the last seek.
+	 * @param generation	Generation in the history.
+	 */
+	private void seek(long generation) {
+		// Closest keyframe, before or after the generation
+		long keyframe = generation - (generation - this.firstGeneration) % this.keyframeInterval;
+		if (keyframe + this.keyframeInterval <= this.lastGeneration
+				&& keyframe + this.keyframeInterval - generation < generation - keyframe) {
+			keyframe += this.keyframeInterval;
+		}
+
+		if (this.seekGeneration < 0 || Math.abs(generation - this.seekGeneration) > Math.abs(generation - keyframe)) {
+			if (this.seekCells == null) {
+				this.seekCells = new long[this.lastCells.length];
+			}
+			Arrays.fill(this.seekCells, 0L);
+			apply(this.keyframes.get((int) ((keyframe - this.firstGeneration) / this.keyframeInterval)), this.seekCells);
+			this.seekGeneration = keyframe;
+		}
+
+		// Each change goes from the generation before to its generation, or back again
+		for (; this.seekGeneration < generation; this.seekGeneration++) {
+			apply(this.changes.get((int) (this.seekGeneration + 1 - this.firstGeneration)), this.seekCells);
+		}
+		for (; this.seekGeneration > generation; this.seekGeneration--) {
+			apply(this.changes.get((int) (this.seekGeneration - this.firstGeneration)), this.seekCells);
+		}
+	}
+
+	/**
+	 * Encodes the cells that are different between two sets of cells, as the gaps between their indices.
+	 * Each gap is written 7 bits at a time from the lowest, with the top bit set on all but the last byte.
+	 * @param oldCells		Cells before, as bits. Can be shorter than the new cells, the rest are dead.
+	 * @param newCells		Cells after, as bits.
+	 * @return byte[]		Encoded indices of the cells that changed.
+	 */
+	static byte[] encode(long[] oldCells, long[] newCells) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long lastIndex = -1;
+		for (int word = 0; word < newCells.length; word++) {
+			long changed = newCells[word] ^ ((word < oldCells.length) ? oldCells[word] : 0L);
+			for (; changed != 0; changed &= changed - 1) {
+				long index = ((long) word << 6) + Long.numberOfTrailingZeros(changed);
+				long gap = index - lastIndex;
+				while (gap >= 0x80) {
+					out.write((int) (gap & 0x7F) | 0x80);
+					gap >>>= 7;
+				}
+				out.write((int) gap);
+				lastIndex = index;
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Changes the value of every cell in an encoded set of changes.
+	 * @param change		Encoded indices of the cells, from encode.
+	 * @param cells			Cells to change, as bits.
+	 */
+	static void apply(byte[] change, long[] cells) {
+		long index = -1;
+		for (int i = 0; i < change.length;) {
+			long gap = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = change[i++];
+				gap |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			index += gap;
+			cells[(int) (index >>> 6)] ^= (1L << index);
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>GridLoader</h1>
+ * Reads an initial grid file of live cell coordinates, one coordinate on each line, i.e. "1,2".
+ * Lines starting with # and blank lines are skipped, and spaces are ignored.
+ *
+ * The file is memory mapped and parsed one byte at a time straight into the indices of the cells
+ * (first dimension changing fastest), without creating a String or Integer for each line. Each
+ * coordinate is checked against the dimension sizes as it is read, so a file with millions of
+ * live cells is read and checked in one pass. Set the cells with Grid.setLiveCells.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class GridLoader {
+
+	/** Default number of bytes of the file mapped at a time. */
+	static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+	private List<Integer> dimSizes;
+	private long[] strides;
+	private int windowSize;
+
+	// Parser state, kept between windows of the file so a number can be split across them
+	private long[] indices;
+	private int count;
+	private long lineNumber;
+	private boolean lineStart;
+	private boolean comment;
+	private boolean lineEmpty;
+	private int dimension;
+	private long index;
+	private long value;
+	private boolean hasDigits;
+	private boolean negative;
+
+	/**
+	 * @param dimSizes	Size of each dimension of the grid the file is for.
+	 */
+	public GridLoader(List<Integer> dimSizes) {
+		this(dimSizes, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param dimSizes		Size of each dimension of the grid the file is for.
+	 * @param windowSize	Number of bytes of the file mapped at a time.
+	 */
+	GridLoader(List<Integer> dimSizes, int windowSize) {
+		this.dimSizes = dimSizes;
+		this.windowSize = windowSize;
+		this.strides = new long[dimSizes.size()];
+		long stride = 1;
+		for (int d = 0; d < dimSizes.size(); d++) {
+			this.strides[d] = stride;
+			stride *= dimSizes.get(d);
+		}
+	}
+
+	/**
+	 * Reads the indices of the live cells from the file.
+	 * @param file				Initial grid file.
+	 * @return long[]			Index of the cell for each coordinate, in the order of the file.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	public long[] read(Path file) throws IOException {
+		this.indices = new long[1024];
+		this.count = 0;
+		this.lineNumber = 1;
+		this.startLine();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += this.windowSize) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(this.windowSize, size - position));
+				this.parse(buffer);
+			}
+		}
+		this.endLine();
+
+		long[] result = Arrays.copyOf(this.indices, this.count);
+		this.indices = null;
+		return result;
+	}
+
+	/**
+	 * Parses the bytes of one window of the file.
+	 * @param buffer	Bytes to parse.
+	 */
+	private void parse(MappedByteBuffer buffer) {
+		int limit = buffer.limit();
+		for (int i = 0; i < limit; i++) {
+			byte b = buffer.get(i);
+			if (b == '\n') {
+				this.endLine();
+				this.lineNumber++;
+				continue;
+			}
+			if (this.lineStart) {
+				this.lineStart = false;
+				this.comment = (b == '#');
+			}
+			if (this.comment) {
+				continue;
+			}
+
+			if (b >= '0' && b <= '9') {
+				this.value = this.value * 10 + (b - '0');
+				if (this.value > Integer.MAX_VALUE) {
+					throw this.error("Number is too large");
+				}
+				this.hasDigits = true;
+				this.lineEmpty = false;
+			} else if (b == ',') {
+				this.endNumber();
+				this.lineEmpty = false;
+			} else if ((b == '-' || b == '+') && !this.hasDigits && !this.negative) {
+				this.negative = (b == '-');
+				this.lineEmpty = false;
+			} else if (b != ' ' && b != '\t' && b != '\r') {
+				throw this.error("Could not read character '" + (char) b + "'");
+			}
+		}
+	}
+
+	/**
+	 * Adds the number that was just read to the index of the cell, after checking it is on the grid.
+	 */
+	private void endNumber() {
+		if (!this.hasDigits) {
+			throw this.error("Missing number");
+		}
+		if (this.dimension >= this.dimSizes.size()) {
+			throw this.error("Coordinate has more dimensions than the grid size " + this.dimSizes);
+		}
+		if ((this.negative && this.value != 0) || this.value >= this.dimSizes.get(this.dimension)) {
+			throw this.error("Coordinate value " + (this.negative ? "-" : "") + this.value
+					+ " is smaller than 0 or larger than the grid size " + this.dimSizes.get(this.dimension)
+					+ " at (zero-based) index " + this.dimension);
+		}
+		this.index += this.value * this.strides[this.dimension];
+		this.dimension++;
+		this.value = 0;
+		this.hasDigits = false;
+		this.negative = false;
+	}
+
+	/**
+	 * Adds the index of the coordinate on the line, unless the line is blank or a comment.
+	 */
+	private void endLine() {
+		if (!this.comment && !this.lineEmpty) {
+			if (this.hasDigits || this.negative || this.dimension == 0) {
+				// The last number on the line, a trailing comma is allowed
+				this.endNumber();
+			}
+			if (this.dimension != this.dimSizes.size()) {
+				throw this.error("Coordinate has " + this.dimension + " dimensions but the grid size "
+						+ this.dimSizes + " has " + this.dimSizes.size());
+			}
+			if (this.count == this.indices.length) {
+				this.indices = Arrays.copyOf(this.indices, this.count * 2);
+			}
+			this.indices[this.count++] = this.index;
+		}
+		this.startLine();
+	}
+
+	/**
+	 * Resets the state for the next line.
+	 */
+	private void startLine() {
+		this.lineStart = true;
+		this.comment = false;
+		this.lineEmpty = true;
+		this.dimension = 0;
+		this.index = 0;
+		this.value = 0;
+		this.hasDigits = false;
+		this.negative = false;
+	}
+
+	/**
+	 * Creates an exception for a problem on the current line.
+	 * @param message				Description of the problem.
+	 * @return RuntimeException		Exception to throw.
+	 */
+	private RuntimeException error(String message) {
+		return new RuntimeException(message + " on line " + this.lineNumber + " of the initial grid file.");
+	}
+
+}
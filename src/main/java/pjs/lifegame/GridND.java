@@ -1,24 +1,43 @@
 package pjs.lifegame;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * <h1>GridND</h1>
  * Multi-dimensional grid, with 2+ dimensions. Contains a list of other sub-grids, 
  * 	either Grid1D (if this is a 2D grid), or GridND (if 3D+ grid). Many of the methods used here
  *  end up calling down to the lowest level grid (i.e. Grid1D) even just to get a cell.
+ *  The sub-grids are in an array with a ghost sub-grid at each end, see TreeGrid.
+ * 
+ * If the master grid is set to use more than one thread, each step of advancing a generation
+ * is split into slabs of sub-grids along the outermost dimension and run on a fork-join pool.
+ * Each cell is only ever written by the slab it is in, so the result is the same as using one thread.
  * 
  * @author Paul Seebald
  * @version 1.0
  * @since 2018-01-12
  */
-public class GridND extends Grid {
+public class GridND extends TreeGrid {
+
+	// Ghost sub-grid for a dead boundary, with no live cells for any position.
+	private static final TreeGrid DEAD_GRID = new DeadGrid();
 
 	private int dimensions;
 	
-	private List<Grid> grids = new ArrayList<>();
+	// Sub-grid at coordinate i is at position i+1, positions 0 and dimSize+1 are the ghost sub-grids.
+	private TreeGrid[] grids;
+	
+	// Number of cells in each sub-grid, to find the sub-grid from the index of a cell.
+	private long subGridCells;
+	
+	// Fork-join pools shared by all grids, one for each number of threads.
+	private static Map<Integer, ForkJoinPool> pools = new HashMap<>();
 	
 	/**
 	 * Initializes with a size and number of dimensions.
@@ -26,20 +45,42 @@ public class GridND extends Grid {
 	 * @param dimSizes
 	 */
 	public GridND(int numDimensions, List<Integer> dimSizes) {
+		this(numDimensions, dimSizes, 0);
+	}
+	
+	/**
+	 * Initializes a sub-grid of a larger grid.
+	 * @param numDimensions
+	 * @param dimSizes
+	 * @param firstIndex	Index of the first cell in the master/top-level grid, for the state hash.
+	 */
+	GridND(int numDimensions, List<Integer> dimSizes, long firstIndex) {
 		super(dimSizes.get(numDimensions-1));
 		this.dimensions = numDimensions;
-		this.createSubGrids(dimSizes);
+		this.createSubGrids(dimSizes, firstIndex);
 	}
 	
 	/**
 	 * Initializes the list of sub-grids through the GridFactory.
+	 * Cells are indexed with the first dimension changing fastest, so each sub-grid starts
+	 * after all the cells of the sub-grids before it.
 	 * @param dimSizes
+	 * @param firstIndex	Index of the first cell in the master/top-level grid.
 	 */
-	private void createSubGrids(List<Integer> dimSizes) {
+	private void createSubGrids(List<Integer> dimSizes, long firstIndex) {
+		long subGridCells = 1;
+		for (int i = 0; i < this.dimensions-1; i++) {
+			subGridCells *= dimSizes.get(i);
+		}
+		this.subGridCells = subGridCells;
+		
 		GridFactory factory = new GridFactory();
+		this.grids = new TreeGrid[this.dimSize + 2];
 		for (int i = 0; i < this.dimSize; i++) {
-			grids.add(factory.getGrid(dimensions-1, dimSizes));
+			this.grids[i + 1] = (TreeGrid) factory.getGrid(dimensions-1, dimSizes, firstIndex + i * subGridCells);
 		}
+		this.grids[0] = DEAD_GRID;
+		this.grids[this.dimSize + 1] = DEAD_GRID;
 	}
 	
 	/**
@@ -50,13 +91,79 @@ public class GridND extends Grid {
 		return this.dimensions-1;
 	}
 
+	/**
+	 * Getter for the number of dimensions of this grid.
+	 * @return int 	The number of dimensions.
+	 */
+	@Override
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * Getter for the size of each dimension, from the sizes of the sub-grids.
+	 * @return List<Integer> 	The dimension sizes.
+	 */
+	@Override
+	public List<Integer> getDimensionSizes() {
+		List<Integer> dimSizes = this.grids[1].getDimensionSizes();
+		dimSizes.add(this.dimSize);
+		return dimSizes;
+	}
+
+	/**
+	 * Gets the number of live cells, adding up the counts kept by the sub-grids.
+	 * @return long 	The number of live cells.
+	 */
+	@Override
+	public long getLiveCellCount() {
+		long liveCells = 0;
+		for (int i = 1; i <= this.dimSize; i++) {
+			liveCells += this.grids[i].getLiveCellCount();
+		}
+		return liveCells;
+	}
+
+	/**
+	 * Gets the state hash, combining the hashes kept by the sub-grids.
+	 * Every cell has a different key, so this is the XOR of the keys of all live cells.
+	 * @return long 	The state hash.
+	 */
+	@Override
+	public long getStateHash() {
+		long stateHash = 0;
+		for (int i = 1; i <= this.dimSize; i++) {
+			stateHash ^= this.grids[i].getStateHash();
+		}
+		return stateHash;
+	}
+
+	/**
+	 * Gets the shared fork-join pool for a number of threads, creating it the first time.
+	 * @param threads			Number of threads.
+	 * @return ForkJoinPool		Pool with that many threads.
+	 */
+	private static synchronized ForkJoinPool getPool(int threads) {
+		ForkJoinPool pool = pools.get(threads);
+		if (pool == null) {
+			pool = new ForkJoinPool(threads);
+			pools.put(threads, pool);
+		}
+		return pool;
+	}
+
 	/**
 	 * Sets all cell neighbor values to zero.
 	 */
 	@Override
 	protected void resetAllNeighborValues() {
-		for (Grid grid : grids) {
-			grid.resetAllNeighborValues();
+		if (this.threads > 1) {
+			getPool(this.threads).invoke(new SlabTask(SlabTask.RESET, null, 0, this.dimSize));
+			return;
+		}
+		
+		for (int i = 1; i <= this.dimSize; i++) {
+			this.grids[i].resetAllNeighborValues();
 		}
 	}
 
@@ -90,8 +197,65 @@ public class GridND extends Grid {
 	 */
 	@Override
 	public void setCellValue(List<Integer> inputCoordinate, boolean value) {
+		if (!this.isCoordinateOnGrid(inputCoordinate)) {
+			throw new RuntimeException("Coordinate " + inputCoordinate + " is not on the grid.");
+		}
 		this.getGridAtCoordinate(inputCoordinate).setCellValue(inputCoordinate, value);
 	}
+
+	/**
+	 * Gets the value of the cell at the coordinate from the sub-grid, see Grid.getCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		return this.getSubGrid(coordinate[this.getIndex()]).getCellValue(coordinate);
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate in the sub-grid, see Grid.setCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.getSubGrid(coordinate[this.getIndex()]).setCellValue(coordinate, value);
+	}
+
+	/**
+	 * Gets the value of the cell with the index from the sub-grid. Each sub-grid holds the next
+	 * subGridCells cells, so the index in the sub-grid is the remainder.
+	 * @param index			Index of the cell in this grid.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		return this.getSubGrid(index / this.subGridCells).getCellValue(index % this.subGridCells);
+	}
+
+	/**
+	 * Sets the value of the cell with the index in the sub-grid, see getCellValue(index).
+	 * @param index			Index of the cell in this grid.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		this.getSubGrid(index / this.subGridCells).setCellValue(index % this.subGridCells, value);
+	}
+
+	/**
+	 * Gets the sub-grid at a coordinate value, after checking it is on the grid.
+	 * @param coord			Coordinate value of the sub-grid.
+	 * @return TreeGrid		The sub-grid.
+	 */
+	private TreeGrid getSubGrid(long coord) {
+		if (coord < 0 || coord >= this.dimSize) {
+			throw new RuntimeException("Cell is not on the grid, coordinate value " + coord
+					+ " is not in the size " + this.dimSize + " at (zero-based) index " + this.getIndex() + ".");
+		}
+		return this.grids[(int) coord + 1];
+	}
 	
 	/**
 	 * Retrieves the sub-grid given a coordinate.
@@ -99,127 +263,199 @@ public class GridND extends Grid {
 	 * @return Grid				Sub-grid associated with input coordinate.
 	 */
 	private Grid getGridAtCoordinate(List<Integer> inputCoordinate) {
-		return this.grids.get(inputCoordinate.get(this.getIndex()));
+		return this.grids[inputCoordinate.get(this.getIndex()) + 1];
 	}
 	
 	/**
 	 * Updates all the neighbor values for all cells within this grid.
 	 * Entry point for the master or top-level grid.
 	 */
+	@Override
 	public void updateAllNeighborValues() {
-		// Create coordinate with same size as number of dimensions of master grid (this)
-		List<Integer> coordinate = new ArrayList<>();
-		for (int i = 0; i < this.dimensions; i++) {
-			coordinate.add(0);
+		if (this.threads > 1) {
+			this.updateHalo(Neighborhood.getNeighborhood().getBoundary());
+			getPool(this.threads).invoke(new SlabTask(SlabTask.NEIGHBORS, null, 0, this.dimSize));
+			return;
 		}
 		
-		// Need to pass the top level grid down, because updateNeighborValues MUST be run from the top level
-		// Otherwise it won't catch all the neighbors
-		this.updateAllNeighborValues(coordinate, this);
+		super.updateAllNeighborValues();
 	}
 	
 	/**
-	 * Update neighbor values for all cells. This is called from both the entry point and upper-level grids.
-	 * @param coordinate
-	 * @param grid
+	 * Points the ghost sub-grids at the sub-grids for the boundary: the shared dead sub-grid, the sub-grid
+	 * at the other end (wrap) or the sub-grid at the same end (reflect). Sets up the halos of the sub-grids first.
+	 * @param boundary	Neighborhood.DEAD, Neighborhood.WRAP or Neighborhood.REFLECT.
 	 */
 	@Override
-	protected void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
-		for (int i = 0; i < this.getSize(); i++) {
-			// Cycle through every coordinate within this dimension
-			coordinate.set(this.getIndex(), i);
-			// Keep moving down the grids to cycle through every coordinate in each one.
-			this.getGridAtCoordinate(coordinate).updateAllNeighborValues(coordinate, grid);
+	void setHalo(String boundary) {
+		for (int i = 1; i <= this.dimSize; i++) {
+			this.grids[i].updateHalo(boundary);
+		}
+		switch (boundary) {
+			case Neighborhood.WRAP:
+				this.grids[0] = this.grids[this.dimSize];
+				this.grids[this.dimSize + 1] = this.grids[1];
+				break;
+			case Neighborhood.REFLECT:
+				this.grids[0] = this.grids[1];
+				this.grids[this.dimSize + 1] = this.grids[this.dimSize];
+				break;
+			default:
+				this.grids[0] = DEAD_GRID;
+				this.grids[this.dimSize + 1] = DEAD_GRID;
 		}
-		// Reset this level of coordinate back to zero
-		coordinate.set(this.getIndex(), 0);
 	}
-	
+
 	/**
-	 * Checks each neighbor of the input cell and updates the value if the neighbor is live.
-	 * @param inputCoordinate	Coordinate of the current cell OR a specific neighbor.
-	 * 							Only a neighbor coordinate if coming from higher grid/dimension.
-	 * @param cell				Cell whose neighbor value is to be updated.
-	 * 							May be a cell from a different grid.
+	 * Counts the live cells in the block around the position, adding up the blocks of the sub-grid at the
+	 * position and the sub-grids on either side of it. The ghost sub-grids mean these are always there.
+	 * @param position	Position in the halo of each dimension.
+	 * @return int		Number of live cells.
 	 */
 	@Override
-	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
-		// Want neighbors on either side of cell in this dimension
-		this.getGridAtCoordinate(inputCoordinate).updateNeighborValues(inputCoordinate, cell);
-		int curDimCoord = inputCoordinate.get(this.getIndex());
-		for (Integer i : Arrays.asList(new Integer[] {-1, 1})) {
-			inputCoordinate.set(this.getIndex(), curDimCoord+i);
-			
-			// Check for null (i.e. neighbor is not on grid)
-			try {
-				if(this.getCellFromCoordinate(inputCoordinate).getValue()) {
-					cell.increaseNeighborValue();
-				}
-			} catch (NullPointerException e) {
-				// If null, just keep going to find neighbors in the grid.
-				continue;
-			}
-			// Also need to get lesser dimension neighbors around this neighbor.
-			// (i.e. for 2D, this is the [-1,-1],[-1,1],[1,-1],[1,1] )
-			this.getGridAtCoordinate(inputCoordinate).updateNeighborValues(inputCoordinate, cell);
+	int countBlock(int[] position) {
+		int p = position[this.dimensions-1];
+		return this.grids[p-1].countBlock(position) + this.grids[p].countBlock(position) + this.grids[p+1].countBlock(position);
+	}
+
+	/**
+	 * Cycles through every sub-grid and sets the neighbor values of its cells, counting from the master grid.
+	 * @param position	Position in the halo of each dimension, the positions above this grid are already set.
+	 * @param master	Master/top-level grid to count the neighbors in.
+	 */
+	@Override
+	void countAllNeighbors(int[] position, TreeGrid master) {
+		for (int p = 1; p <= this.dimSize; p++) {
+			position[this.dimensions-1] = p;
+			this.grids[p].countAllNeighbors(position, master);
 		}
-		inputCoordinate.set(this.getIndex(), curDimCoord);
 	}
 	
 	/**
 	 * Should be called only after updating all neighbor values.
 	 * Updates all the cell values based on their neighbor values, calls down to sub-grids.
+	 * @param rules		Game rules compiled for the master/top-level grid.
 	 */
 	@Override
-	public void updateAllCellValues() {
-		for (int i = 0; i < this.dimSize; i++) {
-			this.grids.get(i).updateAllCellValues();
+	protected void updateAllCellValues(RuleTable rules) {
+		if (this.threads > 1) {
+			getPool(this.threads).invoke(new SlabTask(SlabTask.CELLS, rules, 0, this.dimSize));
+			return;
+		}
+		
+		for (int i = 1; i <= this.dimSize; i++) {
+			this.grids[i].updateAllCellValues(rules);
 		}
 	}
 	
 	/**
-	 * Display is the string representation of the grid.
-	 * This method is the entry point for the master/top-level grid.
-	 * @return display	String representation of the grid.
+	 * Runs one step of advancing a generation for a slab of sub-grids along the outermost dimension.
+	 * Splits the slab in half until it is small enough, so there are a few slabs for each thread.
 	 */
-	@Override
-	public String getDisplay() {
-		return this.getDisplay(new ArrayList<Integer>());
+	private class SlabTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		static final int NEIGHBORS = 0;
+		static final int CELLS = 1;
+		static final int RESET = 2;
+		
+		private int step;
+		private RuleTable rules;
+		private int start;
+		private int end;
+		
+		/**
+		 * @param step		Step to run: NEIGHBORS, CELLS or RESET.
+		 * @param rules		Game rules, only used for the CELLS step.
+		 * @param start		First sub-grid index of the slab (inclusive).
+		 * @param end		Last sub-grid index of the slab (exclusive).
+		 */
+		SlabTask(int step, RuleTable rules, int start, int end) {
+			this.step = step;
+			this.rules = rules;
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		protected void compute() {
+			int slabSize = Math.max(1, dimSize / (threads * 4));
+			if (this.end - this.start > slabSize) {
+				int middle = (this.start + this.end) >>> 1;
+				invokeAll(new SlabTask(this.step, this.rules, this.start, middle),
+						new SlabTask(this.step, this.rules, middle, this.end));
+				return;
+			}
+			
+			// Each slab needs its own position, the position is changed while counting neighbors
+			int[] position = (this.step == NEIGHBORS) ? new int[dimensions] : null;
+			for (int i = this.start; i < this.end; i++) {
+				switch (this.step) {
+					case NEIGHBORS:
+						position[dimensions-1] = i + 1;
+						grids[i + 1].countAllNeighbors(position, GridND.this);
+						break;
+					case CELLS:
+						grids[i + 1].updateAllCellValues(this.rules);
+						break;
+					case RESET:
+						grids[i + 1].resetAllNeighborValues();
+						break;
+				}
+			}
+		}
 	}
 	
 	/**
-	 * Builds the string for the grid. Adds some formatting depending on the dimension.
-	 * If this is a 3D grid, then display the coordinate for the current grid display.
+	 * Writes the display for the grid. Adds some formatting depending on the dimension.
+	 * If this is a 3D grid, then write the coordinate for the current grid display.
 	 * The indices are used to manage the coordinate.
+	 * @param writer		Writer for the display.
 	 * @param indices		Current indices of higher level dimensions
-	 * @return display		String display of grid
 	 */
 	@Override
-	public String getDisplay(List<Integer> indices) {
+	void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException {
 		boolean addIndexCheck = (this.dimensions > 2);
 		int index = indices.size();
 		if (addIndexCheck) indices.add(0);
 		boolean addFormattingCheck = (this.dimensions == 3);
 
-		StringBuilder nDBuilder = new StringBuilder();
-		for (Grid grid : grids) {
+		for (int i = 1; i <= this.dimSize; i++) {
+			Grid grid = this.grids[i];
 			if (addFormattingCheck) {
-				nDBuilder.append("( , ");
-				for (int j = indices.size()-1; j >= 0; j--) {
-					nDBuilder.append(", " + indices.get(j));
+				// Coordinates of this slice, from the 3rd dimension up
+				int[] sliceCoordinate = new int[indices.size()];
+				for (int j = 0; j < sliceCoordinate.length; j++) {
+					sliceCoordinate[j] = indices.get(indices.size()-1-j);
 				}
-				nDBuilder.append(" )" + System.lineSeparator());
+				writer.writeSliceHeader(sliceCoordinate);
 			}
 
-			nDBuilder.append(grid.getDisplay(indices));
+			grid.writeDisplay(writer, indices);
 			if (addIndexCheck) indices.set(index, indices.get(index)+1);
 			
-			if (addFormattingCheck) nDBuilder.append(System.lineSeparator());
+			if (addFormattingCheck) writer.writeSeparator();
 		}
 		
 		if (addIndexCheck) indices.remove(index);
+	}
+
+	/**
+	 * Ghost sub-grid for a dead boundary. Has no live cells, whatever its size and number of dimensions
+	 * would be, so one is shared by all grids.
+	 */
+	private static class DeadGrid extends Grid1D {
+
+		DeadGrid() {
+			super(Arrays.asList(new Integer[] {1}), 0);
+		}
+
+		@Override
+		int countBlock(int[] position) {
+			return 0;
+		}
 
-		return nDBuilder.toString();
 	}
 
 }
@@ -0,0 +1,407 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>GridSnapshot</h1>
+ * Binary snapshot of a grid, used to save a long run and resume it later.
+ * Files are written and read through memory-mapped FileChannels, so saving or restoring a
+ * packed grid is a copy of its longs to or from the file, not a parse of text coordinates.
+ * The payload is mapped a window at a time (1 GB at most), and the grid copies its cells straight
+ * into or out of each window, so there is never a copy of the whole grid on the heap.
+ *
+ * The file is little-endian:
+ * 	int magic ("GOLS"), int format version, int number of dimensions, int size of each dimension,
+ * 	long generation, int payload type, stay.live and dead.live (each an int length and UTF-8 bytes),
+ * 	zero padding to a multiple of 8 bytes, then the payload.
+ * A DENSE payload is every cell as bits, 64 cells in each long, in the order of Grid.getCellBits.
+ * A SPARSE payload is the number of live cells then the index of each live cell, as longs. It is used
+ * for sparse grids when it is smaller than the dense payload.
+ *
+ * HashLife grids cannot be saved, their cells are not limited to the displayed grid size.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class GridSnapshot {
+
+	private static final int MAGIC = 0x534C4F47;			// "GOLS" in little-endian
+	private static final int FORMAT_VERSION = 1;
+
+	/** Payload type with every cell as a bit. */
+	public static final int DENSE = 0;
+
+	/** Payload type with the index of each live cell. */
+	public static final int SPARSE = 1;
+
+	private static final int MAX_WINDOW_BYTES = 1 << 30;
+	private static final int MAX_HEADER_BYTES = 1 << 16;
+
+	private List<Integer> dimSizes;
+	private long generation;
+	private String stayLive;
+	private String deadLive;
+	private int payloadType;
+
+	// File the snapshot is in, and where its payload starts
+	private Path file;
+	private long payloadPosition;
+	private long payloadLongs;
+	private int windowBytes;
+
+	// File a captured snapshot is moved to when it is committed, and its windows still to be forced to disk
+	private Path target = null;
+	private List<MappedByteBuffer> unforcedWindows = new ArrayList<>();
+
+	private GridSnapshot(List<Integer> dimSizes, long generation, String stayLive, String deadLive,
+			int payloadType, int windowBytes) {
+		this.dimSizes = dimSizes;
+		this.generation = generation;
+		this.stayLive = stayLive;
+		this.deadLive = deadLive;
+		this.payloadType = payloadType;
+		this.windowBytes = windowBytes;
+	}
+
+	/**
+	 * Writes the cells of a grid, and the current rules, to a temporary file next to the snapshot file.
+	 * The grid can keep advancing once this returns, commit then forces the file to disk and moves it
+	 * into place, so a file from an earlier snapshot is never left half written.
+	 * @param grid				Grid to save.
+	 * @param generation		Generation of the grid.
+	 * @param file				Snapshot file, written when the snapshot is committed.
+	 * @return GridSnapshot		Snapshot of the grid, in the temporary file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	public static GridSnapshot capture(Grid grid, long generation, Path file) throws IOException {
+		return capture(grid, generation, file, MAX_WINDOW_BYTES);
+	}
+
+	/**
+	 * Writes the cells of a grid to a temporary file, mapping windows of the given size, see capture.
+	 * @param grid				Grid to save.
+	 * @param generation		Generation of the grid.
+	 * @param file				Snapshot file, written when the snapshot is committed.
+	 * @param windowBytes		Largest number of bytes of the file mapped at a time, a multiple of 8.
+	 * @return GridSnapshot		Snapshot of the grid, in the temporary file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	static GridSnapshot capture(Grid grid, long generation, Path file, int windowBytes) throws IOException {
+		if (grid instanceof HashLifeGrid) {
+			throw new RuntimeException("HashLife grids cannot be saved as a snapshot, cells off the displayed grid would be lost.");
+		}
+
+		long words = (grid.getCellCount() + 63) >>> 6;
+		long[] indices = null;
+		int payloadType = DENSE;
+		if (grid instanceof SparseGrid && grid.getLiveCellCount() + 1 < words) {
+			payloadType = SPARSE;
+			indices = ((SparseGrid) grid).getLiveCellIndices();
+		}
+
+		GridSnapshot snapshot = new GridSnapshot(grid.getDimensionSizes(), generation, SetupProperties.getProperty("stay.live").trim(),
+				SetupProperties.getProperty("dead.live").trim(), payloadType, windowBytes);
+		snapshot.file = file.resolveSibling(file.getFileName() + ".tmp");
+		snapshot.target = file;
+		snapshot.payloadLongs = (payloadType == SPARSE) ? indices.length + 1L : words;
+
+		ByteBuffer header = snapshot.createHeader();
+		snapshot.payloadPosition = header.remaining();
+		try (FileChannel channel = FileChannel.open(snapshot.file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer headerMap = channel.map(FileChannel.MapMode.READ_WRITE, 0, header.remaining());
+			headerMap.put(header);
+			snapshot.unforcedWindows.add(headerMap);
+
+			long windowLongs = windowBytes / 8;
+			for (long word = 0; word < snapshot.payloadLongs; word += windowLongs) {
+				MappedByteBuffer window = snapshot.mapWindow(channel, FileChannel.MapMode.READ_WRITE, word);
+				LongBuffer longs = window.asLongBuffer();
+				if (payloadType == DENSE) {
+					grid.getCellBits(word, longs);
+				} else {
+					int first = (int) word;
+					if (first == 0) {
+						longs.put(indices.length);
+						first = 1;
+					}
+					longs.put(indices, first - 1, longs.remaining());
+				}
+				snapshot.unforcedWindows.add(window);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Forces a captured snapshot to disk and moves it from its temporary file to the snapshot file.
+	 * Does nothing for a snapshot that was read, or already committed.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	public void commit() throws IOException {
+		if (this.target == null) {
+			return;
+		}
+
+		for (MappedByteBuffer window : this.unforcedWindows) {
+			window.force();
+			OffHeapArena.free(window);
+		}
+		this.unforcedWindows.clear();
+
+		try {
+			Files.move(this.file, this.target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(this.file, this.target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		this.file = this.target;
+		this.target = null;
+	}
+
+	/**
+	 * Saves a grid to a snapshot file, see capture.
+	 * @param grid				Grid to save.
+	 * @param generation		Generation of the grid.
+	 * @param file				File to write.
+	 * @return GridSnapshot		Snapshot of the grid, in the file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	public static GridSnapshot write(Grid grid, long generation, Path file) throws IOException {
+		GridSnapshot snapshot = capture(grid, generation, file);
+		snapshot.commit();
+		return snapshot;
+	}
+
+	/**
+	 * Maps the window of the payload starting at a long.
+	 * @param channel				Channel of the snapshot file.
+	 * @param mode					Map mode.
+	 * @param word					Position of the first long in the window.
+	 * @return MappedByteBuffer		Little-endian window, up to windowBytes long.
+	 * @throws IOException			If the file cannot be mapped.
+	 */
+	private MappedByteBuffer mapWindow(FileChannel channel, FileChannel.MapMode mode, long word) throws IOException {
+		long bytes = Math.min(this.windowBytes, (this.payloadLongs - word) * 8);
+		MappedByteBuffer window = channel.map(mode, this.payloadPosition + word * 8, bytes);
+		window.order(ByteOrder.LITTLE_ENDIAN);
+		return window;
+	}
+
+	/**
+	 * Builds the header, padded to a multiple of 8 bytes so the payload longs are aligned.
+	 * @return ByteBuffer		Header, ready to be read.
+	 */
+	private ByteBuffer createHeader() {
+		byte[] stayLiveBytes = this.stayLive.getBytes(StandardCharsets.UTF_8);
+		byte[] deadLiveBytes = this.deadLive.getBytes(StandardCharsets.UTF_8);
+		int length = 4 * 3 + 4 * this.dimSizes.size() + 8 + 4 + 4 + stayLiveBytes.length + 4 + deadLiveBytes.length;
+		length = (length + 7) & ~7;
+
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(FORMAT_VERSION);
+		header.putInt(this.dimSizes.size());
+		for (Integer size : this.dimSizes) {
+			header.putInt(size);
+		}
+		header.putLong(this.generation);
+		header.putInt(this.payloadType);
+		header.putInt(stayLiveBytes.length);
+		header.put(stayLiveBytes);
+		header.putInt(deadLiveBytes.length);
+		header.put(deadLiveBytes);
+		header.rewind();
+		return header;
+	}
+
+	/**
+	 * Reads a snapshot from a file. The payload is left in the file, and is only
+	 * mapped when the cells are restored into a grid.
+	 * @param file				File to read.
+	 * @return GridSnapshot		Snapshot in the file.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	public static GridSnapshot read(Path file) throws IOException {
+		return read(file, MAX_WINDOW_BYTES);
+	}
+
+	/**
+	 * Reads a snapshot from a file, restoring it a window of the given size at a time, see read.
+	 * @param file				File to read.
+	 * @param windowBytes		Largest number of bytes of the file mapped at a time, a multiple of 8.
+	 * @return GridSnapshot		Snapshot in the file.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	static GridSnapshot read(Path file, int windowBytes) throws IOException {
+		long size;
+		MappedByteBuffer map;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			size = channel.size();
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_HEADER_BYTES));
+		}
+		map.order(ByteOrder.LITTLE_ENDIAN);
+
+		try {
+			if (map.getInt() != MAGIC) {
+				throw new RuntimeException("File " + file + " is not a grid snapshot.");
+			}
+			int version = map.getInt();
+			if (version != FORMAT_VERSION) {
+				throw new RuntimeException("Snapshot " + file + " has format version " + version + ", only version "
+						+ FORMAT_VERSION + " can be read.");
+			}
+
+			int dimensions = map.getInt();
+			List<Integer> dimSizes = new ArrayList<>();
+			long cellCount = 1;
+			for (int d = 0; d < dimensions; d++) {
+				dimSizes.add(map.getInt());
+				cellCount *= dimSizes.get(d);
+			}
+			long generation = map.getLong();
+			int payloadType = map.getInt();
+			String stayLive = readString(map);
+			String deadLive = readString(map);
+
+			GridSnapshot snapshot = new GridSnapshot(dimSizes, generation, stayLive, deadLive, payloadType, windowBytes);
+			snapshot.file = file;
+			snapshot.payloadPosition = (map.position() + 7) & ~7;
+			snapshot.payloadLongs = Math.max(0, (size - snapshot.payloadPosition) / 8);
+			if (payloadType == DENSE && snapshot.payloadLongs < Long.divideUnsigned(cellCount + 63, 64)) {
+				throw new RuntimeException("Snapshot " + file + " is not complete.");
+			}
+			return snapshot;
+		} catch (BufferUnderflowException e) {
+			throw new RuntimeException("Snapshot " + file + " is not complete.");
+		} finally {
+			OffHeapArena.free(map);
+		}
+	}
+
+	/**
+	 * Reads a string, stored as an int length and UTF-8 bytes.
+	 * @param buffer		Buffer to read from.
+	 * @return String		String read.
+	 */
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Creates a grid with the cells of the snapshot.
+	 * @param engine		Grid engine name, any engine except hashlife.
+	 * @return Grid			Grid with the size and cells of the snapshot.
+	 */
+	public Grid createGrid(String engine) {
+		Grid grid = new GridFactory().getGrid(engine, this.dimSizes);
+		this.restoreCells(grid);
+		return grid;
+	}
+
+	/**
+	 * Sets the cells of a grid to the cells of the snapshot.
+	 * @param grid		Grid with the same size as the snapshot.
+	 */
+	public void restoreCells(Grid grid) {
+		if (!grid.getDimensionSizes().equals(this.dimSizes)) {
+			throw new RuntimeException("Snapshot grid size " + this.dimSizes + " does not match grid size "
+					+ grid.getDimensionSizes());
+		}
+
+		if (this.payloadType != DENSE && this.payloadType != SPARSE) {
+			throw new RuntimeException("Snapshot payload type " + this.payloadType + " is not valid.");
+		}
+
+		try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+			long liveCells = 0;
+			long windowLongs = this.windowBytes / 8;
+			for (long word = 0; word < this.payloadLongs; word += windowLongs) {
+				MappedByteBuffer window = this.mapWindow(channel, FileChannel.MapMode.READ_ONLY, word);
+				LongBuffer cells = window.asLongBuffer();
+				if (this.payloadType == DENSE) {
+					grid.setCellBits(word, cells);
+				} else {
+					if (word == 0) {
+						liveCells = cells.get();
+						if (liveCells + 1 > this.payloadLongs) {
+							throw new RuntimeException("Snapshot " + this.file + " is not complete.");
+						}
+					}
+					for (; liveCells > 0 && cells.hasRemaining(); liveCells--) {
+						grid.setCellValue(cells.get(), true);
+					}
+				}
+				OffHeapArena.free(window);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Snapshot " + this.file + " could not be read: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sets the stay.live and dead.live properties to the rules the snapshot was saved with.
+	 */
+	public void applyRules() {
+		SetupProperties.setProperty("stay.live", this.stayLive);
+		SetupProperties.setProperty("dead.live", this.deadLive);
+	}
+
+	/**
+	 * Getter for the size of each dimension of the grid.
+	 * @return List<Integer>	Dimension sizes.
+	 */
+	public List<Integer> getDimensionSizes() {
+		return this.dimSizes;
+	}
+
+	/**
+	 * Getter for the generation the snapshot was taken at.
+	 * @return long		Generation.
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Getter for the stay.live rule the snapshot was saved with.
+	 * @return String	Value of stay.live.
+	 */
+	public String getStayLive() {
+		return this.stayLive;
+	}
+
+	/**
+	 * Getter for the dead.live rule the snapshot was saved with.
+	 * @return String	Value of dead.live.
+	 */
+	public String getDeadLive() {
+		return this.deadLive;
+	}
+
+	/**
+	 * Getter for the payload type, DENSE or SPARSE.
+	 * @return int		Payload type.
+	 */
+	public int getPayloadType() {
+		return this.payloadType;
+	}
+
+}
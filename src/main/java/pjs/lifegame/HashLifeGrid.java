@@ -0,0 +1,838 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>HashLifeGrid</h1>
+ * 2D grid using the HashLife algorithm, for advancing large regular patterns by huge numbers
+ * of generations.
+ *
+ * The plane is a quadtree of nodes. A node at level k is a square of 2^k by 2^k cells, made of four
+ * nodes at level k-1 (nw, ne, sw, se). Level 0 nodes are single cells. Nodes are hash-consed, so
+ * there is only ever one node for each pattern of cells, and a repeated pattern is stored once.
+ * Each node remembers its result: the center 2^(k-1) by 2^(k-1) cells, 2^(k-2) generations later.
+ * Repeated patterns are only ever advanced once, so 2^k generations can be advanced in one call.
+ *
+ * The node cache is bounded. Once it holds more than the maximum number of nodes, all nodes not
+ * used by the current grid are removed, along with all remembered results. This is also checked while
+ * a step is being advanced, as one large step can create far more nodes than the maximum; the nodes
+ * that are still being advanced are kept then. If more than half of the maximum is still in use after
+ * removing, the cache may grow to twice what was kept before it is collected again for the rest of
+ * the step, so a step that needs more nodes than the maximum does not keep starting over.
+ *
+ * Unlike the other engines, cells outside of grid.size are not always dead: the pattern can grow
+ * past the edges of the grid into an unbounded plane. The grid size is only the area that is
+ * displayed, so results match the other engines only while the pattern stays on the grid.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class HashLifeGrid extends Grid {
+
+	/** Default maximum number of nodes in the node cache. */
+	public static final int DEFAULT_MAX_NODES = 1000000;
+
+	/**
+	 * Square of 2^level by 2^level cells. Nodes are never changed once created,
+	 * except for remembering their results.
+	 */
+	static class Node {
+		final Node nw;
+		final Node ne;
+		final Node sw;
+		final Node se;
+		final int level;
+		final long population;
+		final int hash;
+		// 64-bit hash of the cells in the node, for the state hash of the grid
+		final long key;
+
+		// Center of this node 2^(level-2) generations later
+		Node result;
+		// Center of this node 2^stepLog generations later, for steps smaller than the result
+		Node stepResult;
+		int stepLog;
+
+		// Next node in the same bucket of the node cache
+		Node next;
+
+		/**
+		 * Creates a single cell (level 0).
+		 * @param live		True if the cell is live.
+		 */
+		Node(boolean live) {
+			this.nw = null;
+			this.ne = null;
+			this.sw = null;
+			this.se = null;
+			this.level = 0;
+			this.population = live ? 1 : 0;
+			this.hash = live ? 1 : 0;
+			this.key = live ? 1 : 0;
+		}
+
+		/**
+		 * Creates a node from four nodes of the level below.
+		 */
+		Node(Node nw, Node ne, Node sw, Node se) {
+			this.nw = nw;
+			this.ne = ne;
+			this.sw = sw;
+			this.se = se;
+			this.level = nw.level + 1;
+			this.population = nw.population + ne.population + sw.population + se.population;
+			this.hash = getHash(nw, ne, sw, se);
+			this.key = StateHash.mix(StateHash.mix(StateHash.mix(StateHash.mix(
+					this.level + nw.key) + ne.key) + sw.key) + se.key);
+		}
+	}
+
+	private static final Node DEAD = new Node(false);
+	private static final Node LIVE = new Node(true);
+
+	private int maxNodes;
+	// Number of nodes in the node cache above which it is collected during the current step
+	private int collectAt;
+	// Nodes being advanced by the current step, from the root down
+	private List<Node> advancing = new ArrayList<>();
+
+	// Node cache, a hash table with a linked list of nodes in each bucket
+	private Node[] buckets = new Node[1 << 16];
+	private int nodeCount = 0;
+	// Most nodes in the node cache during the last step
+	private int peakNodeCount = 0;
+
+	// Empty node of each level
+	private Node[] emptyNodes = new Node[64];
+
+	// Rules the remembered results were calculated with
+	private RuleTable rules = null;
+
+	// Root covers the cells from -2^(level-1) to 2^(level-1)-1 in both dimensions
+	private Node root;
+
+	private int columns;
+
+	/**
+	 * Initializes the grid with all cells dead.
+	 * @param dimSizes		Size of the two dimensions, the area that is displayed.
+	 * @param maxNodes		Maximum number of nodes in the node cache before unused nodes are removed.
+	 */
+	public HashLifeGrid(List<Integer> dimSizes, int maxNodes) {
+		super(dimSizes.get(dimSizes.size()-1));
+		if (dimSizes.size() != 2) {
+			throw new RuntimeException("HashLife grid must have 2 dimensions, grid size was: " + dimSizes);
+		}
+		this.columns = dimSizes.get(0);
+		this.maxNodes = maxNodes;
+		this.emptyNodes[0] = DEAD;
+		this.root = this.getEmptyNode(3);
+	}
+
+	/**
+	 * HashLife grids are always 2D.
+	 * @return int 	The number of dimensions.
+	 */
+	@Override
+	public int getDimensions() {
+		return 2;
+	}
+
+	/**
+	 * Getter for the size of the displayed area.
+	 * @return List<Integer> 	Number of columns and rows displayed.
+	 */
+	@Override
+	public List<Integer> getDimensionSizes() {
+		List<Integer> dimSizes = new ArrayList<>();
+		dimSizes.add(this.columns);
+		dimSizes.add(this.dimSize);
+		return dimSizes;
+	}
+
+	/**
+	 * Getter for the number of live cells, including any that are off the displayed grid.
+	 * @return long		Number of live cells.
+	 */
+	public long getPopulation() {
+		return this.root.population;
+	}
+
+	/**
+	 * Same as getPopulation, the number of live cells including any that are off the displayed grid.
+	 * @return long		Number of live cells.
+	 */
+	@Override
+	public long getLiveCellCount() {
+		return this.getPopulation();
+	}
+
+	/**
+	 * Gets a hash of all live cells, including any that are off the displayed grid.
+	 * The root can be any size, so the hash is of the smallest node around the center that has
+	 * all the live cells. Nodes are built from their cells, so the same cells give the same node.
+	 * Unlike the other engines, this is calculated from the nodes and not kept up to date as cells change.
+	 * @return long		State hash, 0 if no cells are live.
+	 */
+	@Override
+	public long getStateHash() {
+		if (this.root.population == 0) {
+			return 0;
+		}
+
+		Node node = this.root;
+		while (node.level >= 2 && this.getCenter(node).population == node.population) {
+			node = this.getCenter(node);
+		}
+		return node.key;
+	}
+
+	/**
+	 * Getter for the number of nodes in the node cache.
+	 * @return int		Number of nodes.
+	 */
+	public int getNodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * Getter for the most nodes the node cache held while the last step was advanced.
+	 * @return int		Number of nodes.
+	 */
+	public int getPeakNodeCount() {
+		return this.peakNodeCount;
+	}
+
+	/**
+	 * Calculates the hash of a node from the nodes it is made of.
+	 */
+	private static int getHash(Node nw, Node ne, Node sw, Node se) {
+		int hash = nw.hash;
+		hash = hash * 0x9E3779B1 + ne.hash;
+		hash = hash * 0x9E3779B1 + sw.hash;
+		hash = hash * 0x9E3779B1 + se.hash;
+		return hash ^ (hash >>> 15);
+	}
+
+	/**
+	 * Gets the one node made of the four nodes, creating it if it is not in the node cache.
+	 * @return Node		Node of the level above the four nodes.
+	 */
+	private Node getNode(Node nw, Node ne, Node sw, Node se) {
+		int bucket = getHash(nw, ne, sw, se) & (this.buckets.length - 1);
+		for (Node node = this.buckets[bucket]; node != null; node = node.next) {
+			if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+				return node;
+			}
+		}
+
+		Node node = new Node(nw, ne, sw, se);
+		this.addToCache(node);
+		return node;
+	}
+
+	/**
+	 * Adds a node to the node cache, making the cache larger if it is getting full.
+	 * @param node		Node that is not in the cache yet.
+	 */
+	private void addToCache(Node node) {
+		int bucket = node.hash & (this.buckets.length - 1);
+		node.next = this.buckets[bucket];
+		this.buckets[bucket] = node;
+
+		if (++this.nodeCount > this.peakNodeCount) {
+			this.peakNodeCount = this.nodeCount;
+		}
+		if (this.nodeCount > this.buckets.length) {
+			Node[] oldBuckets = this.buckets;
+			this.buckets = new Node[oldBuckets.length * 2];
+			for (Node oldNode : oldBuckets) {
+				while (oldNode != null) {
+					Node next = oldNode.next;
+					bucket = oldNode.hash & (this.buckets.length - 1);
+					oldNode.next = this.buckets[bucket];
+					this.buckets[bucket] = oldNode;
+					oldNode = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes every node from the node cache that is not part of the current grid or being advanced,
+	 * and forgets all remembered results. Called when the cache has more than the maximum number of
+	 * nodes, or when the rules change.
+	 */
+	private void collectNodes() {
+		this.buckets = new Node[1 << 16];
+		this.nodeCount = 0;
+		for (int level = 1; level < this.emptyNodes.length && this.emptyNodes[level] != null; level++) {
+			this.keepNode(this.emptyNodes[level]);
+		}
+		this.keepNode(this.root);
+		for (Node node : this.advancing) {
+			this.keepNode(node);
+		}
+	}
+
+	/**
+	 * Adds a node and all the nodes it is made of back into the node cache.
+	 * @param node		Node to keep.
+	 */
+	private void keepNode(Node node) {
+		if (node.level == 0) {
+			return;
+		}
+
+		int bucket = node.hash & (this.buckets.length - 1);
+		for (Node cached = this.buckets[bucket]; cached != null; cached = cached.next) {
+			if (cached == node) {
+				return;
+			}
+		}
+
+		node.result = null;
+		node.stepResult = null;
+		this.keepNode(node.nw);
+		this.keepNode(node.ne);
+		this.keepNode(node.sw);
+		this.keepNode(node.se);
+		this.addToCache(node);
+	}
+
+	/**
+	 * Gets the node of all dead cells for a level.
+	 * @param level		Level of the node.
+	 * @return Node		Empty node.
+	 */
+	private Node getEmptyNode(int level) {
+		if (this.emptyNodes[level] == null) {
+			Node empty = this.getEmptyNode(level - 1);
+			this.emptyNodes[level] = this.getNode(empty, empty, empty, empty);
+		}
+		return this.emptyNodes[level];
+	}
+
+	/**
+	 * Makes the root one level larger, keeping it centered on the same cell.
+	 */
+	private void expandRoot() {
+		Node border = this.getEmptyNode(this.root.level - 1);
+		this.root = this.getNode(
+				this.getNode(border, border, border, this.root.nw),
+				this.getNode(border, border, this.root.ne, border),
+				this.getNode(border, this.root.sw, border, border),
+				this.getNode(this.root.se, border, border, border));
+	}
+
+	/**
+	 * Gets half of the width of the root, so the root covers -half to half-1.
+	 * @return long		Half of the width of the root.
+	 */
+	private long getRootHalfWidth() {
+		return 1L << (this.root.level - 1);
+	}
+
+	/**
+	 * Gets the value of a cell in a node.
+	 * @param node		Node to look in.
+	 * @param x			Column, relative to the center of the node.
+	 * @param y			Row, relative to the center of the node.
+	 * @return boolean	True if the cell is live.
+	 */
+	private static boolean getCell(Node node, long x, long y) {
+		while (node.level > 0) {
+			if (node.population == 0) {
+				return false;
+			}
+			long quarter = (node.level > 1) ? 1L << (node.level - 2) : 0;
+			if (y < 0) {
+				node = (x < 0) ? node.nw : node.ne;
+			} else {
+				node = (x < 0) ? node.sw : node.se;
+			}
+			x += (x < 0) ? quarter : -quarter;
+			y += (y < 0) ? quarter : -quarter;
+		}
+		return node == LIVE;
+	}
+
+	/**
+	 * Creates a node with one cell changed.
+	 * @param node		Node to change.
+	 * @param x			Column, relative to the center of the node.
+	 * @param y			Row, relative to the center of the node.
+	 * @param value		New value of the cell.
+	 * @return Node		Node with the cell changed.
+	 */
+	private Node setCell(Node node, long x, long y, boolean value) {
+		if (node.level == 0) {
+			return value ? LIVE : DEAD;
+		}
+
+		long quarter = (node.level > 1) ? 1L << (node.level - 2) : 0;
+		long childX = x + ((x < 0) ? quarter : -quarter);
+		long childY = y + ((y < 0) ? quarter : -quarter);
+		if (y < 0) {
+			if (x < 0) {
+				return this.getNode(this.setCell(node.nw, childX, childY, value), node.ne, node.sw, node.se);
+			}
+			return this.getNode(node.nw, this.setCell(node.ne, childX, childY, value), node.sw, node.se);
+		}
+		if (x < 0) {
+			return this.getNode(node.nw, node.ne, this.setCell(node.sw, childX, childY, value), node.se);
+		}
+		return this.getNode(node.nw, node.ne, node.sw, this.setCell(node.se, childX, childY, value));
+	}
+
+	/**
+	 * Checks if a coordinate is in the displayed area of the grid.
+	 * @param inputCoordinate	Coordinate to check.
+	 * @return boolean			True if the coordinate is on the grid.
+	 */
+	private boolean isCoordinateOnGrid(List<Integer> inputCoordinate) {
+		return this.isCoordinateOnGrid(inputCoordinate.get(0), inputCoordinate.get(1));
+	}
+
+	/**
+	 * Checks if a coordinate is in the displayed area of the grid.
+	 * @param x			Column of the cell.
+	 * @param y			Row of the cell.
+	 * @return boolean	True if the coordinate is on the grid.
+	 */
+	private boolean isCoordinateOnGrid(long x, long y) {
+		return (x >= 0) && (x < this.columns) && (y >= 0) && (y < this.dimSize);
+	}
+
+	/**
+	 * Gets the value of the cell at a column and row that are on the grid.
+	 * @param x			Column of the cell.
+	 * @param y			Row of the cell.
+	 * @return boolean	True if the cell is live.
+	 */
+	private boolean getCellAt(long x, long y) {
+		long half = this.getRootHalfWidth();
+		return (x < half) && (y < half) && getCell(this.root, x, y);
+	}
+
+	/**
+	 * Sets the value of the cell at a column and row that are on the grid, expanding the root to cover it.
+	 * @param x			Column of the cell.
+	 * @param y			Row of the cell.
+	 * @param value		New value for the cell.
+	 */
+	private void setCellAt(long x, long y, boolean value) {
+		while (x >= this.getRootHalfWidth() || y >= this.getRootHalfWidth()) {
+			this.expandRoot();
+		}
+		this.root = this.setCell(this.root, x, y, value);
+	}
+
+	/**
+	 * Cells are not stored as objects, so this returns a new Cell holding a copy of the value at
+	 * the coordinate. Neighbor values are not stored, so the neighbor value of the copy is zero.
+	 * @return cell		Copy of the cell, or null if the coordinate is not on the grid.
+	 */
+	@Override
+	public Cell getCellFromCoordinate(List<Integer> inputCoordinate) {
+		if (!this.isCoordinateOnGrid(inputCoordinate)) {
+			return null;
+		}
+
+		return new Cell(this.getCellAt(inputCoordinate.get(0), inputCoordinate.get(1)));
+	}
+
+	/**
+	 * Sets a cell value where cell is at the coordinate.
+	 * @param inputCoordinate	Coordinate of cell.
+	 * @param value				New value for cell.
+	 */
+	@Override
+	public void setCellValue(List<Integer> inputCoordinate, boolean value) {
+		if (!this.isCoordinateOnGrid(inputCoordinate)) {
+			throw new RuntimeException("Coordinate " + inputCoordinate + " is not on the grid.");
+		}
+
+		this.setCellAt(inputCoordinate.get(0), inputCoordinate.get(1), value);
+	}
+
+	/**
+	 * Gets the value of the cell at the coordinate, see Grid.getCellValue.
+	 * @param coordinate	Column and row of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		this.checkCoordinate(coordinate);
+		return this.getCellAt(coordinate[0], coordinate[1]);
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate, see Grid.setCellValue.
+	 * @param coordinate	Column and row of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.checkCoordinate(coordinate);
+		this.setCellAt(coordinate[0], coordinate[1], value);
+	}
+
+	/**
+	 * Gets the value of the cell with the index, see Grid.getCellValue.
+	 * @param index			Index of the cell in the displayed area.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		this.checkIndex(index);
+		return this.getCellAt(index % this.columns, index / this.columns);
+	}
+
+	/**
+	 * Sets the value of the cell with the index, see Grid.setCellValue.
+	 * @param index			Index of the cell in the displayed area.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		this.checkIndex(index);
+		this.setCellAt(index % this.columns, index / this.columns, value);
+	}
+
+	/**
+	 * Checks a coordinate is in the displayed area of the grid.
+	 * @param coordinate	Column and row of the cell.
+	 */
+	private void checkCoordinate(int[] coordinate) {
+		if (coordinate.length != 2 || !this.isCoordinateOnGrid(coordinate[0], coordinate[1])) {
+			throw new RuntimeException("Coordinate " + Arrays.toString(coordinate) + " is not on the grid.");
+		}
+	}
+
+	/**
+	 * Checks the index of a cell is in the displayed area of the grid.
+	 * @param index		Index of the cell.
+	 */
+	private void checkIndex(long index) {
+		if (index < 0 || index >= (long) this.columns * this.dimSize) {
+			throw new RuntimeException("Cell index " + index + " is not on the grid.");
+		}
+	}
+
+	/**
+	 * Advances the grid one generation.
+	 */
+	@Override
+	public void advanceGeneration() {
+		this.advancePowerOfTwo(0);
+	}
+
+	/**
+	 * Advances the grid n generations. If the intermediate generations are not displayed and no
+	 * generation listeners were added, this uses one step of 2^k generations for each bit of n.
+	 * @param n 						Number of generations to advance
+	 * @param displayIntermediates 		Property set in a file to display intermediate generations or not.
+	 */
+	@Override
+	public void advanceGenerations(int n, boolean displayIntermediates) {
+		if (displayIntermediates || this.hasGenerationListeners()) {
+			super.advanceGenerations(n, displayIntermediates);
+		} else {
+			this.advanceGenerations((long) n);
+		}
+	}
+
+	/**
+	 * Advances the grid n generations, with one step of 2^k generations for each bit of n.
+	 * @param n		Number of generations to advance.
+	 */
+	public void advanceGenerations(long n) {
+		for (int k = 0; n != 0; k++, n >>>= 1) {
+			if ((n & 1) != 0) {
+				this.advancePowerOfTwo(k);
+			}
+		}
+	}
+
+	/**
+	 * Advances the grid 2^k generations in one step.
+	 * @param k		Log base 2 of the number of generations.
+	 */
+	public void advancePowerOfTwo(int k) {
+		RuleTable currentRules = GameRules.getRules(2);
+		if (currentRules != this.rules) {
+			if (!Neighborhood.getNeighborhood().isDefault(2)) {
+				throw new RuntimeException("HashLife grid can only use the moore neighborhood with radius 1 and the dead boundary.");
+			}
+			if (currentRules.isCellLive(false, 0)) {
+				throw new RuntimeException("HashLife grid cannot use dead.live=0, every dead cell would become live.");
+			}
+			this.rules = currentRules;
+			this.collectNodes();
+		}
+
+		long start = this.getMetricsTime();
+		GamePhaseEvent event = GameEvents.start();
+		// The pattern must be in the center quarter of the root, and the root must be large enough
+		// that the pattern cannot reach the edge of the result in 2^k generations.
+		while (this.root.level < k + 3 || !this.isPatternInCenterQuarter()) {
+			this.expandRoot();
+		}
+		this.collectAt = this.maxNodes;
+		this.peakNodeCount = this.nodeCount;
+		this.root = this.advance(this.root, k);
+
+		if (this.nodeCount > this.maxNodes) {
+			this.collectNodes();
+		}
+		GameEvents.commit(event, GameEvents.RULES, this, this.getGeneration() + (1L << k));
+		this.recordGenerations(1L << k, 0, this.getMetricsTime() - start, 0);
+	}
+
+	/**
+	 * Checks if all live cells of the root are in the center quarter (half the width) of the root.
+	 * @return boolean		True if the root has enough empty space around the pattern.
+	 */
+	private boolean isPatternInCenterQuarter() {
+		Node center = this.getCenter(this.root);
+		return this.getCenter(center).population == this.root.population;
+	}
+
+	/**
+	 * Gets the center half of a node, with no change in time.
+	 * @param node		Node of level 2 or more.
+	 * @return Node		Node of one level below.
+	 */
+	private Node getCenter(Node node) {
+		return this.getNode(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+	}
+
+	/**
+	 * Gets the center half of a node, 2^j generations later.
+	 * @param node		Node of level 2 or more.
+	 * @param j			Log base 2 of the number of generations, at most level-2.
+	 * @return Node		Node of one level below.
+	 */
+	private Node advance(Node node, int j) {
+		if (node.population == 0) {
+			return this.getEmptyNode(node.level - 1);
+		}
+		if (node.level == 2) {
+			return this.advanceLevelTwo(node);
+		}
+
+		boolean fullStep = (j == node.level - 2);
+		if (fullStep && node.result != null) {
+			return node.result;
+		}
+		if (!fullStep && node.stepResult != null && node.stepLog == j) {
+			return node.stepResult;
+		}
+
+		// Nodes made during the step are only in the cache, so the cache has to be bounded here too
+		if (this.nodeCount > this.collectAt) {
+			this.collectNodes();
+			this.collectAt = Math.max(this.maxNodes, 2 * this.nodeCount);
+		}
+		this.advancing.add(node);
+
+		// Nine overlapping squares of half the width, advanced by up to half the time
+		int subJ = Math.min(j, node.level - 3);
+		Node n00 = this.advance(node.nw, subJ);
+		Node n01 = this.advance(this.getNode(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw), subJ);
+		Node n02 = this.advance(node.ne, subJ);
+		Node n10 = this.advance(this.getNode(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne), subJ);
+		Node n11 = this.advance(this.getCenter(node), subJ);
+		Node n12 = this.advance(this.getNode(node.ne.sw, node.ne.se, node.se.nw, node.se.ne), subJ);
+		Node n20 = this.advance(node.sw, subJ);
+		Node n21 = this.advance(this.getNode(node.sw.ne, node.se.nw, node.sw.se, node.se.sw), subJ);
+		Node n22 = this.advance(node.se, subJ);
+
+		Node nw = this.getNode(n00, n01, n10, n11);
+		Node ne = this.getNode(n01, n02, n11, n12);
+		Node sw = this.getNode(n10, n11, n20, n21);
+		Node se = this.getNode(n11, n12, n21, n22);
+
+		Node result;
+		if (fullStep) {
+			// Advance the other half of the time
+			result = this.getNode(this.advance(nw, subJ), this.advance(ne, subJ),
+					this.advance(sw, subJ), this.advance(se, subJ));
+			node.result = result;
+		} else {
+			// Already advanced the whole time, just take the centers
+			result = this.getNode(this.getCenter(nw), this.getCenter(ne), this.getCenter(sw), this.getCenter(se));
+			node.stepResult = result;
+			node.stepLog = j;
+		}
+		this.advancing.remove(this.advancing.size() - 1);
+		return result;
+	}
+
+	/**
+	 * Advances the center 2x2 cells of a 4x4 node by one generation, using the game rules.
+	 * @param node		Node of level 2.
+	 * @return Node		Node of level 1.
+	 */
+	private Node advanceLevelTwo(Node node) {
+		if (node.result != null) {
+			return node.result;
+		}
+
+		// Cells of the node by row, from the top left
+		boolean[][] cells = new boolean[4][4];
+		Node[] quadrants = {node.nw, node.ne, node.sw, node.se};
+		for (int q = 0; q < 4; q++) {
+			int x = (q % 2) * 2;
+			int y = (q / 2) * 2;
+			cells[y][x] = quadrants[q].nw == LIVE;
+			cells[y][x+1] = quadrants[q].ne == LIVE;
+			cells[y+1][x] = quadrants[q].sw == LIVE;
+			cells[y+1][x+1] = quadrants[q].se == LIVE;
+		}
+
+		Node[] next = new Node[4];
+		for (int i = 0; i < 4; i++) {
+			int x = 1 + (i % 2);
+			int y = 1 + (i / 2);
+			int neighbors = 0;
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					if ((dx != 0 || dy != 0) && cells[y+dy][x+dx]) {
+						neighbors++;
+					}
+				}
+			}
+			next[i] = this.rules.isCellLive(cells[y][x], neighbors) ? LIVE : DEAD;
+		}
+
+		node.result = this.getNode(next[0], next[1], next[2], next[3]);
+		return node.result;
+	}
+
+	/**
+	 * Neighbor values are not stored, so there is nothing to reset.
+	 */
+	@Override
+	protected void resetAllNeighborValues() {
+	}
+
+	/**
+	 * Neighbor values are not stored, they are part of advancing the nodes.
+	 */
+	@Override
+	public void updateAllNeighborValues() {
+	}
+
+	/**
+	 * HashLife grids are never sub-grids, and do not store neighbor values.
+	 */
+	@Override
+	void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
+	}
+
+	/**
+	 * Checks each neighbor of the coordinate and adds one to the neighbor value of the cell
+	 * for each live neighbor. Neighbors off the displayed grid are counted, since the plane is unbounded.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @param cell				Cell whose neighbor value is to be updated.
+	 */
+	@Override
+	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
+		long half = this.getRootHalfWidth();
+		for (long dy = -1; dy <= 1; dy++) {
+			for (long dx = -1; dx <= 1; dx++) {
+				long x = inputCoordinate.get(0) + dx;
+				long y = inputCoordinate.get(1) + dy;
+				if ((dx != 0 || dy != 0) && x >= -half && x < half && y >= -half && y < half
+						&& getCell(this.root, x, y)) {
+					cell.increaseNeighborValue();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Advances the grid one generation. The rules are always the current game rules.
+	 * @param rules		Not used, the rules are checked for changes when advancing.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		this.advancePowerOfTwo(0);
+	}
+
+	/**
+	 * Writes the same display as the Grid1D/GridND tree would for the displayed area of the grid,
+	 * if it has no more than SparseGrid.MAX_DISPLAY_CELLS cells. Larger grids are shown as the
+	 * coordinates of the live cells in the displayed area, one per line.
+	 * @param writer		Writer for the display.
+	 * @param indices		Not used, HashLife grids are never sub-grids.
+	 */
+	@Override
+	void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException {
+		boolean showCells = ((long) this.columns * this.dimSize) <= SparseGrid.MAX_DISPLAY_CELLS;
+		long half = this.getRootHalfWidth();
+
+		if (showCells) {
+			boolean[] liveCells = new boolean[this.columns * this.dimSize];
+			this.findLiveCells(this.root, -half, -half, liveCells, null);
+			for (int y = 0; y < this.dimSize; y++) {
+				for (int x = 0; x < this.columns; x++) {
+					writer.writeCell(liveCells[y * this.columns + x]);
+				}
+				writer.writeSeparator();
+			}
+		} else {
+			// Count the cells first, the count is written before the list
+			int count = this.findLiveCells(this.root, -half, -half, null, null);
+			writer.writeText("Live cells: ");
+			writer.writeNumber(count);
+			writer.writeSeparator();
+			this.findLiveCells(this.root, -half, -half, null, writer);
+		}
+	}
+
+	/**
+	 * Finds the live cells of a node that are in the displayed area, skipping empty nodes.
+	 * Cells are found by row, from the top left.
+	 * @param node			Node to look in.
+	 * @param left			Column of the left edge of the node.
+	 * @param top			Row of the top edge of the node.
+	 * @param liveCells		If not null, live cells are marked in this array, one entry per cell by row.
+	 * @param cellList		If not null, coordinates of live cells are written to this, one per line.
+	 * @return int			Number of live cells found.
+	 */
+	private int findLiveCells(Node node, long left, long top, boolean[] liveCells, DisplayWriter cellList)
+			throws IOException {
+		long width = 1L << node.level;
+		if (node.population == 0 || left >= this.columns || top >= this.dimSize
+				|| left + width <= 0 || top + width <= 0) {
+			return 0;
+		}
+
+		if (node.level == 0) {
+			if (liveCells != null) {
+				liveCells[(int) (top * this.columns + left)] = true;
+			}
+			if (cellList != null) {
+				cellList.writeNumber(left);
+				cellList.writeText(",");
+				cellList.writeNumber(top);
+				cellList.writeSeparator();
+			}
+			return 1;
+		}
+
+		long half = width / 2;
+		return this.findLiveCells(node.nw, left, top, liveCells, cellList)
+				+ this.findLiveCells(node.ne, left + half, top, liveCells, cellList)
+				+ this.findLiveCells(node.sw, left, top + half, liveCells, cellList)
+				+ this.findLiveCells(node.se, left + half, top + half, liveCells, cellList);
+	}
+
+}
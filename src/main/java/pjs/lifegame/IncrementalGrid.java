@@ -0,0 +1,223 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>IncrementalGrid</h1>
+ * Packed grid that keeps the neighbor value of every cell between generations, instead of
+ * counting them again each generation. When a cell becomes live or dead, one is added to or
+ * taken from the neighbor value of each of its neighbors.
+ *
+ * A cell can only change if it changed itself or one of its neighbors changed in the last
+ * generation. These cells are kept in a frontier, and only the frontier is checked in the next
+ * generation. Once a pattern settles into still lifes the frontier is empty, so the time to
+ * advance a generation depends on how many cells change, not the size of the grid.
+ *
+ * The first generation, and any generation after the rules change, checks every cell.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class IncrementalGrid extends PackedGrid {
+
+	private char[] neighbors;
+
+	// Cells to check in the next generation, with one bit per cell to avoid adding a cell twice.
+	private int[] frontier = new int[64];
+	private int frontierSize = 0;
+	private long[] inFrontier;
+
+	// Cells that change in the current generation.
+	private int[] changes = new int[64];
+
+	// Rules used in the last generation. Every cell is checked if the rules are different.
+	private RuleTable lastRules = null;
+
+	// Coordinate used while changing single cells, so setting a cell does not create an array.
+	private int[] changeCoordinate;
+
+	/**
+	 * Initializes the grid with all cells dead.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 */
+	public IncrementalGrid(List<Integer> dimSizes) {
+		super(dimSizes);
+		this.neighbors = new char[(int) this.cellCount];
+		this.inFrontier = new long[this.cells.length];
+		this.changeCoordinate = new int[this.dimensions];
+	}
+
+	/**
+	 * Getter for the number of cells that will be checked in the next generation.
+	 * @return int		Number of cells in the frontier.
+	 */
+	public int getFrontierSize() {
+		return this.frontierSize;
+	}
+
+	/**
+	 * Returns a new Cell holding a copy of the value and neighbor value at the coordinate.
+	 * The neighbor value is always up to date with the current cell values.
+	 * @return cell		Copy of the cell, or null if the coordinate is not on the grid.
+	 */
+	@Override
+	public Cell getCellFromCoordinate(List<Integer> inputCoordinate) {
+		int index = (int) this.getIndex(inputCoordinate);
+		if (index < 0) {
+			return null;
+		}
+
+		Cell cell = new Cell(this.isLive(index));
+		cell.neighbors = this.neighbors[index];
+		return cell;
+	}
+
+	/**
+	 * Sets the value of a cell, and updates the neighbor values around it.
+	 * @param index			Index of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	protected void setCellAtIndex(long index, boolean value) {
+		if (this.isLive(index) != value) {
+			this.changeCell((int) index, this.changeCoordinate);
+		}
+	}
+
+	/**
+	 * Sets cell values from a buffer of bits, see Grid.setCellBits.
+	 * Each cell that changes updates the neighbor values around it and goes on the frontier.
+	 * @param firstWord 	Position of the first long to set, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer of bits.
+	 */
+	@Override
+	public void setCellBits(long firstWord, LongBuffer bits) {
+		int words = (int) Math.min(bits.remaining(), this.cells.length - firstWord);
+		int[] coordinate = new int[this.dimensions];
+		for (int word = (int) firstWord; word < firstWord + words; word++) {
+			long changed = this.cells[word] ^ bits.get();
+			for (; changed != 0; changed &= changed - 1) {
+				int index = (word << 6) + Long.numberOfTrailingZeros(changed);
+				if (index < this.cellCount) {
+					this.changeCell(index, coordinate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks every cell in the frontier (or every cell, for the first generation or new rules)
+	 * against the game rules. Then changes all the cells that need to change, which updates the
+	 * neighbor values and builds the frontier for the next generation.
+	 * @param rules		Game rules compiled for this grid.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		int changeCount = 0;
+		if (rules != this.lastRules) {
+			this.lastRules = rules;
+			for (int index = 0; index < this.cellCount; index++) {
+				if (rules.isCellLive(this.isLive(index), this.neighbors[index]) != this.isLive(index)) {
+					changeCount = this.addChange(index, changeCount);
+				}
+			}
+		} else {
+			for (int i = 0; i < this.frontierSize; i++) {
+				int index = this.frontier[i];
+				if (rules.isCellLive(this.isLive(index), this.neighbors[index]) != this.isLive(index)) {
+					changeCount = this.addChange(index, changeCount);
+				}
+			}
+		}
+
+		// Start a new frontier, only the changed cells and their neighbors go on it
+		for (int i = 0; i < this.frontierSize; i++) {
+			int index = this.frontier[i];
+			this.inFrontier[index >>> 6] &= ~(1L << index);
+		}
+		this.frontierSize = 0;
+
+		int[] coordinate = new int[this.dimensions];
+		for (int i = 0; i < changeCount; i++) {
+			this.changeCell(this.changes[i], coordinate);
+		}
+	}
+
+	/**
+	 * Adds a cell to the list of cells that change in this generation.
+	 * @param index				Index of the cell.
+	 * @param changeCount		Number of changes so far.
+	 * @return int				New number of changes.
+	 */
+	private int addChange(int index, int changeCount) {
+		if (changeCount == this.changes.length) {
+			this.changes = Arrays.copyOf(this.changes, changeCount * 2);
+		}
+		this.changes[changeCount] = index;
+		return changeCount + 1;
+	}
+
+	/**
+	 * Flips the value of a cell. Adds one to (or takes one from) the neighbor value of each neighbor
+	 * on the grid, and puts the cell and its neighbors on the frontier.
+	 * @param index			Index of the cell.
+	 * @param coordinate	Array to use for the coordinate of the cell.
+	 */
+	private void changeCell(int index, int[] coordinate) {
+		boolean value = !this.isLive(index);
+		this.setLive(index, value);
+		this.addToFrontier(index);
+
+		int remainder = index;
+		for (int d = this.dimensions-1; d >= 0; d--) {
+			coordinate[d] = (int) (remainder / this.strides[d]);
+			remainder -= coordinate[d] * this.strides[d];
+		}
+
+		boolean interior = this.isInterior(coordinate);
+		for (int n = 0; n < this.neighborOffsets.length; n++) {
+			if (interior || this.isNeighborOnGrid(coordinate, this.neighborOffsets[n])) {
+				int neighbor = (int) (index + this.neighborIndexOffsets[n]);
+				this.neighbors[neighbor] += value ? 1 : -1;
+				this.addToFrontier(neighbor);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the neighbor at an offset from the coordinate is on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param offset		Offset of the neighbor.
+	 * @return boolean		True if the neighbor is on the grid.
+	 */
+	private boolean isNeighborOnGrid(int[] coordinate, int[] offset) {
+		for (int d = 0; d < this.dimensions; d++) {
+			int coord = coordinate[d] + offset[d];
+			if (coord < 0 || coord >= this.sizes[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Puts a cell on the frontier, if it is not already on it.
+	 * @param index		Index of the cell.
+	 */
+	private void addToFrontier(int index) {
+		long bit = 1L << index;
+		if ((this.inFrontier[index >>> 6] & bit) != 0) {
+			return;
+		}
+		this.inFrontier[index >>> 6] |= bit;
+
+		if (this.frontierSize == this.frontier.length) {
+			this.frontier = Arrays.copyOf(this.frontier, this.frontierSize * 2);
+		}
+		this.frontier[this.frontierSize++] = index;
+	}
+
+}
@@ -0,0 +1,180 @@
+package pjs.lifegame;
+
+import java.util.Arrays;
+
+/**
+ * <h1>LongHashSet</h1>
+ * Set of primitive long values, stored in one array with open addressing (linear probing).
+ * Unlike a HashSet of Long, adding and checking values does not create any objects.
+ * Values must not be negative, -1 marks an empty slot.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class LongHashSet {
+
+	static final long EMPTY = -1L;
+
+	private long[] keys;
+	private int size;
+
+	/**
+	 * Creates an empty set.
+	 */
+	public LongHashSet() {
+		this.keys = new long[16];
+		Arrays.fill(this.keys, EMPTY);
+	}
+
+	/**
+	 * Finds the slot for a hash in a table with the capacity (a power of two).
+	 * @param key			Value to find the slot for.
+	 * @param capacity		Number of slots in the table.
+	 * @return int			Slot to start probing from.
+	 */
+	static int getSlot(long key, int capacity) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+	}
+
+	/**
+	 * Adds a value to the set.
+	 * @param key			Value to add, must not be negative.
+	 * @return boolean		True if the value was added, false if it was already in the set.
+	 */
+	public boolean add(long key) {
+		int mask = this.keys.length - 1;
+		int slot = getSlot(key, this.keys.length);
+		while (this.keys[slot] != EMPTY) {
+			if (this.keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		this.keys[slot] = key;
+		if (++this.size * 2 > this.keys.length) {
+			this.resize(this.keys.length * 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a value is in the set.
+	 * @param key			Value to check.
+	 * @return boolean		True if the value is in the set.
+	 */
+	public boolean contains(long key) {
+		int mask = this.keys.length - 1;
+		int slot = getSlot(key, this.keys.length);
+		while (this.keys[slot] != EMPTY) {
+			if (this.keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a value from the set. The values after it in the same probe run are moved back,
+	 * so no deleted markers are needed.
+	 * @param key			Value to remove.
+	 * @return boolean		True if the value was removed, false if it was not in the set.
+	 */
+	public boolean remove(long key) {
+		int mask = this.keys.length - 1;
+		int slot = getSlot(key, this.keys.length);
+		while (this.keys[slot] != key) {
+			if (this.keys[slot] == EMPTY) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// Move back any later values in the run that would no longer be found
+		int gap = slot;
+		for (int next = (gap + 1) & mask; this.keys[next] != EMPTY; next = (next + 1) & mask) {
+			int home = getSlot(this.keys[next], this.keys.length);
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				this.keys[gap] = this.keys[next];
+				gap = next;
+			}
+		}
+		this.keys[gap] = EMPTY;
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Removes all values, keeping the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+	}
+
+	/**
+	 * Getter for the number of values in the set.
+	 * @return int		Number of values.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Getter for the number of slots. Used with getKeyAt to go through the values without creating objects.
+	 * @return int		Number of slots.
+	 */
+	public int getCapacity() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Gets the value in a slot.
+	 * @param slot		Slot between 0 and getCapacity()-1.
+	 * @return long		Value in the slot, or -1 if the slot is empty.
+	 */
+	public long getKeyAt(int slot) {
+		return this.keys[slot];
+	}
+
+	/**
+	 * Copies the values into a sorted array.
+	 * @return long[]	Sorted values.
+	 */
+	public long[] toSortedArray() {
+		long[] values = new long[this.size];
+		int i = 0;
+		for (long key : this.keys) {
+			if (key != EMPTY) {
+				values[i++] = key;
+			}
+		}
+		Arrays.sort(values);
+		return values;
+	}
+
+	/**
+	 * Moves all values into a new table.
+	 * @param capacity		Number of slots in the new table, a power of two.
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		this.keys = new long[capacity];
+		Arrays.fill(this.keys, EMPTY);
+
+		int mask = capacity - 1;
+		for (long key : oldKeys) {
+			if (key != EMPTY) {
+				int slot = getSlot(key, capacity);
+				while (this.keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				this.keys[slot] = key;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package pjs.lifegame;
+
+import java.util.Arrays;
+
+/**
+ * <h1>LongIntHashMap</h1>
+ * Map from primitive long keys to primitive int values, stored in two arrays with open
+ * addressing (linear probing). Used for counting, so a key that is not in the map has value 0.
+ * Adding to a value does not create any objects.
+ * Keys must not be negative, -1 marks an empty slot.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class LongIntHashMap {
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public LongIntHashMap() {
+		this.keys = new long[16];
+		this.values = new int[16];
+		Arrays.fill(this.keys, LongHashSet.EMPTY);
+	}
+
+	/**
+	 * Adds to the value of a key. If the key is not in the map, it is added with the amount as its value.
+	 * @param key			Key to add to, must not be negative.
+	 * @param amount		Amount to add to the value.
+	 */
+	public void add(long key, int amount) {
+		int mask = this.keys.length - 1;
+		int slot = LongHashSet.getSlot(key, this.keys.length);
+		while (this.keys[slot] != LongHashSet.EMPTY) {
+			if (this.keys[slot] == key) {
+				this.values[slot] += amount;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		this.keys[slot] = key;
+		this.values[slot] = amount;
+		if (++this.size * 2 > this.keys.length) {
+			this.resize(this.keys.length * 2);
+		}
+	}
+
+	/**
+	 * Gets the value of a key.
+	 * @param key		Key to get the value of.
+	 * @return int		Value of the key, 0 if the key is not in the map.
+	 */
+	public int get(long key) {
+		int mask = this.keys.length - 1;
+		int slot = LongHashSet.getSlot(key, this.keys.length);
+		while (this.keys[slot] != LongHashSet.EMPTY) {
+			if (this.keys[slot] == key) {
+				return this.values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	/**
+	 * Removes all keys, keeping the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, LongHashSet.EMPTY);
+		this.size = 0;
+	}
+
+	/**
+	 * Getter for the number of keys in the map.
+	 * @return int		Number of keys.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Getter for the number of slots. Used with getKeyAt and getValueAt to go through the map
+	 * without creating objects.
+	 * @return int		Number of slots.
+	 */
+	public int getCapacity() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Gets the key in a slot.
+	 * @param slot		Slot between 0 and getCapacity()-1.
+	 * @return long		Key in the slot, or -1 if the slot is empty.
+	 */
+	public long getKeyAt(int slot) {
+		return this.keys[slot];
+	}
+
+	/**
+	 * Gets the value in a slot.
+	 * @param slot		Slot between 0 and getCapacity()-1.
+	 * @return int		Value in the slot, only valid if the slot is not empty.
+	 */
+	public int getValueAt(int slot) {
+		return this.values[slot];
+	}
+
+	/**
+	 * Moves all keys and values into new tables.
+	 * @param capacity		Number of slots in the new tables, a power of two.
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.keys, LongHashSet.EMPTY);
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != LongHashSet.EMPTY) {
+				int slot = LongHashSet.getSlot(oldKeys[i], capacity);
+				while (this.keys[slot] != LongHashSet.EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+}
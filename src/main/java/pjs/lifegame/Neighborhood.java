@@ -0,0 +1,427 @@
+package pjs.lifegame;
+
+import java.util.Arrays;
+
+/**
+ * <h1>Neighborhood</h1>
+ * The cells around a cell that are counted as its neighbors, from the neighborhood and
+ * neighborhood.radius properties. Every grid engine counts the radius 1 Moore neighborhood
+ * (every cell touching the cell, including at the corners) in its own way. Any other
+ * neighborhood is counted here, from the cell values of the whole grid as bits.
+ *
+ * A Moore neighborhood of radius r is the box of (2r+1)^N cells around the cell. It is
+ * counted with a sliding window along each dimension in turn, so the cost for each cell
+ * is the same for any radius.
+ * A von Neumann neighborhood of radius r is every cell within r steps along the dimensions
+ * (a diamond in 2D). Each row of the diamond is counted with a prefix sum along the first
+ * dimension, so the cost for each cell is one lookup per row, 2r+1 in 2D.
+ *
+ * The boundary property decides what the cells past the edge of the grid are: always dead,
+ * the cells at the other edge (wrap, a torus in 2D) or a mirror image of the cells at the edge
+ * (reflect, so the cell past the edge is the same as the edge cell). The prefix sums are taken
+ * over each line with the cells past both edges added, from a map of each position past the edges
+ * to its position on the grid made once for each dimension, so the boundary costs nothing per cell.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class Neighborhood {
+
+	/** Neighborhood name for the box of cells around a cell. */
+	public static final String MOORE = "moore";
+
+	/** Neighborhood name for the cells within radius steps along the dimensions. */
+	public static final String VON_NEUMANN = "vonneumann";
+
+	/** Boundary name for cells past the edge of the grid always being dead. */
+	public static final String DEAD = "dead";
+
+	/** Boundary name for the grid wrapping around, so cells past one edge are the cells at the other edge. */
+	public static final String WRAP = "wrap";
+
+	/** Boundary name for cells past the edge of the grid being a mirror image of the cells at the edge. */
+	public static final String REFLECT = "reflect";
+
+	// Each thread keeps its own, as runs with different properties can be on different threads
+	private static ThreadLocal<Neighborhood> neighborhood = new ThreadLocal<>();
+	private static ThreadLocal<Integer> neighborhoodPropertiesVersion = new ThreadLocal<>();
+
+	private final String type;
+	private final int radius;
+	private final String boundary;
+
+	/**
+	 * Neighborhood with cells past the edge of the grid always dead.
+	 * @param type		MOORE or VON_NEUMANN.
+	 * @param radius	Radius of the neighborhood, at least 1.
+	 */
+	public Neighborhood(String type, int radius) {
+		this(type, radius, DEAD);
+	}
+
+	/**
+	 * @param type		MOORE or VON_NEUMANN.
+	 * @param radius	Radius of the neighborhood, at least 1.
+	 * @param boundary	DEAD, WRAP or REFLECT.
+	 */
+	public Neighborhood(String type, int radius, String boundary) {
+		if (!MOORE.equals(type) && !VON_NEUMANN.equals(type)) {
+			throw new RuntimeException("Neighborhood " + type + " is not valid. Must be one of: " + MOORE + ", " + VON_NEUMANN);
+		}
+		if (radius < 1) {
+			throw new RuntimeException("Neighborhood radius must be at least 1, it was: " + radius);
+		}
+		if (!DEAD.equals(boundary) && !WRAP.equals(boundary) && !REFLECT.equals(boundary)) {
+			throw new RuntimeException("Boundary " + boundary + " is not valid. Must be one of: " + DEAD + ", " + WRAP + ", " + REFLECT);
+		}
+		this.type = type;
+		this.radius = radius;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * Gets the neighborhood from the neighborhood, neighborhood.radius and boundary properties.
+	 * It is read again only if the properties change.
+	 * @return Neighborhood		Neighborhood from the properties, radius 1 Moore with a dead boundary by default.
+	 */
+	public static Neighborhood getNeighborhood() {
+		Integer version = neighborhoodPropertiesVersion.get();
+		if (version == null || version != SetupProperties.getVersion()) {
+			neighborhood.set(new Neighborhood(SetupProperties.getProperty("neighborhood", MOORE).toLowerCase(),
+					SetupProperties.getIntProperty("neighborhood.radius", 1),
+					SetupProperties.getProperty("boundary", DEAD).toLowerCase()));
+			neighborhoodPropertiesVersion.set(SetupProperties.getVersion());
+		}
+		return neighborhood.get();
+	}
+
+	/**
+	 * Getter for the type of neighborhood.
+	 * @return String 	MOORE or VON_NEUMANN.
+	 */
+	public String getType() {
+		return this.type;
+	}
+
+	/**
+	 * Getter for the radius.
+	 * @return int 		Radius of the neighborhood.
+	 */
+	public int getRadius() {
+		return this.radius;
+	}
+
+	/**
+	 * Getter for the boundary.
+	 * @return String 	DEAD, WRAP or REFLECT.
+	 */
+	public String getBoundary() {
+		return this.boundary;
+	}
+
+	/**
+	 * Checks if this is the radius 1 Moore neighborhood with a dead boundary, which every grid engine counts itself.
+	 * @param dimensions	Number of dimensions of the grid.
+	 * @return boolean		True for the radius 1 Moore neighborhood with a dead boundary.
+	 */
+	public boolean isDefault(int dimensions) {
+		return this.isMooreRadiusOne(dimensions) && DEAD.equals(this.boundary);
+	}
+
+	/**
+	 * Checks if this is the radius 1 Moore neighborhood, with any boundary.
+	 * A von Neumann neighborhood in 1D is the same as a Moore neighborhood.
+	 * @param dimensions	Number of dimensions of the grid.
+	 * @return boolean		True for the radius 1 Moore neighborhood.
+	 */
+	public boolean isMooreRadiusOne(int dimensions) {
+		return this.radius == 1 && (MOORE.equals(this.type) || dimensions == 1);
+	}
+
+	/**
+	 * Gets the number of neighbor values a cell can have, from 0 up to the number of cells in the
+	 * neighborhood (not counting the cell itself).
+	 * @param dimensions	Number of dimensions of the grid.
+	 * @return int			Number of neighbor values.
+	 */
+	public int getNeighborValues(int dimensions) {
+		// cells[i] is the number of cells within i steps in the dimensions so far
+		long[] cells = new long[this.radius + 1];
+		for (int i = 0; i <= this.radius; i++) {
+			cells[i] = 1;
+		}
+		for (int d = 0; d < dimensions; d++) {
+			long[] next = new long[this.radius + 1];
+			for (int i = 0; i <= this.radius; i++) {
+				if (MOORE.equals(this.type)) {
+					next[i] = cells[i] * (2 * this.radius + 1);
+				} else {
+					// Add a step of -j or +j in the new dimension, leaving i - j steps for the others
+					next[i] = cells[i];
+					for (int j = 1; j <= i; j++) {
+						next[i] += 2 * cells[i - j];
+					}
+				}
+				if (next[i] > Integer.MAX_VALUE) {
+					throw new RuntimeException("Neighborhood " + this + " is too large for " + dimensions + " dimensions.");
+				}
+			}
+			cells = next;
+		}
+		return (int) cells[this.radius];
+	}
+
+	/**
+	 * Gets the offset from a cell of every cell in the neighborhood, not counting the cell itself.
+	 * @param dimensions	Number of dimensions of the grid.
+	 * @return int[][]		Offset of each neighbor, i.e. {-1,0} for the cell to the left in 2D.
+	 */
+	public int[][] getOffsets(int dimensions) {
+		int[][] offsets = new int[this.getNeighborValues(dimensions) - 1][];
+		int[] offset = new int[dimensions];
+		Arrays.fill(offset, -this.radius);
+		int n = 0;
+		int d;
+		do {
+			int steps = 0;
+			for (int value : offset) {
+				steps += Math.abs(value);
+			}
+			if (steps != 0 && (MOORE.equals(this.type) || steps <= this.radius)) {
+				offsets[n++] = offset.clone();
+			}
+
+			// Move to the next offset, like an odometer with digits -radius to radius
+			for (d = 0; d < dimensions && ++offset[d] > this.radius; d++) {
+				offset[d] = -this.radius;
+			}
+		} while (d < dimensions);
+		return offsets;
+	}
+
+	/**
+	 * Counts the live neighbors of every cell.
+	 * @param bits			Cell values as bits, see Grid.getCellBits.
+	 * @param sizes			Size of each dimension.
+	 * @return int[]		Number of live neighbors of each cell, by index.
+	 */
+	public int[] countNeighbors(long[] bits, int[] sizes) {
+		int cellCount = 1;
+		for (int size : sizes) {
+			cellCount *= size;
+		}
+
+		int[] counts;
+		if (MOORE.equals(this.type)) {
+			counts = this.countMoore(bits, sizes, cellCount);
+		} else {
+			counts = this.countVonNeumann(bits, sizes, cellCount);
+		}
+
+		// The cell itself is not a neighbor
+		for (int index = 0; index < cellCount; index++) {
+			counts[index] -= (int) ((bits[index >>> 6] >>> index) & 1L);
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the position on the grid that a position off the edge of the grid is the same as.
+	 * @param position		Position along a dimension, can be off the grid.
+	 * @param size			Size of the dimension.
+	 * @return int			Position on the grid, or -1 for a dead cell past the edge.
+	 */
+	public int getBoundaryPosition(int position, int size) {
+		if (position >= 0 && position < size) {
+			return position;
+		}
+		switch (this.boundary) {
+			case WRAP:
+				return ((position % size) + size) % size;
+			case REFLECT:
+				// The cells past the edge are a mirror image of the grid, then the grid again, and so on
+				int mirrored = ((position % (2 * size)) + 2 * size) % (2 * size);
+				return (mirrored < size) ? mirrored : 2 * size - 1 - mirrored;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Gets every position within radius of the edges of the grid that is the same as a position on the grid,
+	 * the opposite of getBoundaryPosition. A grid that only counts around its live cells adds each live cell
+	 * to the neighbors of all of these positions.
+	 * @param position		Position on the grid along a dimension.
+	 * @param size			Size of the dimension.
+	 * @return long[]		Positions from -radius to size-1+radius, only the position itself for a dead boundary.
+	 */
+	public long[] getBoundaryPositions(int position, int size) {
+		if (DEAD.equals(this.boundary)) {
+			return new long[] {position};
+		}
+
+		// The positions repeat every size cells for wrap, and every 2*size cells both ways round for reflect
+		long period = WRAP.equals(this.boundary) ? size : 2L * size;
+		long[] starts = WRAP.equals(this.boundary) ? new long[] {position} : new long[] {position, -1L - position};
+		long end = size - 1L + this.radius;
+		int count = 0;
+		for (int s = 0; s < starts.length; s++) {
+			// First position at or after -radius
+			starts[s] -= period * Math.floorDiv(starts[s] + this.radius, period);
+			count += (starts[s] <= end) ? (int) ((end - starts[s]) / period) + 1 : 0;
+		}
+
+		long[] positions = new long[count];
+		int n = 0;
+		for (long start : starts) {
+			for (long p = start; p <= end; p += period) {
+				positions[n++] = p;
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Gets the position on the grid of every position along a dimension from -radius to size-1+radius,
+	 * see getBoundaryPosition.
+	 * @param size			Size of the dimension.
+	 * @param dead			Position to use for a dead cell past the edge.
+	 * @return int[]		Position on the grid of position i - radius, at index i.
+	 */
+	private int[] getBoundaryMap(int size, int dead) {
+		int[] map = new int[size + 2 * this.radius];
+		for (int i = 0; i < map.length; i++) {
+			int position = this.getBoundaryPosition(i - this.radius, size);
+			map[i] = (position >= 0) ? position : dead;
+		}
+		return map;
+	}
+
+	/**
+	 * Counts the box around each cell, including the cell. Each pass replaces the counts with the sum of
+	 * the counts within radius along one dimension, so after every dimension each count is the sum of the box.
+	 * @param bits			Cell values as bits.
+	 * @param sizes			Size of each dimension.
+	 * @param cellCount		Number of cells.
+	 * @return int[]		Number of live cells in the box around each cell.
+	 */
+	private int[] countMoore(long[] bits, int[] sizes, int cellCount) {
+		int[] counts = new int[cellCount];
+		for (int index = 0; index < cellCount; index++) {
+			counts[index] = (int) ((bits[index >>> 6] >>> index) & 1L);
+		}
+
+		int stride = 1;
+		for (int d = 0; d < sizes.length; d++) {
+			int size = sizes[d];
+			// The last value of the line is always 0, for the dead cells past the edges
+			int[] line = new int[size + 1];
+			int[] map = this.getBoundaryMap(size, size);
+			// prefix[i] is the sum of the line from position -radius up to (not including) position i - radius
+			int[] prefix = new int[size + 2 * this.radius + 1];
+			// Every line along dimension d starts at an index with a coordinate of 0 in dimension d
+			for (int block = 0; block < cellCount; block += stride * size) {
+				for (int start = block; start < block + stride; start++) {
+					for (int i = 0; i < size; i++) {
+						line[i] = counts[start + i * stride];
+					}
+					for (int i = 0; i < size + 2 * this.radius; i++) {
+						prefix[i + 1] = prefix[i] + line[map[i]];
+					}
+					for (int i = 0; i < size; i++) {
+						counts[start + i * stride] = prefix[i + 2 * this.radius + 1] - prefix[i];
+					}
+				}
+			}
+			stride *= size;
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the diamond around each cell, including the cell. Each row of the diamond along the first
+	 * dimension is counted with a prefix sum of the row.
+	 * @param bits			Cell values as bits.
+	 * @param sizes			Size of each dimension.
+	 * @param cellCount		Number of cells.
+	 * @return int[]		Number of live cells in the diamond around each cell.
+	 */
+	private int[] countVonNeumann(long[] bits, int[] sizes, int cellCount) {
+		// Each row has a prefix sum from position -radius to size + radius, like countMoore
+		int rowLength = sizes[0] + 2 * this.radius + 1;
+		int rows = cellCount / sizes[0];
+		int[] prefix = new int[rows * rowLength];
+		int[][] maps = new int[sizes.length][];
+		for (int d = 0; d < sizes.length; d++) {
+			maps[d] = this.getBoundaryMap(sizes[d], -1);
+		}
+		for (int row = 0; row < rows; row++) {
+			int rowStart = row * sizes[0];
+			int prefixStart = row * rowLength;
+			for (int i = 0; i < rowLength - 1; i++) {
+				int position = maps[0][i];
+				int index = rowStart + position;
+				int value = (position >= 0) ? (int) ((bits[index >>> 6] >>> index) & 1L) : 0;
+				prefix[prefixStart + i + 1] = prefix[prefixStart + i] + value;
+			}
+		}
+
+		int[] strides = new int[sizes.length];
+		strides[0] = 1;
+		for (int d = 1; d < sizes.length; d++) {
+			strides[d] = strides[d-1] * sizes[d-1];
+		}
+
+		int[] counts = new int[cellCount];
+		int[] coordinate = new int[sizes.length];
+		for (int index = 0; index < cellCount; index++) {
+			counts[index] = this.countRows(prefix, sizes, strides, maps, coordinate, index, sizes.length - 1, this.radius);
+
+			// Next coordinate, first dimension changing fastest
+			for (int d = 0; d < sizes.length && ++coordinate[d] == sizes[d]; d++) {
+				coordinate[d] = 0;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the rows of the diamond in dimensions 0 to d, with steps left in those dimensions.
+	 * @param prefix		Prefix sums of the rows.
+	 * @param sizes			Size of each dimension.
+	 * @param strides		Index step of each dimension.
+	 * @param maps			Position on the grid of each position of each dimension, see getBoundaryMap.
+	 * @param coordinate	Coordinate of the cell in the middle of the diamond.
+	 * @param index			Index of the cell in the middle of this part of the diamond.
+	 * @param d				Highest dimension to count in.
+	 * @param steps			Number of steps left.
+	 * @return int			Number of live cells.
+	 */
+	private int countRows(int[] prefix, int[] sizes, int[] strides, int[][] maps, int[] coordinate, int index, int d, int steps) {
+		if (d == 0) {
+			int x = coordinate[0];
+			int prefixStart = (index / sizes[0]) * (sizes[0] + 2 * this.radius + 1);
+			return prefix[prefixStart + x + this.radius + steps + 1] - prefix[prefixStart + x + this.radius - steps];
+		}
+
+		int count = 0;
+		for (int offset = -steps; offset <= steps; offset++) {
+			int position = maps[d][coordinate[d] + offset + this.radius];
+			if (position >= 0) {
+				count += this.countRows(prefix, sizes, strides, maps, coordinate, index + (position - coordinate[d]) * strides[d],
+						d - 1, steps - Math.abs(offset));
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Neighborhood as text, i.e. "moore radius 2 with dead boundary".
+	 */
+	@Override
+	public String toString() {
+		return this.type + " radius " + this.radius + " with " + this.boundary + " boundary";
+	}
+
+}
@@ -0,0 +1,210 @@
+package pjs.lifegame;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>OffHeapArena</h1>
+ * Allocates memory outside of the Java heap for an OffHeapGrid, and frees all of it at once with close.
+ * The garbage collector never scans or copies this memory.
+ *
+ * On Java 22 or later the memory comes from a shared java.lang.foreign.Arena, and each block is a
+ * MemorySegment seen as a ByteBuffer. Closing the arena frees the memory, and any later access throws
+ * an exception. On older JDKs each block is a direct ByteBuffer, freed on close with the buffer cleaner
+ * (Java 9+), or by the garbage collector once the buffer is unreachable (Java 8). Direct buffers are
+ * limited by -XX:MaxDirectMemorySize, which is the same as -Xmx unless it is set.
+ * The foreign memory API is used through reflection, so this compiles and runs on every JDK.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+final class OffHeapArena implements Closeable {
+
+	// java.lang.foreign.Arena, or null to use direct buffers
+	private final Object arena;
+
+	// Blocks allocated, to free the direct buffers on close
+	private final List<ByteBuffer> buffers = new ArrayList<>();
+	private long allocatedBytes = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates an arena, with the foreign memory API if it is available.
+	 */
+	OffHeapArena() {
+		Object foreignArena = null;
+		if (ForeignMemory.AVAILABLE) {
+			try {
+				foreignArena = ForeignMemory.OF_SHARED.invoke(null);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				// Use direct buffers instead
+				foreignArena = null;
+			}
+		}
+		this.arena = foreignArena;
+	}
+
+	/**
+	 * Checks if the memory comes from the foreign memory API, instead of direct buffers.
+	 * @return boolean		True for a java.lang.foreign.Arena.
+	 */
+	boolean isForeign() {
+		return this.arena != null;
+	}
+
+	/**
+	 * Getter for the total memory allocated.
+	 * @return long		Number of bytes allocated, 0 after close.
+	 */
+	long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	/**
+	 * Allocates a block of longs, all set to 0, in the native byte order.
+	 * @param longs			Number of longs, up to 2^28 so the block fits in one buffer.
+	 * @return LongBuffer	Block of longs, valid until the arena is closed.
+	 */
+	synchronized LongBuffer allocateLongs(int longs) {
+		if (this.closed) {
+			throw new RuntimeException("Off-heap memory cannot be allocated after it has been released.");
+		}
+		long bytes = longs * 8L;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new RuntimeException("Off-heap blocks are limited to " + (Integer.MAX_VALUE / 8) + " longs, it was: " + longs);
+		}
+
+		ByteBuffer buffer;
+		if (this.arena != null) {
+			try {
+				Object segment = ForeignMemory.ALLOCATE.invoke(this.arena, bytes, 8L);
+				buffer = (ByteBuffer) ForeignMemory.AS_BYTE_BUFFER.invoke(segment);
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Off-heap memory could not be allocated: " + e, e);
+			}
+		} else {
+			buffer = ByteBuffer.allocateDirect((int) bytes);
+			this.buffers.add(buffer);
+		}
+		this.allocatedBytes += bytes;
+		return buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+	}
+
+	/**
+	 * Frees all memory allocated by the arena. The buffers must not be used after this.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		if (this.arena != null) {
+			try {
+				ForeignMemory.CLOSE.invoke(this.arena);
+			} catch (ReflectiveOperationException e) {
+				throw new RuntimeException("Off-heap memory could not be released: " + e, e);
+			}
+		} else if (Cleaner.AVAILABLE) {
+			for (ByteBuffer buffer : this.buffers) {
+				Cleaner.clean(buffer);
+			}
+		}
+		this.buffers.clear();
+		this.allocatedBytes = 0;
+	}
+
+	/**
+	 * Frees the memory of a direct or memory-mapped buffer straight away (Java 9+), instead of waiting
+	 * for the garbage collector. A mapped file can only be deleted on some systems once it is unmapped.
+	 * @param buffer		Direct buffer, not used again.
+	 */
+	static void free(ByteBuffer buffer) {
+		if (Cleaner.AVAILABLE) {
+			Cleaner.clean(buffer);
+		}
+	}
+
+	/**
+	 * Methods of the foreign memory API (java.lang.foreign, Java 22+), found the first time an arena is created.
+	 */
+	private static class ForeignMemory {
+
+		static final Method OF_SHARED;
+		static final Method ALLOCATE;
+		static final Method AS_BYTE_BUFFER;
+		static final Method CLOSE;
+		static final boolean AVAILABLE;
+
+		static {
+			Method ofShared = null;
+			Method allocate = null;
+			Method asByteBuffer = null;
+			Method close = null;
+			try {
+				Class<?> arenaClass = Class.forName("java.lang.foreign.Arena");
+				ofShared = arenaClass.getMethod("ofShared");
+				allocate = arenaClass.getMethod("allocate", long.class, long.class);
+				asByteBuffer = Class.forName("java.lang.foreign.MemorySegment").getMethod("asByteBuffer");
+				close = arenaClass.getMethod("close");
+			} catch (ReflectiveOperationException | LinkageError e) {
+				ofShared = null;
+			}
+			OF_SHARED = ofShared;
+			ALLOCATE = allocate;
+			AS_BYTE_BUFFER = asByteBuffer;
+			CLOSE = close;
+			AVAILABLE = (ofShared != null);
+		}
+
+	}
+
+	/**
+	 * Frees a direct buffer straight away with sun.misc.Unsafe.invokeCleaner (Java 9+), instead of
+	 * waiting for the garbage collector.
+	 */
+	private static class Cleaner {
+
+		static final Object UNSAFE;
+		static final Method INVOKE_CLEANER;
+		static final boolean AVAILABLE;
+
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field field = unsafeClass.getDeclaredField("theUnsafe");
+				field.setAccessible(true);
+				unsafe = field.get(null);
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+				invokeCleaner = null;
+			}
+			UNSAFE = unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+			AVAILABLE = (invokeCleaner != null);
+		}
+
+		/**
+		 * Frees the memory of a direct buffer.
+		 * @param buffer		Direct buffer, not used again.
+		 */
+		static void clean(ByteBuffer buffer) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} catch (ReflectiveOperationException e) {
+				// Left for the garbage collector to free
+			}
+		}
+
+	}
+
+}
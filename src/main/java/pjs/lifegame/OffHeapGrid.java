@@ -0,0 +1,156 @@
+package pjs.lifegame;
+
+import java.io.Closeable;
+import java.nio.LongBuffer;
+import java.util.List;
+
+/**
+ * <h1>OffHeapGrid</h1>
+ * Dense grid of any number of dimensions that stores the cell values as packed bits outside of the
+ * Java heap, in the same order as a PackedGrid. The garbage collector never scans or copies the cells,
+ * so GC pauses do not grow with the grid, and the grid can be larger than the heap.
+ *
+ * The cells are held in blocks of 2^27 longs (1 GiB, 2^33 cells) allocated from an OffHeapArena, so the
+ * number of cells is only limited by memory. Two sets of blocks are kept, one for the current generation
+ * and one for the next, which are swapped after each generation.
+ *
+ * Reading, displaying and advancing the cells is shared with PackedGrid in BitGrid, this class only holds
+ * the blocks. The memory is released with close, after which the grid cannot be used.
+ *
+ * Produces exactly the same generations as the Grid1D/GridND tree.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class OffHeapGrid extends BitGrid implements Closeable {
+
+	// Longs in each block of cells, 2^27 so a position in a block fits in an int
+	private static final int BLOCK_SHIFT = 27;
+	private static final int BLOCK_WORDS = 1 << BLOCK_SHIFT;
+	private static final long BLOCK_MASK = BLOCK_WORDS - 1;
+
+	private OffHeapArena arena;
+	private LongBuffer[] cells;
+	private LongBuffer[] nextCells;
+
+	/**
+	 * Initializes the grid with all cells dead, allocating the memory for two generations.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 */
+	public OffHeapGrid(List<Integer> dimSizes) {
+		super(dimSizes, Long.MAX_VALUE >>> 2, "an off-heap grid");
+
+		this.arena = new OffHeapArena();
+		try {
+			this.cells = this.allocateBlocks();
+			this.nextCells = this.allocateBlocks();
+		} catch (OutOfMemoryError e) {
+			this.arena.close();
+			throw new RuntimeException("Off-heap memory for grid size " + dimSizes + " could not be allocated,"
+					+ " increase -XX:MaxDirectMemorySize: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Allocates the blocks for one generation of cells.
+	 * @return LongBuffer[]		Blocks of longs, all cells dead.
+	 */
+	private LongBuffer[] allocateBlocks() {
+		LongBuffer[] blocks = new LongBuffer[(int) ((this.wordCount + BLOCK_WORDS - 1) >>> BLOCK_SHIFT)];
+		for (int b = 0; b < blocks.length; b++) {
+			blocks[b] = this.arena.allocateLongs((int) Math.min(BLOCK_WORDS, this.wordCount - ((long) b << BLOCK_SHIFT)));
+		}
+		return blocks;
+	}
+
+	/**
+	 * Releases the memory of the cells. The grid cannot be used after this.
+	 */
+	@Override
+	public void close() {
+		this.cells = null;
+		this.nextCells = null;
+		this.arena.close();
+	}
+
+	/**
+	 * Checks if close has been called.
+	 * @return boolean		True if the memory of the cells has been released.
+	 */
+	public boolean isClosed() {
+		return this.cells == null;
+	}
+
+	/**
+	 * Getter for the memory used outside of the heap.
+	 * @return long		Number of bytes, for both generations of cells.
+	 */
+	public long getOffHeapBytes() {
+		return this.arena.getAllocatedBytes();
+	}
+
+	/**
+	 * Gets the blocks of a generation, checking the memory has not been released, as using it would read freed memory.
+	 * @param blocks			Blocks of the generation.
+	 * @return LongBuffer[]		Same blocks.
+	 */
+	private static LongBuffer[] checkOpen(LongBuffer[] blocks) {
+		if (blocks == null) {
+			throw new RuntimeException("Off-heap grid memory has been released.");
+		}
+		return blocks;
+	}
+
+	/**
+	 * Gets a long of cells of the current generation.
+	 * @param word		Position of the long.
+	 * @return long		64 cell values.
+	 */
+	@Override
+	protected long getWord(long word) {
+		return checkOpen(this.cells)[(int) (word >>> BLOCK_SHIFT)].get((int) (word & BLOCK_MASK));
+	}
+
+	/**
+	 * Sets a long of cells of the current generation.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	@Override
+	protected void putWord(long word, long value) {
+		checkOpen(this.cells)[(int) (word >>> BLOCK_SHIFT)].put((int) (word & BLOCK_MASK), value);
+	}
+
+	/**
+	 * Sets a long of cells of the next generation.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	@Override
+	protected void putNextWord(long word, long value) {
+		checkOpen(this.nextCells)[(int) (word >>> BLOCK_SHIFT)].put((int) (word & BLOCK_MASK), value);
+	}
+
+	/**
+	 * Swaps the blocks with the next generation.
+	 */
+	@Override
+	protected void swapCells() {
+		LongBuffer[] swap = this.cells;
+		this.cells = this.nextCells;
+		this.nextCells = swap;
+	}
+
+	/**
+	 * Gets the block of a generation, for a step kernel, if the grid fits in one block.
+	 * @param next			True for the next generation, false for the current one.
+	 * @return LongBuffer	The only block of the generation, or null if there is more than one.
+	 */
+	@Override
+	protected LongBuffer getCellBuffer(boolean next) {
+		LongBuffer[] blocks = checkOpen(next ? this.nextCells : this.cells);
+		return (blocks.length == 1) ? blocks[0] : null;
+	}
+
+}
@@ -0,0 +1,140 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.List;
+
+/**
+ * <h1>PackedGrid</h1>
+ * Dense grid of any number of dimensions that stores the cell values as packed bits
+ * in a single flat long[], instead of a tree of sub-grids holding Cell objects.
+ * A cell coordinate is converted to a linear index with a stride per dimension, where
+ * the first dimension (columns) has a stride of 1. For a 4x3x2 grid the strides are {1,4,12},
+ * so the coordinate {1,2,1} is the bit at index 1 + 2*4 + 1*12 = 21.
+ *
+ * Neighbors are found by adding precomputed index offsets to the index of a cell, so
+ * stepping walks the bits in memory order. Only cells on the edge of the grid need to
+ * check which neighbors are on the grid.
+ *
+ * Advancing a generation is a single pass that reads the current cells, counts the neighbors
+ * and applies the rules, writing the next generation into a second array. The arrays are then
+ * swapped. Neighbor values are never stored, so there is nothing to reset. The pass is in BitGrid,
+ * shared with OffHeapGrid, this class only holds the arrays.
+ *
+ * The state hash and live cell count are updated from the bits that changed in each long.
+ *
+ * With grid.kernel=vector, grids of up to 4 dimensions are advanced by the Vector API kernel instead
+ * of the scalar loop, when it is available (see StepKernel).
+ *
+ * Produces exactly the same generations as the Grid1D/GridND tree.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class PackedGrid extends BitGrid {
+
+	protected long[] cells;
+	private long[] nextCells;
+
+	/**
+	 * Initializes the grid with all cells dead.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 */
+	public PackedGrid(List<Integer> dimSizes) {
+		super(dimSizes, Integer.MAX_VALUE, "a packed grid");
+		this.cells = new long[(int) this.wordCount];
+	}
+
+	/**
+	 * Gets a long of cells of the current generation.
+	 * @param word		Position of the long.
+	 * @return long		64 cell values.
+	 */
+	@Override
+	protected long getWord(long word) {
+		return this.cells[(int) word];
+	}
+
+	/**
+	 * Sets a long of cells of the current generation.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	@Override
+	protected void putWord(long word, long value) {
+		this.cells[(int) word] = value;
+	}
+
+	/**
+	 * Sets a long of cells of the next generation.
+	 * @param word		Position of the long.
+	 * @param value		64 cell values.
+	 */
+	@Override
+	protected void putNextWord(long word, long value) {
+		this.nextCells[(int) word] = value;
+	}
+
+	/**
+	 * Swaps the cell array with the next generation.
+	 */
+	@Override
+	protected void swapCells() {
+		long[] swap = this.cells;
+		this.cells = this.nextCells;
+		this.nextCells = swap;
+	}
+
+	/**
+	 * Wraps a cell array, for a step kernel.
+	 * @param next			True for the next generation, false for the current one.
+	 * @return LongBuffer	Buffer of the array.
+	 */
+	@Override
+	protected LongBuffer getCellBuffer(boolean next) {
+		return LongBuffer.wrap(next ? this.nextCells : this.cells);
+	}
+
+	/**
+	 * Copies cell values into a buffer as bits, see Grid.getCellBits.
+	 * The cells are already stored in the same order, so the longs are copied directly.
+	 * Nothing is copied if the first long is past the last cell.
+	 * @param firstWord 	Position of the first long to copy, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer for the bits.
+	 */
+	@Override
+	public void getCellBits(long firstWord, LongBuffer bits) {
+		int words = (int) Math.max(0, Math.min(bits.remaining(), this.cells.length - firstWord));
+		if (words > 0) {
+			bits.put(this.cells, (int) firstWord, words);
+		}
+	}
+
+	/**
+	 * Sets the cells with the indices to live, see Grid.setLiveCells.
+	 * The bits are set in a copy of the longs, which is then set with setCellBits.
+	 * @param indices 	Indices of the cells to set live.
+	 */
+	@Override
+	public void setLiveCells(long[] indices) {
+		long[] bits = this.cells.clone();
+		for (long index : indices) {
+			bits[(int) (this.getIndexOnGrid(index) >>> 6)] |= 1L << index;
+		}
+		this.setCellBits(0, LongBuffer.wrap(bits));
+	}
+
+	/**
+	 * Advances the grid one generation, see BitGrid.updateAllCellValues.
+	 * The array for the next generation is created the first time the grid advances.
+	 * @param rules		Game rules compiled for this grid.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		if (this.nextCells == null) {
+			this.nextCells = new long[this.cells.length];
+		}
+		super.updateAllCellValues(rules);
+	}
+
+}
@@ -0,0 +1,625 @@
+package pjs.lifegame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * <h1>PatternFile</h1>
+ * Reads and writes the live cells of a grid in the pattern file formats used by other Life programs,
+ * as well as the .grid format of this program (one coordinate on each line).
+ *
+ * RLE (.rle) files start with a header line like "x = 3, y = 3, rule = B3/S23", followed by the rows of
+ * the pattern, where "b" is a dead cell, "o" is a live cell, "$" is the end of a row and "!" is the end of
+ * the pattern. Any of these can have a count in front to repeat it, so "3o2$" is three live cells and two
+ * row ends. The rule in the header sets the stay.live (S) and dead.live (B) properties.
+ * Life 1.06 (.lif, .life) files start with "#Life 1.06", followed by "x y" for each live cell.
+ * Both formats are for 2D grids, with x as the first coordinate and y (the row) as the second.
+ *
+ * Files are read and written as a stream of bytes, so the whole file is never held in memory.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class PatternFile {
+
+	/** Format name for the .grid format, one coordinate on each line. */
+	public static final String GRID_FORMAT = "grid";
+
+	/** Format name for the run length encoded (RLE) format. */
+	public static final String RLE_FORMAT = "rle";
+
+	/** Format name for the Life 1.06 format, one "x y" on each line. */
+	public static final String LIFE106_FORMAT = "life106";
+
+	// RLE lines are kept to at most 70 characters
+	private static final int RLE_LINE_LENGTH = 70;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Gets the format of a pattern file from its extension, i.e. "rle" for "glider.rle".
+	 * @param location		Location of the file.
+	 * @return String		Format name, GRID_FORMAT for any extension that is not RLE or Life 1.06.
+	 */
+	public static String getFormat(String location) {
+		String lower = location.toLowerCase();
+		if (lower.endsWith(".rle")) {
+			return RLE_FORMAT;
+		} else if (lower.endsWith(".lif") || lower.endsWith(".life")) {
+			return LIFE106_FORMAT;
+		}
+		return GRID_FORMAT;
+	}
+
+	/**
+	 * Reads the indices of the live cells from a pattern file.
+	 * @param file				Pattern file.
+	 * @param format			Format name, i.e. RLE_FORMAT.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @return long[]			Index of each live cell, with the first dimension changing fastest.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	public static long[] read(Path file, String format, List<Integer> dimSizes) throws IOException {
+		switch (format) {
+			case GRID_FORMAT:
+				return new GridLoader(dimSizes).read(file);
+			case RLE_FORMAT:
+				return readRle(file, dimSizes);
+			case LIFE106_FORMAT:
+				return readLife106(file, dimSizes);
+			default:
+				throw new RuntimeException("Pattern format " + format + " is not valid. Must be one of: "
+						+ GRID_FORMAT + ", " + RLE_FORMAT + ", " + LIFE106_FORMAT);
+		}
+	}
+
+	/**
+	 * Writes the live cells of the grid to a pattern file.
+	 * @param grid				Grid to write.
+	 * @param file				Pattern file, replaced if it already exists.
+	 * @param format			Format name, i.e. RLE_FORMAT.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	public static void write(Grid grid, Path file, String format) throws IOException {
+		if (!GRID_FORMAT.equals(format) && !RLE_FORMAT.equals(format) && !LIFE106_FORMAT.equals(format)) {
+			throw new RuntimeException("Pattern format " + format + " is not valid. Must be one of: "
+					+ GRID_FORMAT + ", " + RLE_FORMAT + ", " + LIFE106_FORMAT);
+		}
+		if (!GRID_FORMAT.equals(format)) {
+			checkTwoDimensions(grid.getDimensionSizes());
+		}
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file),
+				StandardCharsets.US_ASCII), BUFFER_SIZE)) {
+			LiveCells liveCells = new LiveCells(grid);
+			switch (format) {
+				case GRID_FORMAT:
+					writeGrid(liveCells, grid.getDimensionSizes(), writer);
+					break;
+				case RLE_FORMAT:
+					writeRle(liveCells, grid.getDimensionSizes(), writer);
+					break;
+				case LIFE106_FORMAT:
+					writeLife106(liveCells, grid.getDimensionSizes(), writer);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Reads an RLE file, and sets the stay.live and dead.live properties from the rule in the header.
+	 * @param file				RLE file.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @return long[]			Index of each live cell.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	private static long[] readRle(Path file, List<Integer> dimSizes) throws IOException {
+		checkTwoDimensions(dimSizes);
+		int width = dimSizes.get(0);
+		int height = dimSizes.get(1);
+
+		Indices indices = new Indices();
+		StringBuilder header = null;
+		boolean lineStart = true;
+		boolean comment = false;
+		long count = 0;
+		long x = 0;
+		long y = 0;
+		long lineNumber = 1;
+
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+			int b;
+			while ((b = in.read()) != -1) {
+				if (b == '\n') {
+					if (header != null) {
+						applyRleHeader(header.toString(), width, height);
+						header = null;
+					}
+					lineStart = true;
+					comment = false;
+					lineNumber++;
+					continue;
+				}
+				if (lineStart) {
+					lineStart = false;
+					comment = (b == '#');
+					if (b == 'x') {
+						header = new StringBuilder();
+					}
+				}
+				if (comment) {
+					continue;
+				}
+				if (header != null) {
+					header.append((char) b);
+					continue;
+				}
+
+				if (b >= '0' && b <= '9') {
+					count = count * 10 + (b - '0');
+					if (count > Integer.MAX_VALUE) {
+						throw new RuntimeException("Run count is too large on line " + lineNumber + " of the RLE file.");
+					}
+					continue;
+				}
+				long run = Math.max(count, 1);
+				count = 0;
+				if (b == 'b' || b == '.') {
+					x += run;
+				} else if (b == 'o') {
+					if (x + run > width || y >= height) {
+						throw new RuntimeException("Pattern is larger than the grid size " + dimSizes
+								+ " on line " + lineNumber + " of the RLE file.");
+					}
+					for (long i = 0; i < run; i++) {
+						indices.add(x + i + y * width);
+					}
+					x += run;
+				} else if (b == '$') {
+					y += run;
+					x = 0;
+				} else if (b == '!') {
+					break;
+				} else if (b != ' ' && b != '\t' && b != '\r') {
+					throw new RuntimeException("Could not read character '" + (char) b + "' on line " + lineNumber
+							+ " of the RLE file.");
+				}
+			}
+		}
+		if (header != null) {
+			applyRleHeader(header.toString(), width, height);
+		}
+
+		return indices.toArray();
+	}
+
+	/**
+	 * Checks the pattern size in an RLE header fits on the grid, and sets the rules from it.
+	 * @param header	Header line, i.e. "x = 3, y = 3, rule = B3/S23".
+	 * @param width		Size of the first dimension of the grid.
+	 * @param height	Size of the second dimension of the grid.
+	 */
+	private static void applyRleHeader(String header, int width, int height) {
+		boolean rule = false;
+		for (String item : header.split(",")) {
+			String[] keyValue = item.split("=", 2);
+			if (keyValue.length != 2) {
+				if (rule) {
+					// Part of the topology after the rule, i.e. the 100 of "B3/S23:T100,100"
+					continue;
+				}
+				throw new RuntimeException("Could not read RLE header: " + header);
+			}
+			String key = keyValue[0].trim();
+			String value = keyValue[1].trim();
+			try {
+				if (key.equals("x") && Long.parseLong(value) > width) {
+					throw new RuntimeException("Pattern width " + value + " is larger than the grid size " + width);
+				} else if (key.equals("y") && Long.parseLong(value) > height) {
+					throw new RuntimeException("Pattern height " + value + " is larger than the grid size " + height);
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Could not read RLE header: " + header);
+			}
+			if (key.equals("rule")) {
+				rule = true;
+				applyRule(value);
+			}
+		}
+	}
+
+	/**
+	 * Sets the stay.live and dead.live properties from a rule, i.e. "B3/S23", or "23/3" with the
+	 * stay live counts first.
+	 * @param rule		Rule to set.
+	 */
+	static void applyRule(String rule) {
+		// Remove any topology, i.e. ":T100,100"
+		String[] parts = rule.split(":")[0].trim().split("/");
+		if (parts.length != 2) {
+			throw new RuntimeException("Rule " + rule + " is not supported, must be like B3/S23");
+		}
+
+		String birth = null;
+		String survival = null;
+		for (String part : parts) {
+			part = part.trim();
+			if (part.startsWith("B") || part.startsWith("b")) {
+				birth = part.substring(1);
+			} else if (part.startsWith("S") || part.startsWith("s")) {
+				survival = part.substring(1);
+			}
+		}
+		if (birth == null && survival == null) {
+			// Rule with the counts only, i.e. "23/3"
+			survival = parts[0].trim();
+			birth = parts[1].trim();
+		}
+		if (birth == null || survival == null) {
+			throw new RuntimeException("Rule " + rule + " is not supported, must be like B3/S23");
+		}
+
+		SetupProperties.setProperty("stay.live", getRuleCounts(survival, rule));
+		SetupProperties.setProperty("dead.live", getRuleCounts(birth, rule));
+	}
+
+	/**
+	 * Converts the digits of a rule to a list for the properties, i.e. "23" to "2,3".
+	 * A list with no counts becomes -1, which never happens.
+	 * @param digits	Digits of one part of the rule.
+	 * @param rule		Whole rule, for the error message.
+	 * @return String	Property value.
+	 */
+	private static String getRuleCounts(String digits, String rule) {
+		if (digits.isEmpty()) {
+			return "-1";
+		}
+		StringBuilder counts = new StringBuilder();
+		for (int i = 0; i < digits.length(); i++) {
+			char c = digits.charAt(i);
+			if (c < '0' || c > '8') {
+				throw new RuntimeException("Rule " + rule + " is not supported, must be like B3/S23");
+			}
+			if (i > 0) {
+				counts.append(',');
+			}
+			counts.append(c);
+		}
+		return counts.toString();
+	}
+
+	/**
+	 * Gets the rule for the stay.live and dead.live properties, i.e. "B3/S23".
+	 * Counts that a 2D cell can not have are left out.
+	 * @return String	Rule.
+	 */
+	static String getRule() {
+		return "B" + getRuleDigits(SetupProperties.getIntListProperty("dead.live"))
+				+ "/S" + getRuleDigits(SetupProperties.getIntListProperty("stay.live"));
+	}
+
+	/**
+	 * Converts a list of counts to the digits of a rule, i.e. 3,2 to "23".
+	 * @param counts	Numbers of live neighbors.
+	 * @return String	Digits of the rule, smallest first.
+	 */
+	private static String getRuleDigits(List<Integer> counts) {
+		StringBuilder digits = new StringBuilder();
+		for (Integer count : new TreeSet<>(counts)) {
+			if (count >= 0 && count <= 8) {
+				digits.append(count);
+			}
+		}
+		return digits.toString();
+	}
+
+	/**
+	 * Reads a Life 1.06 file. Cells at negative coordinates are moved onto the grid, by moving the
+	 * whole pattern so the smallest coordinate is 0.
+	 * @param file				Life 1.06 file.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @return long[]			Index of each live cell.
+	 * @throws IOException		If the file cannot be read.
+	 */
+	private static long[] readLife106(Path file, List<Integer> dimSizes) throws IOException {
+		checkTwoDimensions(dimSizes);
+
+		// Coordinates are kept until the smallest is known, the x and y of each cell one after the other
+		Indices coordinates = new Indices();
+		long[] coordinate = new long[2];
+		int dimension = 0;
+		boolean lineStart = true;
+		boolean comment = false;
+		boolean inNumber = false;
+		boolean negative = false;
+		long value = 0;
+		long lineNumber = 1;
+
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+			int b;
+			do {
+				b = in.read();
+				if (lineStart && b != -1) {
+					lineStart = false;
+					comment = (b == '#');
+				}
+				if (comment && b != '\n' && b != -1) {
+					continue;
+				}
+
+				if (b >= '0' && b <= '9') {
+					value = value * 10 + (b - '0');
+					if (value > Integer.MAX_VALUE) {
+						throw new RuntimeException("Number is too large on line " + lineNumber + " of the Life 1.06 file.");
+					}
+					inNumber = true;
+				} else if (b == '-' && !inNumber && !negative) {
+					negative = true;
+				} else if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == -1) {
+					if (inNumber) {
+						if (dimension == 2) {
+							throw new RuntimeException("Too many numbers on line " + lineNumber + " of the Life 1.06 file.");
+						}
+						coordinate[dimension++] = negative ? -value : value;
+						inNumber = false;
+						negative = false;
+						value = 0;
+					} else if (negative) {
+						throw new RuntimeException("Missing number on line " + lineNumber + " of the Life 1.06 file.");
+					}
+					if (b == '\n' || b == -1) {
+						if (dimension == 1) {
+							throw new RuntimeException("Missing number on line " + lineNumber + " of the Life 1.06 file.");
+						} else if (dimension == 2) {
+							coordinates.add(coordinate[0]);
+							coordinates.add(coordinate[1]);
+						}
+						dimension = 0;
+						lineStart = true;
+						comment = false;
+						lineNumber++;
+					}
+				} else {
+					throw new RuntimeException("Could not read character '" + (char) b + "' on line " + lineNumber
+							+ " of the Life 1.06 file.");
+				}
+			} while (b != -1);
+		}
+
+		long[] values = coordinates.toArray();
+		long minX = 0;
+		long minY = 0;
+		for (int i = 0; i < values.length; i += 2) {
+			minX = Math.min(minX, values[i]);
+			minY = Math.min(minY, values[i+1]);
+		}
+		long[] indices = new long[values.length / 2];
+		for (int i = 0; i < values.length; i += 2) {
+			long x = values[i] - minX;
+			long y = values[i+1] - minY;
+			if (x >= dimSizes.get(0) || y >= dimSizes.get(1)) {
+				throw new RuntimeException("Pattern is larger than the grid size " + dimSizes + " at cell "
+						+ values[i] + " " + values[i+1] + " of the Life 1.06 file.");
+			}
+			indices[i / 2] = x + y * dimSizes.get(0);
+		}
+		return indices;
+	}
+
+	/**
+	 * Writes the live cells in the .grid format, one coordinate on each line.
+	 * @param liveCells			Live cells of the grid.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @param writer			Writer for the file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	private static void writeGrid(LiveCells liveCells, List<Integer> dimSizes, Writer writer) throws IOException {
+		writer.write("# Grid size " + dimSizes + "\n");
+		for (long index = liveCells.next(); index >= 0; index = liveCells.next()) {
+			for (int d = 0; d < dimSizes.size(); d++) {
+				if (d > 0) {
+					writer.write(',');
+				}
+				writer.write(Long.toString(index % dimSizes.get(d)));
+				index /= dimSizes.get(d);
+			}
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Writes the live cells in the RLE format, with the grid size and rule in the header.
+	 * @param liveCells			Live cells of the grid, smallest index first.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @param writer			Writer for the file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	private static void writeRle(LiveCells liveCells, List<Integer> dimSizes, Writer writer) throws IOException {
+		int width = dimSizes.get(0);
+		writer.write("x = " + width + ", y = " + dimSizes.get(1) + ", rule = " + getRule() + "\n");
+
+		RleLine line = new RleLine(writer);
+		long row = 0;
+		long column = 0;
+		long runStart = -1;
+		long runEnd = -1;
+		for (long index = liveCells.next(); index >= 0; index = liveCells.next()) {
+			long x = index % width;
+			long y = index / width;
+			if (y == row && x == runEnd) {
+				// Next cell of the current run of live cells
+				runEnd++;
+				continue;
+			}
+			if (runStart >= 0) {
+				line.write(runEnd - runStart, 'o');
+				column = runEnd;
+			}
+			if (y > row) {
+				line.write(y - row, '$');
+				row = y;
+				column = 0;
+			}
+			if (x > column) {
+				line.write(x - column, 'b');
+			}
+			runStart = x;
+			runEnd = x + 1;
+		}
+		if (runStart >= 0) {
+			line.write(runEnd - runStart, 'o');
+		}
+		line.write(1, '!');
+		writer.write("\n");
+	}
+
+	/**
+	 * Writes the live cells in the Life 1.06 format.
+	 * @param liveCells			Live cells of the grid.
+	 * @param dimSizes			Size of each dimension of the grid.
+	 * @param writer			Writer for the file.
+	 * @throws IOException		If the file cannot be written.
+	 */
+	private static void writeLife106(LiveCells liveCells, List<Integer> dimSizes, Writer writer) throws IOException {
+		int width = dimSizes.get(0);
+		writer.write("#Life 1.06\n");
+		for (long index = liveCells.next(); index >= 0; index = liveCells.next()) {
+			writer.write(Long.toString(index % width));
+			writer.write(' ');
+			writer.write(Long.toString(index / width));
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Checks the grid has two dimensions, for the RLE and Life 1.06 formats.
+	 * @param dimSizes		Size of each dimension of the grid.
+	 */
+	private static void checkTwoDimensions(List<Integer> dimSizes) {
+		if (dimSizes.size() != 2) {
+			throw new RuntimeException("RLE and Life 1.06 patterns are for 2D grids, grid size is " + dimSizes);
+		}
+	}
+
+	/**
+	 * Writes the items of an RLE pattern, starting a new line before any item that would make the line
+	 * longer than 70 characters.
+	 */
+	private static class RleLine {
+
+		private Writer writer;
+		private int length = 0;
+
+		RleLine(Writer writer) {
+			this.writer = writer;
+		}
+
+		/**
+		 * Writes an item with its count, leaving out a count of 1.
+		 * @param count		Number of times to repeat the tag.
+		 * @param tag		Tag, i.e. 'o' for live cells.
+		 * @throws IOException		If the file cannot be written.
+		 */
+		void write(long count, char tag) throws IOException {
+			String item = (count == 1) ? String.valueOf(tag) : (count + String.valueOf(tag));
+			if (this.length + item.length() > RLE_LINE_LENGTH) {
+				this.writer.write('\n');
+				this.length = 0;
+			}
+			this.writer.write(item);
+			this.length += item.length();
+		}
+
+	}
+
+	/**
+	 * Goes through the indices of the live cells of a grid, smallest first.
+	 * A sparse grid gives its live cells directly, other grids are read 64K cells at a time as bits.
+	 */
+	private static class LiveCells {
+
+		private static final int WORDS = 1024;
+
+		private Grid grid;
+		private long[] sparseIndices = null;
+		private int sparsePosition = 0;
+		private long words;
+		private long[] bits = new long[WORDS];
+		private long firstWord = -WORDS;
+		private int wordPosition = WORDS;
+		private long word = 0;
+
+		LiveCells(Grid grid) {
+			this.grid = grid;
+			if (grid instanceof SparseGrid) {
+				this.sparseIndices = ((SparseGrid) grid).getLiveCellIndices();
+			}
+			this.words = (grid.getCellCount() + 63) >>> 6;
+		}
+
+		/**
+		 * Gets the next live cell.
+		 * @return long		Index of the next live cell, or -1 after the last one.
+		 */
+		long next() {
+			if (this.sparseIndices != null) {
+				return (this.sparsePosition < this.sparseIndices.length) ? this.sparseIndices[this.sparsePosition++] : -1;
+			}
+
+			while (this.word == 0) {
+				this.wordPosition++;
+				if (this.wordPosition >= WORDS) {
+					this.firstWord += WORDS;
+					if (this.firstWord >= this.words) {
+						return -1;
+					}
+					Arrays.fill(this.bits, 0L);
+					this.grid.getCellBits(this.firstWord, LongBuffer.wrap(this.bits));
+					this.wordPosition = 0;
+				}
+				if (this.firstWord + this.wordPosition >= this.words) {
+					return -1;
+				}
+				this.word = this.bits[this.wordPosition];
+			}
+			int bit = Long.numberOfTrailingZeros(this.word);
+			this.word &= this.word - 1;
+			return ((this.firstWord + this.wordPosition) << 6) + bit;
+		}
+
+	}
+
+	/**
+	 * Growing list of longs, for the indices read from a file.
+	 */
+	private static class Indices {
+
+		private long[] values = new long[1024];
+		private int count = 0;
+
+		void add(long value) {
+			if (this.count == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.count * 2);
+			}
+			this.values[this.count++] = value;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(this.values, this.count);
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package pjs.lifegame;
+
+import java.util.List;
+
+/**
+ * <h1>RuleTable</h1>
+ * Compiled, immutable form of the stay.live and dead.live rules for a number of dimensions.
+ * The next value of a cell is looked up in a table with one entry for every combination of
+ * current value and neighbor value, from 0 up to the maximum of 3^N-1 neighbors (or the size of
+ * the neighborhood, for a larger Neighborhood).
+ * This means checking a cell is a single array lookup, without reading the properties.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class RuleTable {
+
+	private final int dimensions;
+
+	// Next value of a cell, at index (neighbors * 2) for a dead cell and (neighbors * 2 + 1) for a live cell.
+	private final boolean[] nextValues;
+
+	/**
+	 * Compiles the rules. Neighbor values outside of 0 to 3^N-1 can never happen, so they are ignored.
+	 * @param stayLive		Numbers of live neighbors needed for a live cell to stay live.
+	 * @param deadLive		Numbers of live neighbors needed for a dead cell to become live.
+	 * @param dimensions	Number of dimensions of the grid.
+	 */
+	public RuleTable(List<Integer> stayLive, List<Integer> deadLive, int dimensions) {
+		this(stayLive, deadLive, dimensions, getMooreNeighborValues(dimensions));
+	}
+
+	/**
+	 * Compiles the rules for a neighborhood. Neighbor values outside of 0 to neighborValues-1 can never
+	 * happen, so they are ignored.
+	 * @param stayLive			Numbers of live neighbors needed for a live cell to stay live.
+	 * @param deadLive			Numbers of live neighbors needed for a dead cell to become live.
+	 * @param dimensions		Number of dimensions of the grid.
+	 * @param neighborValues	Number of neighbor values a cell can have, see Neighborhood.getNeighborValues.
+	 */
+	public RuleTable(List<Integer> stayLive, List<Integer> deadLive, int dimensions, int neighborValues) {
+		this.dimensions = dimensions;
+
+		this.nextValues = new boolean[neighborValues * 2];
+
+		for (Integer neighbors : stayLive) {
+			if (neighbors >= 0 && neighbors < neighborValues) {
+				this.nextValues[neighbors * 2 + 1] = true;
+			}
+		}
+		for (Integer neighbors : deadLive) {
+			if (neighbors >= 0 && neighbors < neighborValues) {
+				this.nextValues[neighbors * 2] = true;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of neighbor values of the radius 1 Moore neighborhood, 3^N.
+	 * @param dimensions	Number of dimensions of the grid.
+	 * @return int			Number of neighbor values.
+	 */
+	private static int getMooreNeighborValues(int dimensions) {
+		int neighborValues = 1;
+		for (int i = 0; i < dimensions; i++) {
+			neighborValues *= 3;
+		}
+		return neighborValues;
+	}
+
+	/**
+	 * Getter for the number of dimensions the rules were compiled for.
+	 * @return dimensions
+	 */
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * Gets the maximum neighbor value a cell can have, which is 3^N-1 for the radius 1 Moore neighborhood.
+	 * @return int		Maximum neighbor value.
+	 */
+	public int getMaxNeighborValue() {
+		return this.nextValues.length / 2 - 1;
+	}
+
+	/**
+	 * Checks if the cell should be live or dead based on its value and the total neighbor value.
+	 * @param value			Current value of the cell, true if live.
+	 * @param neighbors		Number of live neighbors, between 0 and getMaxNeighborValue().
+	 * @return boolean		New cell value, true if cell is live, false if not.
+	 */
+	public boolean isCellLive(boolean value, int neighbors) {
+		return this.nextValues[(neighbors << 1) | (value ? 1 : 0)];
+	}
+
+}
@@ -8,6 +8,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -15,6 +17,10 @@ import java.util.Properties;
  * Loads the properties file and acts as reference for any class that wants to get
  * these properties. Can get the properties as various objects: String, Integer, List<Integer>.
  * 
+ * The properties are shared by the whole program, except while a task is run with runWith. The task
+ * then reads and sets its own properties on its thread, so a BatchRunner can run many simulations
+ * with different properties at the same time.
+ * 
  * @author Paul Seebald
  * @version 1.0
  * @since 2018-01-12
@@ -23,6 +29,13 @@ public class SetupProperties {
 	
 	private static Properties properties = null;
 	private static String propertyLocation = null;
+	private static int version = 0;
+	
+	// Every version is taken from here, so no two sets of properties ever have the same version
+	private static AtomicInteger lastVersion = new AtomicInteger();
+	
+	// Properties of the task being run with runWith on each thread, null for the shared properties
+	private static ThreadLocal<RunProperties> runProperties = new ThreadLocal<>();
 	
 	/**
 	 * Used to set the location of the properties file.
@@ -36,8 +49,6 @@ public class SetupProperties {
 	 * Initializes the properties by loading the file.
 	 */
 	public static void initProperties() {
-		properties = new Properties();
-		
 		if (propertyLocation == null) {
 			// If propertyLocation is not defined (i.e. not input to GameApp as part of args), use the default.
 			if (GameApp.propertyLocation == null) {
@@ -47,38 +58,110 @@ public class SetupProperties {
 			}
 		}
 		
-		try (BufferedInputStream propsStream = new BufferedInputStream(new FileInputStream(propertyLocation)) ) {
-			properties.load(propsStream);
+		properties = loadProperties(propertyLocation);
+		version = lastVersion.incrementAndGet();
+	}
+	
+	/**
+	 * Loads a properties file, without using it as the shared properties.
+	 * @param location				Location of the properties file.
+	 * @return Properties			Properties in the file.
+	 */
+	public static Properties loadProperties(String location) {
+		Properties props = new Properties();
+		try (BufferedInputStream propsStream = new BufferedInputStream(new FileInputStream(location)) ) {
+			props.load(propsStream);
 		} catch (FileNotFoundException e) {
-			System.out.println("File " + propertyLocation + " was not found.");
+			System.out.println("File " + location + " was not found.");
 			System.out.println();
 			e.printStackTrace();
 			throw new RuntimeException("Please enter a valid file location.");
 		} catch (IOException e) {
-			System.out.println("File " + propertyLocation + " could not be read.");
+			System.out.println("File " + location + " could not be read.");
 			System.out.println();
 			e.printStackTrace();
 			throw new RuntimeException("Please check file for correct syntax.");
 		}
+		return props;
 	}
 
 	/**
-	 * Gets the property value associated with the key.
-	 * @param key					Key for desired property.
-	 * @return String property		Property value as a String.
+	 * Uses the given properties instead of loading them from a file.
+	 * Used by benchmarks, which create their properties in code.
+	 * @param props		Properties to use.
 	 */
-	public static String getProperty(String key) {
+	public static void setProperties(Properties props) {
+		properties = props;
+		version = lastVersion.incrementAndGet();
+	}
+
+	/**
+	 * Runs a task with its own properties instead of the shared properties. Every property the task reads
+	 * or sets on this thread, including the rules and neighborhood, uses these properties until it returns.
+	 * Tasks on different threads can run at the same time with different properties.
+	 * @param props				Properties for the task.
+	 * @param location			Location the properties were loaded from, for error messages.
+	 * @param task				Task to run.
+	 * @return T				Result of the task.
+	 * @throws Exception		If the task throws an exception.
+	 */
+	public static <T> T runWith(Properties props, String location, Callable<T> task) throws Exception {
+		RunProperties previous = runProperties.get();
+		runProperties.set(new RunProperties(props, location));
+		try {
+			return task.call();
+		} finally {
+			// Tasks can run inside other tasks on the same thread, i.e. while a fork-join worker waits
+			if (previous == null) {
+				runProperties.remove();
+			} else {
+				runProperties.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Gets the properties for the current thread, loading the shared properties the first time.
+	 * @return Properties		Properties of the task run with runWith, or the shared properties.
+	 */
+	private static Properties getProperties() {
+		RunProperties run = runProperties.get();
+		if (run != null) {
+			return run.properties;
+		}
 		if (properties == null) {
 			initProperties();
 		}
+		return properties;
+	}
 
-		if (!properties.containsKey(key)) {
-			throw new RuntimeException("Properties file " + propertyLocation + " does not contain key: " + key);
+	/**
+	 * Gets the property value associated with the key.
+	 * @param key					Key for desired property.
+	 * @return String property		Property value as a String.
+	 */
+	public static String getProperty(String key) {
+		Properties props = getProperties();
+		if (!props.containsKey(key)) {
+			RunProperties run = runProperties.get();
+			throw new RuntimeException("Properties file " + ((run != null) ? run.location : propertyLocation)
+					+ " does not contain key: " + key);
 		}
 		
-		return properties.getProperty(key);
+		return props.getProperty(key);
 	}
-	
+
+	/**
+	 * Gets the property value associated with the key, or the default value if the
+	 * properties file does not contain the key. Used for optional properties.
+	 * @param key					Key for desired property.
+	 * @param defaultValue			Value returned when the key is not defined.
+	 * @return String property		Property value as a String.
+	 */
+	public static String getProperty(String key, String defaultValue) {
+		return getProperties().getProperty(key, defaultValue).trim();
+	}
+
 	/**
 	 * Gets the property value associated with the key.
 	 * @param key					Key for desired property.
@@ -93,6 +176,22 @@ public class SetupProperties {
 		}
 	}
 	
+	/**
+	 * Gets the property value associated with the key, or the default value if the
+	 * properties file does not contain the key. Used for optional properties.
+	 * @param key					Key for desired property.
+	 * @param defaultValue			Value returned when the key is not defined.
+	 * @return Integer property		Property value as a Integer.
+	 */
+	public static Integer getIntProperty(String key, int defaultValue) {
+		try {
+			return Integer.valueOf(getProperty(key, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			System.out.println(e.getClass() + ": " + e.getMessage());
+			throw new RuntimeException("Value for key " + key + " in properties is not a valid integer.");
+		}
+	}
+	
 	/**
 	 * Gets the property value associated with the key.
 	 * @param key					Key for desired property.
@@ -125,11 +224,40 @@ public class SetupProperties {
 	 * @param value		Value to set for property key.
 	 */
 	public static void setProperty(String key, String value) {
-		if (properties == null) {
-			initProperties();
+		getProperties().setProperty(key, value);
+		RunProperties run = runProperties.get();
+		if (run != null) {
+			run.version = lastVersion.incrementAndGet();
+		} else {
+			version = lastVersion.incrementAndGet();
 		}
-		
-		properties.setProperty(key, value);
+	}
+
+	/**
+	 * Gets the version of the properties, which changes every time the properties are loaded or set.
+	 * Used to know when anything built from the properties needs to be built again.
+	 * @return int		Version of the properties for the current thread.
+	 */
+	public static int getVersion() {
+		RunProperties run = runProperties.get();
+		return (run != null) ? run.version : version;
+	}
+
+	/**
+	 * Properties of a task run with runWith.
+	 */
+	private static class RunProperties {
+
+		private final Properties properties;
+		private final String location;
+		private int version;
+
+		RunProperties(Properties properties, String location) {
+			this.properties = properties;
+			this.location = location;
+			this.version = lastVersion.incrementAndGet();
+		}
+
 	}
 
 }
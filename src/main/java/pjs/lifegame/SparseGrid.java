@@ -0,0 +1,678 @@
+package pjs.lifegame;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h1>SparseGrid</h1>
+ * Grid of any number of dimensions that only stores its live cells. Each live cell is a
+ * coordinate packed into one long key, with a fixed number of bits for each dimension
+ * (enough bits for the size of that dimension). The keys are held in a LongHashSet.
+ *
+ * Neighbor values are only counted around live cells, so memory and the time to advance a
+ * generation depend on the number of live cells, not the size of the grid. This is the same for
+ * any neighborhood: each live cell adds to the neighbor value of every cell in its neighborhood.
+ * With a wrap or reflect boundary, a live cell near the edge is also every position past the edges
+ * that is the same cell (see Neighborhood.getBoundaryPositions), and adds to the cells around each of them. This allows very
+ * large grids, i.e. 2^20 cells in each direction of a 3D grid. The total number of bits for
+ * all dimensions must fit in 63 bits, so the limit depends on the number of dimensions: with the
+ * same size in every direction it is 2^(63/dimensions) cells, i.e. 2^15 for 4D, 2^12 for 5D and
+ * only 2^6 for 10D. GridFactory.checkDimensions checks this before the grid is created.
+ *
+ * A dead cell with no live neighbors is never checked, so the dead.live property cannot contain 0.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class SparseGrid extends Grid {
+
+	/** Grids with more cells than this are displayed as a list of live coordinates. */
+	public static final long MAX_DISPLAY_CELLS = 1000000;
+
+	private int dimensions;
+	private int[] sizes;
+	private int[] shifts;
+	private long[] masks;
+
+	private LongHashSet liveCells = new LongHashSet();
+	private long stateHash = 0;
+
+	// Neighbor values for every cell with a live neighbor, and every live cell.
+	// The value is (neighbors * 2) + 1 for a live cell, (neighbors * 2) for a dead cell.
+	private LongIntHashMap neighborValues = new LongIntHashMap();
+
+	// Every neighbor position relative to a cell, as a coordinate offset and as a key offset,
+	// for the neighborhood they were created for.
+	private Neighborhood neighborhood;
+	private int radius;
+	private int[][] neighborOffsets;
+	private long[] neighborKeyOffsets;
+
+	/**
+	 * Initializes the grid with all cells dead.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 */
+	public SparseGrid(List<Integer> dimSizes) {
+		super(dimSizes.get(dimSizes.size()-1));
+		this.dimensions = dimSizes.size();
+		this.createKeyLayout(dimSizes);
+	}
+
+	/**
+	 * Calculates where each dimension is stored in the key.
+	 * @param dimSizes		Size of each dimension.
+	 */
+	private void createKeyLayout(List<Integer> dimSizes) {
+		this.sizes = new int[this.dimensions];
+		this.shifts = new int[this.dimensions];
+		this.masks = new long[this.dimensions];
+
+		checkKeyBits(dimSizes);
+		int shift = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			this.sizes[d] = dimSizes.get(d);
+			int bits = getKeyBits(this.sizes[d]);
+			this.shifts[d] = shift;
+			this.masks[d] = (1L << bits) - 1;
+			shift += bits;
+		}
+	}
+
+	/**
+	 * Gets the number of bits of the key for a dimension.
+	 * @param size		Size of the dimension.
+	 * @return int		Bits for a position from 0 to size-1, at least 1.
+	 */
+	private static int getKeyBits(int size) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+	}
+
+	/**
+	 * Checks that a coordinate of the grid fits in the 63 bits of a key.
+	 * @param dimSizes		Size of each dimension.
+	 */
+	static void checkKeyBits(List<Integer> dimSizes) {
+		int bits = 0;
+		for (Integer size : dimSizes) {
+			bits += getKeyBits(size);
+		}
+		if (bits > 63) {
+			int dimensions = dimSizes.size();
+			throw new RuntimeException("Grid size " + dimSizes + " needs " + bits
+					+ " bits for a coordinate, but a sparse grid can only use 63 bits. With " + dimensions
+					+ " dimensions of the same size, each can be at most 2^" + (63 / dimensions) + " cells.");
+		}
+	}
+
+	/**
+	 * Creates the offsets of every neighbor of a cell in the neighborhood from the properties, both as
+	 * coordinates (i.e. {-1,0,1}) and as the difference in key. They are created again only if the
+	 * neighborhood changes. Adding a key offset is only valid if the neighbor is on the grid.
+	 */
+	private void createNeighborOffsets() {
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		if (neighborhood == this.neighborhood) {
+			return;
+		}
+
+		this.neighborOffsets = neighborhood.getOffsets(this.dimensions);
+		this.neighborKeyOffsets = new long[this.neighborOffsets.length];
+		for (int n = 0; n < this.neighborOffsets.length; n++) {
+			long keyOffset = 0;
+			for (int d = 0; d < this.dimensions; d++) {
+				keyOffset += ((long) this.neighborOffsets[n][d]) << this.shifts[d];
+			}
+			this.neighborKeyOffsets[n] = keyOffset;
+		}
+		this.radius = neighborhood.getRadius();
+		this.neighborhood = neighborhood;
+	}
+
+	/**
+	 * The sparse grid counts any neighborhood and boundary itself, around the live cells.
+	 * @param neighborhood	Neighborhood to count.
+	 * @return boolean		Always true.
+	 */
+	@Override
+	protected boolean isCountedByGrid(Neighborhood neighborhood) {
+		return true;
+	}
+
+	/**
+	 * Getter for the number of dimensions of this grid.
+	 * @return int 	The number of dimensions.
+	 */
+	@Override
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * Getter for the number of live cells.
+	 * @return long	Number of live cells.
+	 */
+	@Override
+	public long getLiveCellCount() {
+		return this.liveCells.size();
+	}
+
+	/**
+	 * Getter for the state hash, changed as cells are set or updated.
+	 * The Zobrist key of each cell is from its key, not its index as in the dense grids.
+	 * @return long 	The state hash.
+	 */
+	@Override
+	public long getStateHash() {
+		return this.stateHash;
+	}
+
+	/**
+	 * Converts a coordinate to the key of the cell.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @return key				Key of the cell, or -1 if the coordinate is not on the grid.
+	 */
+	private long getKey(List<Integer> inputCoordinate) {
+		long key = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			int coord = inputCoordinate.get(d);
+			if (coord < 0 || coord >= this.sizes[d]) {
+				return -1;
+			}
+			key |= ((long) coord) << this.shifts[d];
+		}
+		return key;
+	}
+
+	/**
+	 * Converts a coordinate array to the key of the cell.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return key			Key of the cell, or -1 if the coordinate is not on the grid.
+	 */
+	private long getKey(int[] coordinate) {
+		if (coordinate.length != this.dimensions) {
+			return -1;
+		}
+		long key = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			int coord = coordinate[d];
+			if (coord < 0 || coord >= this.sizes[d]) {
+				return -1;
+			}
+			key |= ((long) coord) << this.shifts[d];
+		}
+		return key;
+	}
+
+	/**
+	 * Converts a coordinate array to the key of the cell, after checking it is on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return key			Key of the cell.
+	 */
+	private long getKeyOnGrid(int[] coordinate) {
+		long key = this.getKey(coordinate);
+		if (key < 0) {
+			throw new RuntimeException("Coordinate " + Arrays.toString(coordinate) + " is not on the grid.");
+		}
+		return key;
+	}
+
+	/**
+	 * Converts the index of a cell to its key, after checking it is on the grid.
+	 * @param index			Index of the cell.
+	 * @return key			Key of the cell.
+	 */
+	private long getKeyOnGrid(long index) {
+		// Unsigned, as the cell count of the largest grids does not fit in a signed long
+		if (Long.compareUnsigned(index, this.getUnsignedCellCount()) >= 0) {
+			throw new RuntimeException("Cell index " + index + " is not on the grid.");
+		}
+		return this.getKeyFromIndex(index);
+	}
+
+	/**
+	 * Converts a key back to the coordinate of the cell.
+	 * @param key			Key of the cell.
+	 * @param coordinate	Array to put the coordinate in.
+	 */
+	private void getCoordinateFromKey(long key, int[] coordinate) {
+		for (int d = 0; d < this.dimensions; d++) {
+			coordinate[d] = (int) ((key >>> this.shifts[d]) & this.masks[d]);
+		}
+	}
+
+	/**
+	 * Converts a key to the index of the cell, with the first dimension changing fastest.
+	 * @param key			Key of the cell.
+	 * @return long			Index of the cell.
+	 */
+	private long getIndexFromKey(long key) {
+		long index = 0;
+		long stride = 1;
+		for (int d = 0; d < this.dimensions; d++) {
+			index += ((key >>> this.shifts[d]) & this.masks[d]) * stride;
+			stride *= this.sizes[d];
+		}
+		return index;
+	}
+
+	/**
+	 * Converts the index of a cell to its key.
+	 * @param index			Index of the cell.
+	 * @return long			Key of the cell.
+	 */
+	private long getKeyFromIndex(long index) {
+		long key = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			key |= (index % this.sizes[d]) << this.shifts[d];
+			index /= this.sizes[d];
+		}
+		return key;
+	}
+
+	/**
+	 * Gets the index of every live cell, with the first dimension changing fastest.
+	 * @return long[]		Indices of the live cells, smallest first.
+	 */
+	public long[] getLiveCellIndices() {
+		long[] indices = new long[this.liveCells.size()];
+		int i = 0;
+		for (int slot = 0; slot < this.liveCells.getCapacity(); slot++) {
+			long key = this.liveCells.getKeyAt(slot);
+			if (key != LongHashSet.EMPTY) {
+				indices[i++] = this.getIndexFromKey(key);
+			}
+		}
+		Arrays.sort(indices);
+		return indices;
+	}
+
+	/**
+	 * Copies cell values into a buffer as bits, see Grid.getCellBits.
+	 * Only the live cells are checked, so this is fast for large empty grids.
+	 * @param firstWord 	Position of the first long to copy, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer for the bits.
+	 */
+	@Override
+	public void getCellBits(long firstWord, LongBuffer bits) {
+		// Shifted unsigned, as the cell count of the largest grids does not fit in a signed long
+		long words = Math.min(bits.remaining(), ((this.getUnsignedCellCount() + 63) >>> 6) - firstWord);
+		int start = bits.position();
+		for (int w = 0; w < words; w++) {
+			bits.put(start + w, 0L);
+		}
+
+		for (int slot = 0; slot < this.liveCells.getCapacity(); slot++) {
+			long key = this.liveCells.getKeyAt(slot);
+			if (key == LongHashSet.EMPTY) {
+				continue;
+			}
+			long index = this.getIndexFromKey(key);
+			long word = (index >>> 6) - firstWord;
+			if (word >= 0 && word < words) {
+				int position = start + (int) word;
+				bits.put(position, bits.get(position) | (1L << index));
+			}
+		}
+		bits.position(start + (int) words);
+	}
+
+	/**
+	 * Sets cell values from a buffer of bits, see Grid.setCellBits.
+	 * Only the live cells and the set bits are checked, so this is fast for large empty grids.
+	 * @param firstWord 	Position of the first long to set, i.e. 0 for the first 64 cells.
+	 * @param bits 			Buffer of bits.
+	 */
+	@Override
+	public void setCellBits(long firstWord, LongBuffer bits) {
+		long cellCount = this.getUnsignedCellCount();
+		long words = Math.min(bits.remaining(), ((cellCount + 63) >>> 6) - firstWord);
+
+		// Remove the live cells in the range first, then add the ones with a set bit
+		for (long key : this.liveCells.toSortedArray()) {
+			long word = (this.getIndexFromKey(key) >>> 6) - firstWord;
+			if (word >= 0 && word < words) {
+				this.setLive(key, false);
+			}
+		}
+		for (long w = 0; w < words; w++) {
+			long value = bits.get();
+			for (; value != 0; value &= value - 1) {
+				long index = ((firstWord + w) << 6) + Long.numberOfTrailingZeros(value);
+				if (Long.compareUnsigned(index, cellCount) < 0) {
+					this.setLive(this.getKeyFromIndex(index), true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the cells with the indices to live, see Grid.setLiveCells.
+	 * @param indices 	Indices of the cells to set live.
+	 */
+	@Override
+	public void setLiveCells(long[] indices) {
+		for (long index : indices) {
+			this.setLive(this.getKeyOnGrid(index), true);
+		}
+	}
+
+	/**
+	 * Gets the total number of cells in the grid, from the dimension sizes.
+	 * The largest grids have 2^63 cells, which does not fit in a signed long, so this stops at Long.MAX_VALUE.
+	 * @return long 	The number of cells, at most Long.MAX_VALUE.
+	 */
+	@Override
+	public long getCellCount() {
+		long cellCount = this.getUnsignedCellCount();
+		return (cellCount < 0) ? Long.MAX_VALUE : cellCount;
+	}
+
+	/**
+	 * Gets the exact number of cells in the grid, to compare with Long.compareUnsigned.
+	 * Coordinates fit in 63 bits, so the count is at most 2^63.
+	 * @return long 	The number of cells, unsigned.
+	 */
+	private long getUnsignedCellCount() {
+		long cellCount = 1;
+		for (int size : this.sizes) {
+			cellCount *= size;
+		}
+		return cellCount;
+	}
+
+	/**
+	 * Sets all neighbor values to zero by removing them.
+	 */
+	@Override
+	protected void resetAllNeighborValues() {
+		this.neighborValues.clear();
+	}
+
+	/**
+	 * Cells are not stored as objects in a sparse grid, so this returns a new Cell holding
+	 * a copy of the value and neighbor value at the coordinate. Changing the returned Cell does
+	 * not change the grid.
+	 * @return cell		Copy of the cell, or null if the coordinate is not on the grid.
+	 */
+	@Override
+	public Cell getCellFromCoordinate(List<Integer> inputCoordinate) {
+		long key = this.getKey(inputCoordinate);
+		if (key < 0) {
+			return null;
+		}
+
+		Cell cell = new Cell(this.liveCells.contains(key));
+		cell.neighbors = this.neighborValues.get(key) >>> 1;
+		return cell;
+	}
+
+	/**
+	 * Sets a cell value where cell is at the coordinate.
+	 * @param inputCoordinate	Coordinate of cell.
+	 * @param value				New value for cell.
+	 */
+	@Override
+	public void setCellValue(List<Integer> inputCoordinate, boolean value) {
+		long key = this.getKey(inputCoordinate);
+		if (key < 0) {
+			throw new RuntimeException("Coordinate " + inputCoordinate + " is not on the grid.");
+		}
+
+		this.setLive(key, value);
+	}
+
+	/**
+	 * Gets the value of the cell at the coordinate, see Grid.getCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		return this.liveCells.contains(this.getKeyOnGrid(coordinate));
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate, see Grid.setCellValue.
+	 * @param coordinate	Coordinate of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.setLive(this.getKeyOnGrid(coordinate), value);
+	}
+
+	/**
+	 * Gets the value of the cell with the index, see Grid.getCellValue.
+	 * @param index			Index of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		return this.liveCells.contains(this.getKeyOnGrid(index));
+	}
+
+	/**
+	 * Sets the value of the cell with the index, see Grid.setCellValue.
+	 * @param index			Index of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		this.setLive(this.getKeyOnGrid(index), value);
+	}
+
+	/**
+	 * Sets the value of the cell with the key, and keeps the state hash up to date.
+	 * @param key		Key of the cell.
+	 * @param value		New value for cell.
+	 */
+	private void setLive(long key, boolean value) {
+		boolean changed = value ? this.liveCells.add(key) : this.liveCells.remove(key);
+		if (changed) {
+			this.stateHash ^= StateHash.getKey(key);
+		}
+	}
+
+	/**
+	 * Counts the neighbor values around the live cells. Each live cell adds one to the
+	 * neighbor value of each of its neighbors that is on the grid, and marks itself as live.
+	 * Only cells within the radius of the edge need to check the neighbors are on the grid and the boundary.
+	 */
+	@Override
+	public void updateAllNeighborValues() {
+		this.createNeighborOffsets();
+		int[] coordinate = new int[this.dimensions];
+		for (int slot = 0; slot < this.liveCells.getCapacity(); slot++) {
+			long key = this.liveCells.getKeyAt(slot);
+			if (key == LongHashSet.EMPTY) {
+				continue;
+			}
+
+			this.neighborValues.add(key, 1);
+			this.getCoordinateFromKey(key, coordinate);
+			if (this.isInterior(coordinate)) {
+				for (long keyOffset : this.neighborKeyOffsets) {
+					this.neighborValues.add(key + keyOffset, 2);
+				}
+			} else {
+				this.addEdgeNeighborValues(coordinate);
+			}
+		}
+	}
+
+	/**
+	 * Adds a live cell near the edge of the grid to the neighbor values of the cells around it, and around
+	 * every position past the edges that is the same cell for the boundary.
+	 * @param coordinate	Coordinate of the live cell.
+	 */
+	private void addEdgeNeighborValues(int[] coordinate) {
+		long[][] positions = new long[this.dimensions][];
+		for (int d = 0; d < this.dimensions; d++) {
+			positions[d] = this.neighborhood.getBoundaryPositions(coordinate[d], this.sizes[d]);
+		}
+
+		// Every combination of the positions in each dimension, like an odometer
+		int[] choice = new int[this.dimensions];
+		int d;
+		do {
+			for (int[] offset : this.neighborOffsets) {
+				long key = 0;
+				boolean onGrid = true;
+				for (int i = 0; i < this.dimensions && onGrid; i++) {
+					long coord = positions[i][choice[i]] + offset[i];
+					onGrid = (coord >= 0) && (coord < this.sizes[i]);
+					key |= coord << this.shifts[i];
+				}
+				if (onGrid) {
+					this.neighborValues.add(key, 2);
+				}
+			}
+
+			for (d = 0; d < this.dimensions && ++choice[d] == positions[d].length; d++) {
+				choice[d] = 0;
+			}
+		} while (d < this.dimensions);
+	}
+
+	/**
+	 * Sparse grids are never sub-grids, so there is no higher grid to count from.
+	 * Counts every cell in this grid.
+	 */
+	@Override
+	void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
+		this.updateAllNeighborValues();
+	}
+
+	/**
+	 * Checks if all neighbors of the coordinate are on the grid.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return boolean		True if the cell is not within the radius of the neighborhood from the edge of the grid.
+	 */
+	private boolean isInterior(int[] coordinate) {
+		for (int d = 0; d < this.dimensions; d++) {
+			if (coordinate[d] < this.radius || coordinate[d] >= this.sizes[d] - this.radius) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks each neighbor of the coordinate and adds one to the neighbor value of the cell
+	 * for each live neighbor. Neighbors past the edge are found with the boundary.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @param cell				Cell whose neighbor value is to be updated.
+	 */
+	@Override
+	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
+		this.createNeighborOffsets();
+		long key = this.getKey(inputCoordinate);
+		int[] coordinate = new int[this.dimensions];
+		this.getCoordinateFromKey(key, coordinate);
+
+		int[] neighbor = new int[this.dimensions];
+		for (int[] offset : this.neighborOffsets) {
+			boolean onGrid = true;
+			for (int d = 0; d < this.dimensions && onGrid; d++) {
+				neighbor[d] = this.neighborhood.getBoundaryPosition(coordinate[d] + offset[d], this.sizes[d]);
+				onGrid = (neighbor[d] >= 0);
+			}
+			if (onGrid && this.liveCells.contains(this.getKey(neighbor))) {
+				cell.increaseNeighborValue();
+			}
+		}
+	}
+
+	/**
+	 * Should be called only after updating all neighbor values.
+	 * Every live cell, and every cell with a live neighbor, has a neighbor value. The cells that
+	 * are live based on the game rules become the new live cells.
+	 * @param rules		Game rules compiled for this grid.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		if (rules.isCellLive(false, 0)) {
+			throw new RuntimeException("Sparse grid cannot use dead.live=0, every dead cell would become live.");
+		}
+
+		this.liveCells.clear();
+		for (int slot = 0; slot < this.neighborValues.getCapacity(); slot++) {
+			long key = this.neighborValues.getKeyAt(slot);
+			if (key == LongHashSet.EMPTY) {
+				continue;
+			}
+
+			int value = this.neighborValues.getValueAt(slot);
+			boolean live = rules.isCellLive((value & 1) != 0, value >>> 1);
+			if (live) {
+				this.liveCells.add(key);
+			}
+			if (live != ((value & 1) != 0)) {
+				this.stateHash ^= StateHash.getKey(key);
+			}
+		}
+	}
+
+	/**
+	 * Writes the same display as the Grid1D/GridND tree would for this grid, if the grid has no more
+	 * than MAX_DISPLAY_CELLS cells. Larger grids are shown as the coordinates of the live cells,
+	 * one per line, in the same format as the initial grid file.
+	 * @param writer		Writer for the display.
+	 * @param indices		Not used, sparse grids are never sub-grids.
+	 */
+	@Override
+	void writeDisplay(DisplayWriter writer, List<Integer> indices) throws IOException {
+		if (Long.compareUnsigned(this.getUnsignedCellCount(), MAX_DISPLAY_CELLS) > 0) {
+			this.writeLiveCellDisplay(writer);
+			return;
+		}
+
+		// Small enough to show every cell, use a packed grid to write the same display as the tree
+		PackedGrid packedGrid = new PackedGrid(this.getDimensionSizes());
+		int[] coordinate = new int[this.dimensions];
+		for (long key : this.liveCells.toSortedArray()) {
+			this.getCoordinateFromKey(key, coordinate);
+			packedGrid.setCellValue(coordinate, true);
+		}
+		packedGrid.writeDisplay(writer, indices);
+	}
+
+	/**
+	 * Writes the list of live cell coordinates, in order of the last dimension first.
+	 * @param writer		Writer for the display.
+	 */
+	private void writeLiveCellDisplay(DisplayWriter writer) throws IOException {
+		writer.writeText("Live cells: ");
+		writer.writeNumber(this.liveCells.size());
+		writer.writeSeparator();
+
+		int[] coordinate = new int[this.dimensions];
+		long[] longCoordinate = new long[this.dimensions];
+		for (long key : this.liveCells.toSortedArray()) {
+			this.getCoordinateFromKey(key, coordinate);
+			for (int d = 0; d < this.dimensions; d++) {
+				longCoordinate[d] = coordinate[d];
+			}
+			writer.writeCoordinate(longCoordinate);
+			writer.writeSeparator();
+		}
+	}
+
+	/**
+	 * Getter for the size of each dimension.
+	 * @return List<Integer>	Size of each dimension.
+	 */
+	@Override
+	public List<Integer> getDimensionSizes() {
+		Integer[] sizeList = new Integer[this.dimensions];
+		for (int d = 0; d < this.dimensions; d++) {
+			sizeList[d] = this.sizes[d];
+		}
+		return new ArrayList<>(Arrays.asList(sizeList));
+	}
+
+}
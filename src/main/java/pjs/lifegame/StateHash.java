@@ -0,0 +1,43 @@
+package pjs.lifegame;
+
+/**
+ * <h1>StateHash</h1>
+ * Zobrist keys for hashing the state of a grid. Every cell has a random 64-bit key, and the
+ * hash of a grid is the XOR of the keys of its live cells. When a cell becomes live or dead,
+ * XOR-ing its key into the hash keeps the hash up to date, so it never has to be calculated
+ * from every cell again. An empty grid has a hash of 0.
+ *
+ * Instead of a table of random keys, the key of a cell is made by mixing the cell index
+ * (the SplitMix64 finalizer), so huge grids do not need a key for every cell in memory.
+ * The same index always gives the same key, so grids of the same size that store their
+ * cells by the same index have the same hash for the same cells.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class StateHash {
+
+	private static final long SEED = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Gets the Zobrist key of a cell.
+	 * @param index		Index of the cell.
+	 * @return long		Key of the cell, never 0 for the indices of a grid.
+	 */
+	public static long getKey(long index) {
+		return mix(index * SEED + SEED);
+	}
+
+	/**
+	 * Mixes the bits of a value, so that every bit of the result depends on every bit of the value.
+	 * @param value		Value to mix.
+	 * @return long		Mixed value.
+	 */
+	public static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+}
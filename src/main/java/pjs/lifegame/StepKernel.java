@@ -0,0 +1,106 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+
+/**
+ * <h1>StepKernel</h1>
+ * Advances the cells of a packed or off-heap grid one generation, in place of the scalar loop in BitGrid.
+ * Chosen with the grid.kernel property, which is scalar (the loop in BitGrid) by default.
+ *
+ * The vector kernel (VectorKernel) uses the jdk.incubator.vector module to count the neighbors and
+ * apply the rules for many cells with each instruction. It is compiled from src/vector/java by the
+ * vector Maven profile (Java 17 or later), and only runs when the JVM is started with
+ * --add-modules jdk.incubator.vector. If the class or the module is missing, it is loaded as null and
+ * the scalar loop is used instead, so the same properties work on every JVM.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+abstract class StepKernel {
+
+	/** Kernel name for the scalar loop in BitGrid. */
+	static final String SCALAR_KERNEL = "scalar";
+
+	/** Kernel name for the Vector API kernel. */
+	static final String VECTOR_KERNEL = "vector";
+
+	private static final String VECTOR_KERNEL_CLASS = "pjs.lifegame.VectorKernel";
+
+	/**
+	 * Gets the largest number of dimensions the kernel can advance. Grids with more dimensions use the scalar loop.
+	 * @return int		Number of dimensions.
+	 */
+	abstract int getMaxDimensions();
+
+	/**
+	 * Advances the cells one generation. Cells past the edges of the grid are dead.
+	 * @param cells			Cell values as packed bits, see BitGrid.
+	 * @param nextCells		Buffer the same length as cells, set to the next generation.
+	 * @param sizes			Size of each dimension.
+	 * @param rules			Game rules compiled for the grid.
+	 */
+	abstract void step(LongBuffer cells, LongBuffer nextCells, int[] sizes, RuleTable rules);
+
+	/**
+	 * Creates a kernel for the grid.kernel property.
+	 * @param name			Kernel name, SCALAR_KERNEL or VECTOR_KERNEL.
+	 * @return StepKernel	New kernel, or null for the scalar loop or if the vector kernel cannot be loaded.
+	 */
+	static StepKernel createKernel(String name) {
+		if (SCALAR_KERNEL.equals(name)) {
+			return null;
+		} else if (VECTOR_KERNEL.equals(name)) {
+			return createVectorKernel();
+		}
+		throw new RuntimeException("Grid kernel " + name + " is not valid. Must be one of: " + SCALAR_KERNEL + ", "
+				+ VECTOR_KERNEL);
+	}
+
+	/**
+	 * Checks if the vector kernel can be used on this JVM.
+	 * @return boolean		True if the vector kernel was compiled and the jdk.incubator.vector module is available.
+	 */
+	static boolean isVectorAvailable() {
+		return VectorKernelHolder.KERNEL_CLASS != null;
+	}
+
+	/**
+	 * Creates a vector kernel.
+	 * @return StepKernel	New vector kernel, or null if it is not available.
+	 */
+	private static StepKernel createVectorKernel() {
+		if (VectorKernelHolder.KERNEL_CLASS == null) {
+			return null;
+		}
+		try {
+			return VectorKernelHolder.KERNEL_CLASS.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Loads the vector kernel class the first time it is needed, and only tries once.
+	 */
+	private static class VectorKernelHolder {
+
+		static final Class<? extends StepKernel> KERNEL_CLASS = loadVectorKernelClass();
+
+		/**
+		 * Loads and initializes the vector kernel class. Initializing it creates the vector species,
+		 * which fails if the jdk.incubator.vector module is not available.
+		 * @return Class	Vector kernel class, or null if it is not available.
+		 */
+		private static Class<? extends StepKernel> loadVectorKernelClass() {
+			try {
+				return Class.forName(VECTOR_KERNEL_CLASS, true, StepKernel.class.getClassLoader())
+						.asSubclass(StepKernel.class);
+			} catch (ClassNotFoundException | LinkageError e) {
+				return null;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,654 @@
+package pjs.lifegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h1>TiledGrid</h1>
+ * Dense grid of any number of dimensions for grids larger than memory. The grid is split into tiles,
+ * blocks of cells with the same size in every dimension (i.e. 64x64x64), and the tiles are stored as
+ * packed bits in a memory-mapped file. Only a bounded number of tiles are kept in memory, in a cache
+ * that removes the least recently used tile when it is full, writing it back to the file if any of its
+ * cells were set.
+ *
+ * The file holds two generations, each with every tile in order. Advancing a generation walks the tiles
+ * in the same order, and for each tile copies its cells and the cells around it from the neighboring tiles
+ * into a padded block, counts the neighbors and applies the rules, then writes the next tile straight to
+ * the other generation of the file. Each tile is a neighbor of the tiles just before and after it in this
+ * order, so a cache of getWindowTiles tiles (three layers of tiles in the last dimension) keeps every
+ * neighboring tile in memory, and each tile is read from the file once per generation. The file is only
+ * read and written in order, so a grid can advance at the speed of the disk.
+ *
+ * The file is scratch space for the grid, and is deleted by close.
+ *
+ * Produces exactly the same generations as the Grid1D/GridND tree.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+public class TiledGrid extends DenseGrid implements Closeable {
+
+	// Cells in the tiles of the default size, about 2^18 so a tile is 32 KiB.
+	private static final double DEFAULT_TILE_BITS = 18.0;
+
+	// Most cells in a padded tile, so it fits in a byte[].
+	private static final long MAX_PADDED_CELLS = 1L << 28;
+
+	// Most bytes mapped at a time, a mapped buffer is limited to 2 GiB.
+	private static final long MAX_MAP_BYTES = 1L << 30;
+
+	// Size of a tile in each dimension, and the strides of the cells in a tile
+	private int[] tileSizes;
+	private int[] tileStrides;
+	private int tileCells;
+	private int tileWords;
+
+	// Number of tiles in each dimension, and the strides of the tiles
+	private int[] tileCounts;
+	private long[] tileIndexStrides;
+	private long tileCount;
+
+	// A tile with one cell more on each side, and the offsets of the neighbors in it
+	private int[] paddedSizes;
+	private int[] paddedStrides;
+	private int[] paddedOffsets;
+	private byte[] padded;
+
+	private Map<Long, Tile> cache;
+	private int cacheTiles;
+	private long[] spareBits;
+	private long tileReads = 0;
+
+	private Path file;
+	private FileChannel channel;
+	// Mapped buffers of each generation in the file, and the same buffers as longs
+	private MappedByteBuffer[][] maps;
+	private LongBuffer[][] mapLongs;
+	private int tilesPerMap;
+	private int current = 0;
+
+	/**
+	 * Initializes the grid with all cells dead, creating the file for the tiles.
+	 * @param dimSizes		Size of each dimension, the number of sizes is the number of dimensions.
+	 * @param tileSize		Size of a tile in each dimension, or 0 for tiles of about 2^18 cells.
+	 * @param cacheTiles	Most tiles kept in memory, or 0 for getWindowTiles.
+	 * @param file			File for the tiles, or null for a temporary file. Replaced if it exists.
+	 */
+	public TiledGrid(List<Integer> dimSizes, int tileSize, int cacheTiles, Path file) {
+		super(dimSizes, Long.MAX_VALUE >>> 2, "a tiled grid");
+		this.createTiles(tileSize);
+		this.createPaddedOffsets();
+
+		if (cacheTiles < 0) {
+			throw new RuntimeException("Tile cache size must be at least 1 tile, it was: " + cacheTiles);
+		}
+		this.cacheTiles = (cacheTiles == 0) ? (int) Math.min(this.getWindowTiles(), Integer.MAX_VALUE) : cacheTiles;
+		this.cache = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+				if (this.size() <= TiledGrid.this.cacheTiles) {
+					return false;
+				}
+				TiledGrid.this.removeTile(eldest.getValue());
+				return true;
+			}
+		};
+
+		this.createFile(file);
+	}
+
+	/**
+	 * Calculates the size of the tiles, and the number of tiles in each dimension.
+	 * @param tileSize		Size of a tile in each dimension, or 0 for the default.
+	 */
+	private void createTiles(int tileSize) {
+		if (tileSize < 0) {
+			throw new RuntimeException("Tile size must be at least 1, it was: " + tileSize);
+		}
+		int size = (tileSize == 0) ? (int) Math.pow(2.0, DEFAULT_TILE_BITS / this.dimensions) : tileSize;
+
+		this.tileSizes = new int[this.dimensions];
+		this.tileStrides = new int[this.dimensions];
+		this.tileCounts = new int[this.dimensions];
+		this.tileIndexStrides = new long[this.dimensions];
+		this.paddedSizes = new int[this.dimensions];
+		this.paddedStrides = new int[this.dimensions];
+
+		long cells = 1;
+		long paddedCells = 1;
+		long tiles = 1;
+		for (int d = 0; d < this.dimensions; d++) {
+			this.tileSizes[d] = Math.min(size, this.sizes[d]);
+			this.tileCounts[d] = (this.sizes[d] + this.tileSizes[d] - 1) / this.tileSizes[d];
+			this.paddedSizes[d] = this.tileSizes[d] + 2;
+
+			this.tileStrides[d] = (int) cells;
+			this.paddedStrides[d] = (int) paddedCells;
+			this.tileIndexStrides[d] = tiles;
+			cells *= this.tileSizes[d];
+			paddedCells *= this.paddedSizes[d];
+			tiles *= this.tileCounts[d];
+			if (paddedCells > MAX_PADDED_CELLS) {
+				throw new RuntimeException("Tile size " + size + " is too large for " + this.dimensions
+						+ " dimensions, a tile can have at most " + MAX_PADDED_CELLS + " cells.");
+			}
+		}
+		this.tileCells = (int) cells;
+		this.tileWords = (this.tileCells + 63) >>> 6;
+		this.tileCount = tiles;
+		this.padded = new byte[(int) paddedCells];
+	}
+
+	/**
+	 * Creates the offsets of all 3^N-1 neighbors of a cell in a padded tile.
+	 */
+	private void createPaddedOffsets() {
+		int count = 1;
+		for (int i = 0; i < this.dimensions; i++) {
+			count *= 3;
+		}
+
+		this.paddedOffsets = new int[count-1];
+		int[] offset = new int[this.dimensions];
+		Arrays.fill(offset, -1);
+		int n = 0;
+		for (int i = 0; i < count; i++) {
+			int indexOffset = 0;
+			boolean isSelf = true;
+			for (int d = 0; d < this.dimensions; d++) {
+				indexOffset += offset[d] * this.paddedStrides[d];
+				isSelf &= (offset[d] == 0);
+			}
+			if (!isSelf) {
+				this.paddedOffsets[n++] = indexOffset;
+			}
+
+			// Move to the next offset, like an odometer with digits -1, 0, 1
+			for (int d = 0; d < this.dimensions && ++offset[d] > 1; d++) {
+				offset[d] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Creates the file and maps both generations of tiles, all cells dead.
+	 * @param location		File for the tiles, or null for a temporary file.
+	 */
+	private void createFile(Path location) {
+		long tileBytes = this.tileWords * 8L;
+		this.tilesPerMap = (int) Math.max(1, MAX_MAP_BYTES / tileBytes);
+		long mapBytes = this.tilesPerMap * tileBytes;
+		long generationBytes = this.tileCount * tileBytes;
+		int mapCount = (int) ((this.tileCount + this.tilesPerMap - 1) / this.tilesPerMap);
+
+		try {
+			this.file = (location != null) ? location : Files.createTempFile("lifegame", ".tiles");
+			this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+			this.maps = new MappedByteBuffer[2][mapCount];
+			this.mapLongs = new LongBuffer[2][mapCount];
+			for (int generation = 0; generation < 2; generation++) {
+				for (int m = 0; m < mapCount; m++) {
+					long position = generation * generationBytes + m * mapBytes;
+					this.maps[generation][m] = this.channel.map(FileChannel.MapMode.READ_WRITE, position,
+							Math.min(mapBytes, generationBytes - m * mapBytes));
+					this.mapLongs[generation][m] = this.maps[generation][m].order(ByteOrder.nativeOrder()).asLongBuffer();
+				}
+			}
+		} catch (IOException e) {
+			this.close();
+			throw new RuntimeException("Tile file " + this.file + " could not be created: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Unmaps and deletes the file of the tiles. The grid cannot be used after this.
+	 */
+	@Override
+	public void close() {
+		if (this.channel == null) {
+			return;
+		}
+		this.cache.clear();
+		for (MappedByteBuffer[] generationMaps : this.maps) {
+			for (MappedByteBuffer map : generationMaps) {
+				if (map != null) {
+					OffHeapArena.free(map);
+				}
+			}
+		}
+		this.maps = null;
+		this.mapLongs = null;
+
+		try {
+			this.channel.close();
+			this.channel = null;
+			Files.deleteIfExists(this.file);
+		} catch (IOException e) {
+			throw new RuntimeException("Tile file " + this.file + " could not be deleted: " + e.getMessage(), e);
+		} finally {
+			this.channel = null;
+		}
+	}
+
+	/**
+	 * Checks close has not been called, as the mapped file would no longer be valid.
+	 */
+	private void checkOpen() {
+		if (this.channel == null) {
+			throw new RuntimeException("Tile file of the grid has been closed.");
+		}
+	}
+
+	/**
+	 * Gets the number of tiles that need to be in memory so that each tile is only read once per generation.
+	 * Tiles are advanced in order, and a tile is only a neighbor of tiles at most one tile away in each
+	 * dimension, so it is first read reach tiles (the sum of the tile strides) before it is advanced and last
+	 * used reach tiles after. Between two uses the tiles advanced are at most one layer of tiles in the last
+	 * dimension apart, and touch the tiles up to reach before and after them.
+	 * @return long		Number of tiles, about three layers of tiles, at most the number of tiles in the grid.
+	 */
+	public long getWindowTiles() {
+		long reach = 0;
+		for (long stride : this.tileIndexStrides) {
+			reach += stride;
+		}
+		return Math.min(this.tileCount, 2 * reach + this.tileIndexStrides[this.dimensions-1] + 1);
+	}
+
+	/**
+	 * Getter for the size of a tile in each dimension.
+	 * @return List<Integer>	Size of a tile, the same as the grid in dimensions smaller than a tile.
+	 */
+	public List<Integer> getTileSizes() {
+		return Grid.toList(this.tileSizes);
+	}
+
+	/**
+	 * Getter for the number of tiles in the grid.
+	 * @return long		Number of tiles.
+	 */
+	public long getTileCount() {
+		return this.tileCount;
+	}
+
+	/**
+	 * Getter for the most tiles kept in memory.
+	 * @return int		Size of the tile cache.
+	 */
+	public int getCacheTiles() {
+		return this.cacheTiles;
+	}
+
+	/**
+	 * Getter for the number of tiles read from the file since the grid was created.
+	 * @return long		Number of tiles read.
+	 */
+	public long getTileReads() {
+		return this.tileReads;
+	}
+
+	/**
+	 * Getter for the location of the file of the tiles.
+	 * @return Path		File of the tiles, deleted by close.
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Gets a tile of the current generation from the cache, reading it from the file if it is not there.
+	 * @param tileIndex		Index of the tile.
+	 * @return Tile			Cached tile.
+	 */
+	private Tile getTile(long tileIndex) {
+		Long key = tileIndex;
+		Tile tile = this.cache.get(key);
+		if (tile == null) {
+			long[] bits = (this.spareBits != null) ? this.spareBits : new long[this.tileWords];
+			this.spareBits = null;
+			this.getTileBuffer(this.current, tileIndex).get(bits);
+			this.tileReads++;
+
+			tile = new Tile(tileIndex, bits);
+			this.cache.put(key, tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Called when a tile is removed from the cache. Writes the tile back to the file if it was changed,
+	 * and keeps its array for the next tile read.
+	 * @param tile		Tile removed from the cache.
+	 */
+	private void removeTile(Tile tile) {
+		if (tile.dirty) {
+			this.getTileBuffer(this.current, tile.index).put(tile.bits);
+		}
+		this.spareBits = tile.bits;
+	}
+
+	/**
+	 * Gets the longs of a tile in the file.
+	 * @param generation	0 or 1, the generation of the file.
+	 * @param tileIndex		Index of the tile.
+	 * @return LongBuffer	Buffer of the file, positioned at the first long of the tile.
+	 */
+	private LongBuffer getTileBuffer(int generation, long tileIndex) {
+		LongBuffer buffer = this.mapLongs[generation][(int) (tileIndex / this.tilesPerMap)].duplicate();
+		buffer.position((int) (tileIndex % this.tilesPerMap) * this.tileWords);
+		return buffer;
+	}
+
+	/**
+	 * Gets the value of the cell at the coordinate.
+	 * @param coordinate 	Coordinate of the cell, one value for each dimension.
+	 * @return boolean 		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(int[] coordinate) {
+		this.checkOpen();
+		this.getIndexOnGrid(coordinate);
+		Tile tile = this.getTile(this.getTileIndex(coordinate));
+		int local = this.getLocalIndex(coordinate);
+		return ((tile.bits[local >>> 6] >>> local) & 1L) != 0;
+	}
+
+	/**
+	 * Sets the value of the cell at the coordinate, marking its tile to be written back to the file.
+	 * @param coordinate 	Coordinate of the cell, one value for each dimension.
+	 * @param value 		New value for the cell.
+	 */
+	@Override
+	public void setCellValue(int[] coordinate, boolean value) {
+		this.checkOpen();
+		long index = this.getIndexOnGrid(coordinate);
+		Tile tile = this.getTile(this.getTileIndex(coordinate));
+		int local = this.getLocalIndex(coordinate);
+		boolean live = ((tile.bits[local >>> 6] >>> local) & 1L) != 0;
+		if (live == value) {
+			return;
+		}
+		tile.bits[local >>> 6] ^= (1L << local);
+		tile.dirty = true;
+		this.updateStateHash(index, value);
+	}
+
+	/**
+	 * Gets the value of the cell with the index, see Grid.getCellValue.
+	 * @param index			Index of the cell.
+	 * @return boolean		True if the cell is live.
+	 */
+	@Override
+	public boolean getCellValue(long index) {
+		return this.getCellValue(this.getCoordinateOnGrid(index));
+	}
+
+	/**
+	 * Sets the value of the cell with the index, see Grid.setCellValue.
+	 * @param index			Index of the cell.
+	 * @param value			New value for the cell.
+	 */
+	@Override
+	public void setCellValue(long index, boolean value) {
+		this.setCellValue(this.getCoordinateOnGrid(index), value);
+	}
+
+	/**
+	 * Converts the index of a cell to its coordinate, after checking it is on the grid.
+	 * @param index 		Index of the cell.
+	 * @return int[] 		Coordinate of the cell.
+	 */
+	private int[] getCoordinateOnGrid(long index) {
+		this.getIndexOnGrid(index);
+		int[] coordinate = new int[this.dimensions];
+		for (int d = 0; d < this.dimensions; d++) {
+			coordinate[d] = (int) (index % this.sizes[d]);
+			index /= this.sizes[d];
+		}
+		return coordinate;
+	}
+
+	/**
+	 * Gets the index of the tile that holds a cell.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return long			Index of the tile.
+	 */
+	private long getTileIndex(int[] coordinate) {
+		long tileIndex = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			tileIndex += (coordinate[d] / this.tileSizes[d]) * this.tileIndexStrides[d];
+		}
+		return tileIndex;
+	}
+
+	/**
+	 * Gets the index of a cell in its tile.
+	 * @param coordinate	Coordinate of the cell.
+	 * @return int			Index of the cell in the tile.
+	 */
+	private int getLocalIndex(int[] coordinate) {
+		int local = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			local += (coordinate[d] % this.tileSizes[d]) * this.tileStrides[d];
+		}
+		return local;
+	}
+
+	/**
+	 * Advances the grid one generation, one tile at a time in the order of the file. Each tile is copied
+	 * into the padded block with its neighboring cells, and the next generation of the tile is written
+	 * straight to the other generation of the file. Then the generations of the file are swapped, and the
+	 * cache is emptied as it holds the tiles of the previous generation.
+	 * @param rules		Game rules compiled for this grid.
+	 */
+	@Override
+	void updateAllCellValues(RuleTable rules) {
+		this.checkOpen();
+		int next = 1 - this.current;
+		long[] nextBits = new long[this.tileWords];
+		int[] tileCoordinate = new int[this.dimensions];
+
+		for (long tileIndex = 0; tileIndex < this.tileCount; tileIndex++) {
+			this.fillPadded(tileCoordinate, tileIndex);
+			this.stepTile(tileCoordinate, rules, nextBits);
+
+			long[] bits = this.getTile(tileIndex).bits;
+			for (int word = 0; word < this.tileWords; word++) {
+				this.updateStateHash(tileCoordinate, word, bits[word], nextBits[word]);
+			}
+			this.getTileBuffer(next, tileIndex).put(nextBits);
+
+			// Move to the coordinate of the next tile
+			for (int d = 0; d < this.dimensions && ++tileCoordinate[d] == this.tileCounts[d]; d++) {
+				tileCoordinate[d] = 0;
+			}
+		}
+
+		this.cache.clear();
+		this.current = next;
+	}
+
+	/**
+	 * Copies the cells of a tile into the padded block, with the cells around it from the neighboring
+	 * tiles. Cells that are not on the grid are dead.
+	 * @param tileCoordinate	Coordinate of the tile, in tiles.
+	 * @param tileIndex			Index of the tile.
+	 */
+	private void fillPadded(int[] tileCoordinate, long tileIndex) {
+		int[] row = new int[this.dimensions];
+		int rowSize = this.paddedSizes[0];
+		int firstColumn = tileCoordinate[0] * this.tileSizes[0] - 1;
+
+		do {
+			// Find the tile and the first cell in it of the row, for every dimension after the first
+			int paddedIndex = 0;
+			long rowTileIndex = tileIndex - tileCoordinate[0];
+			int rowLocalIndex = 0;
+			boolean onGrid = true;
+			for (int d = 1; d < this.dimensions; d++) {
+				int coord = tileCoordinate[d] * this.tileSizes[d] + row[d] - 1;
+				paddedIndex += row[d] * this.paddedStrides[d];
+				if (coord < 0 || coord >= this.sizes[d]) {
+					onGrid = false;
+					continue;
+				}
+				rowTileIndex += (coord / this.tileSizes[d] - tileCoordinate[d]) * this.tileIndexStrides[d];
+				rowLocalIndex += (coord % this.tileSizes[d]) * this.tileStrides[d];
+			}
+
+			if (!onGrid) {
+				Arrays.fill(this.padded, paddedIndex, paddedIndex + rowSize, (byte) 0);
+			} else {
+				long[] bits = null;
+				int bitsTile = -1;
+				for (int column = 0; column < rowSize; column++) {
+					int coord = firstColumn + column;
+					if (coord < 0 || coord >= this.sizes[0]) {
+						this.padded[paddedIndex + column] = 0;
+						continue;
+					}
+					int columnTile = coord / this.tileSizes[0];
+					if (columnTile != bitsTile) {
+						bits = this.getTile(rowTileIndex + columnTile).bits;
+						bitsTile = columnTile;
+					}
+					int local = rowLocalIndex + coord % this.tileSizes[0];
+					this.padded[paddedIndex + column] = (byte) ((bits[local >>> 6] >>> local) & 1L);
+				}
+			}
+		} while (nextRow(row));
+	}
+
+	/**
+	 * Moves to the next row of the padded block, like an odometer over every dimension after the first.
+	 * @param row		Coordinate of the row in the padded block, the first value is not used.
+	 * @return boolean	False once every row has been visited.
+	 */
+	private boolean nextRow(int[] row) {
+		for (int d = 1; d < this.dimensions; d++) {
+			if (++row[d] < this.paddedSizes[d]) {
+				return true;
+			}
+			row[d] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the neighbors of every cell of the tile in the padded block and applies the rules.
+	 * @param tileCoordinate	Coordinate of the tile, in tiles.
+	 * @param rules				Game rules compiled for this grid.
+	 * @param nextBits			Array for the next generation of the tile.
+	 */
+	private void stepTile(int[] tileCoordinate, RuleTable rules, long[] nextBits) {
+		Arrays.fill(nextBits, 0L);
+
+		// Cells of tiles on the far edges can be past the end of the grid, and are always dead
+		int[] limits = new int[this.dimensions];
+		int paddedIndex = 0;
+		for (int d = 0; d < this.dimensions; d++) {
+			limits[d] = Math.min(this.tileSizes[d], this.sizes[d] - tileCoordinate[d] * this.tileSizes[d]);
+			paddedIndex += this.paddedStrides[d];
+		}
+
+		int[] local = new int[this.dimensions];
+		for (int index = 0; index < this.tileCells; index++) {
+			boolean onGrid = true;
+			for (int d = 0; d < this.dimensions && onGrid; d++) {
+				onGrid = local[d] < limits[d];
+			}
+			if (onGrid) {
+				int count = 0;
+				for (int offset : this.paddedOffsets) {
+					count += this.padded[paddedIndex + offset];
+				}
+				if (rules.isCellLive(this.padded[paddedIndex] != 0, count)) {
+					nextBits[index >>> 6] |= (1L << index);
+				}
+			}
+
+			// Move to the next cell of the tile, and the same cell of the padded block
+			for (int d = 0; d < this.dimensions; d++) {
+				paddedIndex += this.paddedStrides[d];
+				if (++local[d] < this.tileSizes[d]) {
+					break;
+				}
+				paddedIndex -= this.tileSizes[d] * this.paddedStrides[d];
+				local[d] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Updates the state hash and live cell count for the cells that changed in one long of a tile.
+	 * @param tileCoordinate	Coordinate of the tile, in tiles.
+	 * @param word				Position of the long in the tile.
+	 * @param oldWord			Cell values before the change.
+	 * @param newWord			Cell values after the change.
+	 */
+	private void updateStateHash(int[] tileCoordinate, int word, long oldWord, long newWord) {
+		for (long changed = oldWord ^ newWord; changed != 0; changed &= changed - 1) {
+			int bit = Long.numberOfTrailingZeros(changed);
+			int local = (word << 6) + bit;
+			long index = 0;
+			for (int d = 0; d < this.dimensions; d++) {
+				int coord = tileCoordinate[d] * this.tileSizes[d] + local % this.tileSizes[d];
+				local /= this.tileSizes[d];
+				index += coord * this.strides[d];
+			}
+			this.updateStateHash(index, ((newWord >>> bit) & 1L) != 0);
+		}
+	}
+
+	/**
+	 * Gets the values of up to 8 cells in a row, for the display, from the tiles that hold them.
+	 * @param index		Index of the first cell.
+	 * @param count		Number of cells, from 1 to 8, all in the same row.
+	 * @return int		Cell values, bit 0 is the first cell.
+	 */
+	@Override
+	protected int getBits(long index, int count) {
+		int[] coordinate = this.getCoordinateOnGrid(index);
+		int bits = 0;
+		for (int bit = 0; bit < count; bit++, coordinate[0]++) {
+			if (this.getCellValue(coordinate)) {
+				bits |= (1 << bit);
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Tile of cells in the cache, with the cells as packed bits in the order of the tile.
+	 */
+	private static final class Tile {
+
+		final long index;
+		final long[] bits;
+		// True if a cell was set, so the tile must be written back to the file
+		boolean dirty = false;
+
+		Tile(long index, long[] bits) {
+			this.index = index;
+			this.bits = bits;
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+package pjs.lifegame;
+
+import java.util.List;
+
+/**
+ * <h1>TreeGrid</h1>
+ * Base of the grids in the tree engine, Grid1D and GridND.
+ *
+ * Each grid has a halo of ghost cells (in a Grid1D) or ghost sub-grids (in a GridND) one step past
+ * each end, so every cell on the grid has all of its neighbors and they can be counted without
+ * checking the edges of the grid. The ghosts are not copies, they point to the cells or sub-grids
+ * they are the same as for the boundary property: a shared dead cell or sub-grid, the cell or
+ * sub-grid at the other end (wrap) or the one at the same end (reflect). Because a ghost sub-grid is
+ * a real sub-grid with its own halo, the corners of the halo are right for every boundary.
+ * The halo only has to be set up again when the boundary property changes.
+ *
+ * Positions in the halo are one more than the coordinate, so position 0 is the ghost before
+ * coordinate 0 and position dimSize+1 is the ghost after the last coordinate.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+abstract class TreeGrid extends Grid {
+
+	// Boundary the halo is set up for, new grids start with dead ghosts.
+	private String boundary = Neighborhood.DEAD;
+
+	/**
+	 * @param dSize 	Size of the grid
+	 * 					i.e. How many sub-grids or cells it contains.
+	 */
+	TreeGrid(int dSize) {
+		super(dSize);
+	}
+
+	/**
+	 * Counts the live cells in the block of 3^N cells around a position, including the cell at the position,
+	 * where N is the number of dimensions of this grid.
+	 * @param position	Position in the halo of each dimension, coordinate + 1.
+	 * @return int		Number of live cells.
+	 */
+	abstract int countBlock(int[] position);
+
+	/**
+	 * Counts the neighbors of every cell in this grid, and sets the neighbor value of each cell.
+	 * @param position	Position in the halo of each dimension, the positions above this grid are already set.
+	 * @param master	Master/top-level grid to count the neighbors in.
+	 */
+	abstract void countAllNeighbors(int[] position, TreeGrid master);
+
+	/**
+	 * Points the ghosts at either end of this grid, and of all sub-grids, at the cells or sub-grids for the boundary.
+	 * @param boundary	Neighborhood.DEAD, Neighborhood.WRAP or Neighborhood.REFLECT.
+	 */
+	abstract void setHalo(String boundary);
+
+	/**
+	 * Sets up the halo for the boundary, if it was set up for a different boundary.
+	 * @param boundary	Neighborhood.DEAD, Neighborhood.WRAP or Neighborhood.REFLECT.
+	 */
+	void updateHalo(String boundary) {
+		if (!boundary.equals(this.boundary)) {
+			this.setHalo(boundary);
+			this.boundary = boundary;
+		}
+	}
+
+	/**
+	 * The tree counts the radius 1 Moore neighborhood itself with any boundary, using the halo.
+	 * @param neighborhood	Neighborhood to count.
+	 * @return boolean		True for the radius 1 Moore neighborhood.
+	 */
+	@Override
+	protected boolean isCountedByGrid(Neighborhood neighborhood) {
+		return neighborhood.isMooreRadiusOne(this.getDimensions());
+	}
+
+	/**
+	 * Entry method for the master grid to update all neighbor values.
+	 */
+	@Override
+	public void updateAllNeighborValues() {
+		this.updateHalo(Neighborhood.getNeighborhood().getBoundary());
+		this.countAllNeighbors(new int[this.getDimensions()], this);
+	}
+
+	/**
+	 * Updates the neighbor values of all cells in this grid, counting the neighbors in a higher grid.
+	 * @param coordinate	Coordinate of this grid in the higher grid, for the dimensions above this grid.
+	 * @param grid			Master/top-level grid to count the neighbors in.
+	 */
+	@Override
+	void updateAllNeighborValues(List<Integer> coordinate, Grid grid) {
+		this.countAllNeighbors(getPosition(coordinate), (TreeGrid) grid);
+	}
+
+	/**
+	 * Adds the number of live neighbors of the coordinate to the neighbor value of the cell.
+	 * @param inputCoordinate	Coordinate of the cell.
+	 * @param cell				Cell whose neighbor value is to be updated.
+	 */
+	@Override
+	public void updateNeighborValues(List<Integer> inputCoordinate, Cell cell) {
+		this.updateHalo(Neighborhood.getNeighborhood().getBoundary());
+		int count = this.countBlock(getPosition(inputCoordinate));
+		if (this.getCellFromCoordinate(inputCoordinate).getValue()) {
+			count--;
+		}
+		cell.neighbors += count;
+	}
+
+	/**
+	 * Converts a coordinate to positions in the halo.
+	 * @param coordinate	Coordinate of a cell.
+	 * @return int[]		Position in the halo of each dimension.
+	 */
+	private static int[] getPosition(List<Integer> coordinate) {
+		int[] position = new int[coordinate.size()];
+		for (int d = 0; d < position.length; d++) {
+			position[d] = coordinate.get(d) + 1;
+		}
+		return position;
+	}
+
+}
@@ -6,9 +6,17 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ CellTest.class, Grid1DTest.class, Grid2DTest.class,
-		Grid3DTest.class, GridFactoryTest.class, ParseUtilTest.class,
-		SetupPropertiesTest.class })
+@SuiteClasses({ BatchRunnerTest.class, BoundaryTest.class, CellTest.class,
+		CoordinateTest.class, CycleDetectorTest.class, DisplayWriterTest.class,
+		EnsembleGridTest.class, GameEventsTest.class, GameMetricsTest.class,
+		GenerationPublisherTest.class, Grid1DTest.class, Grid2DTest.class,
+		Grid3DTest.class, GridFactoryTest.class, GridHistoryTest.class,
+		GridLoaderTest.class, GridSnapshotTest.class, HashLifeGridTest.class,
+		IncrementalGridTest.class, LongHashSetTest.class, NeighborhoodTest.class,
+		OffHeapGridTest.class, PackedGridTest.class, ParallelGridTest.class,
+		ParseUtilTest.class, PatternFileTest.class, RuleTableTest.class,
+		SetupPropertiesTest.class, SparseGridTest.class, StepKernelTest.class,
+		TiledGridTest.class })
 public class AllTests {
 	
 	public static void main(String[] args) throws Exception {
@@ -0,0 +1,223 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchRunnerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	private File writeFile(String name, String... lines) throws IOException {
+		File file = new File(this.folder.getRoot(), name);
+		Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+		return file;
+	}
+
+	private File writeRandomGrid(String name, int columns, int rows, long seed) throws IOException {
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>();
+		for (int y = 0; y < rows; y++) {
+			for (int x = 0; x < columns; x++) {
+				if (random.nextInt(3) == 0) {
+					lines.add(x + "," + y);
+				}
+			}
+		}
+		File file = new File(this.folder.getRoot(), name);
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		return file;
+	}
+
+	/**
+	 * Writes four different runs, with different engines, rules and neighborhoods, and a manifest of
+	 * each of them repeated.
+	 */
+	private File writeManifest(int repeats) throws IOException {
+		writeFile("life.properties", "grid.size=24,20", "grid.engine=tree", "generations=60", "stay.live=2,3",
+				"dead.live=3", "cycle.max.period=6");
+		writeFile("highlife.properties", "grid.size=24,20", "grid.engine=packed", "generations=40", "stay.live=2,3",
+				"dead.live=3,6");
+		writeFile("torus.properties", "grid.size=24,20", "grid.engine=incremental", "generations=50", "stay.live=2,3",
+				"dead.live=3", "boundary=wrap");
+		writeFile("diamond.properties", "grid.size=24,20", "grid.engine=sparse", "generations=30", "stay.live=1,2",
+				"dead.live=2", "neighborhood=vonneumann");
+		writeRandomGrid("a.grid", 24, 20, 17);
+		writeRandomGrid("b.grid", 24, 20, 18);
+
+		List<String> lines = new ArrayList<>();
+		lines.add("# Nightly runs");
+		for (int i = 0; i < repeats; i++) {
+			lines.add("life.properties, a.grid");
+			lines.add("highlife.properties,b.grid");
+			lines.add("");
+			lines.add("torus.properties, a.grid");
+			lines.add("  diamond.properties , b.grid");
+		}
+		File manifest = new File(this.folder.getRoot(), "nightly.manifest");
+		Files.write(manifest.toPath(), lines, StandardCharsets.UTF_8);
+		return manifest;
+	}
+
+	@Test
+	public void testSameAsRunningAlone() throws Exception {
+		List<BatchRun> expected = BatchRunner.readManifest(writeManifest(1).toPath());
+		for (BatchRun run : expected) {
+			run.run();
+			assertTrue(run.getError(), run.isSuccessful());
+		}
+
+		int version = SetupProperties.getVersion();
+		List<BatchRun> runs = BatchRunner.readManifest(writeManifest(6).toPath());
+		assertEquals(24, runs.size());
+		new BatchRunner(4).run(runs);
+		for (int i = 0; i < runs.size(); i++) {
+			BatchRun run = runs.get(i);
+			BatchRun alone = expected.get(i % 4);
+			assertTrue(run.getError(), run.isSuccessful());
+			assertEquals(alone.getPropertiesLocation(), run.getPropertiesLocation());
+			assertEquals(run.getPropertiesLocation(), alone.getPopulation(), run.getPopulation());
+			assertEquals(alone.getGenerationsRun(), run.getGenerationsRun());
+		}
+
+		// The runs do not change the shared properties
+		assertEquals(version, SetupProperties.getVersion());
+		assertEquals("3", SetupProperties.getProperty("dead.live"));
+		assertEquals(Neighborhood.MOORE, Neighborhood.getNeighborhood().getType());
+	}
+
+	@Test
+	public void testSameAsSharedProperties() throws Exception {
+		List<BatchRun> runs = BatchRunner.readManifest(writeManifest(1).toPath());
+		new BatchRunner(2).run(runs);
+
+		// The HighLife run, with the shared properties set the same
+		SetupProperties.setProperty("dead.live", "3,6");
+		Grid grid = new GridFactory().getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {24,20}));
+		grid.setLiveCells(new GridLoader(Arrays.asList(new Integer[] {24,20})).read(new File(this.folder.getRoot(), "b.grid").toPath()));
+		grid.advanceGenerations(40, false);
+		assertEquals(grid.getLiveCellCount(), runs.get(1).getPopulation());
+		assertEquals(40, runs.get(1).getGenerations());
+	}
+
+	@Test
+	public void testCycle() throws Exception {
+		// A blinker is found after 2 generations, then advances 1 more to end on generation 99
+		writeFile("blinker.properties", "grid.size=5,5", "generations=99", "stay.live=2,3", "dead.live=3",
+				"cycle.max.period=4");
+		writeFile("blinker.grid", "1,2", "2,2", "3,2");
+		writeFile("blinker.manifest", "blinker.properties,blinker.grid");
+		List<BatchRun> runs = BatchRunner.readManifest(new File(this.folder.getRoot(), "blinker.manifest").toPath());
+		new BatchRunner(1).run(runs);
+		BatchRun run = runs.get(0);
+		assertEquals(3, run.getPopulation());
+		assertEquals(99, run.getGenerations());
+		assertEquals(3, run.getGenerationsRun());
+		assertEquals(2, run.getCycle().getPeriod());
+		assertEquals(0, run.getCycle().getStartGeneration());
+	}
+
+	@Test
+	public void testFailedRun() throws Exception {
+		writeFile("bad.properties", "grid.size=5,5", "stay.live=2,3", "dead.live=3");
+		writeFile("good.properties", "grid.size=5,5", "generations=1", "stay.live=2,3", "dead.live=3");
+		writeFile("blinker.grid", "1,2", "2,2", "3,2");
+		writeFile("runs.manifest", "bad.properties,blinker.grid", "good.properties,missing.grid",
+				"good.properties,blinker.grid");
+		List<BatchRun> runs = BatchRunner.readManifest(new File(this.folder.getRoot(), "runs.manifest").toPath());
+		new BatchRunner(3).run(runs);
+		assertFalse(runs.get(0).isSuccessful());
+		assertTrue(runs.get(0).getError(), runs.get(0).getError().contains("generations"));
+		assertFalse(runs.get(1).isSuccessful());
+		assertTrue(runs.get(1).getError(), runs.get(1).getError().contains("missing.grid"));
+		assertTrue(runs.get(2).isSuccessful());
+		assertEquals(3, runs.get(2).getPopulation());
+	}
+
+	@Test
+	public void testInvalidDimensions() throws Exception {
+		writeFile("flat.properties", "grid.size=5,0", "generations=1", "stay.live=2,3", "dead.live=3");
+		writeFile("large.properties", "grid.size=101,5", "generations=1", "stay.live=2,3", "dead.live=3");
+		writeFile("sparse.properties", "grid.size=101,5", "grid.engine=sparse", "generations=1", "stay.live=2,3",
+				"dead.live=3");
+		writeFile("blinker.grid", "1,2", "2,2", "3,2");
+		writeFile("runs.manifest", "flat.properties,blinker.grid", "large.properties,blinker.grid",
+				"sparse.properties,blinker.grid");
+		List<BatchRun> runs = BatchRunner.readManifest(new File(this.folder.getRoot(), "runs.manifest").toPath());
+		new BatchRunner(1).run(runs);
+		assertTrue(runs.get(0).getError(), runs.get(0).getError().contains("value of: 0"));
+		assertTrue(runs.get(1).getError(), runs.get(1).getError().contains("between 1 and 100"));
+		assertTrue(runs.get(2).getError(), runs.get(2).isSuccessful());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testManifestWithoutGrid() throws Exception {
+		BatchRunner.readManifest(writeFile("bad.manifest", "good.properties").toPath());
+	}
+
+	@Test
+	public void testSummary() throws Exception {
+		writeFile("good.properties", "grid.size=5,5", "generations=1", "stay.live=2,3", "dead.live=3");
+		writeFile("blinker.grid", "1,2", "2,2", "3,2");
+		writeFile("runs.manifest", "good.properties,blinker.grid");
+		List<BatchRun> runs = new ArrayList<>();
+		runs.add(BatchRunner.readManifest(new File(this.folder.getRoot(), "runs.manifest").toPath()).get(0));
+		runs.add(new BatchRun(runs.get(0).getPropertiesLocation(), "say \"hi\".grid"));
+		new BatchRunner(2).run(runs);
+
+		StringWriter csv = new StringWriter();
+		BatchRunner.writeSummary(runs, csv, BatchRunner.getFormat("summary.csv"));
+		String[] lines = csv.toString().split(System.lineSeparator());
+		assertEquals(3, lines.length);
+		assertEquals("properties,grid,status,population,generations,generations_run,wall_time_ms,cycle_period,cycle_start,error", lines[0]);
+		assertTrue(lines[1], lines[1].matches(".*good\\.properties,.*blinker\\.grid,ok,3,1,1,\\d+,,,"));
+		assertTrue(lines[2], lines[2].contains(",\"say \"\"hi\"\".grid\",failed,,,,"));
+
+		StringWriter json = new StringWriter();
+		BatchRunner.writeSummary(runs, json, BatchRunner.getFormat("summary.JSON"));
+		assertTrue(json.toString(), json.toString().matches("(?s)\\[.*\"status\": \"ok\", \"population\": 3, \"generations\": 1, "
+				+ "\"generations_run\": 1, \"wall_time_ms\": \\d+, \"cycle_period\": null, \"cycle_start\": null, \"error\": null\\},.*"
+				+ "\"grid\": \"say \\\\\"hi\\\\\".grid\", \"status\": \"failed\", \"population\": null.*\\]\\s*"));
+	}
+
+	@Test
+	public void testRunWithRestoresProperties() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("dead.live", "1");
+		String inner = SetupProperties.runWith(props, "test", new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				SetupProperties.setProperty("stay.live", "8");
+				return SetupProperties.getProperty("dead.live") + "/" + SetupProperties.getProperty("stay.live");
+			}
+		});
+		assertEquals("1/8", inner);
+		assertEquals("8", props.getProperty("stay.live"));
+		assertEquals("3", SetupProperties.getProperty("dead.live"));
+		assertEquals("2,3", SetupProperties.getProperty("stay.live"));
+	}
+
+}
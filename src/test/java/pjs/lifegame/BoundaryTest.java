@@ -0,0 +1,268 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundaryTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SetupProperties.setProperty("boundary", Neighborhood.DEAD);
+		SetupProperties.setProperty("neighborhood", Neighborhood.MOORE);
+		SetupProperties.setProperty("neighborhood.radius", "1");
+	}
+
+	/**
+	 * Counts the neighbors of a cell by checking every offset in the box around it, mapped through the boundary.
+	 */
+	private static int countNeighbors(long[] bits, int[] sizes, int index, Neighborhood neighborhood) {
+		int radius = neighborhood.getRadius();
+		int[] coordinate = new int[sizes.length];
+		int rest = index;
+		for (int d = 0; d < sizes.length; d++) {
+			coordinate[d] = rest % sizes[d];
+			rest /= sizes[d];
+		}
+		int width = 2 * radius + 1;
+		int offsets = (int) Math.pow(width, sizes.length);
+		int count = 0;
+		for (int o = 0; o < offsets; o++) {
+			int other = 0;
+			int stride = 1;
+			int distance = 0;
+			int max = 0;
+			boolean onGrid = true;
+			int restOffset = o;
+			for (int d = 0; d < sizes.length; d++) {
+				int offset = restOffset % width - radius;
+				restOffset /= width;
+				distance += Math.abs(offset);
+				max = Math.max(max, Math.abs(offset));
+				int position = neighborhood.getBoundaryPosition(coordinate[d] + offset, sizes[d]);
+				if (position < 0) {
+					onGrid = false;
+				}
+				other += position * stride;
+				stride *= sizes[d];
+			}
+			boolean inNeighborhood = Neighborhood.MOORE.equals(neighborhood.getType()) ? max <= radius : distance <= radius;
+			if (onGrid && (distance != 0) && inNeighborhood && ((bits[other >>> 6] >>> other) & 1L) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Advances a generation of the cell bits by counting the neighbors of every cell.
+	 */
+	private static long[] advance(long[] bits, int[] sizes, int cellCount) {
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		RuleTable rules = GameRules.getRules(sizes.length);
+		long[] nextBits = new long[bits.length];
+		for (int index = 0; index < cellCount; index++) {
+			boolean value = ((bits[index >>> 6] >>> index) & 1L) != 0;
+			if (rules.isCellLive(value, countNeighbors(bits, sizes, index, neighborhood))) {
+				nextBits[index >>> 6] |= 1L << index;
+			}
+		}
+		return nextBits;
+	}
+
+	private static List<Integer> toList(int[] sizes) {
+		List<Integer> dimSizes = new ArrayList<>();
+		for (int size : sizes) {
+			dimSizes.add(size);
+		}
+		return dimSizes;
+	}
+
+	@Test
+	public void testBoundaryPosition() {
+		Neighborhood dead = new Neighborhood(Neighborhood.MOORE, 1, Neighborhood.DEAD);
+		Neighborhood wrap = new Neighborhood(Neighborhood.MOORE, 1, Neighborhood.WRAP);
+		Neighborhood reflect = new Neighborhood(Neighborhood.MOORE, 1, Neighborhood.REFLECT);
+		assertEquals(3, dead.getBoundaryPosition(3, 5));
+		assertEquals(-1, dead.getBoundaryPosition(-1, 5));
+		assertEquals(-1, dead.getBoundaryPosition(5, 5));
+		assertEquals(4, wrap.getBoundaryPosition(-1, 5));
+		assertEquals(0, wrap.getBoundaryPosition(5, 5));
+		assertEquals(1, wrap.getBoundaryPosition(-7, 4));
+		assertEquals(0, reflect.getBoundaryPosition(-1, 5));
+		assertEquals(4, reflect.getBoundaryPosition(5, 5));
+		assertEquals(1, reflect.getBoundaryPosition(-2, 5));
+		assertEquals(0, reflect.getBoundaryPosition(3, 1));
+	}
+
+	@Test
+	public void testBoundaryPositions() {
+		Neighborhood dead = new Neighborhood(Neighborhood.MOORE, 2, Neighborhood.DEAD);
+		Neighborhood wrap = new Neighborhood(Neighborhood.MOORE, 2, Neighborhood.WRAP);
+		Neighborhood reflect = new Neighborhood(Neighborhood.MOORE, 2, Neighborhood.REFLECT);
+		assertArrayEquals(new long[] {0}, dead.getBoundaryPositions(0, 5));
+		assertArrayEquals(new long[] {2}, wrap.getBoundaryPositions(2, 5));
+		assertArrayEquals(new long[] {0, 5}, wrap.getBoundaryPositions(0, 5));
+		assertArrayEquals(new long[] {-1, 4}, wrap.getBoundaryPositions(4, 5));
+		assertArrayEquals(new long[] {-2, 0, 2}, wrap.getBoundaryPositions(0, 2));
+		assertArrayEquals(new long[] {0, -1}, reflect.getBoundaryPositions(0, 5));
+		assertArrayEquals(new long[] {4, 5}, reflect.getBoundaryPositions(4, 5));
+		assertArrayEquals(new long[] {1, -2}, reflect.getBoundaryPositions(1, 5));
+		assertArrayEquals(new long[] {-2, 0, 2, -1, 1}, reflect.getBoundaryPositions(0, 1));
+
+		// Every position from -radius to size-1+radius is found once, from the position on the grid
+		for (Neighborhood neighborhood : new Neighborhood[] {wrap, reflect}) {
+			for (int size = 1; size <= 6; size++) {
+				int found = 0;
+				for (int position = 0; position < size; position++) {
+					for (long p : neighborhood.getBoundaryPositions(position, size)) {
+						assertEquals(neighborhood + " " + size, position, neighborhood.getBoundaryPosition((int) p, size));
+						found++;
+					}
+				}
+				assertEquals(neighborhood + " " + size, size + 4, found);
+			}
+		}
+	}
+
+	@Test
+	public void testSparseGliderOnLargeTorus() {
+		// A glider crossing the corner of a torus of 2^40 cells is the same as one in the middle, moved along
+		SetupProperties.setProperty("boundary", Neighborhood.WRAP);
+		int size = 1 << 20;
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {size, size});
+		int[][] glider = {{1,0}, {2,1}, {0,2}, {1,2}, {2,2}};
+		Grid corner = factory.getGrid(GridFactory.SPARSE_ENGINE, dimSizes);
+		Grid middle = factory.getGrid(GridFactory.SPARSE_ENGINE, dimSizes);
+		for (int[] cell : glider) {
+			corner.setCellValue(new int[] {(cell[0] + size - 10) % size, (cell[1] + size - 10) % size}, true);
+			middle.setCellValue(new int[] {cell[0] + 1000, cell[1] + 1000}, true);
+		}
+		corner.advanceGenerations(80, false);
+		middle.advanceGenerations(80, false);
+
+		assertEquals(5, corner.getLiveCellCount());
+		int[] coordinate = new int[2];
+		for (long index : ((SparseGrid) middle).getLiveCellIndices()) {
+			middle.getCoordinate(index, coordinate);
+			assertTrue(Arrays.toString(coordinate), corner.getCellValue(new int[] {
+					(coordinate[0] - 1010 + size) % size, (coordinate[1] - 1010 + size) % size}));
+		}
+	}
+
+	@Test
+	public void testEveryEngineSameAsCheckingEveryCell() {
+		String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+				GridFactory.INCREMENTAL_ENGINE, GridFactory.OFFHEAP_ENGINE, GridFactory.TILED_ENGINE};
+		int[][] gridSizes = {{17}, {9,7}, {2,5}, {5,4,3}, {3,2,3,2}};
+		String[][] neighborhoods = {{Neighborhood.MOORE, "1"}, {Neighborhood.MOORE, "2"}, {Neighborhood.VON_NEUMANN, "1"}};
+		Random random = new Random(2018);
+		for (String boundary : new String[] {Neighborhood.DEAD, Neighborhood.WRAP, Neighborhood.REFLECT}) {
+			SetupProperties.setProperty("boundary", boundary);
+			for (String[] type : neighborhoods) {
+				SetupProperties.setProperty("neighborhood", type[0]);
+				SetupProperties.setProperty("neighborhood.radius", type[1]);
+				for (int[] sizes : gridSizes) {
+					List<Integer> dimSizes = toList(sizes);
+					List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+					SetupProperties.setProperty("stay.live", sizes.length == 1 ? "1,2" : "2,3");
+					SetupProperties.setProperty("dead.live", sizes.length == 1 ? "1" : "3");
+
+					Grid expected = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+					expected.setCellValues(liveCells, true);
+					int cellCount = (int) expected.getCellCount();
+					long[] bits = new long[(cellCount + 63) / 64];
+					expected.getCellBits(0, java.nio.LongBuffer.wrap(bits));
+					for (int generation = 0; generation < 3; generation++) {
+						bits = advance(bits, sizes, cellCount);
+					}
+					expected.setCellBits(0, java.nio.LongBuffer.wrap(bits));
+
+					for (String engine : engines) {
+						for (int threads = 1; threads <= 2; threads++) {
+							Grid grid = factory.getGrid(engine, dimSizes);
+							grid.setThreads(threads);
+							grid.setCellValues(liveCells, true);
+							grid.advanceGenerations(3, false);
+							String message = engine + " " + threads + " " + Arrays.toString(sizes) + " "
+									+ Neighborhood.getNeighborhood();
+							assertEquals(message, expected.getDisplay(), grid.getDisplay());
+							assertEquals(message, expected.getLiveCellCount(), grid.getLiveCellCount());
+							GridFactory.release(grid);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testGliderOnTorus() {
+		SetupProperties.setProperty("boundary", Neighborhood.WRAP);
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {8,6});
+		List<List<Integer>> glider = Arrays.asList(Arrays.asList(new Integer[] {1,0}), Arrays.asList(new Integer[] {2,1}),
+				Arrays.asList(new Integer[] {0,2}), Arrays.asList(new Integer[] {1,2}), Arrays.asList(new Integer[] {2,2}));
+		for (String engine : new String[] {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE}) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			grid.setCellValues(glider, true);
+			String start = grid.getDisplay();
+			// The glider moves one cell diagonally every 4 generations, so it is back after 4 * 24 generations
+			for (int generation = 1; generation <= 96; generation++) {
+				grid.advanceGeneration();
+				assertEquals(engine + " generation " + generation, 5, grid.getLiveCellCount());
+			}
+			assertEquals(engine, start, grid.getDisplay());
+		}
+	}
+
+	@Test
+	public void testChangeBoundaryBetweenGenerations() {
+		// The halo of the tree grid is set up again when the boundary changes
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {5,5});
+		List<List<Integer>> blinker = Arrays.asList(Arrays.asList(new Integer[] {0,1}), Arrays.asList(new Integer[] {0,2}),
+				Arrays.asList(new Integer[] {0,3}));
+		Grid grid = factory.getGrid(dimSizes);
+		grid.setCellValues(blinker, true);
+		SetupProperties.setProperty("boundary", Neighborhood.REFLECT);
+		grid.advanceGeneration();
+		SetupProperties.setProperty("boundary", Neighborhood.DEAD);
+		grid.advanceGeneration();
+		Grid expected = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		expected.setCellValues(blinker, true);
+		SetupProperties.setProperty("boundary", Neighborhood.REFLECT);
+		expected.advanceGeneration();
+		SetupProperties.setProperty("boundary", Neighborhood.DEAD);
+		expected.advanceGeneration();
+		assertEquals(expected.getDisplay(), grid.getDisplay());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testHashLifeOnlyDeadBoundary() {
+		SetupProperties.setProperty("boundary", Neighborhood.WRAP);
+		Grid grid = factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {8,8}));
+		grid.advanceGeneration();
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testInvalidBoundary() {
+		SetupProperties.setProperty("boundary", "klein");
+		Neighborhood.getNeighborhood();
+	}
+
+}
@@ -0,0 +1,138 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoordinateTest {
+
+	static GridFactory factory = new GridFactory();
+
+	static String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+			GridFactory.INCREMENTAL_ENGINE};
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test
+	public void testIndexAndCoordinate() {
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, Arrays.asList(new Integer[] {4,3,2}));
+			assertEquals(engine, 9, grid.getIndex(new int[] {1,2,0}));
+			assertEquals(engine, 21, grid.getIndex(new int[] {1,2,1}));
+			assertEquals(engine, -1, grid.getIndex(new int[] {4,0,0}));
+			assertEquals(engine, -1, grid.getIndex(new int[] {0,-1,0}));
+			assertEquals(engine, -1, grid.getIndex(new int[] {0,0}));
+
+			int[] coordinate = new int[3];
+			for (long index = 0; index < 24; index++) {
+				grid.getCoordinate(index, coordinate);
+				assertEquals(engine, index, grid.getIndex(coordinate));
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsListCoordinates() {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {7,5,3});
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			Random random = new Random(16);
+			int[] coordinate = new int[3];
+			for (int i = 0; i < 40; i++) {
+				coordinate[0] = random.nextInt(7);
+				coordinate[1] = random.nextInt(5);
+				coordinate[2] = random.nextInt(3);
+				boolean value = random.nextBoolean();
+				grid.setCellValue(coordinate, value);
+				List<Integer> listCoordinate = Arrays.asList(new Integer[] {coordinate[0], coordinate[1], coordinate[2]});
+				assertEquals(engine, value, grid.getCellFromCoordinate(listCoordinate).getValue());
+				assertEquals(engine, value, grid.getCellValue(coordinate));
+				assertEquals(engine, value, grid.getCellValue(grid.getIndex(coordinate)));
+			}
+
+			Grid expected = factory.getGrid(engine, dimSizes);
+			for (long index = 0; index < 105; index++) {
+				expected.setCellValue(index, grid.getCellValue(index));
+			}
+			assertEquals(engine, grid.getDisplay(), expected.getDisplay());
+			assertEquals(engine, grid.getLiveCellCount(), expected.getLiveCellCount());
+		}
+	}
+
+	@Test
+	public void testSetCellValues() {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {6,6});
+		int[][] glider = {{1,0}, {2,1}, {0,2}, {1,2}, {2,2}};
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			grid.setCellValues(glider, true);
+			assertEquals(engine, 5, grid.getLiveCellCount());
+
+			Grid expected = factory.getGrid(engine, dimSizes);
+			expected.setCellValues(new long[] {1, 8, 12, 13, 14}, true);
+			assertEquals(engine, expected.getDisplay(), grid.getDisplay());
+
+			// Both grids advance the same, including the neighbor values kept by the incremental grid
+			grid.advanceGenerations(4, false);
+			expected.advanceGenerations(4, false);
+			assertEquals(engine, expected.getDisplay(), grid.getDisplay());
+			assertTrue(engine, grid.getCellValue(new int[] {2,1}));
+
+			grid.setCellValues(new long[] {8, 15, 19, 20, 21}, false);
+			assertEquals(engine, 0, grid.getLiveCellCount());
+		}
+	}
+
+	@Test
+	public void testHashLife() {
+		Grid grid = factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {20,10}));
+		grid.setCellValue(new int[] {19,9}, true);
+		grid.setCellValue(45L, true);
+		assertTrue(grid.getCellValue(new int[] {5,2}));
+		assertTrue(grid.getCellValue(199L));
+		assertFalse(grid.getCellValue(new int[] {0,0}));
+		assertEquals(2, grid.getLiveCellCount());
+	}
+
+	@Test
+	public void testCoordinateNotOnGrid() {
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, Arrays.asList(new Integer[] {4,3}));
+			int[][] coordinates = {{4,0}, {0,3}, {-1,0}, {0,-1}};
+			for (int[] coordinate : coordinates) {
+				try {
+					grid.setCellValue(coordinate, true);
+					fail(engine + " " + Arrays.toString(coordinate));
+				} catch (RuntimeException e) {
+					// Expected
+				}
+				try {
+					grid.getCellValue(coordinate);
+					fail(engine + " " + Arrays.toString(coordinate));
+				} catch (RuntimeException e) {
+					// Expected
+				}
+			}
+			for (long index : new long[] {-1, 12, Long.MAX_VALUE}) {
+				try {
+					grid.setCellValue(index, true);
+					fail(engine + " " + index);
+				} catch (RuntimeException e) {
+					// Expected
+				}
+			}
+			assertEquals(engine, 0, grid.getLiveCellCount());
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CycleDetectorTest {
+
+	static GridFactory factory = new GridFactory();
+
+	static String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+			GridFactory.INCREMENTAL_ENGINE, GridFactory.HASHLIFE_ENGINE};
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	private static Grid createGrid(String engine, int[][] liveCells) {
+		Grid grid = factory.getGrid(engine, Arrays.asList(new Integer[] {7,7}));
+		for (int[] cell : liveCells) {
+			grid.setCellValue(Arrays.asList(new Integer[] {cell[0], cell[1]}), true);
+		}
+		return grid;
+	}
+
+	@Test
+	public void testBlinkerIsOscillator() {
+		int[][] blinker = {{2,3},{3,3},{4,3}};
+		for (String engine : engines) {
+			Grid grid = createGrid(engine, blinker);
+			Cycle cycle = grid.advanceGenerations(101, false, 10);
+
+			assertNotNull(engine, cycle);
+			assertEquals(engine, 0, cycle.getStartGeneration());
+			assertEquals(engine, 2, cycle.getPeriod());
+			assertFalse(engine, cycle.isStillLife());
+
+			// Stopped early, but ends in the same state as after all 101 generations
+			Grid expected = createGrid(engine, blinker);
+			expected.advanceGenerations(101, false);
+			assertEquals(engine, expected.getDisplay(), grid.getDisplay());
+		}
+	}
+
+	@Test
+	public void testCatchUpGenerationsAreCounted() {
+		int[][] blinker = {{2,3},{3,3},{4,3}};
+		for (String engine : engines) {
+			Grid grid = createGrid(engine, blinker);
+			grid.setGeneration(5);
+			GridHistory history = new GridHistory(grid, 4, 20);
+			grid.addGenerationListener(history);
+			Cycle cycle = grid.advanceGenerations(11, false, 4);
+
+			// Found at generation 2, then one more generation to be in step with generation 11
+			assertEquals(engine, 2, cycle.getFoundGeneration());
+			assertEquals(engine, 16, grid.getGeneration());
+			assertEquals(engine, 8, history.getLastGeneration());
+
+			Grid expected = createGrid(engine, blinker);
+			history.seek(history.getLastGeneration(), expected);
+			assertEquals(engine, grid.getDisplay(), expected.getDisplay());
+		}
+	}
+
+	@Test
+	public void testBlockIsStillLife() {
+		// The extra cell dies in the first generation, leaving the block
+		int[][] block = {{2,2},{3,2},{2,3},{3,3},{6,6}};
+		for (String engine : engines) {
+			Cycle cycle = createGrid(engine, block).advanceGenerations(50, false, 10);
+			assertEquals(engine, 1, cycle.getStartGeneration());
+			assertEquals(engine, 1, cycle.getPeriod());
+			assertTrue(engine, cycle.isStillLife());
+		}
+	}
+
+	@Test
+	public void testDiesOut() {
+		int[][] pair = {{1,1},{2,1}};
+		for (String engine : engines) {
+			Cycle cycle = createGrid(engine, pair).advanceGenerations(50, false, 10);
+			assertTrue(engine, cycle.isExtinct());
+			assertEquals(engine, 1, cycle.getStartGeneration());
+			assertEquals(engine, 1, cycle.getFoundGeneration());
+		}
+	}
+
+	@Test
+	public void testPeriodLongerThanMaximumIsNotFound() {
+		int[][] blinker = {{2,3},{3,3},{4,3}};
+		Grid grid = createGrid(GridFactory.PACKED_ENGINE, blinker);
+		assertNull(grid.advanceGenerations(20, false, 1));
+		assertNull(grid.advanceGenerations(20, false, 0));
+	}
+
+	@Test
+	public void testStateHashMatchesCells() {
+		Random random = new Random(2018);
+		List<List<Integer>> gridSizes = new ArrayList<>();
+		gridSizes.add(Arrays.asList(new Integer[] {20}));
+		gridSizes.add(Arrays.asList(new Integer[] {12,10}));
+		gridSizes.add(Arrays.asList(new Integer[] {6,5,4}));
+
+		for (List<Integer> dimSizes : gridSizes) {
+			Grid treeGrid = factory.getGrid(GridFactory.TREE_ENGINE, dimSizes);
+			Grid packedGrid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+			Grid incrementalGrid = factory.getGrid(GridFactory.INCREMENTAL_ENGINE, dimSizes);
+
+			List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+			treeGrid.setCellValues(liveCells, true);
+			packedGrid.setCellValues(liveCells, true);
+			incrementalGrid.setCellValues(liveCells, true);
+
+			for (int i = 0; i < 5; i++) {
+				// Same index for each cell, so the same hash
+				assertEquals(treeGrid.getStateHash(), packedGrid.getStateHash());
+				assertEquals(treeGrid.getStateHash(), incrementalGrid.getStateHash());
+				assertEquals(treeGrid.getLiveCellCount(), packedGrid.getLiveCellCount());
+				assertEquals(treeGrid.getLiveCellCount(), incrementalGrid.getLiveCellCount());
+
+				// Kept up to date, so the same as setting the cells on a new grid
+				Grid newGrid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+				newGrid.setCellValues(getLiveCoordinates(treeGrid, dimSizes), true);
+				assertEquals(newGrid.getStateHash(), treeGrid.getStateHash());
+
+				treeGrid.advanceGeneration();
+				packedGrid.advanceGeneration();
+				incrementalGrid.advanceGeneration();
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyGridHashIsZero() {
+		for (String engine : engines) {
+			Grid grid = createGrid(engine, new int[][] {{1,1},{4,5}});
+			assertNotEquals(engine, 0, grid.getStateHash());
+			grid.setCellValue(Arrays.asList(new Integer[] {1,1}), false);
+			grid.setCellValue(Arrays.asList(new Integer[] {4,5}), false);
+			assertEquals(engine, 0, grid.getStateHash());
+			assertEquals(engine, 0, grid.getLiveCellCount());
+		}
+	}
+
+	private static List<List<Integer>> getLiveCoordinates(Grid grid, List<Integer> dimSizes) {
+		List<List<Integer>> liveCells = new ArrayList<>();
+		for (List<Integer> coordinate : PackedGridTest.getRandomCoordinates(new Random(), dimSizes, 1.0)) {
+			if (grid.getCellFromCoordinate(coordinate).getValue()) {
+				liveCells.add(coordinate);
+			}
+		}
+		return liveCells;
+	}
+
+}
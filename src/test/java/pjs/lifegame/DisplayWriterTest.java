@@ -0,0 +1,118 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DisplayWriterTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test
+	public void testWriteCellsAndNumbers() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DisplayWriter writer = new DisplayWriter(bytes);
+		writer.writeCells(0x05, 3);
+		writer.writeCell(true);
+		writer.writeText(" ");
+		writer.writeNumber(0);
+		writer.writeText(" ");
+		writer.writeNumber(-1207);
+		writer.writeText(" ");
+		writer.writeCoordinate(new long[] {3, 40, Long.MAX_VALUE});
+		writer.writeSeparator();
+		writer.writeSliceHeader(new int[] {1, 0});
+		writer.flush();
+
+		String sep = System.lineSeparator();
+		assertEquals(" O - O O 0 -1207 3,40," + Long.MAX_VALUE + sep + "( , , 1, 0 )" + sep, bytes.toString());
+	}
+
+	/**
+	 * Writes the display of a grid of each engine, and checks it is the display the Grid1D/GridND tree
+	 * showed before the display was streamed, i.e. "( , , 1, 0 )" before the slice with z=1 and w=0.
+	 */
+	private static void checkDisplay(List<Integer> dimSizes, int[][] liveCells, String expected) throws IOException {
+		String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+				GridFactory.INCREMENTAL_ENGINE, GridFactory.OFFHEAP_ENGINE, GridFactory.TILED_ENGINE};
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			try {
+				for (int[] cell : liveCells) {
+					grid.setCellValue(cell, true);
+				}
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				grid.writeDisplay(bytes);
+				assertEquals(engine + " " + dimSizes, expected, bytes.toString());
+				assertEquals(engine + " " + dimSizes, expected, grid.getDisplay());
+			} finally {
+				GridFactory.release(grid);
+			}
+		}
+	}
+
+	@Test
+	public void testStreamedDisplayMatchesTree() throws IOException {
+		String sep = System.lineSeparator();
+		checkDisplay(Arrays.asList(new Integer[] {10}), new int[][] {{0},{3},{9}},
+				" O - - O - - - - - O" + sep);
+		checkDisplay(Arrays.asList(new Integer[] {5,3}), new int[][] {{0,0},{4,0},{2,1},{1,2}},
+				" O - - - O" + sep
+				+ " - - O - -" + sep
+				+ " - O - - -" + sep);
+		checkDisplay(Arrays.asList(new Integer[] {3,2,2}), new int[][] {{0,0,0},{2,1,0},{1,0,1}},
+				"( , , 0 )" + sep + " O - -" + sep + " - - O" + sep + sep
+				+ "( , , 1 )" + sep + " - O -" + sep + " - - -" + sep + sep);
+		checkDisplay(Arrays.asList(new Integer[] {2,2,2,2}), new int[][] {{0,0,0,0},{1,1,1,0},{0,1,0,1},{1,0,1,1}},
+				"( , , 0, 0 )" + sep + " O -" + sep + " - -" + sep + sep
+				+ "( , , 1, 0 )" + sep + " - -" + sep + " - O" + sep + sep
+				+ "( , , 0, 1 )" + sep + " - -" + sep + " O -" + sep + sep
+				+ "( , , 1, 1 )" + sep + " - O" + sep + " - -" + sep + sep);
+	}
+
+	@Test
+	public void testDisplayLargerThanBuffer() throws IOException {
+		String sep = System.lineSeparator();
+		StringBuilder deadRow = new StringBuilder();
+		for (int x = 0; x < 100; x++) {
+			deadRow.append(" -");
+		}
+
+		// Every cell dead except the last one
+		StringBuilder expected = new StringBuilder();
+		for (int z = 0; z < 5; z++) {
+			expected.append("( , , " + z + " )" + sep);
+			for (int y = 0; y < 100; y++) {
+				expected.append((z == 4 && y == 99) ? deadRow.substring(0, 198) + " O" : deadRow).append(sep);
+			}
+			expected.append(sep);
+		}
+		checkDisplay(Arrays.asList(new Integer[] {100,100,5}), new int[][] {{99,99,4}}, expected.toString());
+	}
+
+	@Test
+	public void testLiveCellListDisplay() throws IOException {
+		Grid grid = factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {2000,2000}));
+		grid.setCellValue(Arrays.asList(new Integer[] {1500,3}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {7,1999}), true);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		grid.writeDisplay(bytes);
+		String sep = System.lineSeparator();
+		assertEquals("Live cells: 2" + sep + "1500,3" + sep + "7,1999" + sep, bytes.toString());
+	}
+
+}
@@ -0,0 +1,138 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EnsembleGridTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SetupProperties.setProperty("boundary", Neighborhood.DEAD);
+		SetupProperties.setProperty("neighborhood", Neighborhood.MOORE);
+		SetupProperties.setProperty("neighborhood.radius", "1");
+	}
+
+	/**
+	 * Fills every universe at random, advances the ensemble, and checks each universe against a packed grid
+	 * with the same initial cells advanced on its own.
+	 */
+	private static void checkUniverses(List<Integer> sizes, int generations) {
+		EnsembleGrid ensemble = new EnsembleGrid(sizes);
+		Grid[] grids = new Grid[EnsembleGrid.UNIVERSES];
+		for (int u = 0; u < EnsembleGrid.UNIVERSES; u++) {
+			ensemble.setRandomCells(u, new Random(u), 0.1 + 0.8 * u / EnsembleGrid.UNIVERSES);
+			grids[u] = ensemble.getUniverse(u, GridFactory.PACKED_ENGINE);
+		}
+
+		ensemble.advanceGenerations(generations);
+		long[] liveCells = ensemble.getLiveCellCounts();
+		for (int u = 0; u < EnsembleGrid.UNIVERSES; u++) {
+			for (int g = 0; g < generations; g++) {
+				grids[u].advanceGeneration();
+			}
+			Grid result = ensemble.getUniverse(u, GridFactory.PACKED_ENGINE);
+			assertArrayEquals("universe " + u, PackedGridTest.getBits(grids[u]), PackedGridTest.getBits(result));
+			assertEquals("universe " + u, grids[u].getLiveCellCount(), liveCells[u]);
+			assertEquals("universe " + u, grids[u].getLiveCellCount(), ensemble.getLiveCellCount(u));
+		}
+	}
+
+	@Test
+	public void testAdvance2D() {
+		checkUniverses(Arrays.asList(12, 9), 6);
+	}
+
+	@Test
+	public void testAdvance1D() {
+		SetupProperties.setProperty("stay.live", "1");
+		SetupProperties.setProperty("dead.live", "1,2");
+		checkUniverses(Arrays.asList(40), 5);
+	}
+
+	@Test
+	public void testAdvance3D() {
+		SetupProperties.setProperty("stay.live", "4,5");
+		SetupProperties.setProperty("dead.live", "5");
+		checkUniverses(Arrays.asList(6, 5, 4), 4);
+	}
+
+	@Test
+	public void testAdvanceWrapBoundary() {
+		SetupProperties.setProperty("boundary", Neighborhood.WRAP);
+		checkUniverses(Arrays.asList(10, 7), 6);
+	}
+
+	@Test
+	public void testAdvanceReflectBoundary() {
+		SetupProperties.setProperty("boundary", Neighborhood.REFLECT);
+		checkUniverses(Arrays.asList(8, 11), 6);
+	}
+
+	@Test
+	public void testAdvanceRadiusTwo() {
+		SetupProperties.setProperty("neighborhood.radius", "2");
+		SetupProperties.setProperty("stay.live", "5,6,7,8");
+		SetupProperties.setProperty("dead.live", "6,7,8");
+		checkUniverses(Arrays.asList(13, 10), 5);
+		SetupProperties.setProperty("boundary", Neighborhood.WRAP);
+		checkUniverses(Arrays.asList(13, 10), 5);
+	}
+
+	@Test
+	public void testUniverseCopy() {
+		List<Integer> sizes = Arrays.asList(7, 5);
+		Grid glider = factory.getGrid(GridFactory.TREE_ENGINE, sizes);
+		glider.setCellValues(new int[][] {{1, 0}, {2, 1}, {0, 2}, {1, 2}, {2, 2}}, true);
+
+		EnsembleGrid ensemble = new EnsembleGrid(sizes);
+		ensemble.setUniverse(63, glider);
+		ensemble.setUniverse(5, glider);
+		assertEquals(0, ensemble.getLiveCellCount(0));
+		assertEquals(5, ensemble.getLiveCellCount(5));
+		assertEquals(5, ensemble.getLiveCellCount(63));
+		assertTrue(ensemble.getCellValue(63, glider.getIndex(new int[] {1, 0})));
+		assertEquals((1L << 63) | (1L << 5), ensemble.getCellValues(glider.getIndex(new int[] {2, 2})));
+
+		Grid copy = factory.getGrid(GridFactory.TREE_ENGINE, sizes);
+		ensemble.getUniverse(63, copy);
+		assertArrayEquals(PackedGridTest.getBits(glider), PackedGridTest.getBits(copy));
+
+		ensemble.setCellValue(5, 0, true);
+		ensemble.setCellValue(63, glider.getIndex(new int[] {1, 0}), false);
+		assertEquals(6, ensemble.getLiveCellCount(5));
+		assertEquals(4, ensemble.getLiveCellCount(63));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testUniverseOutOfRange() {
+		new EnsembleGrid(Arrays.asList(4, 4)).getCellValue(64, 0);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testGridSizeMismatch() {
+		new EnsembleGrid(Arrays.asList(4, 4)).setUniverse(0, factory.getGrid(GridFactory.TREE_ENGINE, Arrays.asList(4, 5)));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testVonNeumannNotSupported() {
+		SetupProperties.setProperty("neighborhood", Neighborhood.VON_NEUMANN);
+		new EnsembleGrid(Arrays.asList(4, 4)).advanceGeneration();
+	}
+
+}
@@ -0,0 +1,113 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameEventsTest {
+
+	static final String EVENT_NAME = "pjs.lifegame.GamePhase";
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	/**
+	 * Advances the grid and writes its display in a recording, and gets the game phase events recorded.
+	 */
+	private static List<RecordedEvent> record(Grid grid, int generations, boolean enabled) throws Exception {
+		Path file = Files.createTempFile("game-events", ".jfr");
+		try {
+			try (Recording recording = new Recording()) {
+				if (enabled) {
+					recording.enable(EVENT_NAME).withThreshold(Duration.ZERO);
+				}
+				recording.start();
+				grid.advanceGenerations(generations, false);
+				grid.writeDisplay(new ByteArrayOutputStream());
+				recording.stop();
+				recording.dump(file);
+			}
+			List<RecordedEvent> events = new ArrayList<>();
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				if (EVENT_NAME.equals(event.getEventType().getName())) {
+					events.add(event);
+				}
+			}
+			return events;
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testTreePhases() throws Exception {
+		Grid grid = GameMetricsTest.createGlider(GridFactory.TREE_ENGINE);
+		List<RecordedEvent> events = record(grid, 2, true);
+
+		String[] phases = {GameEvents.NEIGHBORS, GameEvents.RULES, GameEvents.RESET,
+				GameEvents.NEIGHBORS, GameEvents.RULES, GameEvents.RESET, GameEvents.RENDER};
+		long[] generations = {1, 1, 1, 2, 2, 2, 2};
+		assertEquals(phases.length, events.size());
+		for (int i = 0; i < phases.length; i++) {
+			RecordedEvent event = events.get(i);
+			assertEquals(phases[i], event.getString("phase"));
+			assertEquals(generations[i], event.getLong("generation"));
+			assertEquals(5, event.getLong("liveCells"));
+			assertEquals(GridFactory.TREE_ENGINE, event.getString("engine"));
+		}
+		assertEquals(2, grid.getGeneration());
+	}
+
+	@Test
+	public void testPackedOnePass() throws Exception {
+		Grid grid = GameMetricsTest.createGlider(GridFactory.PACKED_ENGINE);
+		grid.setGeneration(10);
+		List<RecordedEvent> events = record(grid, 3, true);
+
+		assertEquals(4, events.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(GameEvents.RULES, events.get(i).getString("phase"));
+			assertEquals(11 + i, events.get(i).getLong("generation"));
+			assertEquals(GridFactory.PACKED_ENGINE, events.get(i).getString("engine"));
+		}
+		assertEquals(GameEvents.RENDER, events.get(3).getString("phase"));
+		assertEquals(13, events.get(3).getLong("generation"));
+	}
+
+	@Test
+	public void testHashLifeSteps() throws Exception {
+		Grid grid = GameMetricsTest.createGlider(GridFactory.HASHLIFE_ENGINE);
+		List<RecordedEvent> events = record(grid, 6, true);
+
+		// One step of 2 and one of 4 generations
+		assertEquals(3, events.size());
+		assertEquals(2, events.get(0).getLong("generation"));
+		assertEquals(6, events.get(1).getLong("generation"));
+		assertEquals(GridFactory.HASHLIFE_ENGINE, events.get(0).getString("engine"));
+		assertEquals(6, grid.getGeneration());
+	}
+
+	@Test
+	public void testDisabledByDefault() throws Exception {
+		Grid grid = GameMetricsTest.createGlider(GridFactory.TREE_ENGINE);
+		assertTrue(record(grid, 2, false).isEmpty());
+		assertNull(GameEvents.start());
+	}
+
+}
@@ -0,0 +1,136 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameMetricsTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	/**
+	 * Creates a 20x20 grid with a glider in the top left corner.
+	 * @param engine		Engine of the grid.
+	 * @return Grid			Grid with 5 live cells.
+	 */
+	static Grid createGlider(String engine) {
+		Grid grid = factory.getGrid(engine, Arrays.asList(20, 20));
+		grid.setCellValues(new int[][] {{1, 0}, {2, 1}, {0, 2}, {1, 2}, {2, 2}}, true);
+		return grid;
+	}
+
+	@Test
+	public void testTreePhases() {
+		Grid grid = createGlider(GridFactory.TREE_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 0);
+		grid.setMetrics(metrics);
+		assertEquals(5, metrics.getLiveCellCount());
+
+		grid.advanceGenerations(8, false);
+		assertEquals(8, metrics.getGeneration());
+		assertEquals(5, metrics.getLiveCellCount());
+		assertEquals(400, metrics.getCellCount());
+		assertTrue(metrics.getNeighborUpdateNanos() > 0);
+		assertTrue(metrics.getCellUpdateNanos() > 0);
+		assertTrue(metrics.getResetNanos() > 0);
+		assertEquals(metrics.getCellUpdateNanos() / 8.0, metrics.getCellUpdateNanosPerGeneration(), 1e-9);
+		assertTrue(metrics.getHeapBytesPerCell() > 0);
+	}
+
+	@Test
+	public void testPackedOnePass() {
+		Grid grid = createGlider(GridFactory.PACKED_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 10);
+		grid.setMetrics(metrics);
+
+		grid.advanceGenerations(4, false);
+		assertEquals(14, metrics.getGeneration());
+		assertEquals(0, metrics.getNeighborUpdateNanos());
+		assertTrue(metrics.getCellUpdateNanos() > 0);
+		assertEquals(0, metrics.getResetNanos());
+	}
+
+	@Test
+	public void testHashLifeSteps() {
+		Grid grid = createGlider(GridFactory.HASHLIFE_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 0);
+		grid.setMetrics(metrics);
+
+		// One step for each bit of 100, without a listener
+		grid.advanceGenerations(100, false);
+		assertEquals(100, metrics.getGeneration());
+		assertEquals(5, metrics.getLiveCellCount());
+	}
+
+	@Test
+	public void testNoMetrics() {
+		Grid grid = createGlider(GridFactory.TREE_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 0);
+		grid.setMetrics(metrics);
+		grid.advanceGeneration();
+		grid.setMetrics(null);
+		grid.advanceGeneration();
+		assertNull(grid.getMetrics());
+		assertEquals(1, metrics.getGeneration());
+		assertEquals(metrics.getCellUpdateNanos(), metrics.getCellUpdateNanosPerGeneration(), 1e-9);
+
+		// Averages are 0 before the first generation
+		assertEquals(0, new GameMetrics(grid, 0).getCellUpdateNanosPerGeneration(), 0.0);
+	}
+
+	@Test
+	public void testGenerationsPerSecond() throws Exception {
+		Grid grid = createGlider(GridFactory.PACKED_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 0);
+		grid.setMetrics(metrics);
+		assertEquals(0, metrics.getGenerationsPerSecond(), 0.0);
+
+		Thread.sleep(5);
+		grid.advanceGenerations(50, false);
+		double rate = metrics.getGenerationsPerSecond();
+		assertTrue(rate > 0);
+		assertTrue(rate < 50 * 1e9 / 5e6);
+
+		// Reading the rate does not change it
+		Thread.sleep(5);
+		assertEquals(rate, metrics.getGenerationsPerSecond(), 0.0);
+	}
+
+	@Test
+	public void testRegister() throws Exception {
+		Grid grid = createGlider(GridFactory.TREE_ENGINE);
+		GameMetrics metrics = new GameMetrics(grid, 3);
+		grid.setMetrics(metrics);
+		ObjectName name = metrics.register();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			assertEquals(new ObjectName(GameMetrics.OBJECT_NAME), name);
+			grid.advanceGenerations(2, false);
+			assertEquals(5L, server.getAttribute(name, "Generation"));
+			assertEquals(5L, server.getAttribute(name, "LiveCellCount"));
+
+			// Registering again replaces the old metrics
+			GameMetrics newMetrics = new GameMetrics(grid, 0);
+			newMetrics.register();
+			assertEquals(0L, server.getAttribute(name, "Generation"));
+		} finally {
+			GameMetrics.unregister(name);
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+}
@@ -0,0 +1,153 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class GenerationPublisherTest {
+
+	static GridFactory factory = new GridFactory();
+	static List<Integer> dimSizes = Arrays.asList(new Integer[] {20,15});
+	Grid grid;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Before
+	public void setUpBefore() throws Exception {
+		grid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		grid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(2018), dimSizes, 0.35), true);
+	}
+
+	/**
+	 * Subscriber that requests one frame at a time, and keeps every frame.
+	 */
+	static class FrameCollector implements Flow.Subscriber<GenerationFrame> {
+
+		final List<GenerationFrame> frames = new ArrayList<>();
+		final CountDownLatch completed = new CountDownLatch(1);
+		Flow.Subscription subscription;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(GenerationFrame frame) {
+			this.frames.add(frame);
+			this.subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			throwable.printStackTrace();
+		}
+
+		@Override
+		public void onComplete() {
+			this.completed.countDown();
+		}
+
+	}
+
+	@Test
+	public void testFramesInOrder() throws Exception {
+		Grid copy = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		copy.setCellValues(PackedGridTest.getRandomCoordinates(new Random(2018), dimSizes, 0.35), true);
+
+		FrameCollector collector = new FrameCollector();
+		GenerationPublisher publisher = new GenerationPublisher(2, false);
+		publisher.subscribe(collector);
+		grid.addGenerationListener(publisher);
+		publisher.publish(grid);
+		grid.advanceGenerations(30, false);
+		publisher.close();
+		assertTrue(collector.completed.await(10, TimeUnit.SECONDS));
+
+		// No frames are dropped when waiting for the subscriber
+		assertEquals(31, collector.frames.size());
+		assertEquals(0, publisher.getDroppedFrames());
+		Grid view = factory.getGrid(GridFactory.TREE_ENGINE, dimSizes);
+		for (int generation = 0; generation <= 30; generation++) {
+			GenerationFrame frame = collector.frames.get(generation);
+			assertEquals(generation, frame.getGeneration());
+			assertEquals(copy.getLiveCellCount(), frame.getLiveCellCount());
+			assertEquals(copy.getStateHash(), frame.getStateHash());
+
+			frame.copyTo(view);
+			assertEquals("Generation " + generation, copy.getDisplay(), view.getDisplay());
+			copy.advanceGeneration();
+		}
+	}
+
+	@Test
+	public void testSharedBlocks() {
+		// 10,000 cells is 3 blocks, and the blinker is only in the first
+		Grid large = factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {100,100}));
+		large.setCellValues(new int[][] {{5,5},{6,5},{7,5},{90,90},{91,90},{90,91},{91,91}}, true);
+		GenerationPublisher publisher = new GenerationPublisher(1, false);
+
+		GenerationFrame first = publisher.publish(large);
+		large.advanceGeneration();
+		GenerationFrame second = publisher.publish(large);
+		publisher.close();
+
+		assertNotSame(first.getBlock(0), second.getBlock(0));
+		assertSame(first.getBlock(1), second.getBlock(1));
+		assertSame(first.getBlock(2), second.getBlock(2));
+		assertTrue(first.getCellValue(505));
+		assertFalse(second.getCellValue(505));
+		assertTrue(second.getCellValue(406));
+	}
+
+	@Test
+	public void testDropFrames() {
+		// Never requests a frame, so its buffer is always full after the first frames
+		final List<GenerationFrame> received = new ArrayList<>();
+		GenerationPublisher publisher = new GenerationPublisher(1, true);
+		publisher.subscribe(new Flow.Subscriber<GenerationFrame>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+			}
+
+			@Override
+			public void onNext(GenerationFrame frame) {
+				received.add(frame);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+		grid.addGenerationListener(publisher);
+		grid.advanceGenerations(20, false);
+		assertEquals(1, publisher.getSubscriberCount());
+		publisher.close();
+
+		// The grid was never held up, and at most the buffer was kept for the subscriber
+		assertEquals(20, grid.getGeneration());
+		assertTrue(publisher.getDroppedFrames() >= 18);
+		assertTrue(received.isEmpty());
+	}
+
+}
@@ -0,0 +1,128 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class GridHistoryTest {
+
+	static GridFactory factory = new GridFactory();
+	static List<Integer> dimSizes = Arrays.asList(new Integer[] {20,15});
+	Grid grid;
+	List<long[]> generations;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Before
+	public void setUpBefore() throws Exception {
+		grid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		grid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(2018), dimSizes, 0.35), true);
+
+		// Cells of every generation, to compare with the history
+		Grid copy = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		copy.setCellBits(0, LongBuffer.wrap(PackedGridTest.getBits(grid)));
+		generations = new ArrayList<>();
+		for (int i = 0; i <= 40; i++) {
+			generations.add(PackedGridTest.getBits(copy));
+			copy.advanceGeneration();
+		}
+	}
+
+	@Test
+	public void testEncode() {
+		long[] oldCells = {0x5L, 0L, 1L << 63};
+		long[] newCells = {0x6L, 1L << 40, 1L << 63};
+		long[] cells = oldCells.clone();
+
+		byte[] change = GridHistory.encode(oldCells, newCells);
+		// Cells 0, 1 and 104 changed, the gap of 103 fits in one byte
+		assertEquals(3, change.length);
+		GridHistory.apply(change, cells);
+		assertArrayEquals(newCells, cells);
+		GridHistory.apply(change, cells);
+		assertArrayEquals(oldCells, cells);
+
+		assertEquals(0, GridHistory.encode(newCells, newCells).length);
+	}
+
+	@Test
+	public void testSeek() {
+		GridHistory history = new GridHistory(grid, 8, 100);
+		grid.addGenerationListener(history);
+		grid.advanceGenerations(40, false);
+		assertEquals(0, history.getFirstGeneration());
+		assertEquals(40, history.getLastGeneration());
+
+		Grid view = factory.getGrid(GridFactory.TREE_ENGINE, dimSizes);
+		int[] order = {40, 0, 17, 13, 12, 31, 32, 5, 39, 24, 25, 23};
+		for (int generation : order) {
+			history.seek(generation, view);
+			assertArrayEquals("Generation " + generation, generations.get(generation), PackedGridTest.getBits(view));
+			assertEquals(generation, view.getGeneration());
+			assertEquals(generation, history.getSeekGeneration());
+		}
+
+		try {
+			history.seek(41, view);
+			fail("Generation 41 is not in the history");
+		} catch (RuntimeException e) {
+			assertEquals("Generation 41 is not in the history, which has generations 0 to 40.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStepBack() {
+		GridHistory history = new GridHistory(grid, 8, 100);
+		grid.addGenerationListener(history);
+		grid.advanceGenerations(20, false);
+
+		Grid view = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		for (int generation = 19; generation >= 0; generation--) {
+			assertTrue(history.stepBack(view));
+			assertArrayEquals("Generation " + generation, generations.get(generation), PackedGridTest.getBits(view));
+		}
+		assertFalse(history.stepBack(view));
+	}
+
+	@Test
+	public void testMaxGenerations() {
+		GridHistory history = new GridHistory(grid, 5, 12);
+		grid.addGenerationListener(history);
+		grid.advanceGenerations(40, false);
+
+		// The oldest generations are removed five at a time, leaving at most 12
+		assertEquals(30, history.getFirstGeneration());
+		assertEquals(40, history.getLastGeneration());
+		Grid view = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		for (int generation = 30; generation <= 40; generation++) {
+			history.seek(generation, view);
+			assertArrayEquals("Generation " + generation, generations.get(generation), PackedGridTest.getBits(view));
+		}
+	}
+
+	@Test
+	public void testBytesScaleWithActivity() {
+		// A block never changes, so only the 11 keyframes use any memory, 5 bytes each (the first gap is 5051)
+		Grid still = factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {100,100}));
+		still.setCellValues(new int[][] {{50,50},{51,50},{50,51},{51,51}}, true);
+		GridHistory history = new GridHistory(still, 10, 1000);
+		still.addGenerationListener(history);
+		still.advanceGenerations(100, false);
+
+		assertEquals(11 * 5, history.getBytes());
+	}
+
+}
@@ -0,0 +1,113 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GridLoaderTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path writeFile(String text) throws IOException {
+		Path file = this.folder.newFile().toPath();
+		Files.write(file, text.getBytes("UTF-8"));
+		return file;
+	}
+
+	@Test
+	public void testReadDefaultGridFormat() throws IOException {
+		Path file = this.writeFile("###\r\n# Initial locations of live cells\r\n# 1,2\r\n\r\n6,0\r\n 0 , 1\r\n\t2,3,\r\n  \r\n7,5");
+		long[] indices = new GridLoader(Arrays.asList(new Integer[] {8,6})).read(file);
+		assertArrayEquals(new long[] {6, 8, 26, 47}, indices);
+	}
+
+	@Test
+	public void testReadEmptyFile() throws IOException {
+		Path file = this.writeFile("");
+		assertEquals(0, new GridLoader(Arrays.asList(new Integer[] {8,6})).read(file).length);
+	}
+
+	@Test
+	public void testNumbersAcrossWindows() throws IOException {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {100,100,100});
+		Random random = new Random(2018);
+		StringBuilder text = new StringBuilder("# random cells\n");
+		long[] expected = new long[500];
+		for (int i = 0; i < expected.length; i++) {
+			int x = random.nextInt(100), y = random.nextInt(100), z = random.nextInt(100);
+			text.append(x).append(',').append(y).append(',').append(z).append('\n');
+			expected[i] = x + y*100 + z*10000;
+		}
+		Path file = this.writeFile(text.toString());
+		for (int windowSize : new int[] {1, 3, 7, 64, 4096}) {
+			assertArrayEquals("window " + windowSize, expected, new GridLoader(dimSizes, windowSize).read(file));
+		}
+	}
+
+	@Test
+	public void testInvalidFiles() throws IOException {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {8,6});
+		String[] invalid = {"1,2,3", "1", "8,0", "0,6", "-1,0", "1,x", "1,,2", ",", "99999999999,1", "1.5,2"};
+		for (String text : invalid) {
+			Path file = this.writeFile("0,0\n" + text + "\n");
+			try {
+				new GridLoader(dimSizes).read(file);
+				fail("No exception for " + text);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+			}
+		}
+	}
+
+	@Test
+	public void testSetLiveCellsSameAsCoordinates() {
+		Random random = new Random(2018);
+		String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+				GridFactory.INCREMENTAL_ENGINE, GridFactory.HASHLIFE_ENGINE};
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {13,10});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+		long[] indices = new long[liveCells.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = liveCells.get(i).get(0) + liveCells.get(i).get(1) * 13;
+		}
+		for (String engine : engines) {
+			Grid expected = factory.getGrid(engine, dimSizes);
+			expected.setCellValues(liveCells, true);
+			Grid grid = factory.getGrid(engine, dimSizes);
+			grid.setLiveCells(indices);
+			assertEquals(engine, expected.getDisplay(), grid.getDisplay());
+			assertEquals(engine, expected.getStateHash(), grid.getStateHash());
+		}
+	}
+
+	@Test
+	public void testReadLargeSparseGrid() throws IOException {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {2097152,2097152,2097152});
+		Path file = this.writeFile("2097151,2097151,2097151\n5,0,1\n");
+		long[] indices = new GridLoader(dimSizes).read(file);
+		Grid grid = factory.getGrid(GridFactory.SPARSE_ENGINE, dimSizes);
+		grid.setLiveCells(indices);
+
+		List<List<Integer>> liveCells = new ArrayList<>();
+		liveCells.add(Arrays.asList(new Integer[] {2097151,2097151,2097151}));
+		liveCells.add(Arrays.asList(new Integer[] {5,0,1}));
+		Grid expected = factory.getGrid(GridFactory.SPARSE_ENGINE, dimSizes);
+		expected.setCellValues(liveCells, true);
+		assertEquals(expected.getStateHash(), grid.getStateHash());
+		assertEquals(2, grid.getLiveCellCount());
+	}
+
+}
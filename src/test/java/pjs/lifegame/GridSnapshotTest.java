@@ -0,0 +1,208 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GridSnapshotTest {
+
+	static GridFactory factory = new GridFactory();
+
+	static String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+			GridFactory.INCREMENTAL_ENGINE};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	private static List<List<Integer>> getGridSizes() {
+		List<List<Integer>> gridSizes = new ArrayList<>();
+		gridSizes.add(Arrays.asList(new Integer[] {70}));
+		gridSizes.add(Arrays.asList(new Integer[] {13,10}));
+		gridSizes.add(Arrays.asList(new Integer[] {9,5,4}));
+		gridSizes.add(Arrays.asList(new Integer[] {4,3,3,2}));
+		return gridSizes;
+	}
+
+	@Test
+	public void testCellBitsSameForEveryEngine() {
+		Random random = new Random(2018);
+		for (List<Integer> dimSizes : getGridSizes()) {
+			List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+			long[] expected = null;
+			for (String engine : engines) {
+				Grid grid = factory.getGrid(engine, dimSizes);
+				grid.setCellValues(liveCells, true);
+				long[] bits = PackedGridTest.getBits(grid);
+				if (expected == null) {
+					expected = bits;
+				}
+				assertArrayEquals(engine + " " + dimSizes, expected, bits);
+			}
+		}
+	}
+
+	@Test
+	public void testWriteAndRestoreEveryEngine() throws IOException {
+		Random random = new Random(2018);
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		for (List<Integer> dimSizes : getGridSizes()) {
+			List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+			for (String engine : engines) {
+				Grid grid = factory.getGrid(engine, dimSizes);
+				grid.setCellValues(liveCells, true);
+				GridSnapshot.write(grid, 12, file);
+
+				GridSnapshot snapshot = GridSnapshot.read(file);
+				assertEquals(12, snapshot.getGeneration());
+				assertEquals(dimSizes, snapshot.getDimensionSizes());
+				for (String restoreEngine : engines) {
+					Grid restored = snapshot.createGrid(restoreEngine);
+					assertEquals(engine + " to " + restoreEngine, grid.getDisplay(), restored.getDisplay());
+					assertEquals(grid.getLiveCellCount(), restored.getLiveCellCount());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRestoredGridAdvancesTheSame() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {20,20});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(7), dimSizes, 0.4);
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			grid.setCellValues(liveCells, true);
+			grid.advanceGenerations(3, false);
+			GridSnapshot.write(grid, 3, file);
+			grid.advanceGenerations(5, false);
+
+			Grid restored = GridSnapshot.read(file).createGrid(engine);
+			restored.advanceGenerations(5, false);
+			assertEquals(engine, grid.getDisplay(), restored.getDisplay());
+			assertEquals(engine, grid.getStateHash(), restored.getStateHash());
+		}
+	}
+
+	@Test
+	public void testRulesAreSaved() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		SetupProperties.setProperty("stay.live", "3,4");
+		SetupProperties.setProperty("dead.live", "2,3");
+		Grid grid = factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {5,5}));
+		GridSnapshot.write(grid, 0, file);
+
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+		GridSnapshot snapshot = GridSnapshot.read(file);
+		assertEquals("3,4", snapshot.getStayLive());
+		snapshot.applyRules();
+		assertEquals("2,3", SetupProperties.getProperty("dead.live"));
+	}
+
+	@Test
+	public void testLargeSparseGridUsesSparsePayload() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {100000,100000});
+		Grid grid = factory.getGrid(GridFactory.SPARSE_ENGINE, dimSizes);
+		grid.setCellValue(Arrays.asList(new Integer[] {99999,5}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,99998}), true);
+		GridSnapshot.write(grid, 1, file);
+		assertTrue(Files.size(file) < 1000);
+
+		GridSnapshot snapshot = GridSnapshot.read(file);
+		assertEquals(GridSnapshot.SPARSE, snapshot.getPayloadType());
+		Grid restored = snapshot.createGrid(GridFactory.SPARSE_ENGINE);
+		assertEquals(grid.getDisplay(), restored.getDisplay());
+		assertEquals(grid.getStateHash(), restored.getStateHash());
+	}
+
+	@Test
+	public void testPayloadMappedInWindows() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {40,30});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(5), dimSizes, 0.4);
+		String[] windowEngines = {GridFactory.PACKED_ENGINE, GridFactory.OFFHEAP_ENGINE, GridFactory.TILED_ENGINE};
+		for (String engine : windowEngines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			try {
+				grid.setCellValues(liveCells, true);
+				// 19 longs of cells, written and read 3 longs at a time
+				GridSnapshot.capture(grid, 2, file, 24).commit();
+
+				Grid restored = GridSnapshot.read(file, 24).createGrid(GridFactory.PACKED_ENGINE);
+				assertEquals(engine, grid.getDisplay(), restored.getDisplay());
+				assertEquals(engine, grid.getStateHash(), restored.getStateHash());
+			} finally {
+				GridFactory.release(grid);
+			}
+		}
+
+		Grid sparseGrid = factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1000,1000}));
+		sparseGrid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(5), sparseGrid.getDimensionSizes(), 0.00002), true);
+		GridSnapshot.capture(sparseGrid, 2, file, 24).commit();
+		GridSnapshot snapshot = GridSnapshot.read(file, 24);
+		assertEquals(GridSnapshot.SPARSE, snapshot.getPayloadType());
+		assertEquals(sparseGrid.getStateHash(), snapshot.createGrid(GridFactory.SPARSE_ENGINE).getStateHash());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testPayloadNotComplete() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("grid.snapshot");
+		Grid grid = factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {40,30}));
+		GridSnapshot.write(grid, 0, file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 8);
+		}
+		GridSnapshot.read(file);
+	}
+
+	@Test
+	public void testCheckpointEveryInterval() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("checkpoint.snapshot");
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {16,16});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(11), dimSizes, 0.4);
+
+		Grid grid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		grid.setCellValues(liveCells, true);
+		try (Checkpointer checkpointer = new Checkpointer(file, 4, 0)) {
+			grid.addGenerationListener(checkpointer);
+			grid.advanceGenerations(10, false);
+		}
+
+		Grid expected = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		expected.setCellValues(liveCells, true);
+		expected.advanceGenerations(8, false);
+
+		GridSnapshot snapshot = GridSnapshot.read(file);
+		assertEquals(8, snapshot.getGeneration());
+		assertEquals(expected.getDisplay(), snapshot.createGrid(GridFactory.PACKED_ENGINE).getDisplay());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testNotASnapshot() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("default.grid");
+		Files.write(file, "1,1\r\n2,2\r\n".getBytes());
+		GridSnapshot.read(file);
+	}
+
+}
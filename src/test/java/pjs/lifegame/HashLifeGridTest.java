@@ -0,0 +1,123 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HashLifeGridTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test(expected=RuntimeException.class)
+	public void testOnly2D() {
+		factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {4,3,2}));
+	}
+
+	@Test
+	public void testSetCellValue() {
+		Grid grid = factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {50,40}));
+		List<Integer> coordinate = Arrays.asList(new Integer[] {45,38});
+
+		grid.setCellValue(coordinate, true);
+		assertTrue(grid.getCellFromCoordinate(coordinate).getValue());
+		assertFalse(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {44,38})).getValue());
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {50,0})));
+	}
+
+	@Test
+	public void testSameGenerationsAsTree() {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {40,36});
+		List<List<Integer>> liveCells = this.getRandomCenterCoordinates(dimSizes);
+
+		Grid treeGrid = factory.getGrid(GridFactory.TREE_ENGINE, dimSizes);
+		Grid hashLifeGrid = factory.getGrid(GridFactory.HASHLIFE_ENGINE, dimSizes);
+		treeGrid.setCellValues(liveCells, true);
+		hashLifeGrid.setCellValues(liveCells, true);
+
+		// Pattern stays away from the edges, so the unbounded plane gives the same result
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Generation " + i, treeGrid.getDisplay(), hashLifeGrid.getDisplay());
+			treeGrid.advanceGeneration();
+			hashLifeGrid.advanceGeneration();
+		}
+	}
+
+	@Test
+	public void testLargeStepsSameAsSingleSteps() {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {40,36});
+		List<List<Integer>> liveCells = this.getRandomCenterCoordinates(dimSizes);
+
+		Grid treeGrid = factory.getGrid(GridFactory.TREE_ENGINE, dimSizes);
+		HashLifeGrid hashLifeGrid = new HashLifeGrid(dimSizes, 500);
+		treeGrid.setCellValues(liveCells, true);
+		hashLifeGrid.setCellValues(liveCells, true);
+
+		treeGrid.advanceGenerations(11, false);
+		hashLifeGrid.advanceGenerations(11, false);
+		assertEquals(treeGrid.getDisplay(), hashLifeGrid.getDisplay());
+	}
+
+	@Test
+	public void testGliderAfterMillionGenerations() {
+		int size = 1 << 19;
+		HashLifeGrid grid = (HashLifeGrid) factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {size,size}));
+		int[][] glider = {{1,0},{2,1},{0,2},{1,2},{2,2}};
+		for (int[] cell : glider) {
+			grid.setCellValue(Arrays.asList(new Integer[] {cell[0], cell[1]}), true);
+		}
+
+		// A glider moves one cell in each direction every four generations
+		grid.advancePowerOfTwo(20);
+		assertEquals(5, grid.getPopulation());
+		int moved = 1 << 18;
+		for (int[] cell : glider) {
+			assertTrue(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {cell[0] + moved, cell[1] + moved})).getValue());
+		}
+	}
+
+	@Test
+	public void testNodesBoundedWithinStep() {
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {40,36});
+		List<List<Integer>> liveCells = this.getRandomCenterCoordinates(dimSizes);
+
+		HashLifeGrid unbounded = new HashLifeGrid(dimSizes, HashLifeGrid.DEFAULT_MAX_NODES);
+		HashLifeGrid bounded = new HashLifeGrid(dimSizes, 2000);
+		unbounded.setCellValues(liveCells, true);
+		bounded.setCellValues(liveCells, true);
+
+		// One step of 2^9 generations needs many more nodes than the bound
+		unbounded.advancePowerOfTwo(9);
+		bounded.advancePowerOfTwo(9);
+		assertTrue(unbounded.getPeakNodeCount() > 10000);
+		assertTrue("Peak " + bounded.getPeakNodeCount(), bounded.getPeakNodeCount() <= 4000);
+		assertEquals(unbounded.getStateHash(), bounded.getStateHash());
+		assertEquals(unbounded.getPopulation(), bounded.getPopulation());
+	}
+
+	private List<List<Integer>> getRandomCenterCoordinates(List<Integer> dimSizes) {
+		Random random = new Random(2018);
+		List<List<Integer>> coordinates = new ArrayList<>();
+		for (List<Integer> coordinate : PackedGridTest.getRandomCoordinates(random, Arrays.asList(new Integer[] {12,12}), 0.4)) {
+			List<Integer> centered = new ArrayList<>();
+			for (int d = 0; d < 2; d++) {
+				centered.add(coordinate.get(d) + dimSizes.get(d) / 2 - 6);
+			}
+			coordinates.add(centered);
+		}
+		return coordinates;
+	}
+
+}
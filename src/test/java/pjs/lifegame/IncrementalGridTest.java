@@ -0,0 +1,57 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class IncrementalGridTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test
+	public void testNeighborValuesKeptUpToDate() {
+		Grid grid = factory.getGrid(GridFactory.INCREMENTAL_ENGINE, Arrays.asList(new Integer[] {5,5}));
+		grid.setCellValue(Arrays.asList(new Integer[] {1,1}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {2,1}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {0,0}), true);
+
+		assertEquals(3, grid.getCellFromCoordinate(Arrays.asList(new Integer[] {1,0})).getNeighborValue());
+		assertEquals(2, grid.getCellFromCoordinate(Arrays.asList(new Integer[] {1,1})).getNeighborValue());
+
+		grid.setCellValue(Arrays.asList(new Integer[] {0,0}), false);
+		assertEquals(2, grid.getCellFromCoordinate(Arrays.asList(new Integer[] {1,0})).getNeighborValue());
+	}
+
+	@Test
+	public void testStillLifeHasEmptyFrontier() {
+		IncrementalGrid grid = (IncrementalGrid) factory.getGrid(GridFactory.INCREMENTAL_ENGINE, Arrays.asList(new Integer[] {6,6}));
+		int[][] block = {{2,2},{3,2},{2,3},{3,3}};
+		for (int[] cell : block) {
+			grid.setCellValue(Arrays.asList(new Integer[] {cell[0], cell[1]}), true);
+		}
+
+		grid.advanceGeneration();
+		assertEquals(0, grid.getFrontierSize());
+
+		String display = grid.getDisplay();
+		grid.advanceGenerations(3, false);
+		assertEquals(display, grid.getDisplay());
+	}
+
+	@Test
+	public void testSameGenerationsAsTree() {
+		PackedGridTest.assertSameGenerations(GridFactory.INCREMENTAL_ENGINE, GridFactory.TREE_ENGINE, 8,
+				new int[] {20}, new int[] {12,10}, new int[] {6,5,4}, new int[] {4,3,3,2});
+	}
+
+}
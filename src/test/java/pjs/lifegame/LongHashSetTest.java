@@ -0,0 +1,61 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+	@Test
+	public void testSameAsHashSet() {
+		Random random = new Random(2018);
+		LongHashSet set = new LongHashSet();
+		Set<Long> expected = new HashSet<>();
+
+		for (int i = 0; i < 20000; i++) {
+			long key = random.nextInt(2000);
+			if (random.nextBoolean()) {
+				assertEquals(expected.add(key), set.add(key));
+			} else {
+				assertEquals(expected.remove(key), set.remove(key));
+			}
+		}
+
+		assertEquals(expected.size(), set.size());
+		for (long key = 0; key < 2000; key++) {
+			assertEquals(expected.contains(key), set.contains(key));
+		}
+	}
+
+	@Test
+	public void testZeroKey() {
+		LongHashSet set = new LongHashSet();
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertTrue(set.contains(0));
+		assertArrayEquals(new long[] {0}, set.toSortedArray());
+	}
+
+	@Test
+	public void testMapCounts() {
+		LongIntHashMap map = new LongIntHashMap();
+		for (long key = 0; key < 100; key++) {
+			map.add(key, 1);
+			map.add(key / 2, 2);
+		}
+
+		assertEquals(100, map.size());
+		assertEquals(5, map.get(10));
+		assertEquals(1, map.get(99));
+		assertEquals(0, map.get(100));
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(0, map.get(10));
+	}
+
+}
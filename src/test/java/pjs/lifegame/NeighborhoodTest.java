@@ -0,0 +1,275 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NeighborhoodTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SetupProperties.setProperty("neighborhood", Neighborhood.MOORE);
+		SetupProperties.setProperty("neighborhood.radius", "1");
+		SetupProperties.setProperty("boundary", Neighborhood.DEAD);
+	}
+
+	/**
+	 * Counts the neighbors of a cell by checking every cell of the grid.
+	 */
+	private static int countNeighbors(long[] bits, int[] sizes, int index, Neighborhood neighborhood) {
+		int cellCount = 1;
+		for (int size : sizes) {
+			cellCount *= size;
+		}
+		int count = 0;
+		for (int other = 0; other < cellCount; other++) {
+			int a = index;
+			int b = other;
+			int max = 0;
+			int sum = 0;
+			for (int size : sizes) {
+				int distance = Math.abs(a % size - b % size);
+				max = Math.max(max, distance);
+				sum += distance;
+				a /= size;
+				b /= size;
+			}
+			int distance = Neighborhood.MOORE.equals(neighborhood.getType()) ? max : sum;
+			if (other != index && distance <= neighborhood.getRadius() && ((bits[other >>> 6] >>> other) & 1L) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testNeighborValues() {
+		assertEquals(9, new Neighborhood(Neighborhood.MOORE, 1).getNeighborValues(2));
+		assertEquals(25, new Neighborhood(Neighborhood.MOORE, 2).getNeighborValues(2));
+		assertEquals(5, new Neighborhood(Neighborhood.VON_NEUMANN, 1).getNeighborValues(2));
+		assertEquals(13, new Neighborhood(Neighborhood.VON_NEUMANN, 2).getNeighborValues(2));
+		assertEquals(7, new Neighborhood(Neighborhood.VON_NEUMANN, 1).getNeighborValues(3));
+		assertEquals(25, new Neighborhood(Neighborhood.VON_NEUMANN, 2).getNeighborValues(3));
+		assertEquals(5, new Neighborhood(Neighborhood.VON_NEUMANN, 2).getNeighborValues(1));
+	}
+
+	@Test
+	public void testIsDefault() {
+		assertTrue(new Neighborhood(Neighborhood.MOORE, 1).isDefault(3));
+		assertFalse(new Neighborhood(Neighborhood.MOORE, 2).isDefault(3));
+		assertFalse(new Neighborhood(Neighborhood.VON_NEUMANN, 1).isDefault(2));
+		assertTrue(new Neighborhood(Neighborhood.VON_NEUMANN, 1).isDefault(1));
+	}
+
+	@Test
+	public void testCountsSameAsCheckingEveryCell() {
+		Random random = new Random(2018);
+		int[][] gridSizes = {{30}, {13,10}, {9,1}, {7,5,4}, {3,4,2,3}};
+		for (int[] sizes : gridSizes) {
+			int cellCount = 1;
+			for (int size : sizes) {
+				cellCount *= size;
+			}
+			long[] bits = new long[(cellCount + 63) / 64];
+			for (int index = 0; index < cellCount; index++) {
+				if (random.nextBoolean()) {
+					bits[index >>> 6] |= 1L << index;
+				}
+			}
+			for (String type : new String[] {Neighborhood.MOORE, Neighborhood.VON_NEUMANN}) {
+				for (int radius = 1; radius <= 4; radius++) {
+					Neighborhood neighborhood = new Neighborhood(type, radius);
+					int[] counts = neighborhood.countNeighbors(bits, sizes);
+					for (int index = 0; index < cellCount; index++) {
+						assertEquals(Arrays.toString(sizes) + " " + neighborhood + " cell " + index,
+								countNeighbors(bits, sizes, index, neighborhood), counts[index]);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEveryEngineSameGenerations() {
+		String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+				GridFactory.INCREMENTAL_ENGINE, GridFactory.OFFHEAP_ENGINE, GridFactory.TILED_ENGINE};
+		List<Integer> dimSizes = Arrays.asList(new Integer[] {20,16});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(5), dimSizes, 0.5);
+
+		// Bosco's rule, radius 5
+		SetupProperties.setProperty("neighborhood", Neighborhood.MOORE);
+		SetupProperties.setProperty("neighborhood.radius", "5");
+		SetupProperties.setProperty("stay.live", "33,34,35,36,37,38,39,40,41,42,43,44,45,46,47,48,49,50,51,52,53,54,55,56,57");
+		SetupProperties.setProperty("dead.live", "34,35,36,37,38,39,40,41,42,43,44,45");
+
+		Grid expected = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		expected.setCellValues(liveCells, true);
+		int[] sizes = {20, 16};
+		Neighborhood neighborhood = Neighborhood.getNeighborhood();
+		RuleTable rules = GameRules.getRules(2);
+		long[] bits = new long[5];
+		expected.getCellBits(0, java.nio.LongBuffer.wrap(bits));
+		long[] nextBits = new long[5];
+		for (int index = 0; index < 320; index++) {
+			boolean value = ((bits[index >>> 6] >>> index) & 1L) != 0;
+			if (rules.isCellLive(value, countNeighbors(bits, sizes, index, neighborhood))) {
+				nextBits[index >>> 6] |= 1L << index;
+			}
+		}
+		expected.setCellBits(0, java.nio.LongBuffer.wrap(nextBits));
+		expected.advanceGenerations(4, false);
+
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, dimSizes);
+			grid.setCellValues(liveCells, true);
+			grid.advanceGenerations(5, false);
+			assertEquals(engine, expected.getDisplay(), grid.getDisplay());
+			assertEquals(engine, expected.getLiveCellCount(), grid.getLiveCellCount());
+			GridFactory.release(grid);
+		}
+	}
+
+	@Test
+	public void testSlabsSameAsWholeGrid() {
+		Random random = new Random(2018);
+		int[][] gridSizes = {{30}, {13,10}, {7,5,9}, {3,4,2,11}};
+		String[] engines = {GridFactory.PACKED_ENGINE, GridFactory.OFFHEAP_ENGINE, GridFactory.TILED_ENGINE};
+		for (String boundary : new String[] {Neighborhood.DEAD, Neighborhood.WRAP, Neighborhood.REFLECT}) {
+			SetupProperties.setProperty("boundary", boundary);
+			for (String type : new String[] {Neighborhood.MOORE, Neighborhood.VON_NEUMANN}) {
+				SetupProperties.setProperty("neighborhood", type);
+				for (int radius = 1; radius <= 3; radius++) {
+					SetupProperties.setProperty("neighborhood.radius", String.valueOf(radius));
+					Neighborhood neighborhood = Neighborhood.getNeighborhood();
+					for (int[] sizes : gridSizes) {
+						List<Integer> dimSizes = Grid.toList(sizes);
+						List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(random, dimSizes, 0.4);
+						long layerCells = 1;
+						for (int d = 0; d < sizes.length - 1; d++) {
+							layerCells *= sizes[d];
+						}
+
+						Grid expected = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+						expected.setCellValues(liveCells, true);
+						for (int generation = 0; generation < 2; generation++) {
+							expected.advanceGeneration(neighborhood, Grid.MAX_NEIGHBORHOOD_SLAB_CELLS);
+						}
+
+						// Slabs of radius layers and of radius+1 layers
+						long[] slabCells = {1, layerCells * (3 * radius + 1)};
+						for (String engine : engines) {
+							for (long cells : slabCells) {
+								Grid grid = factory.getGrid(engine, dimSizes);
+								grid.setCellValues(liveCells, true);
+								for (int generation = 0; generation < 2; generation++) {
+									grid.advanceGeneration(neighborhood, cells);
+								}
+								String message = engine + " " + Arrays.toString(sizes) + " " + neighborhood + " slab " + cells;
+								assertEquals(message, expected.getDisplay(), grid.getDisplay());
+								GridFactory.release(grid);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSparseNeighborhoodAroundLiveCells() {
+		// A grid of 2^40 cells, only the cells around the live cells are counted
+		List<Integer> largeSizes = Arrays.asList(new Integer[] {1 << 20, 1 << 20});
+		List<Integer> smallSizes = Arrays.asList(new Integer[] {60, 56});
+		List<List<Integer>> pattern = PackedGridTest.getRandomCoordinates(new Random(7),
+				Arrays.asList(new Integer[] {20, 16}), 0.5);
+		SetupProperties.setProperty("neighborhood.radius", "2");
+		SetupProperties.setProperty("stay.live", "3,4,5,6");
+		SetupProperties.setProperty("dead.live", "4,5");
+		for (String type : new String[] {Neighborhood.MOORE, Neighborhood.VON_NEUMANN}) {
+			SetupProperties.setProperty("neighborhood", type);
+			Grid sparse = factory.getGrid(GridFactory.SPARSE_ENGINE, largeSizes);
+			Grid packed = factory.getGrid(GridFactory.PACKED_ENGINE, smallSizes);
+			for (List<Integer> cell : pattern) {
+				sparse.setCellValue(new int[] {cell.get(0) + 500000, cell.get(1) + 700000}, true);
+				packed.setCellValue(new int[] {cell.get(0) + 20, cell.get(1) + 20}, true);
+			}
+			sparse.advanceGenerations(3, false);
+			packed.advanceGenerations(3, false);
+
+			assertEquals(type, packed.getLiveCellCount(), sparse.getLiveCellCount());
+			for (int y = 0; y < 56; y++) {
+				for (int x = 0; x < 60; x++) {
+					assertEquals(type + " " + x + "," + y, packed.getCellValue(new int[] {x, y}),
+							sparse.getCellValue(new int[] {x + 500000 - 20, y + 700000 - 20}));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCheckNeighborhoodForEngine() {
+		SetupProperties.setProperty("neighborhood.radius", "2");
+		// Three layers of 2^30 cells are too many to count at once, the other way round is fine
+		try {
+			factory.checkDimensions(GridFactory.OFFHEAP_ENGINE, Arrays.asList(new Integer[] {1 << 30, 8}));
+			fail("Layers of the last dimension are too large");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("last dimension"));
+		}
+		factory.checkDimensions(GridFactory.OFFHEAP_ENGINE, Arrays.asList(new Integer[] {8, 1 << 30}));
+		factory.checkDimensions(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1 << 30, 8}));
+
+		try {
+			factory.checkDimensions(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {8, 8}));
+			fail("HashLife can only use radius 1");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("HashLife"));
+		}
+	}
+
+	@Test
+	public void testVonNeumannRadiusOne() {
+		// A blinker with the von Neumann neighborhood and B2/S1: the ends have one neighbor and stay,
+		// the cells beside the middle have one neighbor and do not become live
+		SetupProperties.setProperty("neighborhood", Neighborhood.VON_NEUMANN);
+		SetupProperties.setProperty("stay.live", "1");
+		SetupProperties.setProperty("dead.live", "2");
+		Grid grid = factory.getGrid(Arrays.asList(new Integer[] {5,5}));
+		grid.setCellValues(Arrays.asList(Arrays.asList(new Integer[] {1,2}), Arrays.asList(new Integer[] {2,2}),
+				Arrays.asList(new Integer[] {3,2})), true);
+		grid.advanceGeneration();
+		String display = grid.getDisplay();
+		Grid expected = factory.getGrid(Arrays.asList(new Integer[] {5,5}));
+		expected.setCellValues(Arrays.asList(Arrays.asList(new Integer[] {1,2}), Arrays.asList(new Integer[] {3,2})), true);
+		assertEquals(expected.getDisplay(), display);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testHashLifeOnlyMooreRadiusOne() {
+		SetupProperties.setProperty("neighborhood.radius", "2");
+		Grid grid = factory.getGrid(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {8,8}));
+		grid.advanceGeneration();
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testInvalidNeighborhood() {
+		SetupProperties.setProperty("neighborhood", "hexagonal");
+		Neighborhood.getNeighborhood();
+	}
+
+}
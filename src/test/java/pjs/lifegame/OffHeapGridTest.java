@@ -0,0 +1,110 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OffHeapGridTest {
+
+	static GridFactory factory = new GridFactory();
+	OffHeapGrid grid;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Before
+	public void setUpBefore() throws Exception {
+		grid = (OffHeapGrid) factory.getGrid(GridFactory.OFFHEAP_ENGINE, Arrays.asList(new Integer[] {4,3,2}));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		grid.close();
+	}
+
+	@Test
+	public void testSetCellValue() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {1,2,0});
+
+		grid.setCellValue(coordinate, true);
+		assertTrue(grid.getCellFromCoordinate(coordinate).getValue());
+		assertFalse(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {2,1,0})).getValue());
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {4,0,0})));
+		assertEquals(1, grid.getLiveCellCount());
+		assertEquals(GridFactory.OFFHEAP_ENGINE, GridFactory.getEngine(grid));
+	}
+
+	@Test
+	public void testUpdateNeighborValues() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {2,1,0});
+		Cell mainCell = grid.getCellFromCoordinate(coordinate);
+
+		grid.setCellValue(Arrays.asList(new Integer[] {3,1,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+
+		grid.updateNeighborValues(coordinate, mainCell);
+		assertEquals(3, mainCell.getNeighborValue());
+	}
+
+	@Test
+	public void testSameGenerationsAsPacked() {
+		PackedGridTest.assertSameGenerations(GridFactory.OFFHEAP_ENGINE, GridFactory.TREE_ENGINE, 5,
+				new int[] {150}, new int[] {9,7}, new int[] {6,5,4}, new int[] {4,3,3,2});
+	}
+
+	@Test
+	public void testCellBits() throws IOException {
+		Grid packedGrid = factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {4,3,2}));
+		packedGrid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(7), grid.getDimensionSizes(), 0.5), true);
+
+		LongBuffer bits = LongBuffer.allocate(1);
+		packedGrid.getCellBits(0, bits);
+		bits.flip();
+		grid.setCellBits(0, bits);
+		assertEquals(packedGrid.getDisplay(), grid.getDisplay());
+		assertEquals(packedGrid.getStateHash(), grid.getStateHash());
+
+		GridSnapshot snapshot = GridSnapshot.write(grid, 0, this.folder.getRoot().toPath().resolve("grid.snapshot"));
+		Grid restored = snapshot.createGrid(GridFactory.TREE_ENGINE);
+		assertEquals(grid.getDisplay(), restored.getDisplay());
+	}
+
+	@Test
+	public void testClose() {
+		assertTrue(grid.getOffHeapBytes() > 0);
+		assertFalse(grid.isClosed());
+
+		grid.close();
+		assertTrue(grid.isClosed());
+		assertEquals(0, grid.getOffHeapBytes());
+		try {
+			grid.getCellValue(0);
+			fail("Cells cannot be read after close");
+		} catch (RuntimeException e) {
+			assertEquals("Off-heap grid memory has been released.", e.getMessage());
+		}
+
+		// Closing again does nothing
+		grid.close();
+	}
+
+}
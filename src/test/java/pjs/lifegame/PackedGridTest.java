@@ -0,0 +1,168 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PackedGridTest {
+
+	static GridFactory factory = new GridFactory();
+	PackedGrid grid;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Before
+	public void setUpBefore() throws Exception {
+		grid = (PackedGrid) factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(new Integer[] {4,3,2}));
+	}
+
+	@Test
+	public void testSetCellValue() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {1,2,0});
+
+		grid.setCellValue(coordinate, true);
+		assertTrue(grid.getCellFromCoordinate(coordinate).getValue());
+		assertFalse(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {2,1,0})).getValue());
+	}
+
+	@Test
+	public void testIndexOutOfBounds() {
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {4,0,0})));
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {0,-1,0})));
+	}
+
+	@Test
+	public void testCellBitsPastLastCell() {
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+
+		// 24 cells are one long, so only the first long has cells
+		LongBuffer bits = LongBuffer.allocate(3);
+		grid.getCellBits(0, bits);
+		assertEquals(1, bits.position());
+		assertEquals(1L << 23, bits.get(0));
+		for (long firstWord : new long[] {1, 2, Integer.MAX_VALUE + 1L}) {
+			bits.clear();
+			grid.getCellBits(firstWord, bits);
+			assertEquals(0, bits.position());
+		}
+	}
+
+	@Test
+	public void testUpdateNeighborValues() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {2,1,0});
+		Cell mainCell = grid.getCellFromCoordinate(coordinate);
+
+		grid.setCellValue(Arrays.asList(new Integer[] {3,1,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+
+		grid.updateNeighborValues(coordinate, mainCell);
+		assertEquals(3, mainCell.getNeighborValue());
+	}
+
+	@Test
+	public void testDisplay() {
+		grid.setCellValue(Arrays.asList(new Integer[] {0,0,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {1,1,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+
+		Grid treeGrid = factory.getGrid(Arrays.asList(new Integer[] {4,3,2}));
+		treeGrid.setCellValue(Arrays.asList(new Integer[] {0,0,0}), true);
+		treeGrid.setCellValue(Arrays.asList(new Integer[] {1,1,0}), true);
+		treeGrid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+
+		assertEquals(treeGrid.getDisplay(), grid.getDisplay());
+	}
+
+	@Test
+	public void testSameGenerationsAsTree() {
+		assertSameGenerations(GridFactory.PACKED_ENGINE, GridFactory.TREE_ENGINE, 5,
+				new int[] {20}, new int[] {9,7}, new int[] {6,5,4}, new int[] {4,3,3,2});
+	}
+
+	static List<List<Integer>> getRandomCoordinates(Random random, List<Integer> dimSizes, double density) {
+		int cellCount = 1;
+		for (Integer dimSize : dimSizes) {
+			cellCount *= dimSize;
+		}
+
+		List<List<Integer>> coordinates = new ArrayList<>();
+		for (int index = 0; index < cellCount; index++) {
+			if (random.nextDouble() < density) {
+				List<Integer> coordinate = new ArrayList<>();
+				int remainder = index;
+				for (Integer dimSize : dimSizes) {
+					coordinate.add(remainder % dimSize);
+					remainder /= dimSize;
+				}
+				coordinates.add(coordinate);
+			}
+		}
+		return coordinates;
+	}
+
+	/**
+	 * Sets the same random cells in a grid of an engine and of a reference engine, for each grid size,
+	 * and checks they have the same display, state hash and live cell count as they advance.
+	 * Sparse grids hash each cell by its key instead of its index, so their state hash is not compared.
+	 * @param engine		Engine to check.
+	 * @param reference		Engine with the expected generations, i.e. the tree.
+	 * @param generations	Number of generations to check.
+	 * @param gridSizes		Size of each dimension of each grid.
+	 */
+	static void assertSameGenerations(String engine, String reference, int generations, int[]... gridSizes) {
+		Random random = new Random(2018);
+		for (int[] sizes : gridSizes) {
+			List<Integer> dimSizes = new ArrayList<>();
+			for (int size : sizes) {
+				dimSizes.add(size);
+			}
+			Grid referenceGrid = factory.getGrid(reference, dimSizes);
+			Grid grid = factory.getGrid(engine, dimSizes);
+			try {
+				List<List<Integer>> liveCells = getRandomCoordinates(random, dimSizes, 0.4);
+				referenceGrid.setCellValues(liveCells, true);
+				grid.setCellValues(liveCells, true);
+
+				for (int i = 0; i < generations; i++) {
+					String message = "Generation " + i + " of " + engine + " grid " + dimSizes;
+					assertEquals(message, referenceGrid.getDisplay(), grid.getDisplay());
+					if (!(grid instanceof SparseGrid)) {
+						assertEquals(message, referenceGrid.getStateHash(), grid.getStateHash());
+					}
+					assertEquals(message, referenceGrid.getLiveCellCount(), grid.getLiveCellCount());
+					referenceGrid.advanceGeneration();
+					grid.advanceGeneration();
+				}
+			} finally {
+				GridFactory.release(grid);
+				GridFactory.release(referenceGrid);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cells of a grid as bits, with Grid.getCellBits.
+	 * @param grid			Grid of any engine.
+	 * @return long[]		64 cells in each long, in index order.
+	 */
+	static long[] getBits(Grid grid) {
+		long[] bits = new long[(int) ((grid.getCellCount() + 63) >>> 6)];
+		grid.getCellBits(0, LongBuffer.wrap(bits));
+		return bits;
+	}
+
+}
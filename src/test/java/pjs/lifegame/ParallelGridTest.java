@@ -0,0 +1,54 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelGridTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test(expected=RuntimeException.class)
+	public void testInvalidThreads() {
+		factory.getGrid(Arrays.asList(new Integer[] {5,5})).setThreads(0);
+	}
+
+	@Test
+	public void testSameGenerationsAsOneThread2D() {
+		this.checkSameGenerations(Arrays.asList(new Integer[] {30,25}), 4);
+	}
+
+	@Test
+	public void testSameGenerationsAsOneThread4D() {
+		this.checkSameGenerations(Arrays.asList(new Integer[] {6,5,4,7}), 3);
+	}
+
+	private void checkSameGenerations(List<Integer> dimSizes, int threads) {
+		Grid sequentialGrid = factory.getGrid(dimSizes);
+		Grid parallelGrid = factory.getGrid(dimSizes);
+		parallelGrid.setThreads(threads);
+
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(2018), dimSizes, 0.3);
+		sequentialGrid.setCellValues(liveCells, true);
+		parallelGrid.setCellValues(liveCells, true);
+
+		for (int i = 0; i < 6; i++) {
+			assertEquals("Generation " + i, sequentialGrid.getDisplay(), parallelGrid.getDisplay());
+			sequentialGrid.advanceGeneration();
+			parallelGrid.advanceGeneration();
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PatternFileTest {
+
+	static GridFactory factory = new GridFactory();
+
+	static List<Integer> dimSizes = Arrays.asList(new Integer[] {8,6});
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	private Path writeFile(String text) throws IOException {
+		Path file = this.folder.newFile().toPath();
+		Files.write(file, text.getBytes("UTF-8"));
+		return file;
+	}
+
+	@Test
+	public void testGetFormat() {
+		assertEquals(PatternFile.RLE_FORMAT, PatternFile.getFormat("patterns/Glider.RLE"));
+		assertEquals(PatternFile.LIFE106_FORMAT, PatternFile.getFormat("glider.lif"));
+		assertEquals(PatternFile.LIFE106_FORMAT, PatternFile.getFormat("glider.life"));
+		assertEquals(PatternFile.GRID_FORMAT, PatternFile.getFormat("default.grid"));
+	}
+
+	@Test
+	public void testReadRle() throws IOException {
+		// Glider, then a row of 3 cells two rows further down
+		Path file = this.writeFile("#N Glider\r\n#C A comment\r\nx = 8, y = 6, rule = B36/S23\r\nbo$2bo$3o3$\r\n2b3o!\r\nnot read");
+		long[] indices = PatternFile.read(file, PatternFile.RLE_FORMAT, dimSizes);
+		assertArrayEquals(new long[] {1, 10, 16, 17, 18, 42, 43, 44}, indices);
+		assertEquals("2,3", SetupProperties.getProperty("stay.live"));
+		assertEquals("3,6", SetupProperties.getProperty("dead.live"));
+	}
+
+	@Test
+	public void testApplyRule() {
+		PatternFile.applyRule("B3/S23:T100,100");
+		assertEquals("2,3", SetupProperties.getProperty("stay.live"));
+		PatternFile.applyRule("s34/b2");
+		assertEquals("3,4", SetupProperties.getProperty("stay.live"));
+		assertEquals("2", SetupProperties.getProperty("dead.live"));
+		PatternFile.applyRule("125/36");
+		assertEquals("1,2,5", SetupProperties.getProperty("stay.live"));
+		assertEquals("3,6", SetupProperties.getProperty("dead.live"));
+		PatternFile.applyRule("B2/S");
+		assertEquals("B2/S", PatternFile.getRule());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testRuleNotSupported() {
+		PatternFile.applyRule("B2ae/S3");
+	}
+
+	@Test
+	public void testReadLife106() throws IOException {
+		Path file = this.writeFile("#Life 1.06\n0 -1\n1 0\n-1 1\n 0 1\n1 1\n");
+		long[] indices = PatternFile.read(file, PatternFile.LIFE106_FORMAT, dimSizes);
+		assertArrayEquals(new long[] {1, 10, 16, 17, 18}, indices);
+	}
+
+	@Test
+	public void testInvalidFiles() throws IOException {
+		String[][] invalid = {
+				{PatternFile.RLE_FORMAT, "x = 9, y = 6\n!"},
+				{PatternFile.RLE_FORMAT, "x = 3, y = 3\n9o!"},
+				{PatternFile.RLE_FORMAT, "x = 3, y = 3\n6$o!"},
+				{PatternFile.RLE_FORMAT, "x = 3, y = 3\n2z!"},
+				{PatternFile.LIFE106_FORMAT, "#Life 1.06\n0 0\n8 0\n"},
+				{PatternFile.LIFE106_FORMAT, "#Life 1.06\n0\n"},
+				{PatternFile.LIFE106_FORMAT, "#Life 1.06\n0 0 0\n"},
+		};
+		for (String[] formatText : invalid) {
+			try {
+				PatternFile.read(this.writeFile(formatText[1]), formatText[0], dimSizes);
+				fail("No exception for " + formatText[1]);
+			} catch (RuntimeException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testRleNeedsTwoDimensions() throws IOException {
+		PatternFile.read(this.writeFile("x = 1, y = 1\no!"), PatternFile.RLE_FORMAT, Arrays.asList(new Integer[] {4,4,4}));
+	}
+
+	@Test
+	public void testWriteRle() throws IOException {
+		Grid grid = factory.getGrid(GridFactory.PACKED_ENGINE, dimSizes);
+		grid.setLiveCells(new long[] {1, 10, 16, 17, 18, 42, 43, 44});
+		Path file = this.folder.newFile().toPath();
+		PatternFile.write(grid, file, PatternFile.RLE_FORMAT);
+		assertEquals("x = 8, y = 6, rule = B3/S23\nbo$2bo$3o3$2b3o!\n", new String(Files.readAllBytes(file), "UTF-8"));
+	}
+
+	@Test
+	public void testWriteLongRleLines() throws IOException {
+		List<Integer> sizes = Arrays.asList(new Integer[] {100,100});
+		Grid grid = factory.getGrid(GridFactory.PACKED_ENGINE, sizes);
+		grid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(2018), sizes, 0.5), true);
+		Path file = this.folder.newFile().toPath();
+		PatternFile.write(grid, file, PatternFile.RLE_FORMAT);
+		for (String line : Files.readAllLines(file, java.nio.charset.StandardCharsets.US_ASCII)) {
+			assertTrue(line, line.length() <= 70);
+		}
+		Grid restored = factory.getGrid(GridFactory.PACKED_ENGINE, sizes);
+		restored.setLiveCells(PatternFile.read(file, PatternFile.RLE_FORMAT, sizes));
+		assertEquals(grid.getDisplay(), restored.getDisplay());
+	}
+
+	@Test
+	public void testWriteAndReadEveryFormat() throws IOException {
+		String[] engines = {GridFactory.TREE_ENGINE, GridFactory.PACKED_ENGINE, GridFactory.SPARSE_ENGINE,
+				GridFactory.INCREMENTAL_ENGINE, GridFactory.HASHLIFE_ENGINE};
+		String[] formats = {PatternFile.GRID_FORMAT, PatternFile.RLE_FORMAT, PatternFile.LIFE106_FORMAT};
+		List<Integer> sizes = Arrays.asList(new Integer[] {70,9});
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(7), sizes, 0.3);
+		for (String engine : engines) {
+			Grid grid = factory.getGrid(engine, sizes);
+			grid.setCellValues(liveCells, true);
+			for (String format : formats) {
+				Path file = this.folder.newFile().toPath();
+				PatternFile.write(grid, file, format);
+				Grid restored = factory.getGrid(engine, sizes);
+				restored.setLiveCells(PatternFile.read(file, format, sizes));
+				assertEquals(engine + " " + format, grid.getDisplay(), restored.getDisplay());
+			}
+		}
+	}
+
+	@Test
+	public void testWriteGridFormat() throws IOException {
+		List<Integer> sizes = Arrays.asList(new Integer[] {4,3,2});
+		Grid grid = factory.getGrid(sizes);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,1}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {1,0,0}), true);
+		Path file = this.folder.newFile().toPath();
+		PatternFile.write(grid, file, PatternFile.GRID_FORMAT);
+		assertEquals("# Grid size [4, 3, 2]\n1,0,0\n3,2,1\n", new String(Files.readAllBytes(file), "UTF-8"));
+	}
+
+}
@@ -0,0 +1,68 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RuleTableTest {
+
+	@After
+	public void tearDownAfter() throws Exception {
+		// Set properties back to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test
+	public void testConwayRules() {
+		RuleTable rules = new RuleTable(Arrays.asList(new Integer[] {2,3}), Arrays.asList(new Integer[] {3}), 2);
+		assertEquals(8, rules.getMaxNeighborValue());
+
+		for (int neighbors = 0; neighbors <= rules.getMaxNeighborValue(); neighbors++) {
+			assertEquals(neighbors == 2 || neighbors == 3, rules.isCellLive(true, neighbors));
+			assertEquals(neighbors == 3, rules.isCellLive(false, neighbors));
+		}
+	}
+
+	@Test
+	public void testUnreachableNeighborValuesIgnored() {
+		RuleTable rules = new RuleTable(Arrays.asList(new Integer[] {2,5}), Arrays.asList(new Integer[] {-1,1}), 1);
+		assertEquals(2, rules.getMaxNeighborValue());
+		assertTrue(rules.isCellLive(true, 2));
+		assertTrue(rules.isCellLive(false, 1));
+		assertFalse(rules.isCellLive(false, 0));
+	}
+
+	@Test
+	public void testRulesCompiledAgainWhenPropertiesChange() {
+		SetupProperties.setProperty("stay.live", "2,3");
+		RuleTable rules = GameRules.getRules(2);
+		assertSame(rules, GameRules.getRules(2));
+		assertTrue(rules.isCellLive(true, 2));
+
+		SetupProperties.setProperty("stay.live", "4");
+		RuleTable changedRules = GameRules.getRules(2);
+		assertNotSame(rules, changedRules);
+		assertFalse(changedRules.isCellLive(true, 2));
+		assertTrue(changedRules.isCellLive(true, 4));
+	}
+
+	@Test
+	public void testCellLiveWithoutDimensions() {
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+		assertTrue(GameRules.isCellLive(true, 2));
+		assertTrue(GameRules.isCellLive(false, 3));
+		assertFalse(GameRules.isCellLive(false, 2));
+		assertFalse(GameRules.isCellLive(true, 4));
+		assertFalse(GameRules.isCellLive(true, 59048));
+
+		SetupProperties.setProperty("dead.live", "3,26");
+		assertTrue(GameRules.isCellLive(false, 26));
+		assertFalse(GameRules.isCellLive(false, 27));
+	}
+
+}
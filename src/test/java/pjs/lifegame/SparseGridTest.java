@@ -0,0 +1,116 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseGridTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUpBefore() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@After
+	public void tearDownAfter() throws Exception {
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Test
+	public void testSetCellValue() {
+		Grid grid = factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {4,3,2}));
+		List<Integer> coordinate = Arrays.asList(new Integer[] {3,2,1});
+
+		grid.setCellValue(coordinate, true);
+		assertTrue(grid.getCellFromCoordinate(coordinate).getValue());
+		grid.setCellValue(coordinate, false);
+		assertFalse(grid.getCellFromCoordinate(coordinate).getValue());
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {4,0,0})));
+	}
+
+	@Test
+	public void testSameGenerationsAsTree() {
+		PackedGridTest.assertSameGenerations(GridFactory.SPARSE_ENGINE, GridFactory.TREE_ENGINE, 5,
+				new int[] {20}, new int[] {9,7}, new int[] {6,5,4}, new int[] {4,3,3,2});
+	}
+
+	@Test
+	public void testGliderOnLargeGrid() {
+		int size = 1 << 20;
+		SparseGrid grid = (SparseGrid) factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {size,size}));
+		int start = size - 10;
+		int[][] glider = {{1,0},{2,1},{0,2},{1,2},{2,2}};
+		for (int[] cell : glider) {
+			grid.setCellValue(Arrays.asList(new Integer[] {start + cell[0], start + cell[1]}), true);
+		}
+
+		// A glider moves one cell in each direction every four generations
+		grid.advanceGenerations(4, false);
+		assertEquals(5, grid.getLiveCellCount());
+		for (int[] cell : glider) {
+			assertTrue(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {start + cell[0] + 1, start + cell[1] + 1})).getValue());
+		}
+		assertTrue(grid.getDisplay().startsWith("Live cells: 5"));
+	}
+
+	@Test
+	public void testLargestGrid() {
+		// 2^21 cells in each of 3 dimensions is 2^63 cells, more than a signed long
+		Grid grid = factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1 << 21, 1 << 21, 1 << 21}));
+		assertEquals(Long.MAX_VALUE, grid.getCellCount());
+		grid.setCellValue(new int[] {(1 << 21) - 1, (1 << 21) - 1, (1 << 21) - 1}, true);
+		grid.setCellValue(new int[] {3, 2, 1}, true);
+		assertTrue(grid.getCellValue(Long.MAX_VALUE));
+
+		String separator = System.lineSeparator();
+		assertEquals("Live cells: 2" + separator + "3,2,1" + separator + "2097151,2097151,2097151" + separator,
+				grid.getDisplay());
+
+		long[] bits = new long[2];
+		grid.getCellBits((1L << 57) - 2, LongBuffer.wrap(bits));
+		assertEquals(1L << 63, bits[1]);
+	}
+
+	@Test(expected=RuntimeException.class)
+	public void testTooManyBits() {
+		factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1 << 30, 1 << 30, 1 << 30}));
+	}
+
+	@Test
+	public void testCheckDimensionsKeyBits() {
+		// 4 dimensions of 2^15 cells need 60 bits, 2^16 would need 64
+		factory.checkDimensions(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1 << 15, 1 << 15, 1 << 15, 1 << 15}));
+		try {
+			factory.checkDimensions(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {1 << 16, 1 << 16, 1 << 16, 1 << 16}));
+			fail("Coordinate does not fit in the key");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("at most 2^15 cells"));
+		}
+		// The same size is fine for the engines that do not pack the coordinate
+		factory.checkDimensions(GridFactory.HASHLIFE_ENGINE, Arrays.asList(new Integer[] {1 << 30, 1 << 30}));
+	}
+
+	@Test
+	public void testDimensionSizesCanBeChanged() {
+		List<Integer> sizes = factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {5,4})).getDimensionSizes();
+		sizes.add(3);
+		assertEquals(Arrays.asList(new Integer[] {5,4,3}), sizes);
+	}
+
+	@Test(expected=RuntimeException.class)
+	public void testDeadLiveZero() {
+		SetupProperties.setProperty("dead.live", "0,3");
+		factory.getGrid(GridFactory.SPARSE_ENGINE, Arrays.asList(new Integer[] {5,5})).advanceGeneration();
+	}
+
+}
@@ -0,0 +1,152 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StepKernelTest {
+
+	static GridFactory factory = new GridFactory();
+
+	@Before
+	public void setUp() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+		SetupProperties.setProperty("grid.kernel", StepKernel.VECTOR_KERNEL);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SetupProperties.setProperty("grid.kernel", StepKernel.SCALAR_KERNEL);
+	}
+
+	/**
+	 * Advances a random packed grid with the grid.kernel property and a tree grid with the same cells,
+	 * and checks they match bit for bit after every generation.
+	 */
+	private static void checkAgainstTree(List<Integer> sizes, double density, int generations) {
+		checkAgainstTree(GridFactory.PACKED_ENGINE, sizes, density, generations);
+	}
+
+	/**
+	 * Same as checkAgainstTree, for a grid of another engine that can use the kernel.
+	 */
+	private static void checkAgainstTree(String engine, List<Integer> sizes, double density, int generations) {
+		Grid packed = factory.getGrid(engine, sizes);
+		Grid tree = factory.getGrid(GridFactory.TREE_ENGINE, sizes);
+		Random random = new Random(sizes.hashCode());
+		for (long index = 0; index < packed.getCellCount(); index++) {
+			if (random.nextDouble() < density) {
+				packed.setCellValue(index, true);
+				tree.setCellValue(index, true);
+			}
+		}
+
+		try {
+			for (int g = 1; g <= generations; g++) {
+				packed.advanceGeneration();
+				tree.advanceGeneration();
+				assertArrayEquals(engine + " generation " + g, PackedGridTest.getBits(tree), PackedGridTest.getBits(packed));
+				assertEquals(engine + " generation " + g, tree.getLiveCellCount(), packed.getLiveCellCount());
+				assertEquals(engine + " generation " + g, tree.getStateHash(), packed.getStateHash());
+			}
+		} finally {
+			GridFactory.release(packed);
+		}
+	}
+
+	@Test
+	public void testVector1D() {
+		SetupProperties.setProperty("stay.live", "1");
+		SetupProperties.setProperty("dead.live", "1,2");
+		checkAgainstTree(Arrays.asList(300), 0.3, 8);
+	}
+
+	@Test
+	public void testVector2D() {
+		checkAgainstTree(Arrays.asList(100, 37), 0.35, 10);
+		checkAgainstTree(Arrays.asList(5, 9), 0.5, 6);
+		checkAgainstTree(Arrays.asList(64, 3), 0.5, 6);
+	}
+
+	@Test
+	public void testVector3D() {
+		SetupProperties.setProperty("stay.live", "4,5");
+		SetupProperties.setProperty("dead.live", "5");
+		checkAgainstTree(Arrays.asList(70, 11, 9), 0.2, 6);
+	}
+
+	@Test
+	public void testVector4D() {
+		SetupProperties.setProperty("stay.live", "3,4");
+		SetupProperties.setProperty("dead.live", "2,3");
+		checkAgainstTree(Arrays.asList(9, 8, 7, 6), 0.1, 5);
+	}
+
+	@Test
+	public void testVectorBirthWithNoNeighbors() {
+		SetupProperties.setProperty("stay.live", "0,8");
+		SetupProperties.setProperty("dead.live", "0,1");
+		checkAgainstTree(Arrays.asList(67, 13), 0.2, 5);
+	}
+
+	@Test
+	public void testVectorOffHeap() {
+		checkAgainstTree(GridFactory.OFFHEAP_ENGINE, Arrays.asList(100, 37), 0.35, 6);
+		checkAgainstTree(GridFactory.OFFHEAP_ENGINE, Arrays.asList(70, 11, 9), 0.2, 4);
+	}
+
+	@Test
+	public void testVectorTooManyDimensions() {
+		// Five dimensions are advanced by the scalar loop
+		checkAgainstTree(Arrays.asList(4, 4, 3, 3, 3), 0.2, 3);
+	}
+
+	@Test
+	public void testKernelChange() {
+		List<Integer> sizes = Arrays.asList(30, 20);
+		Grid packed = factory.getGrid(GridFactory.PACKED_ENGINE, sizes);
+		Grid tree = factory.getGrid(GridFactory.TREE_ENGINE, sizes);
+		Random random = new Random(7);
+		for (long index = 0; index < packed.getCellCount(); index++) {
+			if (random.nextDouble() < 0.4) {
+				packed.setCellValue(index, true);
+				tree.setCellValue(index, true);
+			}
+		}
+		for (int g = 0; g < 6; g++) {
+			SetupProperties.setProperty("grid.kernel", (g % 2 == 0) ? StepKernel.VECTOR_KERNEL : StepKernel.SCALAR_KERNEL);
+			packed.advanceGeneration();
+			tree.advanceGeneration();
+			assertArrayEquals(PackedGridTest.getBits(tree), PackedGridTest.getBits(packed));
+		}
+	}
+
+	@Test
+	public void testVectorKernelLoaded() {
+		assumeTrue(StepKernel.isVectorAvailable());
+		StepKernel kernel = StepKernel.createKernel(StepKernel.VECTOR_KERNEL);
+		assertNotNull(kernel);
+		assertEquals(4, kernel.getMaxDimensions());
+	}
+
+	@Test
+	public void testScalarKernel() {
+		assertNull(StepKernel.createKernel(StepKernel.SCALAR_KERNEL));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testInvalidKernel() {
+		SetupProperties.setProperty("grid.kernel", "simd");
+		factory.getGrid(GridFactory.PACKED_ENGINE, Arrays.asList(4, 4)).advanceGeneration();
+	}
+
+}
@@ -0,0 +1,131 @@
+package pjs.lifegame;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TiledGridTest {
+
+	static GridFactory factory = new GridFactory();
+	TiledGrid grid;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// Set properties to defaults
+		SetupProperties.setProperty("stay.live", "2,3");
+		SetupProperties.setProperty("dead.live", "3");
+	}
+
+	@Before
+	public void setUpBefore() throws Exception {
+		grid = new TiledGrid(Arrays.asList(new Integer[] {29,21,15}), 3, 0, null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		grid.close();
+	}
+
+	@Test
+	public void testTiles() {
+		assertEquals(Arrays.asList(new Integer[] {3,3,3}), grid.getTileSizes());
+		assertEquals(10 * 7 * 5, grid.getTileCount());
+		// Neighbors of a tile are within 1 + 10 + 70 tiles of it, and a layer of tiles is 70 tiles
+		assertEquals(2 * 81 + 70 + 1, grid.getWindowTiles());
+		assertEquals(grid.getWindowTiles(), grid.getCacheTiles());
+	}
+
+	@Test
+	public void testSetCellValue() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {28,20,14});
+
+		grid.setCellValue(coordinate, true);
+		assertTrue(grid.getCellFromCoordinate(coordinate).getValue());
+		assertFalse(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {27,20,14})).getValue());
+		assertNull(grid.getCellFromCoordinate(Arrays.asList(new Integer[] {29,0,0})));
+		assertEquals(1, grid.getLiveCellCount());
+		assertEquals(GridFactory.TILED_ENGINE, GridFactory.getEngine(grid));
+	}
+
+	@Test
+	public void testUpdateNeighborValues() {
+		List<Integer> coordinate = Arrays.asList(new Integer[] {2,2,0});
+		Cell mainCell = grid.getCellFromCoordinate(coordinate);
+
+		grid.setCellValue(Arrays.asList(new Integer[] {3,2,0}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {3,3,1}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {1,1,1}), true);
+		grid.setCellValue(Arrays.asList(new Integer[] {0,2,0}), true);
+
+		grid.updateNeighborValues(coordinate, mainCell);
+		assertEquals(3, mainCell.getNeighborValue());
+	}
+
+	@Test
+	public void testSameGenerationsAsPacked() {
+		// Tiles that divide the grid, that do not, and a cache too small to hold the neighbors
+		String[][] tileProperties = {{"0", "0"}, {"2", "0"}, {"2", "1"}};
+		try {
+			for (String[] properties : tileProperties) {
+				SetupProperties.setProperty("tile.size", properties[0]);
+				SetupProperties.setProperty("tile.cache", properties[1]);
+				PackedGridTest.assertSameGenerations(GridFactory.TILED_ENGINE, GridFactory.PACKED_ENGINE, 5,
+						new int[] {150}, new int[] {9,7}, new int[] {6,5,4}, new int[] {4,3,3,2});
+			}
+		} finally {
+			SetupProperties.setProperty("tile.size", "0");
+			SetupProperties.setProperty("tile.cache", "0");
+		}
+	}
+
+	@Test
+	public void testTilesReadOncePerGeneration() {
+		grid.setCellValues(PackedGridTest.getRandomCoordinates(new Random(3), grid.getDimensionSizes(), 0.3), true);
+		grid.advanceGeneration();
+
+		long reads = grid.getTileReads();
+		grid.advanceGeneration();
+		grid.advanceGeneration();
+		assertEquals(2 * grid.getTileCount(), grid.getTileReads() - reads);
+	}
+
+	@Test
+	public void testDirtyTilesWrittenBack() {
+		TiledGrid smallCache = new TiledGrid(grid.getDimensionSizes(), 3, 1, null);
+		List<List<Integer>> liveCells = PackedGridTest.getRandomCoordinates(new Random(5), grid.getDimensionSizes(), 0.3);
+		smallCache.setCellValues(liveCells, true);
+		grid.setCellValues(liveCells, true);
+
+		// Every tile but the last was removed from the cache after its cells were set
+		assertEquals(grid.getDisplay(), smallCache.getDisplay());
+		smallCache.close();
+	}
+
+	@Test
+	public void testClose() {
+		Path file = grid.getFile();
+		assertTrue(Files.exists(file));
+
+		grid.close();
+		assertFalse(Files.exists(file));
+		try {
+			grid.getCellValue(0);
+			fail("Cells cannot be read after close");
+		} catch (RuntimeException e) {
+			assertEquals("Tile file of the grid has been closed.", e.getMessage());
+		}
+
+		// Closing again does nothing
+		grid.close();
+	}
+
+}
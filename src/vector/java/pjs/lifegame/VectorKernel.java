@@ -0,0 +1,195 @@
+package pjs.lifegame;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <h1>VectorKernel</h1>
+ * Step kernel that counts the neighbors and applies the rules for a whole vector of cells at once,
+ * with the jdk.incubator.vector module. Loaded by StepKernel when grid.kernel=vector.
+ *
+ * Each generation the cell bits are copied into a byte for each cell, with a halo of dead cells one
+ * byte deep around the grid, so every cell has all of its 3^N-1 neighbors at fixed offsets. Along each
+ * row of the first dimension, the neighbor counts of a vector of cells are the sum of one vector loaded
+ * at each offset. The rules are applied by comparing the counts to each neighbor value that makes a
+ * cell live, and the resulting mask is written straight back as the bits of the next generation.
+ *
+ * The counts are kept in bytes, so grids of up to 4 dimensions (80 neighbors) are supported.
+ *
+ * @author Paul Seebald
+ * @version 1.0
+ * @since 2018-01-12
+ */
+class VectorKernel extends StepKernel {
+
+	// The lanes of a mask are written as the bits of a long, so use at most 64 lanes
+	private static final VectorSpecies<Byte> SPECIES = (ByteVector.SPECIES_PREFERRED.length() <= 64)
+			? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+
+	private static final int MAX_DIMENSIONS = 4;
+
+	// Grid size the layout was created for
+	private int[] sizes;
+
+	// One byte for each cell, with the halo. Longer than the grid, so vectors can be loaded past the last cell.
+	private byte[] padded;
+
+	// Index offsets of the neighbors in the padded bytes
+	private int[] neighborOffsets;
+
+	// Index in the padded bytes of the first cell of each row
+	private int[] rowStarts;
+
+	@Override
+	int getMaxDimensions() {
+		return MAX_DIMENSIONS;
+	}
+
+	/**
+	 * Advances the cells one generation, one vector of cells in a row at a time.
+	 * @param cells			Cell values as packed bits, see BitGrid.
+	 * @param nextCells		Buffer the same length as cells, set to the next generation.
+	 * @param sizes			Size of each dimension.
+	 * @param rules			Game rules compiled for the grid.
+	 */
+	@Override
+	void step(LongBuffer cells, LongBuffer nextCells, int[] sizes, RuleTable rules) {
+		if (!Arrays.equals(sizes, this.sizes)) {
+			this.createLayout(sizes);
+		}
+		int rowSize = sizes[0];
+		int lanes = SPECIES.length();
+
+		// Copy the cells into the padded bytes, the halo is never written so it stays dead
+		for (int row = 0, index = 0; row < this.rowStarts.length; row++) {
+			int start = this.rowStarts[row];
+			for (int x = 0; x < rowSize; x++, index++) {
+				this.padded[start + x] = (byte) ((cells.get(index >>> 6) >>> index) & 1L);
+			}
+		}
+
+		// Neighbor values that make a live cell stay live, and a dead cell become live
+		int maxNeighbors = rules.getMaxNeighborValue();
+		byte[] stayValues = new byte[maxNeighbors + 1];
+		byte[] birthValues = new byte[maxNeighbors + 1];
+		int stayCount = 0;
+		int birthCount = 0;
+		for (int neighbors = 0; neighbors <= maxNeighbors; neighbors++) {
+			if (rules.isCellLive(true, neighbors)) {
+				stayValues[stayCount++] = (byte) neighbors;
+			}
+			if (rules.isCellLive(false, neighbors)) {
+				birthValues[birthCount++] = (byte) neighbors;
+			}
+		}
+
+		for (int word = 0; word < nextCells.limit(); word++) {
+			nextCells.put(word, 0L);
+		}
+		for (int row = 0; row < this.rowStarts.length; row++) {
+			int start = this.rowStarts[row];
+			for (int x = 0; x < rowSize; x += lanes) {
+				int position = start + x;
+				ByteVector count = ByteVector.zero(SPECIES);
+				for (int offset : this.neighborOffsets) {
+					count = count.add(ByteVector.fromArray(SPECIES, this.padded, position + offset));
+				}
+
+				VectorMask<Byte> stay = SPECIES.maskAll(false);
+				for (int s = 0; s < stayCount; s++) {
+					stay = stay.or(count.compare(VectorOperators.EQ, stayValues[s]));
+				}
+				VectorMask<Byte> birth = SPECIES.maskAll(false);
+				for (int b = 0; b < birthCount; b++) {
+					birth = birth.or(count.compare(VectorOperators.EQ, birthValues[b]));
+				}
+				VectorMask<Byte> live = ByteVector.fromArray(SPECIES, this.padded, position)
+						.compare(VectorOperators.NE, (byte) 0);
+				long bits = live.and(stay).or(live.not().and(birth)).toLong();
+
+				// Lanes past the end of the row are cells of the halo or the next row, so drop them
+				int length = Math.min(lanes, rowSize - x);
+				if (length < 64) {
+					bits &= (1L << length) - 1;
+				}
+				int index = row * rowSize + x;
+				int word = index >>> 6;
+				int shift = index & 63;
+				nextCells.put(word, nextCells.get(word) | (bits << shift));
+				if (shift + length > 64) {
+					nextCells.put(word + 1, nextCells.get(word + 1) | (bits >>> (64 - shift)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the padded bytes, the neighbor offsets and the row starts for a grid size.
+	 * @param sizes		Size of each dimension.
+	 */
+	private void createLayout(int[] sizes) {
+		int dimensions = sizes.length;
+		if (dimensions > MAX_DIMENSIONS) {
+			throw new RuntimeException("The vector kernel can only advance grids of up to " + MAX_DIMENSIONS
+					+ " dimensions, it was: " + dimensions);
+		}
+
+		int[] paddedStrides = new int[dimensions];
+		long paddedCount = 1;
+		for (int d = 0; d < dimensions; d++) {
+			paddedStrides[d] = (int) paddedCount;
+			paddedCount *= sizes[d] + 2;
+		}
+		if (paddedCount + 2 * SPECIES.length() > Integer.MAX_VALUE) {
+			throw new RuntimeException("Grid size " + Arrays.toString(sizes) + " has too many cells for the vector kernel.");
+		}
+
+		// Every offset from -1 to 1 in each dimension, except the cell itself, like an odometer
+		int offsets = 1;
+		for (int d = 0; d < dimensions; d++) {
+			offsets *= 3;
+		}
+		this.neighborOffsets = new int[offsets - 1];
+		int[] offset = new int[dimensions];
+		Arrays.fill(offset, -1);
+		for (int i = 0, n = 0; i < offsets; i++) {
+			int indexOffset = 0;
+			for (int d = 0; d < dimensions; d++) {
+				indexOffset += offset[d] * paddedStrides[d];
+			}
+			if (indexOffset != 0) {
+				this.neighborOffsets[n++] = indexOffset;
+			}
+			for (int d = 0; d < dimensions && ++offset[d] > 1; d++) {
+				offset[d] = -1;
+			}
+		}
+
+		// Start of each row, moving through the coordinates of the higher dimensions
+		int rows = 1;
+		for (int d = 1; d < dimensions; d++) {
+			rows *= sizes[d];
+		}
+		this.rowStarts = new int[rows];
+		int[] coordinate = new int[dimensions];
+		for (int row = 0; row < rows; row++) {
+			int start = 1;
+			for (int d = 1; d < dimensions; d++) {
+				start += (coordinate[d] + 1) * paddedStrides[d];
+			}
+			this.rowStarts[row] = start;
+			for (int d = 1; d < dimensions && ++coordinate[d] == sizes[d]; d++) {
+				coordinate[d] = 0;
+			}
+		}
+
+		this.padded = new byte[(int) paddedCount + 2 * SPECIES.length()];
+		this.sizes = sizes.clone();
+	}
+
+}